@@ -0,0 +1,38 @@
+package com.tgt.crm.token.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.tgt.crm.token.core.SalesforceAuthResponse;
+import com.tgt.crm.token.core.SalesforceToken;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Reads a token response with an ObjectMapper configured the way Spring's message converters and
+ * codecs configure theirs, and turns it into the token used by requests.
+ */
+@State(Scope.Benchmark)
+public class AuthResponseDeserializationBenchmark {
+
+  private final byte[] authResponse = StubTransport.AUTH_RESPONSE.getBytes(StandardCharsets.UTF_8);
+  private ObjectReader reader;
+
+  @Setup
+  public void init() {
+    reader = Jackson2ObjectMapperBuilder.json().build().readerFor(SalesforceAuthResponse.class);
+  }
+
+  @Benchmark
+  public SalesforceAuthResponse deserialize() throws IOException {
+    return reader.readValue(authResponse);
+  }
+
+  @Benchmark
+  public SalesforceToken deserializeToToken() throws IOException {
+    return SalesforceToken.from(reader.readValue(authResponse), 1);
+  }
+}
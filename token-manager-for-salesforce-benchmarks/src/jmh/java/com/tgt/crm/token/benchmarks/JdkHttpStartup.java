@@ -0,0 +1,26 @@
+package com.tgt.crm.token.benchmarks;
+
+import com.tgt.crm.token.jdkhttp.SalesforceHttpClient;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+
+/** A {@link StartupFootprint} run of the jdkhttp module, on its runtime classpath. */
+public final class JdkHttpStartup {
+
+  private JdkHttpStartup() {}
+
+  /**
+   * Makes one query and reports the footprint.
+   *
+   * @param args the host of the org
+   * @throws IOException if the query failed
+   * @throws InterruptedException if interrupted while waiting for the response
+   */
+  public static void main(final String... args) throws IOException, InterruptedException {
+    SalesforceHttpClient client =
+        SalesforceHttpClient.builder(StartupRunHelper.salesforceConfig(args[0])).build();
+    client.send(
+        client.newRequest(StartupRunHelper.QUERY).build(), HttpResponse.BodyHandlers.ofString());
+    StartupRunHelper.report();
+  }
+}
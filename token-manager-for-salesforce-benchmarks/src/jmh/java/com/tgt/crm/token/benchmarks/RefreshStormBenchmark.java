@@ -0,0 +1,70 @@
+package com.tgt.crm.token.benchmarks;
+
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenManager;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Every request gets a 401 and asks for its token to be replaced, from many threads at once. Calls
+ * arriving while a refresh is in flight should join it, so the tokenRequests counter stays well
+ * below the number of operations once logging in takes time.
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+public class RefreshStormBenchmark {
+
+  /** Simulated latency of the OAuth endpoint, milliseconds. */
+  @Param({"0", "5"})
+  private long loginLatency;
+
+  private final ThreadLocal<Counters> counters = new ThreadLocal<>();
+  private TokenManager tokenManager;
+
+  @Setup
+  public void init() {
+    Executor login =
+        loginLatency == 0
+            ? Runnable::run
+            : CompletableFuture.delayedExecutor(loginLatency, TimeUnit.MILLISECONDS);
+    tokenManager =
+        new TokenManager(
+            () -> {
+              // the token is requested on the thread that won the refresh
+              Counters threadCounters = counters.get();
+              if (threadCounters != null) {
+                threadCounters.tokenRequests++;
+              }
+              return CompletableFuture.supplyAsync(StubTransport::authResponse, login);
+            });
+    tokenManager.getToken().join();
+  }
+
+  @Benchmark
+  public SalesforceToken rejectedToken(final Counters threadCounters) {
+    return tokenManager.refreshToken(tokenManager.getCachedToken()).join();
+  }
+
+  /** Token requests made by each benchmark thread. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+
+    public long tokenRequests;
+
+    @Setup(Level.Iteration)
+    public void register(final RefreshStormBenchmark benchmark) {
+      tokenRequests = 0;
+      benchmark.counters.set(this);
+    }
+  }
+}
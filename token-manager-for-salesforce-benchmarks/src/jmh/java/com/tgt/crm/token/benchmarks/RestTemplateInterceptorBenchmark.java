@@ -0,0 +1,84 @@
+package com.tgt.crm.token.benchmarks;
+
+import static com.tgt.crm.token.benchmarks.StubTransport.AUTH_RESPONSE;
+import static com.tgt.crm.token.benchmarks.StubTransport.HOST;
+import static com.tgt.crm.token.benchmarks.StubTransport.QUERY_RESPONSE;
+import static com.tgt.crm.token.benchmarks.StubTransport.QUERY_URL;
+
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.InMemoryTokenStore;
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenStore;
+import com.tgt.crm.token.mvc.SalesforceMvcAuthClient;
+import com.tgt.crm.token.mvc.SalesforceMvcOrgRegistry;
+import com.tgt.crm.token.mvc.SalesforceRestTemplateInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * {@link SalesforceRestTemplateInterceptor#intercept} with a cached token, against the same request
+ * passed straight to the execution. The difference is what the interceptor adds to each call.
+ */
+@State(Scope.Benchmark)
+public class RestTemplateInterceptorBenchmark {
+
+  private static final byte[] EMPTY_BODY = new byte[0];
+
+  private SalesforceRestTemplateInterceptor interceptor;
+  private ClientHttpRequestExecution execution;
+
+  @Setup
+  public void init() {
+    SalesforceConfig salesforceConfig = StubTransport.salesforceConfig();
+    TokenStore tokenStore = new InMemoryTokenStore();
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RestTemplate authRestTemplate =
+        new RestTemplateBuilder()
+            .rootUri(HOST)
+            .requestFactory(() -> StubTransport.requestFactory(AUTH_RESPONSE))
+            .build();
+    SalesforceMvcAuthClient authClient =
+        new SalesforceMvcAuthClient(
+            salesforceConfig,
+            TokenGrant.fromConfig(salesforceConfig),
+            tokenStore,
+            authRestTemplate,
+            meterRegistry);
+    interceptor =
+        new SalesforceRestTemplateInterceptor(
+            new SalesforceMvcOrgRegistry(
+                authClient,
+                salesforceConfig,
+                new RestTemplateBuilder(),
+                tokenStore,
+                new ApiLimitConfig(),
+                meterRegistry));
+    ClientHttpResponse response = StubTransport.mvcResponse(QUERY_RESPONSE);
+    execution = (request, body) -> response;
+    // the first token request is not part of the measurement
+    authClient.getSalesforceToken();
+  }
+
+  @Benchmark
+  public ClientHttpResponse intercept() throws IOException {
+    return interceptor.intercept(
+        new MockClientHttpRequest(HttpMethod.GET, QUERY_URL), EMPTY_BODY, execution);
+  }
+
+  @Benchmark
+  public ClientHttpResponse baseline() throws IOException {
+    return execution.execute(new MockClientHttpRequest(HttpMethod.GET, QUERY_URL), EMPTY_BODY);
+  }
+}
@@ -0,0 +1,152 @@
+package com.tgt.crm.token.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.tgt.crm.token.core.SalesforceSimulator;
+import com.tgt.crm.token.core.SimulatorConfig;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Start-up time and footprint of an application that only needs an authenticated Salesforce client,
+ * with each module. Every run starts a new JVM that makes one query and reports the time to the
+ * response, the heap used after a full gc and the number of loaded classes, so class loading and
+ * initialization are part of the measurement. That is why this is a plain program rather than a JMH
+ * benchmark. The org is a {@link SalesforceSimulator} running in this JVM.
+ *
+ * <p>Each run is started on the runtime classpath of its module, which the startupFootprint task
+ * passes in the startupFootprint.classpath.&lt;module&gt; system properties, so a run only finds
+ * what an application depending on the module would. The Spring modules start a non-web application
+ * context with auto-configuration, as a batch job using them would.
+ */
+@SuppressWarnings("PMD.SystemPrintln")
+public class StartupFootprint {
+
+  private static final String CLASSPATH_PROPERTY = "startupFootprint.classpath.";
+  private static final int DEFAULT_RUNS = 5;
+  private static final double MB = 1024 * 1024;
+
+  private final int runs;
+
+  public StartupFootprint(final int runs) {
+    this.runs = runs;
+  }
+
+  /**
+   * Compares the modules.
+   *
+   * @param args the number of runs per module, defaults to 5
+   * @throws IOException if a run could not be started
+   * @throws InterruptedException if interrupted while waiting for a run
+   */
+  public static void main(final String... args) throws IOException, InterruptedException {
+    new StartupFootprint(args.length == 0 ? DEFAULT_RUNS : Integer.parseInt(args[0])).compare();
+  }
+
+  /** Prints the median of each measurement over the runs of every module. */
+  public void compare() throws IOException, InterruptedException {
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(new SalesforceSimulator(new SimulatorConfig()));
+    server.start();
+    try {
+      String host = "http://localhost:" + server.getPort();
+      System.out.printf(
+          "%-8s %12s %12s %10s %10s%n", "module", "process ms", "uptime ms", "heap MB", "classes");
+      long[][] samples = new long[runs][];
+      for (Module module : Module.values()) {
+        for (int run = 0; run < runs; run++) {
+          samples[run] = fork(module, host);
+        }
+        System.out.printf(
+            "%-8s %12d %12d %10.1f %10d%n",
+            module.getName(),
+            median(samples, 0),
+            median(samples, 1),
+            median(samples, 2) / MB,
+            median(samples, 3));
+      }
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  /**
+   * Runs a module in a new JVM.
+   *
+   * @return milliseconds from starting the process to the response, the JVM uptime at the response,
+   *     heap used and loaded classes
+   */
+  private static long[] fork(final Module module, final String host)
+      throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    Process process =
+        new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp",
+                module.getClasspath(),
+                module.getRun().getName(),
+                host)
+            .redirectErrorStream(true)
+            .start();
+    StringBuilder output = new StringBuilder();
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8))) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (line.startsWith(StartupRunHelper.RESULT)) {
+          long elapsed = (System.nanoTime() - start) / 1_000_000;
+          String[] values = line.substring(StartupRunHelper.RESULT.length()).split(" ");
+          return new long[] {
+            elapsed, Long.parseLong(values[0]), Long.parseLong(values[1]), Long.parseLong(values[2])
+          };
+        }
+        output.append(line).append(System.lineSeparator());
+      }
+    } finally {
+      // the run is over once it reported, don't wait for the application to shut down
+      process.destroy();
+      process.waitFor();
+    }
+    throw new IllegalStateException(module.getName() + " did not report a result:\n" + output);
+  }
+
+  private static long median(final long[][] samples, final int column) {
+    long[] values = Arrays.stream(samples).mapToLong(sample -> sample[column]).sorted().toArray();
+    return values[values.length / 2];
+  }
+
+  private enum Module {
+    JDKHTTP(JdkHttpStartup.class),
+    WEBFLUX(WebfluxStartup.class),
+    WEBMVC(WebMvcStartup.class);
+
+    private final Class<?> run;
+
+    Module(final Class<?> run) {
+      this.run = run;
+    }
+
+    private String getName() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+
+    private Class<?> getRun() {
+      return run;
+    }
+
+    private String getClasspath() {
+      String classpath = System.getProperty(CLASSPATH_PROPERTY + getName());
+      if (classpath == null) {
+        throw new IllegalStateException(
+            "no classpath for "
+                + getName()
+                + ", run StartupFootprint with the startupFootprint task of the benchmarks module");
+      }
+      return classpath;
+    }
+  }
+}
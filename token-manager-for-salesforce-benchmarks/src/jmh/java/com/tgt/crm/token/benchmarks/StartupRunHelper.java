@@ -0,0 +1,63 @@
+package com.tgt.crm.token.benchmarks;
+
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceSimulator;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * What the runs of {@link StartupFootprint} share. A run starts on the runtime classpath of its
+ * module only, so this uses nothing but core and the JDK.
+ */
+@SuppressWarnings({"PMD.SystemPrintln", "PMD.DefaultPackage"})
+final class StartupRunHelper {
+
+  static final String RESULT = "startup-footprint:";
+  // a constant, so the run does not load the simulator of the core test fixtures
+  static final String QUERY = SalesforceSimulator.QUERY_PATH + "?q=SELECT+Id+FROM+Account";
+
+  private static final String USERNAME = "username";
+  private static final String PASSWORD = "password";
+  private static final String CLIENT_ID = "clientId";
+  private static final String CLIENT_SECRET = "clientSecret";
+
+  private StartupRunHelper() {}
+
+  static SalesforceConfig salesforceConfig(final String host) {
+    SalesforceConfig salesforceConfig = new SalesforceConfig();
+    salesforceConfig.setHost(host);
+    salesforceConfig.setUsername(USERNAME);
+    salesforceConfig.setPassword(PASSWORD);
+    salesforceConfig.setClientId(CLIENT_ID);
+    salesforceConfig.setClientSecret(CLIENT_SECRET);
+    return salesforceConfig;
+  }
+
+  /** The same org as {@link #salesforceConfig}, as properties of a Spring application. */
+  static String[] springProperties(final String host) {
+    return new String[] {
+      "salesforce.host=" + host,
+      "salesforce.username=" + USERNAME,
+      "salesforce.password=" + PASSWORD,
+      "salesforce.client-id=" + CLIENT_ID,
+      "salesforce.client-secret=" + CLIENT_SECRET
+    };
+  }
+
+  /**
+   * Reports the uptime, heap used after a full gc and loaded classes of the run's JVM, before the
+   * application is shut down.
+   */
+  static void report() {
+    long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    memory.gc();
+    System.out.println(
+        RESULT
+            + uptime
+            + " "
+            + memory.getHeapMemoryUsage().getUsed()
+            + " "
+            + ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+  }
+}
@@ -0,0 +1,96 @@
+package com.tgt.crm.token.benchmarks;
+
+import static com.tgt.crm.token.core.SalesforceConstants.LIMIT_INFO_HEADER;
+
+import com.tgt.crm.token.core.SalesforceAuthResponse;
+import com.tgt.crm.token.core.SalesforceConfig;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunctions;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-process stand-ins for Salesforce, so the benchmarks measure what the library adds to a call
+ * rather than the network. Requests are still written, so header handling is included.
+ */
+public final class StubTransport {
+
+  public static final String HOST = "https://benchmark.my.salesforce.com";
+  public static final URI QUERY_URL =
+      URI.create(HOST + "/services/data/v52.0/query?q=SELECT+Id+FROM+Account");
+  public static final String AUTH_RESPONSE =
+      "{\"access_token\":\"00D000000000001!AQ0AQBenchmarkAccessToken\","
+          + "\"instance_url\":\""
+          + HOST
+          + "\",\"id\":\"https://login.salesforce.com/id/00D000000000001/005000000000001\","
+          + "\"token_type\":\"Bearer\",\"issued_at\":\"1626730000000\","
+          + "\"signature\":\"benchmarkSignature\"}";
+  public static final String QUERY_RESPONSE =
+      "{\"totalSize\":1,\"done\":true,\"records\":[{\"Id\":\"001000000000001AAA\"}]}";
+  public static final String LIMIT_INFO = "api-usage=25/15000";
+
+  private StubTransport() {}
+
+  public static SalesforceConfig salesforceConfig() {
+    SalesforceConfig salesforceConfig = new SalesforceConfig();
+    salesforceConfig.setHost(HOST);
+    salesforceConfig.setUsername("username");
+    salesforceConfig.setPassword("password");
+    salesforceConfig.setClientId("clientId");
+    salesforceConfig.setClientSecret("clientSecret");
+    return salesforceConfig;
+  }
+
+  public static SalesforceAuthResponse authResponse() {
+    SalesforceAuthResponse authResponse = new SalesforceAuthResponse();
+    authResponse.setAccessToken("00D000000000001!AQ0AQBenchmarkAccessToken");
+    authResponse.setTokenType("Bearer");
+    authResponse.setInstanceUrl(HOST);
+    authResponse.setIssuedAt("1626730000000");
+    return authResponse;
+  }
+
+  /** RestTemplate request factory answering every request with a 200 and the given JSON body. */
+  public static ClientHttpRequestFactory requestFactory(final String body) {
+    return (uri, method) -> {
+      MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+      request.setResponse(mvcResponse(body));
+      return request;
+    };
+  }
+
+  public static MockClientHttpResponse mvcResponse(final String body) {
+    MockClientHttpResponse response =
+        new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    response.getHeaders().set(LIMIT_INFO_HEADER, LIMIT_INFO);
+    return response;
+  }
+
+  /** WebClient exchange that writes each request and answers with a 200 and the given body. */
+  public static ExchangeFunction exchangeFunction(final String body) {
+    return ExchangeFunctions.create(
+        (method, uri, requestCallback) ->
+            requestCallback
+                .apply(
+                    new org.springframework.mock.http.client.reactive.MockClientHttpRequest(
+                        method, uri))
+                .then(Mono.fromSupplier(() -> webfluxResponse(body))));
+  }
+
+  private static org.springframework.mock.http.client.reactive.MockClientHttpResponse
+      webfluxResponse(final String body) {
+    org.springframework.mock.http.client.reactive.MockClientHttpResponse response =
+        new org.springframework.mock.http.client.reactive.MockClientHttpResponse(HttpStatus.OK);
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    response.getHeaders().set(LIMIT_INFO_HEADER, LIMIT_INFO);
+    response.setBody(body);
+    return response;
+  }
+}
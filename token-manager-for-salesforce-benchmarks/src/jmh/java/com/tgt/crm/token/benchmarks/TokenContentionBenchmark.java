@@ -0,0 +1,87 @@
+package com.tgt.crm.token.benchmarks;
+
+import static com.tgt.crm.token.benchmarks.StubTransport.AUTH_RESPONSE;
+import static com.tgt.crm.token.benchmarks.StubTransport.HOST;
+
+import com.tgt.crm.token.core.InMemoryTokenStore;
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenManager;
+import com.tgt.crm.token.mvc.SalesforceMvcAuthClient;
+import com.tgt.crm.token.webflux.SalesforceWebfluxAuthClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Reads the cached token from many threads at once, as every request does. Override the thread
+ * count with -t to see how the read scales.
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+public class TokenContentionBenchmark {
+
+  private TokenManager tokenManager;
+  private SalesforceMvcAuthClient mvcAuthClient;
+  private SalesforceWebfluxAuthClient webfluxAuthClient;
+
+  @Setup
+  public void init() {
+    SalesforceConfig salesforceConfig = StubTransport.salesforceConfig();
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    tokenManager =
+        new TokenManager(() -> CompletableFuture.completedFuture(StubTransport.authResponse()));
+    mvcAuthClient =
+        new SalesforceMvcAuthClient(
+            salesforceConfig,
+            TokenGrant.fromConfig(salesforceConfig),
+            new InMemoryTokenStore(),
+            new RestTemplateBuilder()
+                .rootUri(HOST)
+                .requestFactory(() -> StubTransport.requestFactory(AUTH_RESPONSE))
+                .build(),
+            meterRegistry);
+    webfluxAuthClient =
+        new SalesforceWebfluxAuthClient(
+            WebClient.builder()
+                .baseUrl(HOST)
+                .exchangeFunction(StubTransport.exchangeFunction(AUTH_RESPONSE))
+                .build(),
+            salesforceConfig,
+            TokenGrant.fromConfig(salesforceConfig),
+            new InMemoryTokenStore(),
+            meterRegistry);
+    // the first token request is not part of the measurement
+    tokenManager.getToken().join();
+    mvcAuthClient.getSalesforceToken();
+    webfluxAuthClient.getSalesforceToken().block();
+  }
+
+  @Benchmark
+  public SalesforceToken tokenManagerGetToken() {
+    return tokenManager.getToken().join();
+  }
+
+  @Benchmark
+  public SalesforceToken mvcGetSalesforceToken() {
+    return mvcAuthClient.getSalesforceToken();
+  }
+
+  @Benchmark
+  public SalesforceToken webfluxGetSalesforceToken() {
+    return webfluxAuthClient.getSalesforceToken().block();
+  }
+
+  @Benchmark
+  public String mvcGetToken() {
+    return mvcAuthClient.getToken();
+  }
+}
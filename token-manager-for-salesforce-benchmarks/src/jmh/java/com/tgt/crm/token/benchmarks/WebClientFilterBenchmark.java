@@ -0,0 +1,97 @@
+package com.tgt.crm.token.benchmarks;
+
+import static com.tgt.crm.token.benchmarks.StubTransport.AUTH_RESPONSE;
+import static com.tgt.crm.token.benchmarks.StubTransport.HOST;
+import static com.tgt.crm.token.benchmarks.StubTransport.QUERY_RESPONSE;
+import static com.tgt.crm.token.benchmarks.StubTransport.QUERY_URL;
+
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.CompositeBatchConfig;
+import com.tgt.crm.token.core.HttpClientConfig;
+import com.tgt.crm.token.core.InMemoryTokenStore;
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenStore;
+import com.tgt.crm.token.webflux.SalesforceCompositeBatchFilter;
+import com.tgt.crm.token.webflux.SalesforceWebClient;
+import com.tgt.crm.token.webflux.SalesforceWebfluxAuthClient;
+import com.tgt.crm.token.webflux.SalesforceWebfluxOrgRegistry;
+import com.tgt.crm.token.webflux.WebfluxHttpClientConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * A query through the WebClient built by {@link SalesforceWebClient} with a cached token, against a
+ * plain WebClient on the same in-process exchange. The difference is what the filter chain adds to
+ * each call. With admission control enabled the filter also reads the Reactor Context.
+ */
+@State(Scope.Benchmark)
+public class WebClientFilterBenchmark {
+
+  @Param({"false", "true"})
+  private boolean admissionControl;
+
+  private WebClient salesforceWebClient;
+  private WebClient plainWebClient;
+
+  @Setup
+  public void init() {
+    SalesforceConfig salesforceConfig = StubTransport.salesforceConfig();
+    TokenStore tokenStore = new InMemoryTokenStore();
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ApiLimitConfig apiLimitConfig = new ApiLimitConfig();
+    apiLimitConfig.setEnabled(admissionControl);
+    WebClient authWebClient =
+        WebClient.builder()
+            .baseUrl(HOST)
+            .exchangeFunction(StubTransport.exchangeFunction(AUTH_RESPONSE))
+            .build();
+    SalesforceWebfluxAuthClient authClient =
+        new SalesforceWebfluxAuthClient(
+            authWebClient,
+            salesforceConfig,
+            TokenGrant.fromConfig(salesforceConfig),
+            tokenStore,
+            meterRegistry);
+    SalesforceWebfluxOrgRegistry orgRegistry =
+        new SalesforceWebfluxOrgRegistry(
+            authClient, authWebClient, salesforceConfig, tokenStore, apiLimitConfig, meterRegistry);
+    ExchangeFunction exchangeFunction = StubTransport.exchangeFunction(QUERY_RESPONSE);
+    // an exchange function set on the builder takes the place of the Reactor Netty connector
+    salesforceWebClient =
+        new SalesforceWebClient(
+                orgRegistry,
+                salesforceConfig,
+                new HttpClientConfig(),
+                new WebfluxHttpClientConfig(),
+                apiLimitConfig,
+                new SalesforceCompositeBatchFilter(
+                    new CompositeBatchConfig(), meterRegistry, ExchangeStrategies.withDefaults()))
+            .sfWebClientWiretap(WebClient.builder().exchangeFunction(exchangeFunction));
+    plainWebClient = WebClient.builder().baseUrl(HOST).exchangeFunction(exchangeFunction).build();
+    // the first token request is not part of the measurement
+    authClient.getSalesforceToken().block();
+  }
+
+  @Benchmark
+  public String salesforceQuery() {
+    return query(salesforceWebClient);
+  }
+
+  @Benchmark
+  public String baseline() {
+    return query(plainWebClient);
+  }
+
+  private static String query(final WebClient webClient) {
+    return webClient.get().uri(QUERY_URL).retrieve().bodyToMono(String.class).block();
+  }
+}
@@ -0,0 +1,39 @@
+package com.tgt.crm.token.benchmarks;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * A {@link StartupFootprint} run of the webmvc module, on its runtime classpath. It starts a
+ * non-web application context with auto-configuration, as a batch job using the module would.
+ */
+public final class WebMvcStartup {
+
+  private WebMvcStartup() {}
+
+  /**
+   * Makes one query and reports the footprint.
+   *
+   * @param args the host of the org
+   */
+  public static void main(final String... args) {
+    try (ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(Application.class)
+            .web(WebApplicationType.NONE)
+            .properties(StartupRunHelper.springProperties(args[0]))
+            .run()) {
+      context
+          .getBean("sfRestTemplate", RestTemplate.class)
+          .getForObject(StartupRunHelper.QUERY, String.class);
+      StartupRunHelper.report();
+    }
+  }
+
+  @SpringBootConfiguration
+  @EnableAutoConfiguration
+  static class Application {}
+}
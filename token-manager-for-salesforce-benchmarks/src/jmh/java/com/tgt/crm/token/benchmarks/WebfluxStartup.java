@@ -0,0 +1,44 @@
+package com.tgt.crm.token.benchmarks;
+
+import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * A {@link StartupFootprint} run of the webflux module, on its runtime classpath. It starts a
+ * non-web application context with auto-configuration, as a batch job using the module would.
+ */
+public final class WebfluxStartup {
+
+  private WebfluxStartup() {}
+
+  /**
+   * Makes one query and reports the footprint.
+   *
+   * @param args the host of the org
+   */
+  public static void main(final String... args) {
+    try (ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(Application.class)
+            .web(WebApplicationType.NONE)
+            .properties(StartupRunHelper.springProperties(args[0]))
+            .run()) {
+      BeanFactoryAnnotationUtils.qualifiedBeanOfType(
+              context.getBeanFactory(), WebClient.class, "sfWebClient")
+          .get()
+          .uri(StartupRunHelper.QUERY)
+          .retrieve()
+          .bodyToMono(String.class)
+          .block();
+      StartupRunHelper.report();
+    }
+  }
+
+  @SpringBootConfiguration
+  @EnableAutoConfiguration
+  static class Application {}
+}
@@ -0,0 +1,18 @@
+package com.tgt.crm.token.core;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("salesforce.api-limit")
+public class ApiLimitConfig {
+
+  // enables admission control, the api usage reported by Salesforce is always tracked
+  private boolean enabled;
+  // share of the org's daily api requests used from which low priority requests are delayed
+  private double throttleThreshold = 0.8;
+  // share of the org's daily api requests used from which low priority requests are rejected
+  private double shedThreshold = 0.95;
+  // delay of a low priority request just below the shed threshold, shorter the lower the usage
+  private long maxDelay = 1000; // milliseconds
+}
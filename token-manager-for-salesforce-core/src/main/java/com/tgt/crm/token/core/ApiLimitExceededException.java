@@ -0,0 +1,11 @@
+package com.tgt.crm.token.core;
+
+/** Thrown instead of sending a low priority request while the org is close to its api limit. */
+public class ApiLimitExceededException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public ApiLimitExceededException(final String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,123 @@
+package com.tgt.crm.token.core;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the daily api usage of an org as reported by Salesforce in the Sforce-Limit-Info header of
+ * each REST response, for example {@code api-usage=25/15000}, and decides whether a request may be
+ * sent.
+ *
+ * <p>With admission control enabled, requests with {@link RequestPriority#LOW low priority} are
+ * delayed once the usage reaches the throttle threshold, increasingly so the closer it gets to the
+ * shed threshold, and rejected with an {@link ApiLimitExceededException} from the shed threshold
+ * on. Other requests are always sent, so the remaining requests are left to them.
+ */
+@Slf4j
+public class ApiLimitTracker {
+
+  private static final Pattern API_USAGE = Pattern.compile("(?<![\\w-])api-usage=(\\d+)/(\\d+)");
+
+  private final String orgName;
+  private final ApiLimitConfig config;
+  // used and limit are published together, so a reader never pairs a new usage with an old limit
+  private final AtomicReference<ApiUsage> apiUsage = new AtomicReference<>(new ApiUsage(0, 0));
+
+  public ApiLimitTracker(final String org, final ApiLimitConfig config) {
+    if (config.getThrottleThreshold() <= 0
+        || config.getThrottleThreshold() > config.getShedThreshold()
+        || config.getShedThreshold() > 1) {
+      throw new IllegalArgumentException(
+          "salesforce.api-limit thresholds must satisfy 0 < throttle-threshold <= shed-threshold"
+              + " <= 1");
+    }
+    this.orgName = org;
+    this.config = config;
+  }
+
+  /**
+   * Records the api usage reported with a response. Headers without api usage, such as responses
+   * that are not from the REST API, are ignored.
+   *
+   * @param limitInfo value of the Sforce-Limit-Info header, may be null
+   */
+  public void update(final String limitInfo) {
+    if (limitInfo == null) {
+      return;
+    }
+    Matcher matcher = API_USAGE.matcher(limitInfo);
+    if (matcher.find()) {
+      try {
+        apiUsage.set(
+            new ApiUsage(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))));
+      } catch (NumberFormatException e) {
+        log.debug("ignoring Sforce-Limit-Info {} that could not be parsed", limitInfo, e);
+      }
+    }
+  }
+
+  public long getUsed() {
+    return apiUsage.get().getUsed();
+  }
+
+  public long getLimit() {
+    return apiUsage.get().getLimit();
+  }
+
+  /**
+   * Share of the org's daily api requests used.
+   *
+   * @return the last reported usage between 0 and 1, 0 until Salesforce reported it
+   */
+  public double getUsage() {
+    return apiUsage.get().share();
+  }
+
+  /**
+   * Decides whether a request may be sent.
+   *
+   * @param priority the request's priority
+   * @return how long to delay the request, milliseconds
+   * @throws ApiLimitExceededException if the request must not be sent
+   */
+  public long admissionDelay(final RequestPriority priority) {
+    if (!config.isEnabled() || priority != RequestPriority.LOW) {
+      return 0;
+    }
+    ApiUsage current = apiUsage.get();
+    double usage = current.share();
+    if (usage >= config.getShedThreshold()) {
+      throw new ApiLimitExceededException(
+          "salesforce org "
+              + orgName
+              + " used "
+              + current.getUsed()
+              + " of "
+              + current.getLimit()
+              + " api requests, low priority request rejected");
+    }
+    if (usage < config.getThrottleThreshold()) {
+      return 0;
+    }
+    return (long)
+        (config.getMaxDelay()
+            * (usage - config.getThrottleThreshold())
+            / (config.getShedThreshold() - config.getThrottleThreshold()));
+  }
+
+  @Getter
+  @AllArgsConstructor
+  private static final class ApiUsage {
+
+    private final long used;
+    private final long limit;
+
+    double share() {
+      return limit == 0 ? 0 : Math.min(1, (double) used / limit);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.tgt.crm.token.core;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stops calling the Salesforce OAuth endpoint after repeated failed token requests, for example
+ * because the credentials are wrong or the endpoint is down, so callers fail fast instead of each
+ * waiting for another retry cycle.
+ *
+ * <p>After the configured number of consecutive failures the circuit opens and token requests are
+ * rejected for the open duration. The first token request after that is let through as a probe
+ * while any others are still rejected. A successful probe closes the circuit, a failed one opens it
+ * for another open duration.
+ */
+@Slf4j
+public class AuthCircuitBreaker {
+
+  /** State of the circuit, the ordinal is reported as a gauge. */
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openDuration;
+  private final Clock clock;
+  private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+  private final AtomicInteger failures = new AtomicInteger();
+  private final AtomicLong openedAt = new AtomicLong();
+
+  /**
+   * Creates a circuit breaker.
+   *
+   * @param failureThreshold consecutive failures that open the circuit, 0 never opens it
+   * @param openDuration how long token requests are rejected, milliseconds
+   */
+  public AuthCircuitBreaker(final int failureThreshold, final long openDuration) {
+    this(failureThreshold, openDuration, Clock.systemUTC());
+  }
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  AuthCircuitBreaker(final int failureThreshold, final long openDuration, final Clock clock) {
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.clock = clock;
+  }
+
+  /**
+   * Creates a circuit breaker configured by the org's auth-failure-threshold and
+   * auth-circuit-open-duration properties.
+   *
+   * @param salesforceConfig the org's config
+   * @return the circuit breaker
+   */
+  public static AuthCircuitBreaker fromConfig(final SalesforceConfig salesforceConfig) {
+    return new AuthCircuitBreaker(
+        salesforceConfig.getAuthFailureThreshold(), salesforceConfig.getAuthCircuitOpenDuration());
+  }
+
+  public State getState() {
+    return state.get();
+  }
+
+  /**
+   * Decides whether a token may be requested. Every permitted request must be followed by a call to
+   * {@link #onSuccess()} or {@link #onFailure()}.
+   *
+   * @return true if the token may be requested, false if the circuit is open
+   */
+  public boolean tryAcquire() {
+    State current = state.get();
+    if (current == State.CLOSED) {
+      return true;
+    }
+    if (current == State.OPEN
+        && clock.millis() - openedAt.get() >= openDuration
+        && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+      log.info("auth circuit half open, probing the salesforce oauth endpoint");
+      return true;
+    }
+    return false;
+  }
+
+  /** Records a token request that succeeded, closing the circuit. */
+  public void onSuccess() {
+    failures.set(0);
+    if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+      log.info("auth circuit closed, token request succeeded");
+    }
+  }
+
+  /** Records a token request that failed, opening the circuit once the threshold is reached. */
+  public void onFailure() {
+    if (failureThreshold <= 0) {
+      return;
+    }
+    if (state.get() == State.HALF_OPEN || failures.incrementAndGet() >= failureThreshold) {
+      openedAt.set(clock.millis());
+      state.set(State.OPEN);
+      log.warn(
+          "auth circuit open, token requests fail fast for {} ms after {} failures",
+          openDuration,
+          failures.get());
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.tgt.crm.token.core;
+
+/**
+ * Fails a token request without calling Salesforce while the {@link AuthCircuitBreaker} is open.
+ */
+public class AuthCircuitOpenException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public AuthCircuitOpenException(final String message) {
+    super(message);
+  }
+
+  public AuthCircuitOpenException(final String message, final Throwable cause) {
+    super(message, cause);
+  }
+}
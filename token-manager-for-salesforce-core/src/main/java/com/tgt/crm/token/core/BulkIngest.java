@@ -0,0 +1,135 @@
+package com.tgt.crm.token.core;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * Builds Bulk API 2.0 ingest requests. Each job is created, gets its CSV data in one upload, is
+ * closed and then polled until Salesforce has processed it. Data larger than
+ * salesforce.bulk-ingest.max-job-size is split into several jobs by a {@link CsvJobSplitter}.
+ *
+ * <p>Salesforce accepts up to 150 MB of base64 encoded data per job, which 100 MB of CSV stays
+ * under.
+ */
+public class BulkIngest {
+
+  public static final long MAX_JOB_SIZE = 100L * 1024 * 1024;
+  public static final String CSV_CONTENT_TYPE = "text/csv";
+
+  private static final Pattern API_VERSION = Pattern.compile("v\\d+\\.\\d+");
+  private static final Pattern LINE_ENDING = Pattern.compile("LF|CRLF");
+  private static final String CSV = "CSV";
+
+  private final String jobsPath;
+  private final long maxJobSize;
+  private final String lineEnding;
+  private final PollBackoff pollBackoff;
+
+  /**
+   * Creates the requests of the configured API version.
+   *
+   * @param config the API version, the job size and the polling
+   */
+  public BulkIngest(final BulkIngestConfig config) {
+    this.pollBackoff =
+        new PollBackoff(
+            config.getPollInterval(), config.getPollMultiplier(), config.getMaxPollInterval());
+    if (!hasValidFormat(config) || !hasValidLimits(config)) {
+      throw new IllegalArgumentException(
+          "salesforce.bulk-ingest must satisfy api-version like v52.0,"
+              + " 1 <= max-job-size <= 100 MB, line-ending LF or CRLF, poll-interval >= 1,"
+              + " poll-multiplier >= 1 and max-poll-interval >= poll-interval");
+    }
+    this.jobsPath = "/services/data/" + config.getApiVersion() + "/jobs/ingest";
+    this.maxJobSize = config.getMaxJobSize();
+    this.lineEnding = config.getLineEnding();
+  }
+
+  /** The ingest jobs resource, a POST creates a job. */
+  public String getJobsPath() {
+    return jobsPath;
+  }
+
+  /** The job resource, a GET reads its state and a PATCH closes or aborts it. */
+  public String getJobPath(final String jobId) {
+    return jobsPath + "/" + jobId;
+  }
+
+  /** The resource the job's CSV data is uploaded to with a PUT. */
+  public String getBatchesPath(final String jobId) {
+    return getJobPath(jobId) + "/batches";
+  }
+
+  /** The resource the job's results are read from. */
+  public String getResultsPath(final String jobId, final BulkResults results) {
+    return getJobPath(jobId) + "/" + results.getResource();
+  }
+
+  /**
+   * Builds the body that creates a job.
+   *
+   * @param job the object, the operation and, for an upsert, the external id field
+   * @return the job to create, with the content type and line ending
+   * @throws IllegalArgumentException if the object or operation, or the external id field of an
+   *     upsert, is missing
+   */
+  public BulkJob createRequest(final BulkJob job) {
+    if (job.getObject() == null
+        || job.getOperation() == null
+        || job.getOperation() == BulkOperation.UPSERT && job.getExternalIdFieldName() == null) {
+      throw new IllegalArgumentException(
+          "a bulk job needs an object, an operation and for an upsert an external id field");
+    }
+    BulkJob request = new BulkJob();
+    request.setObject(job.getObject());
+    request.setOperation(job.getOperation());
+    request.setExternalIdFieldName(job.getExternalIdFieldName());
+    request.setContentType(CSV);
+    request.setLineEnding(lineEnding);
+    return request;
+  }
+
+  /** Builds the body that closes a job once its data is uploaded, so Salesforce processes it. */
+  public BulkJob closeRequest() {
+    return stateRequest(BulkJobState.UPLOAD_COMPLETE);
+  }
+
+  /** Builds the body that aborts a job, e.g. when its data could not be uploaded. */
+  public BulkJob abortRequest() {
+    return stateRequest(BulkJobState.ABORTED);
+  }
+
+  /**
+   * How long to wait before polling a job again.
+   *
+   * @param polls how often the job was polled already
+   * @return the poll interval, multiplied for each poll up to the max poll interval
+   */
+  public Duration pollDelay(final int polls) {
+    return pollBackoff.delay(polls);
+  }
+
+  /** Creates a splitter for the next CSV to ingest. */
+  public CsvJobSplitter newSplitter() {
+    return new CsvJobSplitter(maxJobSize);
+  }
+
+  private static boolean hasValidFormat(final BulkIngestConfig config) {
+    return config.getApiVersion() != null
+        && API_VERSION.matcher(config.getApiVersion()).matches()
+        && config.getLineEnding() != null
+        && LINE_ENDING.matcher(config.getLineEnding()).matches();
+  }
+
+  private boolean hasValidLimits(final BulkIngestConfig config) {
+    return config.getMaxJobSize() >= 1
+        && config.getMaxJobSize() <= MAX_JOB_SIZE
+        && pollBackoff.isValid();
+  }
+
+  private static BulkJob stateRequest(final BulkJobState state) {
+    BulkJob request = new BulkJob();
+    request.setState(state);
+    return request;
+  }
+}
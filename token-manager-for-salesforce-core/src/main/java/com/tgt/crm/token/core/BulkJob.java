@@ -0,0 +1,32 @@
+package com.tgt.crm.token.core;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * A Bulk API 2.0 ingest or query job. Set the object and operation, and the external id field for
+ * an upsert, to describe the ingest jobs to create. The jobs read back also have an id, a state and
+ * the record counts.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkJob {
+
+  private String id;
+  // the sObject type of the records, e.g. Account
+  private String object;
+  private BulkOperation operation;
+  // upsert only, the field that matches records to existing ones
+  private String externalIdFieldName;
+  // query jobs only, the SOQL query whose records are read
+  private String query;
+  private String contentType;
+  private String lineEnding;
+  private BulkJobState state;
+  private Long numberRecordsProcessed;
+  private Long numberRecordsFailed;
+  // why the job failed, if it did
+  private String errorMessage;
+}
@@ -0,0 +1,25 @@
+package com.tgt.crm.token.core;
+
+/** Thrown when a Bulk API 2.0 job whose results are read did not complete. */
+public class BulkJobFailedException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String jobId;
+  private final BulkJobState state;
+
+  public BulkJobFailedException(final BulkJob job) {
+    super("bulk job " + job.getId() + " ended " + job.getState() + ": " + job.getErrorMessage());
+    this.jobId = job.getId();
+    this.state = job.getState();
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  /** Failed or Aborted. */
+  public BulkJobState getState() {
+    return state;
+  }
+}
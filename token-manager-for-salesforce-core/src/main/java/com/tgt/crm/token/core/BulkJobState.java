@@ -0,0 +1,28 @@
+package com.tgt.crm.token.core;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/** State of a Bulk API 2.0 job, see {@link BulkJob}. */
+public enum BulkJobState {
+  /** created, accepting data */
+  @JsonProperty("Open")
+  OPEN,
+  /** the data is uploaded and queued for processing */
+  @JsonProperty("UploadComplete")
+  UPLOAD_COMPLETE,
+  @JsonProperty("InProgress")
+  IN_PROGRESS,
+  /** processed, some records may have failed */
+  @JsonProperty("JobComplete")
+  JOB_COMPLETE,
+  /** not processed, see the job's error message */
+  @JsonProperty("Failed")
+  FAILED,
+  @JsonProperty("Aborted")
+  ABORTED;
+
+  /** Whether the job is done and its results can be read. */
+  public boolean isFinished() {
+    return this == JOB_COMPLETE || this == FAILED || this == ABORTED;
+  }
+}
@@ -0,0 +1,24 @@
+package com.tgt.crm.token.core;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/** What a Bulk API 2.0 job does with its records, see {@link BulkJob}. */
+public enum BulkOperation {
+  @JsonProperty("insert")
+  INSERT,
+  @JsonProperty("update")
+  UPDATE,
+  /** requires the job's external id field */
+  @JsonProperty("upsert")
+  UPSERT,
+  @JsonProperty("delete")
+  DELETE,
+  @JsonProperty("hardDelete")
+  HARD_DELETE,
+  /** query jobs only, reads the records of the job's query */
+  @JsonProperty("query")
+  QUERY,
+  /** query jobs only, also reads deleted and archived records */
+  @JsonProperty("queryAll")
+  QUERY_ALL
+}
@@ -0,0 +1,135 @@
+package com.tgt.crm.token.core;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * Builds Bulk API 2.0 query requests. Each job is created with a SOQL query and polled until
+ * Salesforce has run it. Its CSV results are then read page by page: every page but the last has a
+ * Sforce-Locator header that the next page is read with, and every page starts with the header row.
+ * A locator is only known once the page before it was read, so the pages are read one after the
+ * other.
+ */
+public class BulkQuery {
+
+  public static final String LOCATOR_HEADER = "Sforce-Locator";
+
+  private static final Pattern API_VERSION = Pattern.compile("v\\d+\\.\\d+");
+  private static final Pattern LINE_ENDING = Pattern.compile("LF|CRLF");
+  // the locator of the last page
+  private static final String NO_LOCATOR = "null";
+  private static final String CSV = "CSV";
+
+  private final String jobsPath;
+  private final int maxRecords;
+  private final String lineEnding;
+  private final PollBackoff pollBackoff;
+
+  /**
+   * Creates the requests of the configured API version.
+   *
+   * @param config the API version, the page size and the polling
+   */
+  public BulkQuery(final BulkQueryConfig config) {
+    this.pollBackoff =
+        new PollBackoff(
+            config.getPollInterval(), config.getPollMultiplier(), config.getMaxPollInterval());
+    if (config.getApiVersion() == null
+        || !API_VERSION.matcher(config.getApiVersion()).matches()
+        || config.getMaxRecords() < 0
+        || config.getLineEnding() == null
+        || !LINE_ENDING.matcher(config.getLineEnding()).matches()
+        || !pollBackoff.isValid()) {
+      throw new IllegalArgumentException(
+          "salesforce.bulk-query must satisfy api-version like v52.0, max-records >= 0,"
+              + " line-ending LF or CRLF, poll-interval >= 1, poll-multiplier >= 1"
+              + " and max-poll-interval >= poll-interval");
+    }
+    this.jobsPath = "/services/data/" + config.getApiVersion() + "/jobs/query";
+    this.maxRecords = config.getMaxRecords();
+    this.lineEnding = config.getLineEnding();
+  }
+
+  /** The query jobs resource, a POST creates a job. */
+  public String getJobsPath() {
+    return jobsPath;
+  }
+
+  /** The job resource, a GET reads its state. */
+  public String getJobPath(final String jobId) {
+    return jobsPath + "/" + jobId;
+  }
+
+  /**
+   * The resource a page of the job's results is read from.
+   *
+   * @param jobId the id of the job
+   * @param locator the locator of the page, null for the first page
+   * @return the path, with the page size if configured
+   */
+  public String getResultsPath(final String jobId, final String locator) {
+    StringBuilder path = new StringBuilder(getJobPath(jobId)).append("/results");
+    if (maxRecords > 0) {
+      path.append("?maxRecords=").append(maxRecords);
+    }
+    if (locator != null) {
+      path.append(maxRecords > 0 ? '&' : '?').append("locator=").append(locator);
+    }
+    return path.toString();
+  }
+
+  /**
+   * Builds the body that creates a job.
+   *
+   * @param job the operation, query or queryAll, and the query
+   * @return the job to create, with the content type and line ending
+   * @throws IllegalArgumentException if the operation is not a query or the query is missing
+   */
+  public BulkJob createRequest(final BulkJob job) {
+    if (job.getOperation() != BulkOperation.QUERY && job.getOperation() != BulkOperation.QUERY_ALL
+        || job.getQuery() == null
+        || job.getQuery().isBlank()) {
+      throw new IllegalArgumentException("a bulk query job needs a query and operation");
+    }
+    BulkJob request = new BulkJob();
+    request.setOperation(job.getOperation());
+    request.setQuery(job.getQuery());
+    request.setContentType(CSV);
+    request.setLineEnding(lineEnding);
+    return request;
+  }
+
+  /**
+   * Checks that a finished job completed, so its results can be read.
+   *
+   * @param job the finished job
+   * @return the job
+   * @throws BulkJobFailedException if the job failed or was aborted
+   */
+  public BulkJob checkCompleted(final BulkJob job) {
+    if (job.getState() != BulkJobState.JOB_COMPLETE) {
+      throw new BulkJobFailedException(job);
+    }
+    return job;
+  }
+
+  /**
+   * Reads the locator of the next page.
+   *
+   * @param locator the Sforce-Locator header of a page
+   * @return the locator of the next page, null if the page was the last
+   */
+  public String nextLocator(final String locator) {
+    return locator == null || NO_LOCATOR.equals(locator) ? null : locator;
+  }
+
+  /**
+   * How long to wait before polling a job again.
+   *
+   * @param polls how often the job was polled already
+   * @return the poll interval, multiplied for each poll up to the max poll interval
+   */
+  public Duration pollDelay(final int polls) {
+    return pollBackoff.delay(polls);
+  }
+}
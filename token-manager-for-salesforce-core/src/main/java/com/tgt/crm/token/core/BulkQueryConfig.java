@@ -0,0 +1,20 @@
+package com.tgt.crm.token.core;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("salesforce.bulk-query")
+public class BulkQueryConfig {
+
+  // version of the REST API jobs are created with
+  private String apiVersion = "v52.0";
+  // records per page of results, 0 lets Salesforce choose
+  private int maxRecords;
+  // line ending of the CSV results, LF or CRLF
+  private String lineEnding = "LF";
+  // how long to wait between polls of a job's state, multiplied after each poll up to the max
+  private long pollInterval = 1000; // milliseconds
+  private double pollMultiplier = 2.0;
+  private long maxPollInterval = 30_000; // milliseconds
+}
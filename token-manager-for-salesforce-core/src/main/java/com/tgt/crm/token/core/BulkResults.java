@@ -0,0 +1,22 @@
+package com.tgt.crm.token.core;
+
+/** The CSV results of a finished Bulk API 2.0 ingest job. */
+public enum BulkResults {
+  /** the records saved, with sf__Id and sf__Created columns */
+  SUCCESSFUL("successfulResults"),
+  /** the records not saved, with sf__Id and sf__Error columns */
+  FAILED("failedResults"),
+  /** the records not processed, e.g. because the job was aborted */
+  UNPROCESSED("unprocessedrecords");
+
+  private final String resource;
+
+  BulkResults(final String resource) {
+    this.resource = resource;
+  }
+
+  /** The job subresource the results are read from. */
+  public String getResource() {
+    return resource;
+  }
+}
@@ -0,0 +1,25 @@
+package com.tgt.crm.token.core;
+
+/**
+ * OAuth 2.0 client credentials flow, the connected app runs as its configured execution user. The
+ * request body is encoded once and reused for every refresh.
+ */
+public class ClientCredentialsGrant implements TokenGrant {
+
+  private final String body;
+
+  public ClientCredentialsGrant(final SalesforceConfig salesforceConfig) {
+    this.body =
+        String.join(
+            "&",
+            "grant_type=client_credentials",
+            FormBodyUtil.param("client_id", salesforceConfig.getClientId(), "client-id"),
+            FormBodyUtil.param(
+                "client_secret", salesforceConfig.getClientSecret(), "client-secret"));
+  }
+
+  @Override
+  public String requestBody() {
+    return body;
+  }
+}
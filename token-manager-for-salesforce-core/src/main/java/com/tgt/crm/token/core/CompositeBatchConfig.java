@@ -0,0 +1,16 @@
+package com.tgt.crm.token.core;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("salesforce.composite-batch")
+public class CompositeBatchConfig {
+
+  // coalesces concurrent REST API calls into composite requests
+  private boolean enabled;
+  // how long the first call of a batch waits for others to join it
+  private long window = 10; // milliseconds
+  // subrequests per batch, Salesforce accepts at most 25
+  private int maxSize = CompositeBatcher.MAX_SUBREQUESTS;
+}
@@ -0,0 +1,396 @@
+package com.tgt.crm.token.core;
+
+import static com.tgt.crm.token.core.SalesforceConstants.COMPOSITE_BATCH_FILL_SUMMARY;
+import static com.tgt.crm.token.core.SalesforceConstants.COMPOSITE_BATCH_SIZE_SUMMARY;
+import static com.tgt.crm.token.core.SalesforceConstants.COMPOSITE_BATCH_WAIT_TIMER;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_TAG;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces independent REST API calls of one org into composite requests. A batch of up to 25
+ * subrequests takes one round trip and counts as a single call against the org's api limit. It is
+ * sent with allOrNone false, so Salesforce runs every subrequest whatever the others' outcome and
+ * reports a status and body for each. At most 5 subrequests of a batch may be queries, a query that
+ * would be the 6th sends the batch and starts the next one.
+ *
+ * <p>The first call added to a batch leads it: it waits until the batch is full or the batching
+ * window has passed, closes the batch and sends it, then completes the calls that joined it with
+ * their subresponse. A leader that is still alone when the window closes sends its own request.
+ *
+ * <p>Only calls with a method and headers a subrequest supports, to the sobjects, query or queryAll
+ * resource of a versioned REST API, are batched. Their body, if any, must be JSON.
+ *
+ * <ul>
+ *   <li>salesforce_composite_batch_size: subrequests per batch
+ *   <li>salesforce_composite_batch_fill: share of the maximum batch size each batch used
+ *   <li>salesforce_composite_batch_wait: time a call waited for its batch to be sent
+ * </ul>
+ */
+@Slf4j
+public class CompositeBatcher {
+
+  public static final int MAX_SUBREQUESTS = 25;
+  public static final int MAX_QUERIES = 5;
+
+  private static final String DATA_PATH = "/services/data/";
+  // the resources a composite subrequest supports, group 2 is set for queries
+  private static final Pattern RESOURCE =
+      Pattern.compile(
+          "/services/data/(v\\d+\\.\\d+)/(?:sobjects/[^/].*|(query(?:All)?)(?:/[^/].*)?)");
+  private static final Set<String> METHODS = Set.of("GET", "POST", "PATCH", "DELETE");
+  // set by the client or replaced by those of the batch request, any other header could change
+  // the response of a subrequest
+  private static final Set<String> IGNORED_HEADERS =
+      Set.of(
+          "accept",
+          "accept-charset",
+          "accept-encoding",
+          "authorization",
+          "connection",
+          "content-length",
+          "content-type",
+          "user-agent");
+  private static final int SUCCESS_STATUS_CLASS = 2;
+  // a leader still alone sends its own request
+  private static final int MIN_BATCH_SIZE = 2;
+  // numbers are passed through as they were sent
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper()
+          .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+          .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+          .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+
+  private final long window;
+  private final int maxSize;
+  private final Map<String, Batch> open = new HashMap<>();
+  private final DistributionSummary batchSize;
+  private final DistributionSummary batchFill;
+  private final Timer batchWait;
+
+  /**
+   * Creates the batcher of an org.
+   *
+   * @param org the org name, the metrics are tagged with it
+   * @param config the batching window and size
+   * @param meterRegistry the registry to create the metrics in
+   */
+  public CompositeBatcher(
+      final String org, final CompositeBatchConfig config, final MeterRegistry meterRegistry) {
+    if (config.getMaxSize() < 1
+        || config.getMaxSize() > MAX_SUBREQUESTS
+        || config.getWindow() < 0) {
+      throw new IllegalArgumentException(
+          "salesforce.composite-batch must satisfy 1 <= max-size <= 25 and window >= 0");
+    }
+    this.window = config.getWindow();
+    this.maxSize = config.getMaxSize();
+    this.batchSize =
+        DistributionSummary.builder(COMPOSITE_BATCH_SIZE_SUMMARY)
+            .tag(ORG_TAG, org)
+            .baseUnit("subrequests")
+            .register(meterRegistry);
+    this.batchFill =
+        DistributionSummary.builder(COMPOSITE_BATCH_FILL_SUMMARY)
+            .tag(ORG_TAG, org)
+            .register(meterRegistry);
+    this.batchWait =
+        Timer.builder(COMPOSITE_BATCH_WAIT_TIMER).tag(ORG_TAG, org).register(meterRegistry);
+  }
+
+  /**
+   * Checks whether a call could be sent as a subrequest, before its body is read.
+   *
+   * @param method the call's method
+   * @param url the call's URL
+   * @param headerNames the names of the call's headers
+   * @return true if the call can be added to a batch
+   */
+  public static boolean isBatchable(
+      final String method, final URI url, final Collection<String> headerNames) {
+    return METHODS.contains(method)
+        && url.isAbsolute()
+        && url.getRawPath() != null
+        && RESOURCE.matcher(url.getRawPath()).matches()
+        && headerNames.stream()
+            .allMatch(name -> IGNORED_HEADERS.contains(name.toLowerCase(Locale.ROOT)));
+  }
+
+  /**
+   * Adds a call to the open batch of its group, opening one if there is none.
+   *
+   * @param group calls of different groups are never sent together, e.g. calls of another priority
+   * @param method the call's method
+   * @param url the call's absolute URL, {@link #isBatchable batchable}
+   * @param body the call's body, empty if it has none
+   * @return the call's place in its batch, null if the body is not JSON and the call has to be sent
+   *     on its own
+   */
+  public Entry add(final String group, final String method, final URI url, final byte[] body) {
+    Matcher resource = RESOURCE.matcher(url.getRawPath());
+    if (!resource.matches()) {
+      throw new IllegalArgumentException(url + " is not a REST API resource");
+    }
+    ObjectNode subrequest = subrequest(method, url, body);
+    if (subrequest == null) {
+      return null;
+    }
+    String version = resource.group(1);
+    String key = group + ' ' + url.getScheme() + "://" + url.getRawAuthority() + ' ' + version;
+    URI uri = url.resolve(DATA_PATH + version + "/composite");
+    return join(key, uri, subrequest, resource.group(2) != null);
+  }
+
+  /** The subrequest of a call, null if its body is not JSON. */
+  private static ObjectNode subrequest(final String method, final URI url, final byte[] body) {
+    ObjectNode subrequest =
+        MAPPER
+            .createObjectNode()
+            .put("method", method)
+            .put(
+                "url",
+                url.getRawPath() + (url.getRawQuery() == null ? "" : "?" + url.getRawQuery()));
+    if (body.length > 0) {
+      try {
+        JsonNode input = MAPPER.readTree(body);
+        if (!input.isMissingNode()) {
+          subrequest.set("body", input);
+        }
+      } catch (IOException e) {
+        log.debug("{} {} has a body that is not JSON, not batching it", method, url);
+        return null;
+      }
+    }
+    return subrequest;
+  }
+
+  /** Adds a subrequest to the open batch of its key, sending the batch when it is full. */
+  private Entry join(
+      final String key, final URI uri, final ObjectNode subrequest, final boolean query) {
+    synchronized (this) {
+      Batch current = open.get(key);
+      if (current != null && query && current.queries >= MAX_QUERIES) {
+        send(current);
+      }
+      Batch batch = open.computeIfAbsent(key, k -> new Batch(k, uri));
+      subrequest.put("referenceId", "ref" + batch.entries.size());
+      Entry entry = new Entry(batch, subrequest, batch.entries.isEmpty());
+      batch.entries.add(entry);
+      if (query) {
+        batch.queries++;
+      }
+      if (batch.entries.size() >= maxSize) {
+        send(batch);
+      }
+      return entry;
+    }
+  }
+
+  /** Lets the leader send a batch that can take no more calls, called holding the lock. */
+  private void send(final Batch batch) {
+    open.remove(batch.key);
+    batch.ready.complete(Boolean.TRUE);
+  }
+
+  private static byte[] content(final JsonNode result) throws JsonProcessingException {
+    return result.isMissingNode() || result.isNull()
+        ? new byte[0]
+        : MAPPER.writeValueAsBytes(result);
+  }
+
+  /** Calls sent together, led by the first one. */
+  public final class Batch {
+
+    private final String key;
+    private final URI uri;
+    // guarded by the batcher until the batch is closed, not modified after
+    private final List<Entry> entries = new ArrayList<>();
+    private int queries;
+    private final CompletableFuture<Boolean> ready =
+        new CompletableFuture<Boolean>()
+            .completeOnTimeout(Boolean.FALSE, window, TimeUnit.MILLISECONDS);
+    private boolean closed;
+
+    private Batch(final String key, final URI uri) {
+      this.key = key;
+      this.uri = uri;
+    }
+
+    /** The composite resource of the calls' host and API version. */
+    public URI getUri() {
+      return uri;
+    }
+
+    /** Completes with true once the batch is full, with false once the batching window passed. */
+    public CompletableFuture<Boolean> getReady() {
+      return ready;
+    }
+
+    /**
+     * Stops calls from joining the batch, called by the leader once the batch is ready.
+     *
+     * @return the body of the composite request, null if the leader is alone and sends its own
+     *     request
+     */
+    public byte[] close() {
+      synchronized (CompositeBatcher.this) {
+        if (closed) {
+          throw new IllegalStateException("composite batch already closed");
+        }
+        closed = true;
+        open.remove(key, this);
+      }
+      long now = System.nanoTime();
+      entries.forEach(entry -> batchWait.record(now - entry.enqueuedNanos, TimeUnit.NANOSECONDS));
+      batchSize.record(entries.size());
+      batchFill.record((double) entries.size() / maxSize);
+      if (entries.size() < MIN_BATCH_SIZE) {
+        return null;
+      }
+      ObjectNode request = MAPPER.createObjectNode().put("allOrNone", false);
+      ArrayNode compositeRequest = request.putArray("compositeRequest");
+      entries.forEach(entry -> compositeRequest.add(entry.subrequest));
+      try {
+        return MAPPER.writeValueAsBytes(request);
+      } catch (JsonProcessingException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    /**
+     * Completes each call with its subresponse. If the batch request itself failed, its status and
+     * body are returned to every call.
+     *
+     * @param status the status of the composite response
+     * @param body the body of the composite response
+     */
+    public void complete(final int status, final byte[] body) {
+      if (status / 100 != SUCCESS_STATUS_CLASS) {
+        entries.forEach(entry -> entry.response.complete(new Subresponse(status, body)));
+        return;
+      }
+      List<Subresponse> subresponses = new ArrayList<>(entries.size());
+      try {
+        JsonNode results = MAPPER.readTree(body).path("compositeResponse");
+        if (results.size() != entries.size()) {
+          throw new IOException(
+              "composite response has "
+                  + results.size()
+                  + " subresponses for "
+                  + entries.size()
+                  + " subrequests");
+        }
+        for (JsonNode result : results) {
+          JsonNode statusCode = result.path("httpStatusCode");
+          if (!statusCode.isInt()) {
+            throw new IOException("composite subresponse without an httpStatusCode");
+          }
+          subresponses.add(new Subresponse(statusCode.intValue(), content(result.path("body"))));
+        }
+      } catch (IOException e) {
+        fail(e);
+        return;
+      }
+      for (int i = 0; i < entries.size(); i++) {
+        entries.get(i).response.complete(subresponses.get(i));
+      }
+    }
+
+    /**
+     * Fails the calls that are not completed yet.
+     *
+     * @param error the failure of the batch request
+     */
+    public void fail(final Throwable error) {
+      entries.forEach(entry -> entry.response.completeExceptionally(error));
+    }
+
+    /**
+     * Closes the batch if it is still open and fails its calls, when the leader gives up on it.
+     *
+     * @param error the reason the leader gave up
+     */
+    public void abandon(final Throwable error) {
+      synchronized (CompositeBatcher.this) {
+        closed = true;
+        open.remove(key, this);
+      }
+      fail(error);
+    }
+  }
+
+  /** A call's place in a batch. */
+  public static final class Entry {
+
+    private final Batch batch;
+    private final ObjectNode subrequest;
+    private final boolean leader;
+    private final long enqueuedNanos = System.nanoTime();
+    private final CompletableFuture<Subresponse> response = new CompletableFuture<>();
+
+    private Entry(final Batch batch, final ObjectNode subrequest, final boolean leader) {
+      this.batch = batch;
+      this.subrequest = subrequest;
+      this.leader = leader;
+    }
+
+    public Batch getBatch() {
+      return batch;
+    }
+
+    /** The first call of a batch sends it. */
+    public boolean isLeader() {
+      return leader;
+    }
+
+    /** Completes with the call's subresponse once the batch response arrived. */
+    public CompletableFuture<Subresponse> getResponse() {
+      return response;
+    }
+  }
+
+  /** The status and body of one call in a batch. */
+  public static final class Subresponse {
+
+    private final int status;
+    private final byte[] body;
+
+    private Subresponse(final int status, final byte[] body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    public int getStatus() {
+      return status;
+    }
+
+    /** The JSON result, empty if the subrequest returned none. */
+    public byte[] getBody() {
+      return body.clone();
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package com.tgt.crm.token.core;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The data of one Bulk API 2.0 job, kept in files rather than in memory so an upload can be sent
+ * again, e.g. after a 401, without holding up to salesforce.bulk-ingest.max-job-size per job. The
+ * {@link CsvJobSplitter.Chunk}s of the job are appended as they are split, then the data is read as
+ * often as needed.
+ *
+ * <p>The data of a CSV file is read again from the file: only where the header and the job's
+ * records are is kept, so the file must not change until the job is uploaded. The data of any other
+ * CSV is spilled to a temporary file in java.io.tmpdir, deleted when the data is closed.
+ *
+ * <p>Job data is not thread safe, it is appended to by one thread and then read.
+ */
+@Slf4j
+public final class CsvJobData implements Closeable {
+
+  private static final String PREFIX = "sf-bulk-ingest-";
+  private static final String SUFFIX = ".csv";
+
+  private final Path file;
+  // the temporary file being written, null if the data is read from a CSV file
+  private final FileChannel spillChannel;
+  private long size;
+  private int headerLength;
+  private long start = -1;
+  private long end;
+
+  private CsvJobData(final Path file, final FileChannel spillChannel) {
+    this.file = file;
+    this.spillChannel = spillChannel;
+  }
+
+  /**
+   * Creates job data spilled to a new temporary file.
+   *
+   * @return the empty job data, to be closed to delete the file
+   * @throws IOException if the file could not be created
+   */
+  public static CsvJobData spill() throws IOException {
+    Path file = Files.createTempFile(PREFIX, SUFFIX);
+    try {
+      return new CsvJobData(file, FileChannel.open(file, StandardOpenOption.WRITE));
+    } catch (IOException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+  }
+
+  /**
+   * Creates job data read again from the CSV file it is split from.
+   *
+   * @param csv the CSV file, it must not change until the job is uploaded
+   * @return the empty job data
+   */
+  public static CsvJobData fileRange(final Path csv) {
+    return new CsvJobData(csv, null);
+  }
+
+  /**
+   * Adds the next chunk of the job.
+   *
+   * @param chunk the next chunk split from the CSV, of the same job as the chunks added before
+   * @throws IOException if the chunk could not be spilled
+   */
+  public void append(final CsvJobSplitter.Chunk chunk) throws IOException {
+    ByteBuffer data = chunk.getData();
+    size += data.remaining();
+    if (spillChannel != null) {
+      while (data.hasRemaining()) {
+        spillChannel.write(data);
+      }
+      return;
+    }
+    if (chunk.getHeaderLength() > 0) {
+      headerLength = chunk.getHeaderLength();
+    }
+    if (start < 0) {
+      start = chunk.getStart();
+    }
+    end = chunk.getEnd();
+  }
+
+  /** The bytes of data of the job, including the header. */
+  public long getSize() {
+    return size;
+  }
+
+  /** Where the data is, in order: the header and the records of a CSV file or the spilled data. */
+  public List<Region> getRegions() {
+    if (spillChannel != null) {
+      return List.of(new Region(file, 0, size));
+    }
+    return List.of(new Region(file, 0, headerLength), new Region(file, start, end - start));
+  }
+
+  /**
+   * Writes the data, it can be written again.
+   *
+   * @param out receives the data, not closed
+   * @throws IOException if the data could not be read or written, an {@link EOFException} if the
+   *     file is shorter than the data
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    WritableByteChannel target = Channels.newChannel(out);
+    for (Region region : getRegions()) {
+      try (FileChannel channel = FileChannel.open(region.getFile(), StandardOpenOption.READ)) {
+        long position = region.getPosition();
+        long remaining = region.getLength();
+        while (remaining > 0) {
+          long written = channel.transferTo(position, remaining, target);
+          if (written <= 0 && position >= channel.size()) {
+            throw new EOFException(region.getFile() + " ended before the data of the bulk job");
+          }
+          position += written;
+          remaining -= written;
+        }
+      }
+    }
+  }
+
+  /** Deletes the temporary file of spilled data, a failure is only logged. */
+  @Override
+  public void close() {
+    if (spillChannel == null) {
+      return;
+    }
+    try {
+      spillChannel.close();
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("could not delete bulk job data {}", file, e);
+    }
+  }
+
+  /** A range of bytes in a file. */
+  public static final class Region {
+
+    private final Path file;
+    private final long position;
+    private final long length;
+
+    private Region(final Path file, final long position, final long length) {
+      this.file = file;
+      this.position = position;
+      this.length = length;
+    }
+
+    /** The file the bytes are in. */
+    public Path getFile() {
+      return file;
+    }
+
+    /** The offset of the first byte in the file. */
+    public long getPosition() {
+      return position;
+    }
+
+    /** The number of bytes. */
+    public long getLength() {
+      return length;
+    }
+  }
+}
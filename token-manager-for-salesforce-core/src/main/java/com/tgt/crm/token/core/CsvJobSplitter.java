@@ -0,0 +1,179 @@
+package com.tgt.crm.token.core;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits CSV data read in pieces into the data of Bulk API 2.0 jobs of up to a maximum size. The
+ * first record is the header and starts the data of every job. Records are only split between,
+ * never inside: a line break inside a quoted field does not end a record. Only the record being
+ * read is held across pieces, every complete record is returned with the piece it ended in. Each
+ * chunk also tells where its records are in the CSV, so a job can be read again from a CSV file
+ * instead of being held.
+ *
+ * <p>A splitter keeps the state of one CSV, it is not thread safe.
+ */
+public class CsvJobSplitter {
+
+  private static final byte QUOTE = '"';
+  private static final byte LINE_FEED = '\n';
+
+  private final long maxJobSize;
+  // the record the last piece ended in
+  private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+  // the data of the current job read from this piece
+  private final ByteArrayOutputStream current = new ByteArrayOutputStream();
+  private byte[] header;
+  private boolean quoted;
+  private int job = -1;
+  private long jobSize;
+  // the offset in the CSV after the last complete record
+  private long position;
+  // the offset in the CSV of the first record in current, -1 while it holds none
+  private long currentStart = -1;
+  private int currentHeaderLength;
+
+  /**
+   * Creates a splitter for one CSV.
+   *
+   * @param maxJobSize the bytes of data per job, including the header
+   */
+  public CsvJobSplitter(final long maxJobSize) {
+    this.maxJobSize = maxJobSize;
+  }
+
+  /**
+   * Splits the next piece of CSV data.
+   *
+   * @param piece the next bytes of the CSV
+   * @return the data of the records that ended in this piece, by job
+   * @throws IllegalArgumentException if a record does not fit in a job with the header
+   */
+  public List<Chunk> split(final byte[] piece) {
+    List<Chunk> chunks = new ArrayList<>();
+    int start = 0;
+    for (int i = 0; i < piece.length; i++) {
+      if (piece[i] == QUOTE) {
+        quoted = !quoted;
+      } else if (piece[i] == LINE_FEED && !quoted) {
+        if (partial.size() == 0) {
+          addRecord(piece, start, i + 1 - start, chunks);
+        } else {
+          partial.write(piece, start, i + 1 - start);
+          addRecord(partial.toByteArray(), 0, partial.size(), chunks);
+          partial.reset();
+        }
+        start = i + 1;
+      }
+    }
+    partial.write(piece, start, piece.length - start);
+    flush(chunks);
+    return chunks;
+  }
+
+  /**
+   * Ends the CSV, the last record does not need a line break.
+   *
+   * @return the data of the last record, if it did not end with a line break
+   * @throws IllegalArgumentException if the CSV ends inside a quoted field
+   */
+  public List<Chunk> finish() {
+    if (quoted) {
+      throw new IllegalArgumentException("CSV ends inside a quoted field");
+    }
+    List<Chunk> chunks = new ArrayList<>();
+    if (partial.size() > 0) {
+      addRecord(partial.toByteArray(), 0, partial.size(), chunks);
+      partial.reset();
+    }
+    flush(chunks);
+    return chunks;
+  }
+
+  private void addRecord(
+      final byte[] bytes, final int offset, final int length, final List<Chunk> chunks) {
+    if (header == null) {
+      header = Arrays.copyOfRange(bytes, offset, offset + length);
+      position = length;
+      return;
+    }
+    if (header.length + (long) length > maxJobSize) {
+      throw new IllegalArgumentException(
+          "a CSV record of " + length + " bytes does not fit in a job of " + maxJobSize + " bytes");
+    }
+    if (job < 0 || jobSize + length > maxJobSize) {
+      flush(chunks);
+      job++;
+      current.writeBytes(header);
+      currentHeaderLength = header.length;
+      jobSize = header.length;
+    }
+    if (currentStart < 0) {
+      currentStart = position;
+    }
+    current.write(bytes, offset, length);
+    jobSize += length;
+    position += length;
+  }
+
+  private void flush(final List<Chunk> chunks) {
+    if (current.size() > 0) {
+      chunks.add(
+          new Chunk(job, current.toByteArray(), currentHeaderLength, currentStart, position));
+      current.reset();
+      currentStart = -1;
+      currentHeaderLength = 0;
+    }
+  }
+
+  /** Data of a job, the first chunk of a job starts with the header. */
+  public static final class Chunk {
+
+    private final int job;
+    private final byte[] data;
+    private final int headerLength;
+    private final long start;
+    private final long end;
+
+    private Chunk(
+        final int job,
+        final byte[] data,
+        final int headerLength,
+        final long start,
+        final long end) {
+      this.job = job;
+      this.data = data;
+      this.headerLength = headerLength;
+      this.start = start;
+      this.end = end;
+    }
+
+    /** The job the data belongs to, counted from 0. */
+    public int getJob() {
+      return job;
+    }
+
+    /** The data, read only. */
+    public ByteBuffer getData() {
+      return ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+
+    /** The bytes of header the data starts with, 0 if it does not start with the header. */
+    public int getHeaderLength() {
+      return headerLength;
+    }
+
+    /** The offset in the CSV of the first record in the data, after the header. */
+    public long getStart() {
+      return start;
+    }
+
+    /** The offset in the CSV after the last record in the data. */
+    public long getEnd() {
+      return end;
+    }
+  }
+}
@@ -0,0 +1,248 @@
+package com.tgt.crm.token.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link TokenStore} that keeps each token in an AES-GCM encrypted file, so it survives restarts
+ * and is shared by all processes on a host, or on hosts mounting the same directory with working
+ * file locks.
+ *
+ * <p>Reads take a shared and {@link #compareAndSet} an exclusive {@link FileLock} for the whole
+ * read-compare-write, so concurrent writers cannot both succeed and a partially written file is
+ * never read. The key is authenticated along with the token, a file written for a different key or
+ * with a different encryption key is treated as empty.
+ */
+@Slf4j
+public class FileTokenStore implements TokenStore {
+
+  private static final String CIPHER = "AES/GCM/NoPadding";
+  private static final int IV_LENGTH = 12; // bytes
+  private static final int TAG_LENGTH = 128; // bits
+  private static final byte FORMAT_VERSION = 2;
+  // a FileLock is held by the whole JVM and cannot be taken twice, serialize access within it
+  private static final Map<Path, Lock> FILE_LOCKS = new ConcurrentHashMap<>();
+
+  private final Path directory;
+  private final SecretKey encryptionKey;
+  private final SecureRandom secureRandom = new SecureRandom();
+
+  public FileTokenStore(final TokenStoreConfig tokenStoreConfig) {
+    this.directory =
+        Paths.get(required(tokenStoreConfig.getDirectory(), "directory")).toAbsolutePath();
+    this.encryptionKey = parseKey(tokenStoreConfig.getEncryptionKey());
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(
+          "salesforce.token-store.directory " + directory + " could not be created", e);
+    }
+  }
+
+  @Override
+  public StoredToken get(final String key) {
+    Path file = file(key);
+    Lock lock = FILE_LOCKS.computeIfAbsent(file, path -> new ReentrantLock());
+    lock.lock();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        FileLock fileLock = channel.lock(0, Long.MAX_VALUE, true)) {
+      return read(file, channel, key);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean compareAndSet(
+      final String key, final long expectedVersion, final SalesforceAuthResponse authResponse) {
+    Path file = file(key);
+    Lock lock = FILE_LOCKS.computeIfAbsent(file, path -> new ReentrantLock());
+    lock.lock();
+    try (FileChannel channel =
+            FileChannel.open(
+                file,
+                Set.of(
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE),
+                ownerOnly());
+        FileLock fileLock = channel.lock()) {
+      StoredToken current = read(file, channel, key);
+      if ((current == null ? 0 : current.getVersion()) != expectedVersion) {
+        return false;
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(encrypt(expectedVersion + 1, authResponse, key));
+      channel.truncate(0);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer, buffer.position());
+      }
+      channel.force(false);
+      if (log.isDebugEnabled()) {
+        log.debug("stored salesforce token version {} in {}", expectedVersion + 1, file);
+      }
+      return true;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("salesforce token could not be encrypted", e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Path file(final String key) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+      return directory.resolve(
+          "salesforce-"
+              + Base64.getUrlEncoder().withoutPadding().encodeToString(digest)
+              + ".token");
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private StoredToken read(final Path file, final FileChannel channel, final String key)
+      throws IOException {
+    if (channel.size() == 0) {
+      return null;
+    }
+    // not closed, that would close the channel
+    byte[] stored = Channels.newInputStream(channel).readAllBytes();
+    try {
+      return decrypt(stored, key);
+    } catch (IOException | GeneralSecurityException e) {
+      // overwritten by the next token stored
+      log.warn("ignoring stored salesforce token in {} that could not be read", file, e);
+      return null;
+    }
+  }
+
+  private byte[] encrypt(
+      final long version, final SalesforceAuthResponse authResponse, final String key)
+      throws IOException, GeneralSecurityException {
+    ByteArrayOutputStream plain = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(plain)) {
+      out.writeLong(version);
+      writeNullable(out, authResponse.getTokenType());
+      writeNullable(out, authResponse.getAccessToken());
+      writeNullable(out, authResponse.getInstanceUrl());
+      writeNullable(out, authResponse.getId());
+      writeNullable(out, authResponse.getIssuedAt());
+      writeNullable(out, authResponse.getSignature());
+    }
+    byte[] iv = new byte[IV_LENGTH];
+    secureRandom.nextBytes(iv);
+    Cipher cipher = Cipher.getInstance(CIPHER);
+    cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH, iv));
+    cipher.updateAAD(key.getBytes(StandardCharsets.UTF_8));
+    byte[] encrypted = cipher.doFinal(plain.toByteArray());
+    return ByteBuffer.allocate(1 + IV_LENGTH + encrypted.length)
+        .put(FORMAT_VERSION)
+        .put(iv)
+        .put(encrypted)
+        .array();
+  }
+
+  private StoredToken decrypt(final byte[] stored, final String key)
+      throws IOException, GeneralSecurityException {
+    if (stored.length <= 1 + IV_LENGTH || stored[0] != FORMAT_VERSION) {
+      throw new IOException("unsupported token file format");
+    }
+    Cipher cipher = Cipher.getInstance(CIPHER);
+    cipher.init(
+        Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH, stored, 1, IV_LENGTH));
+    cipher.updateAAD(key.getBytes(StandardCharsets.UTF_8));
+    byte[] plain = cipher.doFinal(stored, 1 + IV_LENGTH, stored.length - 1 - IV_LENGTH);
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain))) {
+      long version = in.readLong();
+      SalesforceAuthResponse authResponse = new SalesforceAuthResponse();
+      authResponse.setTokenType(readNullable(in));
+      authResponse.setAccessToken(readNullable(in));
+      authResponse.setInstanceUrl(readNullable(in));
+      authResponse.setId(readNullable(in));
+      authResponse.setIssuedAt(readNullable(in));
+      authResponse.setSignature(readNullable(in));
+      return new StoredToken(version, authResponse);
+    }
+  }
+
+  private static void writeNullable(final DataOutputStream out, final String value)
+      throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readNullable(final DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static SecretKey parseKey(final String encryptionKey) {
+    String encoded = required(encryptionKey, "encryption-key");
+    byte[] key;
+    try {
+      key = Base64.getDecoder().decode(encoded);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "salesforce.token-store.encryption-key must be base64 encoded", e);
+    }
+    if (key.length != 16 && key.length != 24 && key.length != 32) {
+      throw new IllegalArgumentException(
+          "salesforce.token-store.encryption-key must be a 128, 192 or 256 bit AES key");
+    }
+    return new SecretKeySpec(key, "AES");
+  }
+
+  private static String required(final String value, final String property) {
+    if (value == null || value.isBlank()) {
+      throw new IllegalArgumentException(
+          "salesforce.token-store." + property + " is required for the file token store");
+    }
+    return value;
+  }
+
+  private static FileAttribute<?>[] ownerOnly() {
+    if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      return new FileAttribute<?>[] {
+        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))
+      };
+    }
+    return new FileAttribute<?>[0];
+  }
+}
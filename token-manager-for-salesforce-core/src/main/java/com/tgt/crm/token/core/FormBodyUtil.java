@@ -0,0 +1,39 @@
+package com.tgt.crm.token.core;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/** Helpers to build the form encoded request bodies of the token grants. */
+@SuppressWarnings("PMD.DefaultPackage")
+final class FormBodyUtil {
+
+  private FormBodyUtil() {}
+
+  /**
+   * Encodes a required form parameter.
+   *
+   * @param name the parameter name
+   * @param value the parameter value
+   * @param property the config property the value was read from, used in the error message
+   * @return the name=value pair with the value URL encoded
+   * @throws IllegalArgumentException if the value is blank
+   */
+  static String param(final String name, final String value, final String property) {
+    return name + "=" + URLEncoder.encode(required(value, property), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Checks a config property required by a grant is set.
+   *
+   * @param value the property value
+   * @param property the property name relative to salesforce, used in the error message
+   * @return the value
+   * @throws IllegalArgumentException if the value is blank
+   */
+  static String required(final String value, final String property) {
+    if (value == null || value.isBlank()) {
+      throw new IllegalArgumentException("salesforce." + property + " is required for this grant");
+    }
+    return value;
+  }
+}
@@ -0,0 +1,8 @@
+package com.tgt.crm.token.core;
+
+/** OAuth flows supported out of the box, bound from salesforce.grant-type. */
+public enum GrantType {
+  PASSWORD,
+  CLIENT_CREDENTIALS,
+  JWT_BEARER
+}
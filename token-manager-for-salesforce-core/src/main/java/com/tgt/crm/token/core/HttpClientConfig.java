@@ -1,5 +1,7 @@
 package com.tgt.crm.token.core;
 
+import static com.tgt.crm.token.core.SalesforceConstants.MAX_CONN_PER_ROUTE_DEFAULT;
+
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -7,7 +9,22 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties("salesforce.httpclient")
 public class HttpClientConfig {
 
-  private int maxConnPerRoute = 20;
+  // null if not set, a module may then default to more connections, see getMaxConnPerRoute(int)
+  private Integer maxConnPerRoute;
   private int readTimeout = 30_000;
   private int connectionTimeout = 60_000;
+
+  public int getMaxConnPerRoute() {
+    return getMaxConnPerRoute(MAX_CONN_PER_ROUTE_DEFAULT);
+  }
+
+  /**
+   * Connections per route of a connection pool.
+   *
+   * @param defaultValue used if max-conn-per-route is not set
+   * @return the configured connections per route, or the given default
+   */
+  public int getMaxConnPerRoute(final int defaultValue) {
+    return maxConnPerRoute == null ? defaultValue : maxConnPerRoute;
+  }
 }
@@ -0,0 +1,28 @@
+package com.tgt.crm.token.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** {@link TokenStore} shared by the token managers of a single process. */
+public class InMemoryTokenStore implements TokenStore {
+
+  private final Map<String, StoredToken> tokens = new ConcurrentHashMap<>();
+
+  @Override
+  public StoredToken get(final String key) {
+    return tokens.get(key);
+  }
+
+  @Override
+  public boolean compareAndSet(
+      final String key, final long expectedVersion, final SalesforceAuthResponse authResponse) {
+    StoredToken update = new StoredToken(expectedVersion + 1, authResponse);
+    if (expectedVersion == 0) {
+      return tokens.putIfAbsent(key, update) == null;
+    }
+    StoredToken current = tokens.get(key);
+    return current != null
+        && current.getVersion() == expectedVersion
+        && tokens.replace(key, current, update);
+  }
+}
@@ -0,0 +1,24 @@
+package com.tgt.crm.token.core;
+
+import static com.tgt.crm.token.core.SalesforceConfig.ENV_VAR_MISSING_MSG;
+import static com.tgt.crm.token.core.SalesforceConfig.NOT_ENV_VAR_PATTERN;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+import lombok.Data;
+
+/**
+ * Additional integration user of an org, bound from salesforce.users. It shares the org's host and
+ * connected app but has its own token.
+ */
+@Data
+public class IntegrationUser {
+
+  @NotBlank
+  @Pattern(regexp = NOT_ENV_VAR_PATTERN, message = ENV_VAR_MISSING_MSG)
+  private String username;
+
+  // only used by the password grant
+  @Pattern(regexp = NOT_ENV_VAR_PATTERN, message = ENV_VAR_MISSING_MSG)
+  private String password;
+}
@@ -0,0 +1,157 @@
+package com.tgt.crm.token.core;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spreads requests across the integration users of an org, so per user concurrency and session
+ * limits apply to each user separately. Each request leases a user and releases it once the
+ * response arrived.
+ *
+ * <p>A user whose token cannot be refreshed, for example because it is locked out, is skipped for
+ * the configured cooldown while the other users keep serving requests. If every user is cooling
+ * down, all of them are used again rather than failing every request.
+ *
+ * @param <T> the per user auth client
+ */
+@Slf4j
+public class IntegrationUserPool<T> {
+
+  private final List<UserSlot<T>> slots;
+  private final List<T> users;
+  private final UserSelection userSelection;
+  private final long cooldownMillis;
+  private final boolean multiUser;
+  private final Clock clock;
+  private final AtomicInteger nextSlot = new AtomicInteger();
+
+  /**
+   * Creates a pool of the given users.
+   *
+   * @param users the auth clients of the org's users, the first one is the user configured by the
+   *     top level properties
+   * @param userSelection how a user is selected
+   * @param cooldown how long a failed user is skipped, milliseconds
+   */
+  public IntegrationUserPool(
+      final List<T> users, final UserSelection userSelection, final long cooldown) {
+    this(users, userSelection, cooldown, Clock.systemUTC());
+  }
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  IntegrationUserPool(
+      final List<T> users,
+      final UserSelection userSelection,
+      final long cooldown,
+      final Clock clock) {
+    if (users.isEmpty()) {
+      throw new IllegalArgumentException("an integration user pool needs at least one user");
+    }
+    this.slots = users.stream().map(UserSlot::new).collect(Collectors.toUnmodifiableList());
+    this.users = Collections.unmodifiableList(users);
+    this.userSelection = userSelection;
+    this.cooldownMillis = cooldown;
+    this.multiUser = users.size() > 1;
+    this.clock = clock;
+  }
+
+  public List<T> getUsers() {
+    return users;
+  }
+
+  /**
+   * Selects a user for a request. The lease must be released once the response arrived.
+   *
+   * @return the lease of the selected user
+   */
+  public Lease<T> acquire() {
+    UserSlot<T> selected = slots.get(0);
+    if (multiUser) {
+      long now = clock.millis();
+      int start = Math.floorMod(nextSlot.getAndIncrement(), slots.size());
+      selected = select(start, now);
+      if (selected == null) {
+        // every user failed recently, keep trying them rather than rejecting all requests
+        selected = slots.get(start);
+      }
+    }
+    selected.inFlight.incrementAndGet();
+    return new Lease<>(selected, this);
+  }
+
+  private UserSlot<T> select(final int start, final long now) {
+    UserSlot<T> selected = null;
+    int index = start;
+    for (int remaining = slots.size(); remaining > 0; remaining--) {
+      UserSlot<T> slot = slots.get(index);
+      index = (index + 1) % slots.size();
+      if (slot.availableAt.get() > now) {
+        continue;
+      }
+      if (userSelection == UserSelection.ROUND_ROBIN) {
+        return slot;
+      }
+      if (selected == null || slot.inFlight.get() < selected.inFlight.get()) {
+        selected = slot;
+      }
+    }
+    return selected;
+  }
+
+  private void coolDown(final UserSlot<T> slot) {
+    slot.availableAt.set(clock.millis() + cooldownMillis);
+    if (multiUser) {
+      log.warn(
+          "integration user token could not be refreshed, skipping it for {} ms", cooldownMillis);
+    }
+  }
+
+  private static final class UserSlot<T> {
+    private final T user;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong availableAt = new AtomicLong();
+
+    private UserSlot(final T user) {
+      this.user = user;
+    }
+  }
+
+  /**
+   * A user selected for one request.
+   *
+   * @param <T> the per user auth client
+   */
+  public static final class Lease<T> {
+
+    private final UserSlot<T> slot;
+    private final IntegrationUserPool<T> pool;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Lease(final UserSlot<T> slot, final IntegrationUserPool<T> pool) {
+      this.slot = slot;
+      this.pool = pool;
+    }
+
+    public T getUser() {
+      return slot.user;
+    }
+
+    /** Ends the request, may be called more than once. */
+    public void release() {
+      if (released.compareAndSet(false, true)) {
+        slot.inFlight.decrementAndGet();
+      }
+    }
+
+    /** Skips the user for the pool's cooldown because its token could not be refreshed. */
+    public void fail() {
+      pool.coolDown(slot);
+    }
+  }
+}
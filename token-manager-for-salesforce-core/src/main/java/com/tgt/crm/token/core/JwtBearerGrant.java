@@ -0,0 +1,105 @@
+package com.tgt.crm.token.core;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OAuth 2.0 JWT bearer flow, no password or client secret is sent. Each token request signs a new
+ * assertion with the connected app's private key. The key is parsed and the {@link Signature}
+ * initialized once, only the expiry and signature are computed per request.
+ */
+public class JwtBearerGrant implements TokenGrant {
+
+  // Salesforce rejects assertions that expire more than 3 minutes ahead, leave room for clock skew
+  private static final long EXPIRY_SECONDS = 120;
+
+  private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+  private static final String HEADER =
+      BASE64_URL.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8));
+  private static final String BODY_PREFIX =
+      "grant_type=urn%3Aietf%3Aparams%3Aoauth%3Agrant-type%3Ajwt-bearer&assertion=";
+
+  private final String claimsPrefix;
+  private final Signature signature;
+  private final Lock signatureLock = new ReentrantLock();
+  private final Clock clock;
+
+  public JwtBearerGrant(final SalesforceConfig salesforceConfig) {
+    this(salesforceConfig, Clock.systemUTC());
+  }
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  JwtBearerGrant(final SalesforceConfig salesforceConfig, final Clock clock) {
+    String privateKey = FormBodyUtil.required(salesforceConfig.getPrivateKey(), "private-key");
+    this.clock = clock;
+    this.claimsPrefix =
+        "{\"iss\":"
+            + jsonString(FormBodyUtil.required(salesforceConfig.getClientId(), "client-id"))
+            + ",\"sub\":"
+            + jsonString(FormBodyUtil.required(salesforceConfig.getUsername(), "username"))
+            + ",\"aud\":"
+            + jsonString(FormBodyUtil.required(salesforceConfig.getJwtAudience(), "jwt-audience"))
+            + ",\"exp\":";
+    try {
+      this.signature = Signature.getInstance("SHA256withRSA");
+      this.signature.initSign(parsePrivateKey(privateKey));
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "salesforce.private-key must be a PKCS#8 PEM encoded RSA private key", e);
+    }
+  }
+
+  @Override
+  public String requestBody() {
+    String claims = claimsPrefix + (clock.instant().getEpochSecond() + EXPIRY_SECONDS) + "}";
+    String signingInput =
+        HEADER + "." + BASE64_URL.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+    // base64url characters do not need to be form encoded
+    return BODY_PREFIX
+        + signingInput
+        + "."
+        + BASE64_URL.encodeToString(sign(signingInput.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private byte[] sign(final byte[] signingInput) {
+    // a Signature instance is stateful, each signing must complete before the next one starts
+    signatureLock.lock();
+    try {
+      signature.update(signingInput);
+      return signature.sign();
+    } catch (SignatureException e) {
+      throw new IllegalStateException("failed to sign jwt bearer assertion", e);
+    } finally {
+      signatureLock.unlock();
+    }
+  }
+
+  private static PrivateKey parsePrivateKey(final String pem) throws GeneralSecurityException {
+    String base64 = pem.replaceAll("-----(BEGIN|END) PRIVATE KEY-----", "");
+    return KeyFactory.getInstance("RSA")
+        .generatePrivate(new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(base64)));
+  }
+
+  private static String jsonString(final String value) {
+    StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if (Character.isISOControl(c)) {
+        json.append(String.format("\\u%04x", (int) c));
+      } else {
+        json.append(c);
+      }
+    }
+    return json.append('"').toString();
+  }
+}
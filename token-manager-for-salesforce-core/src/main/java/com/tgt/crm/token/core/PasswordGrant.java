@@ -0,0 +1,27 @@
+package com.tgt.crm.token.core;
+
+/**
+ * OAuth 2.0 username-password flow. The credentials do not change at runtime, so the request body
+ * is encoded once and reused for every refresh.
+ */
+public class PasswordGrant implements TokenGrant {
+
+  private final String body;
+
+  public PasswordGrant(final SalesforceConfig salesforceConfig) {
+    this.body =
+        String.join(
+            "&",
+            "grant_type=password",
+            FormBodyUtil.param("username", salesforceConfig.getUsername(), "username"),
+            FormBodyUtil.param("password", salesforceConfig.getPassword(), "password"),
+            FormBodyUtil.param("client_id", salesforceConfig.getClientId(), "client-id"),
+            FormBodyUtil.param(
+                "client_secret", salesforceConfig.getClientSecret(), "client-secret"));
+  }
+
+  @Override
+  public String requestBody() {
+    return body;
+  }
+}
@@ -0,0 +1,30 @@
+package com.tgt.crm.token.core;
+
+import java.time.Duration;
+
+/** The waits between polls of a Bulk API 2.0 job, growing from an interval up to a max. */
+final class PollBackoff {
+
+  private final long interval;
+  private final double multiplier;
+  private final long maxInterval;
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  PollBackoff(final long interval, final double multiplier, final long maxInterval) {
+    this.interval = interval;
+    this.multiplier = multiplier;
+    this.maxInterval = maxInterval;
+  }
+
+  /** Whether the interval is positive, does not shrink and stays within the max. */
+  @SuppressWarnings("PMD.DefaultPackage")
+  boolean isValid() {
+    return interval >= 1 && multiplier >= 1 && maxInterval >= interval;
+  }
+
+  /** The interval, multiplied for each poll up to the max interval. */
+  @SuppressWarnings("PMD.DefaultPackage")
+  Duration delay(final int polls) {
+    return Duration.ofMillis((long) Math.min(interval * Math.pow(multiplier, polls), maxInterval));
+  }
+}
@@ -0,0 +1,16 @@
+package com.tgt.crm.token.core;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("salesforce.proactive-refresh")
+public class ProactiveRefreshConfig {
+
+  private boolean enabled;
+  // should match the session timeout configured in the org's session settings, defaults to 2 hours
+  private int sessionTimeout = 7_200_000; // milliseconds
+  private int refreshAhead = 300_000; // milliseconds
+  // random delay of up to this amount is subtracted so replicas do not refresh at the same moment
+  private int jitter = 60_000; // milliseconds
+}
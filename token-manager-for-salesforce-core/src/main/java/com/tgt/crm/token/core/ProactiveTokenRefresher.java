@@ -0,0 +1,126 @@
+package com.tgt.crm.token.core;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Refreshes the token in the background before the Salesforce session times out, so requests do not
+ * have to fail with a 401 before a new token is generated. The refresh is scheduled from the
+ * token's issued_at time, less the configured refresh ahead time and a random jitter.
+ *
+ * <p>The new token is swapped in atomically by the {@link TokenManager}. Requests keep using the
+ * current token while the refresh is in flight and are never blocked by it. If the background
+ * refresh fails the current token is kept and the usual refresh on 401 takes over.
+ *
+ * <p>Further token managers, one per org, can be {@link #register(TokenManager) registered} to
+ * share the same scheduler.
+ */
+@Slf4j
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class ProactiveTokenRefresher implements AutoCloseable {
+
+  private final ProactiveRefreshConfig config;
+  private final ScheduledExecutorService scheduler;
+
+  public ProactiveTokenRefresher(
+      final TokenManager tokenManager, final ProactiveRefreshConfig config) {
+    this(
+        tokenManager,
+        config,
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "sf-token-refresh");
+              thread.setDaemon(true);
+              return thread;
+            }));
+  }
+
+  public ProactiveTokenRefresher(
+      final TokenManager tokenManager,
+      final ProactiveRefreshConfig config,
+      final ScheduledExecutorService scheduler) {
+    if (config.getRefreshAhead() + config.getJitter() >= config.getSessionTimeout()) {
+      throw new IllegalArgumentException(
+          "salesforce.proactive-refresh refresh-ahead plus jitter must be less than session-timeout");
+    }
+    this.config = config;
+    this.scheduler = scheduler;
+    register(tokenManager);
+  }
+
+  /**
+   * Refreshes the tokens of the given token manager in the background as well. A token it already
+   * holds, such as one restored on startup, is scheduled right away.
+   *
+   * @param tokenManager the token manager to refresh
+   */
+  public final void register(final TokenManager tokenManager) {
+    AtomicReference<ScheduledFuture<?>> scheduledRefresh = new AtomicReference<>();
+    tokenManager.addTokenListener(token -> scheduleRefresh(tokenManager, scheduledRefresh, token));
+    SalesforceToken cachedToken = tokenManager.getCachedToken();
+    if (cachedToken != null) {
+      scheduleRefresh(tokenManager, scheduledRefresh, cachedToken);
+    }
+  }
+
+  /**
+   * Calculates how long to wait before refreshing the given token.
+   *
+   * @param token the token to refresh
+   * @param now the current time
+   * @return delay in milliseconds
+   */
+  @SuppressWarnings("PMD.DefaultPackage")
+  final long refreshDelay(final SalesforceToken token, final Instant now) {
+    long refreshAt =
+        token.getIssuedAt().toEpochMilli()
+            + config.getSessionTimeout()
+            - config.getRefreshAhead()
+            - ThreadLocalRandom.current().nextLong(config.getJitter() + 1L);
+    long delay = refreshAt - now.toEpochMilli();
+    if (delay <= 0) {
+      // issued_at is the start of the session which may predate this token, count from now instead
+      delay += now.toEpochMilli() - token.getIssuedAt().toEpochMilli();
+    }
+    return delay;
+  }
+
+  private void scheduleRefresh(
+      final TokenManager tokenManager,
+      final AtomicReference<ScheduledFuture<?>> scheduledRefresh,
+      final SalesforceToken token) {
+    long delay = refreshDelay(token, Instant.now());
+    if (log.isDebugEnabled()) {
+      log.debug("scheduling background token refresh in {} ms", delay);
+    }
+    ScheduledFuture<?> previous =
+        scheduledRefresh.getAndSet(
+            scheduler.schedule(() -> refresh(tokenManager, token), delay, TimeUnit.MILLISECONDS));
+    if (previous != null) {
+      previous.cancel(false);
+    }
+  }
+
+  private static void refresh(final TokenManager tokenManager, final SalesforceToken token) {
+    log.info("refreshing token before session timeout");
+    tokenManager
+        .renewToken(token)
+        .whenComplete(
+            (refreshed, error) -> {
+              if (error != null) {
+                log.warn("background token refresh failed, keeping current token", error);
+              }
+            });
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+}
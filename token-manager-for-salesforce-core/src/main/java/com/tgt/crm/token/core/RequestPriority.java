@@ -0,0 +1,12 @@
+package com.tgt.crm.token.core;
+
+/**
+ * Priority of a request when the org nears its daily api request limit, set with {@link
+ * SalesforceConstants#PRIORITY_KEY}.
+ */
+public enum RequestPriority {
+  /** always sent, the default */
+  NORMAL,
+  /** delayed and eventually rejected as the org's api usage nears its limit */
+  LOW
+}
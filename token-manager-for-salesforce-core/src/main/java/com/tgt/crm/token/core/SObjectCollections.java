@@ -0,0 +1,173 @@
+package com.tgt.crm.token.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Builds sObject Collections requests and reads their responses. One call creates or updates up to
+ * 200 records of a type and returns a save result for each record, in the order the records were
+ * sent. The calls are not all or none, a record that fails does not roll back the others.
+ *
+ * <p>Records are serialized with the given object mapper, each must serialize to a JSON object of
+ * field names and values. Records to update must have an Id field.
+ */
+public class SObjectCollections {
+
+  public static final int MAX_RECORDS = 200;
+
+  private static final Pattern API_VERSION = Pattern.compile("v\\d+\\.\\d+");
+  private static final int SUCCESS_STATUS_CLASS = 2;
+  private static final TypeReference<List<SaveError>> SAVE_ERRORS =
+      new TypeReference<List<SaveError>>() {};
+
+  private final ObjectMapper objectMapper;
+  private final String path;
+  private final int batchSize;
+  private final long window;
+  private final int concurrency;
+
+  /**
+   * Creates the requests of the configured API version.
+   *
+   * @param config the API version, the batching and the calls in flight
+   * @param objectMapper serializes the records
+   */
+  public SObjectCollections(
+      final SObjectCollectionsConfig config, final ObjectMapper objectMapper) {
+    if (config.getApiVersion() == null
+        || !API_VERSION.matcher(config.getApiVersion()).matches()
+        || config.getBatchSize() < 1
+        || config.getBatchSize() > MAX_RECORDS
+        || config.getWindow() < 0
+        || config.getConcurrency() < 1) {
+      throw new IllegalArgumentException(
+          "salesforce.sobject-collections must satisfy api-version like v52.0,"
+              + " 1 <= batch-size <= 200, window >= 0 and concurrency >= 1");
+    }
+    this.objectMapper = objectMapper;
+    this.path = "/services/data/" + config.getApiVersion() + "/composite/sobjects";
+    this.batchSize = config.getBatchSize();
+    this.window = config.getWindow();
+    this.concurrency = config.getConcurrency();
+  }
+
+  /** The sObject Collections resource, POST creates records and PATCH updates them. */
+  public String getPath() {
+    return path;
+  }
+
+  /** Records per call. */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /** How long a batch waits to fill up, in milliseconds. */
+  public long getWindow() {
+    return window;
+  }
+
+  /** Calls in flight per write. */
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  /**
+   * Builds the body of a call.
+   *
+   * @param type the sObject type of the records, e.g. Account
+   * @param records up to the batch size records
+   * @return the JSON request body
+   * @throws IllegalArgumentException if a record does not serialize to a JSON object
+   */
+  public byte[] requestBody(final String type, final List<?> records) {
+    ObjectNode request = objectMapper.createObjectNode().put("allOrNone", false);
+    ArrayNode array = request.putArray("records");
+    for (Object record : records) {
+      JsonNode fields = objectMapper.valueToTree(record);
+      if (!fields.isObject()) {
+        throw new IllegalArgumentException(
+            "a " + type + " record must serialize to a JSON object, not " + fields.getNodeType());
+      }
+      ObjectNode sobject = array.addObject();
+      sobject.putObject("attributes").put("type", type);
+      sobject.setAll((ObjectNode) fields);
+    }
+    try {
+      return objectMapper.writeValueAsBytes(request);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Pairs the records of a call with their save results. If the call itself failed, every record
+   * fails with the errors of the response.
+   *
+   * @param records the records sent
+   * @param status the status of the response
+   * @param body the body of the response
+   * @param <T> the type of the records
+   * @return a result for each record, in the order of the records
+   * @throws IOException if a successful response does not have a save result for each record
+   */
+  public <T> List<SaveResult<T>> results(final List<T> records, final int status, final byte[] body)
+      throws IOException {
+    List<SaveResult<T>> results = new ArrayList<>(records.size());
+    if (status / 100 != SUCCESS_STATUS_CLASS) {
+      List<SaveError> errors = callErrors(status, body);
+      records.forEach(record -> results.add(new SaveResult<>(record, null, false, errors)));
+      return results;
+    }
+    JsonNode saveResults = objectMapper.readTree(body);
+    if (!saveResults.isArray() || saveResults.size() != records.size()) {
+      throw new IOException(
+          "sObject Collections response has "
+              + saveResults.size()
+              + " results for "
+              + records.size()
+              + " records");
+    }
+    for (int i = 0; i < records.size(); i++) {
+      JsonNode saveResult = saveResults.get(i);
+      JsonNode errors = saveResult.path("errors");
+      results.add(
+          new SaveResult<>(
+              records.get(i),
+              saveResult.path("id").textValue(),
+              saveResult.path("success").asBoolean(),
+              errors.isArray()
+                  ? objectMapper.convertValue(errors, SAVE_ERRORS)
+                  : Collections.emptyList()));
+    }
+    return results;
+  }
+
+  /** Salesforce reports a failed call as a list of errors, anything else is kept as the message. */
+  private List<SaveError> callErrors(final int status, final byte[] body) {
+    List<SaveError> errors;
+    try {
+      errors = objectMapper.readValue(body, SAVE_ERRORS);
+    } catch (IOException e) {
+      return statusError(status, body);
+    }
+    return errors == null || errors.isEmpty() ? statusError(status, body) : errors;
+  }
+
+  private static List<SaveError> statusError(final int status, final byte[] body) {
+    SaveError error = new SaveError();
+    error.setStatusCode(String.valueOf(status));
+    error.setMessage(new String(body, StandardCharsets.UTF_8));
+    return List.of(error);
+  }
+}
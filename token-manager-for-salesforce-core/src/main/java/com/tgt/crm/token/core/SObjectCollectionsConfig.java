@@ -0,0 +1,18 @@
+package com.tgt.crm.token.core;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("salesforce.sobject-collections")
+public class SObjectCollectionsConfig {
+
+  // version of the REST API records are written with
+  private String apiVersion = "v52.0";
+  // records per call, Salesforce accepts at most 200
+  private int batchSize = SObjectCollections.MAX_RECORDS;
+  // WebFlux only, how long a batch waits to fill up after its first record before it is sent
+  private long window = 100; // milliseconds
+  // calls in flight per write
+  private int concurrency = 4;
+}
@@ -1,10 +1,19 @@
 package com.tgt.crm.token.core;
 
+import static com.tgt.crm.token.core.SalesforceConstants.AUTH_CIRCUIT_OPEN_DURATION_DEFAULT;
+import static com.tgt.crm.token.core.SalesforceConstants.AUTH_FAILURE_THRESHOLD_DEFAULT;
 import static com.tgt.crm.token.core.SalesforceConstants.AUTH_URI;
+import static com.tgt.crm.token.core.SalesforceConstants.JWT_AUDIENCE_DEFAULT;
 import static com.tgt.crm.token.core.SalesforceConstants.MAX_AUTH_TOKEN_RETRIES_DEFAULT;
 import static com.tgt.crm.token.core.SalesforceConstants.RETRY_BACKOFF_DELAY_DEFAULT;
 import static com.tgt.crm.token.core.SalesforceConstants.RETRY_BACKOFF_MULTIPLIER_DEFAULT;
+import static com.tgt.crm.token.core.SalesforceConstants.USER_COOLDOWN_DEFAULT;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Pattern;
 import lombok.Data;
@@ -14,20 +23,23 @@ import org.springframework.validation.annotation.Validated;
 @Data
 @ConfigurationProperties("salesforce")
 @Validated
+@SuppressWarnings("PMD.TooManyFields")
 public class SalesforceConfig {
 
-  private static final String NOT_ENV_VAR_PATTERN = "^(?!(\\$\\{.+})$).+$";
-  private static final String ENV_VAR_MISSING_MSG = "Environment variable is missing";
+  // also used by IntegrationUser, so both validate placeholders the same way
+  @SuppressWarnings("PMD.DefaultPackage")
+  static final String NOT_ENV_VAR_PATTERN = "^(?!(\\$\\{.+})$).+$";
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  static final String ENV_VAR_MISSING_MSG = "Environment variable is missing";
 
   @NotBlank
   @Pattern(regexp = NOT_ENV_VAR_PATTERN, message = ENV_VAR_MISSING_MSG)
   private String host;
 
-  @NotBlank
   @Pattern(regexp = NOT_ENV_VAR_PATTERN, message = ENV_VAR_MISSING_MSG)
   private String username;
 
-  @NotBlank
   @Pattern(regexp = NOT_ENV_VAR_PATTERN, message = ENV_VAR_MISSING_MSG)
   private String password;
 
@@ -35,10 +47,23 @@ public class SalesforceConfig {
   @Pattern(regexp = NOT_ENV_VAR_PATTERN, message = ENV_VAR_MISSING_MSG)
   private String clientId;
 
-  @NotBlank
   @Pattern(regexp = NOT_ENV_VAR_PATTERN, message = ENV_VAR_MISSING_MSG)
   private String clientSecret;
 
+  // username, password and client secret are required depending on the grant type, each grant
+  // checks the properties it needs on startup
+  private GrantType grantType = GrantType.PASSWORD;
+
+  // PKCS#8 PEM encoded RSA private key, only used by the jwt-bearer grant
+  private String privateKey;
+
+  // only used by the jwt-bearer grant, https://test.salesforce.com for sandboxes
+  private String jwtAudience = JWT_AUDIENCE_DEFAULT;
+
+  // data requests to the host above are sent to the instance_url returned with the token instead,
+  // saving the hop from a login or my domain host to the org's instance
+  private boolean useInstanceUrl;
+
   private String authUri = AUTH_URI;
   private int maxAuthTokenRetries = MAX_AUTH_TOKEN_RETRIES_DEFAULT;
   private int retryBackoffDelay = RETRY_BACKOFF_DELAY_DEFAULT; // milliseconds
@@ -46,4 +71,50 @@ public class SalesforceConfig {
   // property only used for MVC. WebClient retry uses the backoff delay value as a min delay and
   // a jitter factor to randomize retry delays instead of a fixed multiplier
   private int retryBackoffMultiplier = RETRY_BACKOFF_MULTIPLIER_DEFAULT;
+
+  // consecutive failed token requests, each including its retries, after which token requests fail
+  // fast for the open duration. 0 disables the circuit breaker
+  private int authFailureThreshold = AUTH_FAILURE_THRESHOLD_DEFAULT;
+  private long authCircuitOpenDuration = AUTH_CIRCUIT_OPEN_DURATION_DEFAULT; // milliseconds
+
+  // additional integration users of this org, each with its own token. Requests are spread across
+  // them and the user configured above
+  private List<@Valid IntegrationUser> users = new ArrayList<>();
+  private UserSelection userSelection = UserSelection.LEAST_IN_FLIGHT;
+  // how long a user whose token could not be refreshed is skipped, milliseconds
+  private long userCooldown = USER_COOLDOWN_DEFAULT;
+
+  // additional orgs keyed by name, each with its own host, credentials, token and connection pool.
+  // The properties above configure the default org
+  private Map<String, @Valid SalesforceConfig> orgs = new LinkedHashMap<>();
+
+  /**
+   * Creates the config of one of this org's additional integration users.
+   *
+   * @param user the user
+   * @return a copy of this config with the user's credentials
+   */
+  public SalesforceConfig forUser(final IntegrationUser user) {
+    // copied field by field rather than with Spring's BeanUtils, core is used without Spring by the
+    // jdkhttp module
+    SalesforceConfig userConfig = new SalesforceConfig();
+    userConfig.setHost(host);
+    userConfig.setUsername(user.getUsername());
+    userConfig.setPassword(user.getPassword());
+    userConfig.setClientId(clientId);
+    userConfig.setClientSecret(clientSecret);
+    userConfig.setGrantType(grantType);
+    userConfig.setPrivateKey(privateKey);
+    userConfig.setJwtAudience(jwtAudience);
+    userConfig.setUseInstanceUrl(useInstanceUrl);
+    userConfig.setAuthUri(authUri);
+    userConfig.setMaxAuthTokenRetries(maxAuthTokenRetries);
+    userConfig.setRetryBackoffDelay(retryBackoffDelay);
+    userConfig.setRetryBackoffMultiplier(retryBackoffMultiplier);
+    userConfig.setAuthFailureThreshold(authFailureThreshold);
+    userConfig.setAuthCircuitOpenDuration(authCircuitOpenDuration);
+    userConfig.setUserSelection(userSelection);
+    userConfig.setUserCooldown(userCooldown);
+    return userConfig;
+  }
 }
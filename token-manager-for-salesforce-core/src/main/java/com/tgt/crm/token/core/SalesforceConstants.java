@@ -8,8 +8,34 @@ public final class SalesforceConstants {
   public static final String EXCEPTION_TYPE_TAG = "exception_type";
   public static final String TOKEN_REFRESH_EXCEPTION = "token_refresh_exception";
   public static final int MAX_AUTH_TOKEN_RETRIES_DEFAULT = 3;
+  public static final int MAX_CONN_PER_ROUTE_DEFAULT = 20;
   public static final int RETRY_BACKOFF_DELAY_DEFAULT = 1000;
   public static final int RETRY_BACKOFF_MULTIPLIER_DEFAULT = 2;
+  public static final String JWT_AUDIENCE_DEFAULT = "https://login.salesforce.com";
+  public static final long USER_COOLDOWN_DEFAULT = 300_000;
+  public static final int AUTH_FAILURE_THRESHOLD_DEFAULT = 3;
+  public static final long AUTH_CIRCUIT_OPEN_DURATION_DEFAULT = 30_000;
+  public static final String DEFAULT_ORG = "default";
+  // Reactor Context key for WebFlux and request attribute name for MVC used to select an org
+  public static final String ORG_KEY = "com.tgt.crm.token.org";
+  // Reactor Context key for WebFlux and request attribute name for MVC holding a RequestPriority
+  public static final String PRIORITY_KEY = "com.tgt.crm.token.priority";
+  public static final String LIMIT_INFO_HEADER = "Sforce-Limit-Info";
+  public static final String API_USAGE_GAUGE = "salesforce_api_usage";
+  public static final String API_LIMIT_GAUGE = "salesforce_api_limit";
+  public static final String ORG_TAG = "org";
+  public static final String AUTH_CIRCUIT_GAUGE = "salesforce_auth_circuit_state";
+  public static final String USERNAME_TAG = "username";
+  public static final String GRANT_TYPE_TAG = "grant_type";
+  public static final String OUTCOME_TAG = "outcome";
+  public static final String TOKEN_REFRESH_TIMER = "salesforce_token_refresh";
+  public static final String TOKEN_REFRESH_WAITERS_COUNTER = "salesforce_token_refresh_waiters";
+  public static final String TOKEN_REFRESH_REUSED_COUNTER = "salesforce_token_refresh_reused";
+  public static final String TOKEN_AGE_GAUGE = "salesforce_token_age_seconds";
+  public static final String UNAUTHORIZED_RETRY_COUNTER = "salesforce_unauthorized_retries";
+  public static final String COMPOSITE_BATCH_SIZE_SUMMARY = "salesforce_composite_batch_size";
+  public static final String COMPOSITE_BATCH_FILL_SUMMARY = "salesforce_composite_batch_fill";
+  public static final String COMPOSITE_BATCH_WAIT_TIMER = "salesforce_composite_batch_wait";
 
   private SalesforceConstants() {}
 }
@@ -0,0 +1,241 @@
+package com.tgt.crm.token.core;
+
+import static com.tgt.crm.token.core.SalesforceConstants.API_LIMIT_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.API_USAGE_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_TAG;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Holds an auth client, and with it a token cache, for the default org configured by the top level
+ * salesforce properties and for each additional org configured under salesforce.orgs. Each org's
+ * calls are spread across its integration users, see {@link IntegrationUserPool}, and its api usage
+ * is tracked by an {@link ApiLimitTracker}. The web modules extend it with the lookup of the org
+ * selected for the current request.
+ *
+ * @param <T> the per user auth client
+ */
+public class SalesforceOrgRegistry<T> {
+
+  private final Map<String, T> authClients = new LinkedHashMap<>();
+  private final Map<String, IntegrationUserPool<T>> userPools = new LinkedHashMap<>();
+  private final Map<String, ApiLimitTracker> apiLimitTrackers = new LinkedHashMap<>();
+  private final Map<String, URI> hosts = new LinkedHashMap<>();
+  private final Set<String> instanceUrlOrgs = new HashSet<>();
+
+  /**
+   * Creates the auth clients of every org and integration user.
+   *
+   * @param defaultAuthClient the auth client of the default org's top level user
+   * @param salesforceConfig the salesforce properties
+   * @param apiLimitConfig the api limit properties
+   * @param meterRegistry the registry to create the token and api usage metrics in
+   * @param authClientFactory creates the auth client of an org's or integration user's config
+   * @param tokenManager the token manager of an auth client
+   * @throws IllegalArgumentException if an additional org is named like the default org
+   */
+  public SalesforceOrgRegistry(
+      final T defaultAuthClient,
+      final SalesforceConfig salesforceConfig,
+      final ApiLimitConfig apiLimitConfig,
+      final MeterRegistry meterRegistry,
+      final Function<SalesforceConfig, T> authClientFactory,
+      final Function<T, TokenManager> tokenManager) {
+    addOrg(
+        DEFAULT_ORG,
+        salesforceConfig,
+        defaultAuthClient,
+        authClientFactory,
+        tokenManager,
+        meterRegistry);
+    salesforceConfig
+        .getOrgs()
+        .forEach(
+            (org, orgConfig) -> {
+              if (DEFAULT_ORG.equals(org)) {
+                throw new IllegalArgumentException(
+                    "salesforce org name " + DEFAULT_ORG + " is reserved for the default org");
+              }
+              addOrg(
+                  org,
+                  orgConfig,
+                  authClientFactory.apply(orgConfig),
+                  authClientFactory,
+                  tokenManager,
+                  meterRegistry);
+            });
+    authClients.keySet().forEach(org -> addApiLimitTracker(org, apiLimitConfig, meterRegistry));
+  }
+
+  private void addApiLimitTracker(
+      final String org, final ApiLimitConfig apiLimitConfig, final MeterRegistry meterRegistry) {
+    ApiLimitTracker apiLimitTracker = new ApiLimitTracker(org, apiLimitConfig);
+    apiLimitTrackers.put(org, apiLimitTracker);
+    meterRegistry.gauge(
+        API_USAGE_GAUGE, Tags.of(ORG_TAG, org), apiLimitTracker, ApiLimitTracker::getUsed);
+    meterRegistry.gauge(
+        API_LIMIT_GAUGE, Tags.of(ORG_TAG, org), apiLimitTracker, ApiLimitTracker::getLimit);
+  }
+
+  private void addOrg(
+      final String org,
+      final SalesforceConfig orgConfig,
+      final T authClient,
+      final Function<SalesforceConfig, T> authClientFactory,
+      final Function<T, TokenManager> tokenManager,
+      final MeterRegistry meterRegistry) {
+    List<T> users = new ArrayList<>();
+    users.add(authClient);
+    TokenMetrics.bind(meterRegistry, org, orgConfig, tokenManager.apply(authClient));
+    orgConfig.getUsers().stream()
+        .map(orgConfig::forUser)
+        .forEach(
+            userConfig -> {
+              T userClient = authClientFactory.apply(userConfig);
+              TokenMetrics.bind(meterRegistry, org, userConfig, tokenManager.apply(userClient));
+              users.add(userClient);
+            });
+    authClients.put(org, authClient);
+    userPools.put(
+        org,
+        new IntegrationUserPool<>(
+            users, orgConfig.getUserSelection(), orgConfig.getUserCooldown()));
+    hosts.put(org, URI.create(orgConfig.getHost()));
+    if (orgConfig.isUseInstanceUrl()) {
+      instanceUrlOrgs.add(org);
+    }
+  }
+
+  public boolean isMultiOrg() {
+    return authClients.size() > 1;
+  }
+
+  public Map<String, T> getAuthClients() {
+    return Collections.unmodifiableMap(authClients);
+  }
+
+  /**
+   * Returns the auth client of the given org.
+   *
+   * @param org the org name
+   * @return the auth client holding the org's token
+   * @throws IllegalArgumentException if no org with this name is configured
+   */
+  public T getAuthClient(final String org) {
+    T authClient = authClients.get(org);
+    if (authClient == null) {
+      throw new IllegalArgumentException("unknown salesforce org " + org);
+    }
+    return authClient;
+  }
+
+  /**
+   * Returns the integration users of the given org.
+   *
+   * @param org the org name
+   * @return the pool of the org's auth clients, one per integration user
+   * @throws IllegalArgumentException if no org with this name is configured
+   */
+  public IntegrationUserPool<T> getUserPool(final String org) {
+    IntegrationUserPool<T> userPool = userPools.get(org);
+    if (userPool == null) {
+      throw new IllegalArgumentException("unknown salesforce org " + org);
+    }
+    return userPool;
+  }
+
+  /**
+   * Returns the api usage of the given org.
+   *
+   * @param org the org name
+   * @return the tracker of the api usage reported by the org's responses
+   * @throws IllegalArgumentException if no org with this name is configured
+   */
+  public ApiLimitTracker getApiLimitTracker(final String org) {
+    ApiLimitTracker apiLimitTracker = apiLimitTrackers.get(org);
+    if (apiLimitTracker == null) {
+      throw new IllegalArgumentException("unknown salesforce org " + org);
+    }
+    return apiLimitTracker;
+  }
+
+  public Map<String, IntegrationUserPool<T>> getUserPools() {
+    return Collections.unmodifiableMap(userPools);
+  }
+
+  /**
+   * Points a request URL at the host of the given org. Relative URIs are resolved against the
+   * default org's host by the HTTP client, so only URLs on that host are rewritten, absolute URIs
+   * to any other host are left as they are.
+   *
+   * @param url the request URL
+   * @param org the org name
+   * @return the URL with the org's scheme, host and port
+   */
+  public URI routeToOrg(final URI url, final String org) {
+    URI defaultHost = hosts.get(DEFAULT_ORG);
+    URI orgHost = hosts.get(org);
+    if (orgHost == null || orgHost.equals(defaultHost) || !sameOrigin(url, defaultHost)) {
+      return url;
+    }
+    return withOrigin(url, orgHost);
+  }
+
+  /**
+   * Points a request URL at the instance_url of the token used for the request, if the org is
+   * configured to use it.
+   *
+   * @param url the request URL, already routed to the org
+   * @param org the org name
+   * @param token the token used for the request, null if there is none
+   * @return the URL on the token's instance host
+   */
+  public URI routeToInstance(final URI url, final String org, final SalesforceToken token) {
+    return instanceUrlOrgs.contains(org) ? routeToInstance(url, hosts.get(org), token) : url;
+  }
+
+  /**
+   * Points a request URL at the instance_url of the token used for the request. Only URLs on the
+   * configured host are rewritten.
+   *
+   * @param url the request URL
+   * @param host the configured host of the token's org
+   * @param token the token used for the request, null if there is none
+   * @return the URL on the token's instance host
+   */
+  public static URI routeToInstance(final URI url, final URI host, final SalesforceToken token) {
+    URI instanceUri = token == null ? null : token.getInstanceUri();
+    if (instanceUri == null || !sameOrigin(url, host) || sameOrigin(url, instanceUri)) {
+      return url;
+    }
+    return withOrigin(url, instanceUri);
+  }
+
+  private static URI withOrigin(final URI url, final URI host) {
+    return URI.create(
+        host.getScheme()
+            + "://"
+            + host.getRawAuthority()
+            + Objects.toString(url.getRawPath(), "")
+            + (url.getRawQuery() == null ? "" : "?" + url.getRawQuery())
+            + (url.getRawFragment() == null ? "" : "#" + url.getRawFragment()));
+  }
+
+  private static boolean sameOrigin(final URI url, final URI host) {
+    return Objects.equals(url.getScheme(), host.getScheme())
+        && Objects.equals(url.getHost(), host.getHost())
+        && url.getPort() == host.getPort();
+  }
+}
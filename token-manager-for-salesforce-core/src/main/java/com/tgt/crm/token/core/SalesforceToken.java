@@ -0,0 +1,108 @@
+package com.tgt.crm.token.core;
+
+import java.net.URI;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable snapshot of a token issued by the Salesforce OAuth endpoint. Each snapshot is stamped
+ * with a generation number that increases with every successful refresh, which lets a caller tell
+ * whether the token it used is still the current one.
+ */
+@Getter
+@ToString
+@Slf4j
+public class SalesforceToken {
+
+  private final long generation;
+
+  private final String tokenType;
+
+  @ToString.Exclude private final String accessToken;
+
+  /** value for the Authorization header, computed once when the token is issued */
+  @ToString.Exclude private final String authorization;
+
+  private final String instanceUrl;
+
+  private final String id;
+
+  private final Instant issuedAt;
+
+  @ToString.Exclude private final String signature;
+
+  /** instance_url parsed once, null if it is not an absolute URL */
+  @ToString.Exclude private final URI instanceUri;
+
+  public SalesforceToken(
+      final long generation,
+      final String tokenType,
+      final String accessToken,
+      final String authorization,
+      final String instanceUrl,
+      final String id,
+      final Instant issuedAt,
+      final String signature) {
+    this.generation = generation;
+    this.tokenType = tokenType;
+    this.accessToken = accessToken;
+    this.authorization = authorization;
+    this.instanceUrl = instanceUrl;
+    this.id = id;
+    this.issuedAt = issuedAt;
+    this.signature = signature;
+    this.instanceUri = parseInstanceUrl(instanceUrl);
+  }
+
+  public static SalesforceToken from(
+      final SalesforceAuthResponse authResponse, final long generation) {
+    return new SalesforceToken(
+        generation,
+        authResponse.getTokenType(),
+        authResponse.getAccessToken(),
+        authResponse.getSalesforceAuthToken(),
+        authResponse.getInstanceUrl(),
+        authResponse.getId(),
+        parseIssuedAt(authResponse.getIssuedAt()),
+        authResponse.getSignature());
+  }
+
+  /**
+   * Checks if this token was issued after the given one.
+   *
+   * @param other token to compare against, null if the caller had no token
+   * @return true if this token is newer than the other token
+   */
+  public boolean isNewerThan(final SalesforceToken other) {
+    return other == null || generation > other.generation;
+  }
+
+  private static URI parseInstanceUrl(final String instanceUrl) {
+    if (instanceUrl != null) {
+      try {
+        URI instanceUri = URI.create(instanceUrl);
+        if (instanceUri.getScheme() != null && instanceUri.getHost() != null) {
+          return instanceUri;
+        }
+      } catch (IllegalArgumentException e) {
+        log.debug("unable to parse instance_url {}", instanceUrl, e);
+      }
+      log.warn("instance_url {} is not an absolute url", instanceUrl);
+    }
+    return null;
+  }
+
+  // issued_at is returned as milliseconds since the epoch, fall back to the time it was received
+  private static Instant parseIssuedAt(final String issuedAt) {
+    if (issuedAt != null) {
+      try {
+        return Instant.ofEpochMilli(Long.parseLong(issuedAt));
+      } catch (NumberFormatException e) {
+        log.warn("unable to parse issued_at value {}", issuedAt);
+      }
+    }
+    return Instant.now();
+  }
+}
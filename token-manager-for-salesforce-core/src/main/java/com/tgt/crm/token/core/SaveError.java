@@ -0,0 +1,21 @@
+package com.tgt.crm.token.core;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.List;
+import lombok.Data;
+
+/** Why Salesforce did not save a record, see {@link SaveResult}. */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SaveError {
+
+  // e.g. REQUIRED_FIELD_MISSING, the error code if the whole call failed
+  @JsonAlias("errorCode")
+  private String statusCode;
+
+  private String message;
+
+  // the fields the error is about, if any
+  private List<String> fields;
+}
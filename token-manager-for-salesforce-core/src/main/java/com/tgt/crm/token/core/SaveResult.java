@@ -0,0 +1,28 @@
+package com.tgt.crm.token.core;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The outcome of writing one record with {@link SObjectCollections}.
+ *
+ * @param <T> the type of the record
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class SaveResult<T> {
+
+  /** the record as it was passed in */
+  private final T record;
+
+  /** the id of the record, null if it was not saved */
+  private final String id;
+
+  private final boolean success;
+
+  /** why the record was not saved, empty if it was */
+  private final List<SaveError> errors;
+}
@@ -0,0 +1,20 @@
+package com.tgt.crm.token.core;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A token held by a {@link TokenStore}. The version starts at 1 and increases every time the token
+ * for a key is replaced, it is what {@link TokenStore#compareAndSet} compares.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class StoredToken {
+
+  private final long version;
+
+  /** the auth response the token was issued with, must not be modified */
+  @ToString.Exclude private final SalesforceAuthResponse authResponse;
+}
@@ -0,0 +1,36 @@
+package com.tgt.crm.token.core;
+
+/**
+ * Builds the form encoded body sent to the Salesforce OAuth token endpoint. Implement this to use a
+ * grant type not supported out of the box, otherwise {@link #fromConfig(SalesforceConfig)} picks
+ * the grant configured by salesforce.grant-type.
+ */
+@FunctionalInterface
+public interface TokenGrant {
+
+  /**
+   * Called once for every token request, including retries.
+   *
+   * @return the application/x-www-form-urlencoded request body
+   */
+  String requestBody();
+
+  /**
+   * Creates the grant configured for an org.
+   *
+   * @param salesforceConfig the org's config
+   * @return the configured grant
+   * @throws IllegalArgumentException if a property required by the grant is missing or invalid
+   */
+  static TokenGrant fromConfig(final SalesforceConfig salesforceConfig) {
+    switch (salesforceConfig.getGrantType()) {
+      case CLIENT_CREDENTIALS:
+        return new ClientCredentialsGrant(salesforceConfig);
+      case JWT_BEARER:
+        return new JwtBearerGrant(salesforceConfig);
+      case PASSWORD:
+      default:
+        return new PasswordGrant(salesforceConfig);
+    }
+  }
+}
@@ -0,0 +1,344 @@
+package com.tgt.crm.token.core;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caches the current Salesforce token and coordinates refreshing it. Used by both the WebFlux and
+ * MVC auth clients.
+ *
+ * <p>Only one refresh is in flight at a time, concurrent callers share its result. A caller that
+ * received a 401 passes in the token it used; if a newer token has been issued since, that token is
+ * returned without calling Salesforce again, so late 401s from a burst of requests made with the
+ * old token do not each cause a refresh.
+ *
+ * <p>Before calling Salesforce the {@link TokenStore} is checked for a token another instance
+ * issued in the meantime. A token issued by this instance is only stored if no other instance
+ * stored one first, otherwise the other instance's token is used so all instances converge on one
+ * token. Token store calls run on the store executor, so a store that blocks, like {@link
+ * FileTokenStore}, does not block the thread that completed the token request.
+ *
+ * <p>Calls to Salesforce go through an {@link AuthCircuitBreaker}. While it is open, refreshes fail
+ * fast with an {@link AuthCircuitOpenException}, tokens stored by other instances are still used.
+ */
+@Slf4j
+@SuppressWarnings("PMD.AvoidCatchingGenericException")
+public class TokenManager {
+
+  private static final String EMPTY_AUTH_RESPONSE_MSG = "salesforce auth response body was empty";
+
+  private final TokenRequester tokenRequester;
+  private final TokenStore tokenStore;
+  private final String tokenStoreKey;
+  private final AuthCircuitBreaker circuitBreaker;
+  private final Executor storeExecutor;
+  private final AtomicReference<SalesforceToken> currentToken = new AtomicReference<>();
+  private final AtomicReference<CompletableFuture<SalesforceToken>> inFlightRefresh =
+      new AtomicReference<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final List<Consumer<SalesforceToken>> tokenListeners = new CopyOnWriteArrayList<>();
+  // still in the token store after it was discarded, must not be picked up from there again
+  private final AtomicReference<String> discardedAccessToken = new AtomicReference<>();
+  private final AtomicReference<TokenMetrics> metrics = new AtomicReference<>(TokenMetrics.NONE);
+
+  public TokenManager(final TokenRequester tokenRequester) {
+    this(tokenRequester, new InMemoryTokenStore(), "", new AuthCircuitBreaker(0, 0));
+  }
+
+  /**
+   * Creates a token manager that shares its tokens through a token store.
+   *
+   * @param tokenRequester performs the call to the Salesforce OAuth endpoint
+   * @param tokenStore the token store
+   * @param tokenStoreKey the key of this org's token, see {@link
+   *     TokenStore#keyFor(SalesforceConfig)}
+   * @param circuitBreaker guards the calls to the token requester
+   */
+  public TokenManager(
+      final TokenRequester tokenRequester,
+      final TokenStore tokenStore,
+      final String tokenStoreKey,
+      final AuthCircuitBreaker circuitBreaker) {
+    this(tokenRequester, tokenStore, tokenStoreKey, circuitBreaker, Runnable::run);
+  }
+
+  /**
+   * Creates a token manager that shares its tokens through a token store and calls the store on the
+   * given executor.
+   *
+   * @param tokenRequester performs the call to the Salesforce OAuth endpoint
+   * @param tokenStore the token store
+   * @param tokenStoreKey the key of this org's token, see {@link
+   *     TokenStore#keyFor(SalesforceConfig)}
+   * @param circuitBreaker guards the calls to the token requester
+   * @param storeExecutor runs the token store calls, a thread that may block
+   */
+  public TokenManager(
+      final TokenRequester tokenRequester,
+      final TokenStore tokenStore,
+      final String tokenStoreKey,
+      final AuthCircuitBreaker circuitBreaker,
+      final Executor storeExecutor) {
+    this.tokenRequester = tokenRequester;
+    this.tokenStore = tokenStore;
+    this.tokenStoreKey = tokenStoreKey;
+    this.circuitBreaker = circuitBreaker;
+    this.storeExecutor = storeExecutor;
+  }
+
+  public TokenMetrics getMetrics() {
+    return metrics.get();
+  }
+
+  /**
+   * Records this token manager's refreshes in the given metrics, see {@link
+   * TokenMetrics#bind(io.micrometer.core.instrument.MeterRegistry, String, SalesforceConfig,
+   * TokenManager)}.
+   *
+   * @param metrics the integration user's metrics
+   */
+  public void setMetrics(final TokenMetrics metrics) {
+    this.metrics.set(metrics);
+  }
+
+  public AuthCircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Use to retrieve the cached token if there is one.
+   *
+   * @return the current token, null if no token has been issued yet or it was rejected
+   */
+  public SalesforceToken getCachedToken() {
+    return currentToken.get();
+  }
+
+  /**
+   * Returns the cached token, generating the first token if there is none.
+   *
+   * @return future completed with the current token
+   */
+  public CompletableFuture<SalesforceToken> getToken() {
+    SalesforceToken token = currentToken.get();
+    return token == null ? refreshToken(null) : CompletableFuture.completedFuture(token);
+  }
+
+  /**
+   * Replaces a token that Salesforce rejected. If a newer token than the rejected one has already
+   * been issued it is returned as is, otherwise a new token is requested or the refresh already in
+   * flight is joined.
+   *
+   * @param rejectedToken the token the caller used, null if the caller had no token
+   * @return future completed with a token newer than the rejected one
+   */
+  public CompletableFuture<SalesforceToken> refreshToken(final SalesforceToken rejectedToken) {
+    return refresh(rejectedToken, true);
+  }
+
+  /**
+   * Replaces a token that is still valid but about to expire. Unlike {@link
+   * #refreshToken(SalesforceToken)} the current token is kept if the refresh fails, so requests can
+   * continue to use it until Salesforce rejects it.
+   *
+   * @param expiringToken the token to replace
+   * @return future completed with a token newer than the expiring one
+   */
+  public CompletableFuture<SalesforceToken> renewToken(final SalesforceToken expiringToken) {
+    return refresh(expiringToken, false);
+  }
+
+  /**
+   * Registers a listener that is called with every newly issued token, on the thread that completed
+   * the refresh.
+   *
+   * @param listener the listener to notify
+   */
+  public void addTokenListener(final Consumer<SalesforceToken> listener) {
+    tokenListeners.add(listener);
+  }
+
+  private CompletableFuture<SalesforceToken> refresh(
+      final SalesforceToken replacedToken, final boolean dropOnFailure) {
+    SalesforceToken token = currentToken.get();
+    if (token != null && token.isNewerThan(replacedToken)) {
+      if (log.isDebugEnabled()) {
+        log.debug("token was already refreshed, using generation {}", token.getGeneration());
+      }
+      metrics.get().refreshReused();
+      return CompletableFuture.completedFuture(token);
+    }
+
+    CompletableFuture<SalesforceToken> refresh = new CompletableFuture<>();
+    CompletableFuture<SalesforceToken> inFlight = inFlightRefresh.compareAndExchange(null, refresh);
+    if (inFlight != null) {
+      log.debug("token refresh already in progress, waiting for it to complete");
+      metrics.get().refreshWaited();
+      // callers get their own copy so cancelling it does not cancel the shared refresh
+      return inFlight.copy();
+    }
+
+    // a refresh may have completed between reading the token and winning the race
+    token = currentToken.get();
+    if (token != null && token.isNewerThan(replacedToken)) {
+      metrics.get().refreshReused();
+      completeRefresh(refresh, token);
+    } else {
+      startRefresh(refresh, replacedToken, dropOnFailure);
+    }
+    return refresh.copy();
+  }
+
+  private void startRefresh(
+      final CompletableFuture<SalesforceToken> refresh,
+      final SalesforceToken replacedToken,
+      final boolean dropOnFailure) {
+    long start = System.nanoTime();
+    AtomicBoolean fromStore = new AtomicBoolean();
+    requestToken(replacedToken, fromStore)
+        .whenComplete(
+            (authResponse, error) -> {
+              if (error == null && authResponse != null) {
+                if (fromStore.get()) {
+                  metrics.get().refreshStored(start);
+                } else {
+                  metrics.get().refreshCompleted(start, null);
+                }
+                SalesforceToken issued =
+                    SalesforceToken.from(authResponse, generation.incrementAndGet());
+                completeRefresh(refresh, issued);
+                notifyListeners(issued);
+              } else {
+                Throwable failure =
+                    error == null ? new IllegalStateException(EMPTY_AUTH_RESPONSE_MSG) : error;
+                metrics.get().refreshCompleted(start, failure);
+                failRefresh(refresh, replacedToken, dropOnFailure, failure);
+              }
+            });
+  }
+
+  private void completeRefresh(
+      final CompletableFuture<SalesforceToken> refresh, final SalesforceToken token) {
+    // publish the token before clearing the in-flight refresh so no caller can miss both
+    currentToken.set(token);
+    inFlightRefresh.set(null);
+    refresh.complete(token);
+  }
+
+  private void failRefresh(
+      final CompletableFuture<SalesforceToken> refresh,
+      final SalesforceToken replacedToken,
+      final boolean dropOnFailure,
+      final Throwable failure) {
+    if (dropOnFailure && replacedToken != null) {
+      // a token Salesforce rejected is of no further use
+      discardedAccessToken.set(replacedToken.getAccessToken());
+      currentToken.compareAndSet(replacedToken, null);
+    }
+    inFlightRefresh.set(null);
+    refresh.completeExceptionally(failure);
+  }
+
+  private void notifyListeners(final SalesforceToken token) {
+    for (Consumer<SalesforceToken> listener : tokenListeners) {
+      try {
+        listener.accept(token);
+      } catch (RuntimeException e) {
+        log.error("token listener failed", e);
+      }
+    }
+  }
+
+  /**
+   * Uses a token another instance stored since the replaced token, logs in otherwise. fromStore is
+   * set if the stored token is used.
+   */
+  private CompletableFuture<SalesforceAuthResponse> requestToken(
+      final SalesforceToken replacedToken, final AtomicBoolean fromStore) {
+    String replacedAccessToken =
+        replacedToken == null ? discardedAccessToken.get() : replacedToken.getAccessToken();
+    return CompletableFuture.completedFuture(tokenStoreKey)
+        .thenApplyAsync(this::loadStoredToken, storeExecutor)
+        .thenCompose(stored -> requestToken(replacedAccessToken, stored, fromStore));
+  }
+
+  private CompletableFuture<SalesforceAuthResponse> requestToken(
+      final String replacedAccessToken, final StoredToken stored, final AtomicBoolean fromStore) {
+    if (stored != null
+        && !Objects.equals(replacedAccessToken, stored.getAuthResponse().getAccessToken())) {
+      if (log.isDebugEnabled()) {
+        log.debug("using stored token version {}", stored.getVersion());
+      }
+      fromStore.set(true);
+      return CompletableFuture.completedFuture(stored.getAuthResponse());
+    }
+    if (!circuitBreaker.tryAcquire()) {
+      log.debug("auth circuit open, failing token request fast");
+      return CompletableFuture.failedFuture(
+          new AuthCircuitOpenException(
+              "salesforce token requests are failing, not requesting a token until the auth"
+                  + " circuit closes"));
+    }
+    long expectedVersion = stored == null ? 0 : stored.getVersion();
+    return callTokenRequester()
+        .whenComplete(
+            (authResponse, error) -> {
+              if (error == null && authResponse != null) {
+                circuitBreaker.onSuccess();
+              } else {
+                circuitBreaker.onFailure();
+              }
+            })
+        .thenApplyAsync(authResponse -> storeToken(expectedVersion, authResponse), storeExecutor);
+  }
+
+  private StoredToken loadStoredToken(final String key) {
+    try {
+      return tokenStore.get(key);
+    } catch (RuntimeException e) {
+      log.warn("token store could not be read, requesting a new token", e);
+      return null;
+    }
+  }
+
+  private SalesforceAuthResponse storeToken(
+      final long expectedVersion, final SalesforceAuthResponse authResponse) {
+    if (authResponse == null) {
+      return null;
+    }
+    try {
+      if (tokenStore.compareAndSet(tokenStoreKey, expectedVersion, authResponse)) {
+        return authResponse;
+      }
+      StoredToken stored = tokenStore.get(tokenStoreKey);
+      if (stored != null) {
+        if (log.isDebugEnabled()) {
+          log.debug(
+              "token was stored by another instance first, using version {}", stored.getVersion());
+        }
+        return stored.getAuthResponse();
+      }
+    } catch (RuntimeException e) {
+      // the token is still valid, it just isn't shared
+      log.warn("token could not be stored", e);
+    }
+    return authResponse;
+  }
+
+  private CompletableFuture<SalesforceAuthResponse> callTokenRequester() {
+    try {
+      return tokenRequester.requestToken();
+    } catch (RuntimeException e) {
+      // surface synchronous failures to waiting callers the same way as asynchronous ones
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+}
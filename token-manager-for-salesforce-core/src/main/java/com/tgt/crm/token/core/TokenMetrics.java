@@ -0,0 +1,176 @@
+package com.tgt.crm.token.core;
+
+import static com.tgt.crm.token.core.SalesforceConstants.AUTH_CIRCUIT_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.GRANT_TYPE_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.OUTCOME_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_AGE_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_REUSED_COUNTER;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_TIMER;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_WAITERS_COUNTER;
+import static com.tgt.crm.token.core.SalesforceConstants.UNAUTHORIZED_RETRY_COUNTER;
+import static com.tgt.crm.token.core.SalesforceConstants.USERNAME_TAG;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.time.Clock;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token lifecycle metrics of one integration user, tagged with the org, grant type and username.
+ * All meters are created up front so recording on the request path is a field access and an
+ * increment.
+ *
+ * <ul>
+ *   <li>salesforce_token_refresh: timer of calls to the token endpoint, including retries, tagged
+ *       with the outcome success, failure or circuit_open, or stored if another instance had
+ *       already stored a token and the endpoint was not called
+ *   <li>salesforce_token_refresh_waiters: callers that waited on a refresh already in flight
+ *   <li>salesforce_token_refresh_reused: refreshes skipped because a newer token had already been
+ *       issued, typically late 401s for a replaced token
+ *   <li>salesforce_token_age_seconds: age of the current token, NaN if there is none
+ *   <li>salesforce_unauthorized_retries: requests retried with a new token after a 401
+ *   <li>salesforce_auth_circuit_state: state of the auth circuit breaker, 0 closed, 1 open, 2 half
+ *       open
+ * </ul>
+ */
+public final class TokenMetrics {
+
+  /** Records nothing, used by token managers that are not bound to a meter registry. */
+  public static final TokenMetrics NONE =
+      new TokenMetrics(new CompositeMeterRegistry(), Tags.empty());
+
+  private static final String SUCCESS = "success";
+  private static final String FAILURE = "failure";
+  private static final String CIRCUIT_OPEN = "circuit_open";
+  private static final String STORED = "stored";
+
+  private final Timer refreshSuccess;
+  private final Timer refreshFailure;
+  private final Timer refreshCircuitOpen;
+  private final Timer storedTokens;
+  private final Counter refreshWaiters;
+  private final Counter reusedTokens;
+  private final Counter unauthorizedRetries;
+  private final MeterRegistry meterRegistry;
+  private final Tags tags;
+
+  private TokenMetrics(final MeterRegistry meterRegistry, final Tags tags) {
+    this.meterRegistry = meterRegistry;
+    this.tags = tags;
+    this.refreshSuccess = refreshTimer(SUCCESS);
+    this.refreshFailure = refreshTimer(FAILURE);
+    this.refreshCircuitOpen = refreshTimer(CIRCUIT_OPEN);
+    this.storedTokens = refreshTimer(STORED);
+    this.refreshWaiters = meterRegistry.counter(TOKEN_REFRESH_WAITERS_COUNTER, tags);
+    this.reusedTokens = meterRegistry.counter(TOKEN_REFRESH_REUSED_COUNTER, tags);
+    this.unauthorizedRetries = meterRegistry.counter(UNAUTHORIZED_RETRY_COUNTER, tags);
+  }
+
+  /**
+   * Creates the metrics of an integration user and binds them to its token manager.
+   *
+   * @param meterRegistry the registry to create the meters in
+   * @param org the org name
+   * @param salesforceConfig the integration user's config
+   * @param tokenManager the integration user's token manager
+   * @return the bound metrics
+   */
+  public static TokenMetrics bind(
+      final MeterRegistry meterRegistry,
+      final String org,
+      final SalesforceConfig salesforceConfig,
+      final TokenManager tokenManager) {
+    return bind(meterRegistry, org, salesforceConfig, tokenManager, Clock.systemUTC());
+  }
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  static TokenMetrics bind(
+      final MeterRegistry meterRegistry,
+      final String org,
+      final SalesforceConfig salesforceConfig,
+      final TokenManager tokenManager,
+      final Clock clock) {
+    Tags tags =
+        Tags.of(
+            ORG_TAG,
+            org,
+            GRANT_TYPE_TAG,
+            salesforceConfig.getGrantType().name().toLowerCase(Locale.ROOT),
+            USERNAME_TAG,
+            Objects.toString(salesforceConfig.getUsername(), ""));
+    TokenMetrics metrics = new TokenMetrics(meterRegistry, tags);
+    Gauge.builder(TOKEN_AGE_GAUGE, tokenManager, manager -> tokenAge(manager, clock))
+        .tags(tags)
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    Gauge.builder(
+            AUTH_CIRCUIT_GAUGE,
+            tokenManager.getCircuitBreaker(),
+            breaker -> breaker.getState().ordinal())
+        .tags(tags)
+        .register(meterRegistry);
+    tokenManager.setMetrics(metrics);
+    return metrics;
+  }
+
+  /**
+   * Records a completed call to the token endpoint.
+   *
+   * @param startNanos {@link System#nanoTime()} when the refresh started
+   * @param error the failure, null if a token was issued
+   */
+  public void refreshCompleted(final long startNanos, final Throwable error) {
+    Timer timer = refreshSuccess;
+    if (error instanceof AuthCircuitOpenException
+        || error != null && error.getCause() instanceof AuthCircuitOpenException) {
+      timer = refreshCircuitOpen;
+    } else if (error != null) {
+      timer = refreshFailure;
+    }
+    timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records a refresh that used a token another instance had stored, without calling the token
+   * endpoint.
+   *
+   * @param startNanos {@link System#nanoTime()} when the refresh started
+   */
+  public void refreshStored(final long startNanos) {
+    storedTokens.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void refreshWaited() {
+    refreshWaiters.increment();
+  }
+
+  public void refreshReused() {
+    reusedTokens.increment();
+  }
+
+  public void unauthorizedRetry() {
+    unauthorizedRetries.increment();
+  }
+
+  private Timer refreshTimer(final String outcome) {
+    return Timer.builder(TOKEN_REFRESH_TIMER)
+        .tags(tags)
+        .tag(OUTCOME_TAG, outcome)
+        .register(meterRegistry);
+  }
+
+  private static double tokenAge(final TokenManager tokenManager, final Clock clock) {
+    SalesforceToken token = tokenManager.getCachedToken();
+    if (token == null || token.getIssuedAt() == null) {
+      return Double.NaN;
+    }
+    return (clock.millis() - token.getIssuedAt().toEpochMilli()) / 1000.0;
+  }
+}
@@ -0,0 +1,15 @@
+package com.tgt.crm.token.core;
+
+import java.util.concurrent.CompletableFuture;
+
+/** Performs the call to the Salesforce OAuth endpoint on behalf of a {@link TokenManager}. */
+@FunctionalInterface
+public interface TokenRequester {
+
+  /**
+   * Requests a new token, including any retries.
+   *
+   * @return future completed with the auth response or exceptionally if the token request failed
+   */
+  CompletableFuture<SalesforceAuthResponse> requestToken();
+}
@@ -0,0 +1,51 @@
+package com.tgt.crm.token.core;
+
+/**
+ * Shares tokens between all instances of an application that use the same Salesforce user. Before
+ * calling the Salesforce OAuth endpoint a {@link TokenManager} checks the store for a token another
+ * instance issued in the meantime, and a newly issued token is only stored if no other instance
+ * stored one first. That way a fleet logs in once per refresh instead of once per instance, and no
+ * instance keeps invalidating the token the others use.
+ *
+ * <p>Implementations must be thread safe. They are called only when a token is refreshed, on the
+ * token manager's store executor, so they may block: the WebFlux client runs them on Reactor's
+ * bounded elastic scheduler, the other clients on the thread that refreshes the token. The library
+ * uses an {@link InMemoryTokenStore} unless another {@code TokenStore} bean is defined or {@code
+ * salesforce.token-store.enabled} is set.
+ */
+public interface TokenStore {
+
+  /**
+   * Returns the token stored for a key.
+   *
+   * @param key the key, see {@link #keyFor(SalesforceConfig)}
+   * @return the stored token, null if there is none
+   */
+  StoredToken get(String key);
+
+  /**
+   * Stores a token if the currently stored token still has the expected version. The stored token's
+   * version is incremented.
+   *
+   * @param key the key, see {@link #keyFor(SalesforceConfig)}
+   * @param expectedVersion the version of the token the caller replaces, 0 if there was none
+   * @param authResponse the new token
+   * @return true if the token was stored, false if another token was stored first
+   */
+  boolean compareAndSet(String key, long expectedVersion, SalesforceAuthResponse authResponse);
+
+  /**
+   * Builds the key tokens for the given config are stored under. Orgs configured with the same
+   * host, client id and username share their token.
+   *
+   * @param salesforceConfig the org's config
+   * @return the key
+   */
+  static String keyFor(final SalesforceConfig salesforceConfig) {
+    return String.join(
+        "|",
+        salesforceConfig.getHost(),
+        salesforceConfig.getClientId(),
+        String.valueOf(salesforceConfig.getUsername()));
+  }
+}
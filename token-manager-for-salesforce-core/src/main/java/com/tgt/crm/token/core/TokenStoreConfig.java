@@ -0,0 +1,15 @@
+package com.tgt.crm.token.core;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("salesforce.token-store")
+public class TokenStoreConfig {
+
+  private boolean enabled;
+  // one file per token is kept in this directory, processes sharing it share their tokens
+  private String directory;
+  // base64 encoded 128, 192 or 256 bit AES key, processes sharing the directory need the same key
+  private String encryptionKey;
+}
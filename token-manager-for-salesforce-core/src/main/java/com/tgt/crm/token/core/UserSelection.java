@@ -0,0 +1,10 @@
+package com.tgt.crm.token.core;
+
+/**
+ * How requests are spread across an org's integration users, bound from salesforce.user-selection.
+ */
+public enum UserSelection {
+  /** the user with the fewest requests in flight, ties are broken round robin */
+  LEAST_IN_FLIGHT,
+  ROUND_ROBIN
+}
@@ -0,0 +1,99 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ApiLimitTrackerTest {
+
+  private static final String ORG = "default";
+  private static final double DELTA = 0.0001;
+
+  private ApiLimitConfig config;
+
+  @BeforeEach
+  public void setUp() {
+    config = new ApiLimitConfig();
+    config.setEnabled(true);
+  }
+
+  @Test
+  public void update_apiUsage_parsed() {
+    ApiLimitTracker tested = new ApiLimitTracker(ORG, config);
+    assertEquals(0, tested.getUsage(), DELTA);
+
+    tested.update("api-usage=25/15000");
+    assertEquals(25, tested.getUsed());
+    assertEquals(15_000, tested.getLimit());
+
+    // the org's usage is tracked, not the connected app's
+    tested.update("per-app-api-usage=17/250(appName=sample-app), api-usage=7500/15000");
+    assertEquals(7500, tested.getUsed());
+    assertEquals(0.5, tested.getUsage(), DELTA);
+  }
+
+  @Test
+  public void update_noApiUsage_ignored() {
+    ApiLimitTracker tested = new ApiLimitTracker(ORG, config);
+    tested.update("api-usage=25/100");
+
+    tested.update(null);
+    tested.update("per-app-api-usage=17/250(appName=sample-app)");
+    tested.update("api-usage=99999999999999999999/100");
+
+    assertEquals(25, tested.getUsed());
+    assertEquals(100, tested.getLimit());
+  }
+
+  @Test
+  public void admissionDelay_belowThrottleThreshold_noDelay() {
+    ApiLimitTracker tested = new ApiLimitTracker(ORG, config);
+    tested.update("api-usage=79/100");
+
+    assertEquals(0, tested.admissionDelay(RequestPriority.LOW));
+  }
+
+  @Test
+  public void admissionDelay_betweenThresholds_lowPriorityDelayed() {
+    ApiLimitTracker tested = new ApiLimitTracker(ORG, config);
+
+    tested.update("api-usage=80/100");
+    assertEquals(0, tested.admissionDelay(RequestPriority.LOW));
+    tested.update("api-usage=875/1000");
+    assertEquals(500, tested.admissionDelay(RequestPriority.LOW));
+    assertEquals(0, tested.admissionDelay(RequestPriority.NORMAL));
+  }
+
+  @Test
+  public void admissionDelay_aboveShedThreshold_lowPriorityRejected() {
+    ApiLimitTracker tested = new ApiLimitTracker(ORG, config);
+    tested.update("api-usage=96/100");
+
+    assertThrows(ApiLimitExceededException.class, () -> tested.admissionDelay(RequestPriority.LOW));
+    assertEquals(0, tested.admissionDelay(RequestPriority.NORMAL));
+  }
+
+  @Test
+  public void admissionDelay_disabled_neverDelayed() {
+    config.setEnabled(false);
+    ApiLimitTracker tested = new ApiLimitTracker(ORG, config);
+    tested.update("api-usage=100/100");
+
+    assertEquals(0, tested.admissionDelay(RequestPriority.LOW));
+  }
+
+  @Test
+  public void invalidThresholds_rejected() {
+    config.setThrottleThreshold(0);
+    assertThrows(IllegalArgumentException.class, () -> new ApiLimitTracker(ORG, config));
+
+    config.setThrottleThreshold(0.9);
+    config.setShedThreshold(0.8);
+    assertThrows(IllegalArgumentException.class, () -> new ApiLimitTracker(ORG, config));
+
+    config.setShedThreshold(1.1);
+    assertThrows(IllegalArgumentException.class, () -> new ApiLimitTracker(ORG, config));
+  }
+}
@@ -0,0 +1,104 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthCircuitBreakerTest {
+
+  private static final int FAILURE_THRESHOLD = 2;
+  private static final long OPEN_DURATION = 30_000;
+  private static final long NOW = 1_626_730_000_000L;
+
+  @Mock private Clock clock;
+
+  private AuthCircuitBreaker tested;
+
+  @BeforeEach
+  public void setUp() {
+    tested = new AuthCircuitBreaker(FAILURE_THRESHOLD, OPEN_DURATION, clock);
+  }
+
+  @Test
+  public void onFailure_thresholdReached_failsFastUntilOpenDurationPassed() {
+    when(clock.millis()).thenReturn(NOW);
+    assertTrue(tested.tryAcquire());
+    tested.onFailure();
+    assertEquals(AuthCircuitBreaker.State.CLOSED, tested.getState());
+    assertTrue(tested.tryAcquire());
+    tested.onFailure();
+
+    assertEquals(AuthCircuitBreaker.State.OPEN, tested.getState());
+    when(clock.millis()).thenReturn(NOW + OPEN_DURATION - 1);
+    assertFalse(tested.tryAcquire());
+
+    // a single probe is let through
+    when(clock.millis()).thenReturn(NOW + OPEN_DURATION);
+    assertTrue(tested.tryAcquire());
+    assertEquals(AuthCircuitBreaker.State.HALF_OPEN, tested.getState());
+    assertFalse(tested.tryAcquire());
+  }
+
+  @Test
+  public void onSuccess_probeSucceeded_closed() {
+    when(clock.millis()).thenReturn(NOW);
+    tested.onFailure();
+    tested.onFailure();
+    when(clock.millis()).thenReturn(NOW + OPEN_DURATION);
+    assertTrue(tested.tryAcquire());
+
+    tested.onSuccess();
+
+    assertEquals(AuthCircuitBreaker.State.CLOSED, tested.getState());
+    assertTrue(tested.tryAcquire());
+    // the failure count starts over
+    tested.onFailure();
+    assertEquals(AuthCircuitBreaker.State.CLOSED, tested.getState());
+  }
+
+  @Test
+  public void onFailure_probeFailed_openedAgain() {
+    when(clock.millis()).thenReturn(NOW);
+    tested.onFailure();
+    tested.onFailure();
+    when(clock.millis()).thenReturn(NOW + OPEN_DURATION);
+    assertTrue(tested.tryAcquire());
+
+    tested.onFailure();
+
+    assertEquals(AuthCircuitBreaker.State.OPEN, tested.getState());
+    assertFalse(tested.tryAcquire());
+  }
+
+  @Test
+  public void onSuccess_beforeThreshold_failuresReset() {
+    tested.onFailure();
+    tested.onSuccess();
+    tested.onFailure();
+
+    assertEquals(AuthCircuitBreaker.State.CLOSED, tested.getState());
+  }
+
+  @Test
+  public void noThreshold_neverOpened() {
+    SalesforceConfig salesforceConfig = new SalesforceConfig();
+    salesforceConfig.setAuthFailureThreshold(0);
+    AuthCircuitBreaker disabled = AuthCircuitBreaker.fromConfig(salesforceConfig);
+
+    for (int i = 0; i < 10; i++) {
+      disabled.onFailure();
+    }
+
+    assertEquals(AuthCircuitBreaker.State.CLOSED, disabled.getState());
+    assertTrue(disabled.tryAcquire());
+  }
+}
@@ -0,0 +1,133 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+public class BulkIngestTest {
+
+  private static final String JOB_ID = "750R0000000zlh9IAA";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final BulkIngest tested = new BulkIngest(new BulkIngestConfig());
+
+  @Test
+  public void paths() {
+    assertEquals("/services/data/v52.0/jobs/ingest", tested.getJobsPath());
+    assertEquals("/services/data/v52.0/jobs/ingest/" + JOB_ID, tested.getJobPath(JOB_ID));
+    assertEquals(
+        "/services/data/v52.0/jobs/ingest/" + JOB_ID + "/batches", tested.getBatchesPath(JOB_ID));
+    assertEquals(
+        "/services/data/v52.0/jobs/ingest/" + JOB_ID + "/failedResults",
+        tested.getResultsPath(JOB_ID, BulkResults.FAILED));
+  }
+
+  @Test
+  public void createRequest_csvJob() throws IOException {
+    BulkJob job = new BulkJob();
+    job.setObject("Account");
+    job.setOperation(BulkOperation.UPSERT);
+    job.setExternalIdFieldName("External_Id__c");
+    job.setState(BulkJobState.OPEN);
+
+    assertEquals(
+        "{\"object\":\"Account\",\"operation\":\"upsert\",\"externalIdFieldName\":\"External_Id__c\","
+            + "\"contentType\":\"CSV\",\"lineEnding\":\"LF\"}",
+        MAPPER.writeValueAsString(tested.createRequest(job)));
+  }
+
+  @Test
+  public void createRequest_incomplete_illegalArgument() {
+    BulkJob job = new BulkJob();
+    job.setObject("Account");
+    assertThrows(IllegalArgumentException.class, () -> tested.createRequest(job));
+    job.setOperation(BulkOperation.UPSERT);
+    assertThrows(IllegalArgumentException.class, () -> tested.createRequest(job));
+    job.setObject(null);
+    job.setOperation(BulkOperation.HARD_DELETE);
+    assertThrows(IllegalArgumentException.class, () -> tested.createRequest(job));
+  }
+
+  @Test
+  public void stateRequests() throws IOException {
+    assertEquals(
+        "{\"state\":\"UploadComplete\"}", MAPPER.writeValueAsString(tested.closeRequest()));
+    assertEquals("{\"state\":\"Aborted\"}", MAPPER.writeValueAsString(tested.abortRequest()));
+  }
+
+  @Test
+  public void jobRead() throws IOException {
+    BulkJob job =
+        MAPPER.readValue(
+            "{\"id\":\""
+                + JOB_ID
+                + "\",\"operation\":\"hardDelete\",\"state\":\"JobComplete\","
+                + "\"numberRecordsProcessed\":3,\"numberRecordsFailed\":1,\"retries\":0}",
+            BulkJob.class);
+
+    assertEquals(JOB_ID, job.getId());
+    assertEquals(BulkOperation.HARD_DELETE, job.getOperation());
+    assertEquals(BulkJobState.JOB_COMPLETE, job.getState());
+    assertEquals(3, job.getNumberRecordsProcessed());
+    assertEquals(1, job.getNumberRecordsFailed());
+  }
+
+  @Test
+  public void finishedStates() {
+    assertFalse(BulkJobState.OPEN.isFinished());
+    assertFalse(BulkJobState.UPLOAD_COMPLETE.isFinished());
+    assertFalse(BulkJobState.IN_PROGRESS.isFinished());
+    assertTrue(BulkJobState.JOB_COMPLETE.isFinished());
+    assertTrue(BulkJobState.FAILED.isFinished());
+    assertTrue(BulkJobState.ABORTED.isFinished());
+  }
+
+  @Test
+  public void pollDelay_backsOffUpToMax() {
+    assertEquals(Duration.ofSeconds(1), tested.pollDelay(0));
+    assertEquals(Duration.ofSeconds(4), tested.pollDelay(2));
+    assertEquals(Duration.ofSeconds(30), tested.pollDelay(5));
+    assertEquals(Duration.ofSeconds(30), tested.pollDelay(Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void newSplitter_configuredSize() {
+    BulkIngestConfig config = new BulkIngestConfig();
+    config.setMaxJobSize(20);
+
+    CsvJobSplitter splitter = new BulkIngest(config).newSplitter();
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            splitter.split(
+                "Name\nA record longer than the job\n".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void invalidConfig_illegalArgument() {
+    assertInvalid(invalid -> invalid.setApiVersion("52.0"));
+    assertInvalid(invalid -> invalid.setApiVersion(null));
+    assertInvalid(invalid -> invalid.setMaxJobSize(0));
+    assertInvalid(invalid -> invalid.setMaxJobSize(BulkIngest.MAX_JOB_SIZE + 1));
+    assertInvalid(invalid -> invalid.setLineEnding("CR"));
+    assertInvalid(invalid -> invalid.setLineEnding(null));
+    assertInvalid(invalid -> invalid.setPollInterval(0));
+    assertInvalid(invalid -> invalid.setPollMultiplier(0.5));
+    assertInvalid(invalid -> invalid.setMaxPollInterval(999));
+  }
+
+  private static void assertInvalid(final Consumer<BulkIngestConfig> change) {
+    BulkIngestConfig invalid = new BulkIngestConfig();
+    change.accept(invalid);
+    assertThrows(IllegalArgumentException.class, () -> new BulkIngest(invalid));
+  }
+}
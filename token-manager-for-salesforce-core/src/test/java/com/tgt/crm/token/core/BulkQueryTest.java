@@ -0,0 +1,118 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+public class BulkQueryTest {
+
+  private static final String JOB_ID = "750R0000000zlh9IAA";
+  private static final String JOB_PATH = "/services/data/v52.0/jobs/query/" + JOB_ID;
+  private static final String LOCATOR = "MTAwMDA";
+  private static final String SOQL = "SELECT Id FROM Account";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final BulkQuery tested = new BulkQuery(new BulkQueryConfig());
+
+  @Test
+  public void paths() {
+    assertEquals("/services/data/v52.0/jobs/query", tested.getJobsPath());
+    assertEquals(JOB_PATH, tested.getJobPath(JOB_ID));
+    assertEquals(JOB_PATH + "/results", tested.getResultsPath(JOB_ID, null));
+    assertEquals(JOB_PATH + "/results?locator=MTAwMDA", tested.getResultsPath(JOB_ID, LOCATOR));
+  }
+
+  @Test
+  public void resultsPath_maxRecords() {
+    BulkQueryConfig config = new BulkQueryConfig();
+    config.setMaxRecords(50_000);
+    BulkQuery paged = new BulkQuery(config);
+
+    assertEquals(JOB_PATH + "/results?maxRecords=50000", paged.getResultsPath(JOB_ID, null));
+    assertEquals(
+        JOB_PATH + "/results?maxRecords=50000&locator=MTAwMDA",
+        paged.getResultsPath(JOB_ID, LOCATOR));
+  }
+
+  @Test
+  public void createRequest_csvQuery() throws IOException {
+    assertEquals(
+        "{\"operation\":\"queryAll\",\"query\":\"SELECT Id FROM Account\","
+            + "\"contentType\":\"CSV\",\"lineEnding\":\"LF\"}",
+        MAPPER.writeValueAsString(tested.createRequest(job(BulkOperation.QUERY_ALL, SOQL))));
+  }
+
+  @Test
+  public void createRequest_invalid_illegalArgument() {
+    assertThrows(
+        IllegalArgumentException.class, () -> tested.createRequest(job(BulkOperation.QUERY, null)));
+    assertThrows(
+        IllegalArgumentException.class, () -> tested.createRequest(job(BulkOperation.QUERY, " ")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> tested.createRequest(job(BulkOperation.INSERT, SOQL)));
+    assertThrows(IllegalArgumentException.class, () -> tested.createRequest(job(null, SOQL)));
+  }
+
+  @Test
+  public void checkCompleted_failedJob_thrown() {
+    BulkJob job = new BulkJob();
+    job.setId(JOB_ID);
+    job.setState(BulkJobState.JOB_COMPLETE);
+    assertSame(job, tested.checkCompleted(job));
+
+    job.setState(BulkJobState.FAILED);
+    job.setErrorMessage("INVALID_FIELD");
+    BulkJobFailedException failed =
+        assertThrows(BulkJobFailedException.class, () -> tested.checkCompleted(job));
+    assertEquals(JOB_ID, failed.getJobId());
+    assertEquals(BulkJobState.FAILED, failed.getState());
+    assertEquals("bulk job " + JOB_ID + " ended FAILED: INVALID_FIELD", failed.getMessage());
+  }
+
+  @Test
+  public void nextLocator_nullOnLastPage() {
+    assertEquals(LOCATOR, tested.nextLocator(LOCATOR));
+    assertNull(tested.nextLocator("null"));
+    assertNull(tested.nextLocator(null));
+  }
+
+  @Test
+  public void pollDelay_backsOffUpToMax() {
+    assertEquals(Duration.ofSeconds(1), tested.pollDelay(0));
+    assertEquals(Duration.ofSeconds(8), tested.pollDelay(3));
+    assertEquals(Duration.ofSeconds(30), tested.pollDelay(10));
+  }
+
+  @Test
+  public void invalidConfig_illegalArgument() {
+    assertInvalid(invalid -> invalid.setApiVersion("52"));
+    assertInvalid(invalid -> invalid.setApiVersion(null));
+    assertInvalid(invalid -> invalid.setMaxRecords(-1));
+    assertInvalid(invalid -> invalid.setLineEnding("CR"));
+    assertInvalid(invalid -> invalid.setLineEnding(null));
+    assertInvalid(invalid -> invalid.setPollInterval(0));
+    assertInvalid(invalid -> invalid.setPollMultiplier(0.9));
+    assertInvalid(invalid -> invalid.setMaxPollInterval(10));
+  }
+
+  private static BulkJob job(final BulkOperation operation, final String query) {
+    BulkJob job = new BulkJob();
+    job.setOperation(operation);
+    job.setQuery(query);
+    return job;
+  }
+
+  private static void assertInvalid(final Consumer<BulkQueryConfig> change) {
+    BulkQueryConfig invalid = new BulkQueryConfig();
+    change.accept(invalid);
+    assertThrows(IllegalArgumentException.class, () -> new BulkQuery(invalid));
+  }
+}
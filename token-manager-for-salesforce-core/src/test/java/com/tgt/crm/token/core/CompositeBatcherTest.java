@@ -0,0 +1,280 @@
+package com.tgt.crm.token.core;
+
+import static com.tgt.crm.token.core.SalesforceConstants.COMPOSITE_BATCH_FILL_SUMMARY;
+import static com.tgt.crm.token.core.SalesforceConstants.COMPOSITE_BATCH_SIZE_SUMMARY;
+import static com.tgt.crm.token.core.SalesforceConstants.COMPOSITE_BATCH_WAIT_TIMER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompositeBatcherTest {
+
+  private static final String ORG = "default";
+  private static final String GROUP = "NORMAL";
+  private static final String GET = "GET";
+  private static final String POST = "POST";
+  private static final String HOST = "https://example.my.salesforce.com";
+  private static final URI ACCOUNT = URI.create(HOST + "/services/data/v52.0/sobjects/Account/001");
+  private static final URI QUERY = URI.create(HOST + "/services/data/v52.0/query?q=SELECT+Id");
+  private static final byte[] NO_BODY = new byte[0];
+  private static final double DELTA = 0.0001;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private CompositeBatchConfig config;
+
+  @BeforeEach
+  public void setUp() {
+    config = new CompositeBatchConfig();
+    config.setWindow(10_000);
+    config.setMaxSize(2);
+  }
+
+  @Test
+  public void isBatchable_compositeSubrequestResources() {
+    assertTrue(CompositeBatcher.isBatchable(GET, QUERY, List.of("Accept", "Content-Type")));
+    assertTrue(CompositeBatcher.isBatchable("PATCH", ACCOUNT, List.of()));
+    assertTrue(
+        CompositeBatcher.isBatchable(
+            GET, URI.create(HOST + "/services/data/v52.0/queryAll/01g-2000"), List.of()));
+    assertTrue(
+        CompositeBatcher.isBatchable(
+            GET, URI.create(HOST + "/services/data/v52.0/sobjects/Account/describe"), List.of()));
+
+    assertFalse(CompositeBatcher.isBatchable("PUT", ACCOUNT, List.of()));
+    assertFalse(CompositeBatcher.isBatchable(GET, ACCOUNT, List.of("If-Modified-Since")));
+    assertFalse(
+        CompositeBatcher.isBatchable(
+            GET, URI.create("/services/data/v52.0/sobjects/Account/001"), List.of()));
+    assertFalse(
+        CompositeBatcher.isBatchable(GET, URI.create(HOST + "/services/data/v52.0"), List.of()));
+    assertFalse(
+        CompositeBatcher.isBatchable(
+            GET, URI.create(HOST + "/services/data/v52.0/sobjects"), List.of()));
+    assertFalse(
+        CompositeBatcher.isBatchable(
+            GET, URI.create(HOST + "/services/data/v52.0/queryLocator"), List.of()));
+    assertFalse(
+        CompositeBatcher.isBatchable(
+            GET, URI.create(HOST + "/services/data/v52.0/limits"), List.of()));
+    assertFalse(
+        CompositeBatcher.isBatchable(
+            POST, URI.create(HOST + "/services/data/v52.0/composite"), List.of()));
+    assertFalse(
+        CompositeBatcher.isBatchable(
+            POST, URI.create(HOST + "/services/data/v52.0/composite/batch"), List.of()));
+    assertFalse(
+        CompositeBatcher.isBatchable(
+            GET, URI.create(HOST + "/services/data/v52.0/jobs/ingest"), List.of()));
+    assertFalse(
+        CompositeBatcher.isBatchable(
+            GET, URI.create(HOST + "/services/data/v52.0/tooling/query?q=x"), List.of()));
+    assertFalse(
+        CompositeBatcher.isBatchable(GET, URI.create(HOST + "/services/apexrest/x"), List.of()));
+  }
+
+  @Test
+  public void add_batchFull_sentBySplitResponse() throws IOException {
+    CompositeBatcher tested = new CompositeBatcher(ORG, config, meterRegistry);
+
+    CompositeBatcher.Entry leader = tested.add(GROUP, GET, QUERY, NO_BODY);
+    CompositeBatcher.Entry follower =
+        tested.add(GROUP, POST, ACCOUNT, bytes("{\"Name\":\"Acme\",\"Amount\":1.10}"));
+
+    assertTrue(leader.isLeader());
+    assertFalse(follower.isLeader());
+    assertSame(leader.getBatch(), follower.getBatch());
+    CompositeBatcher.Batch batch = leader.getBatch();
+    assertTrue(batch.getReady().getNow(false));
+    assertEquals(URI.create(HOST + "/services/data/v52.0/composite"), batch.getUri());
+    assertEquals(
+        "{\"allOrNone\":false,\"compositeRequest\":["
+            + "{\"method\":\"GET\",\"url\":\"/services/data/v52.0/query?q=SELECT+Id\","
+            + "\"referenceId\":\"ref0\"},"
+            + "{\"method\":\"POST\",\"url\":\"/services/data/v52.0/sobjects/Account/001\","
+            + "\"body\":{\"Name\":\"Acme\",\"Amount\":1.10},\"referenceId\":\"ref1\"}]}",
+        new String(batch.close(), StandardCharsets.UTF_8));
+    // the full batch no longer takes calls
+    assertTrue(tested.add(GROUP, GET, QUERY, NO_BODY).isLeader());
+
+    batch.complete(
+        200,
+        bytes(
+            "{\"compositeResponse\":["
+                + "{\"body\":{\"totalSize\":0,\"records\":[]},\"httpHeaders\":{},"
+                + "\"httpStatusCode\":200,\"referenceId\":\"ref0\"},"
+                + "{\"body\":[{\"errorCode\":\"INVALID_FIELD\"}],\"httpHeaders\":{},"
+                + "\"httpStatusCode\":400,\"referenceId\":\"ref1\"}]}"));
+
+    CompositeBatcher.Subresponse first = leader.getResponse().join();
+    assertEquals(200, first.getStatus());
+    assertEquals("{\"totalSize\":0,\"records\":[]}", string(first.getBody()));
+    CompositeBatcher.Subresponse second = follower.getResponse().join();
+    assertEquals(400, second.getStatus());
+    assertEquals("[{\"errorCode\":\"INVALID_FIELD\"}]", string(second.getBody()));
+    assertNotSame(second.getBody(), second.getBody());
+    assertEquals(1, meterRegistry.get(COMPOSITE_BATCH_SIZE_SUMMARY).summary().count());
+    assertEquals(2, meterRegistry.get(COMPOSITE_BATCH_SIZE_SUMMARY).summary().totalAmount());
+    assertEquals(1, meterRegistry.get(COMPOSITE_BATCH_FILL_SUMMARY).summary().mean(), DELTA);
+    assertEquals(2, meterRegistry.get(COMPOSITE_BATCH_WAIT_TIMER).timer().count());
+  }
+
+  @Test
+  public void add_sixthQuery_nextBatchStarted() {
+    config.setMaxSize(CompositeBatcher.MAX_SUBREQUESTS);
+    CompositeBatcher tested = new CompositeBatcher(ORG, config, meterRegistry);
+
+    CompositeBatcher.Entry leader = tested.add(GROUP, GET, QUERY, NO_BODY);
+    for (int i = 1; i < CompositeBatcher.MAX_QUERIES; i++) {
+      tested.add(GROUP, GET, QUERY, NO_BODY);
+    }
+    CompositeBatcher.Entry account = tested.add(GROUP, GET, ACCOUNT, NO_BODY);
+    assertFalse(leader.getBatch().getReady().isDone());
+
+    CompositeBatcher.Entry sixthQuery = tested.add(GROUP, GET, QUERY, NO_BODY);
+
+    assertSame(leader.getBatch(), account.getBatch());
+    assertTrue(leader.getBatch().getReady().getNow(false));
+    assertTrue(sixthQuery.isLeader());
+  }
+
+  @Test
+  public void add_aloneWhenWindowPassed_sentOnItsOwn() {
+    config.setWindow(10);
+    CompositeBatcher tested = new CompositeBatcher(ORG, config, meterRegistry);
+
+    CompositeBatcher.Entry leader = tested.add(GROUP, "DELETE", ACCOUNT, NO_BODY);
+
+    assertFalse(leader.getBatch().getReady().orTimeout(5, TimeUnit.SECONDS).join());
+    assertNull(leader.getBatch().close());
+    assertThrows(IllegalStateException.class, leader.getBatch()::close);
+    assertEquals(0.5, meterRegistry.get(COMPOSITE_BATCH_FILL_SUMMARY).summary().mean(), DELTA);
+    assertTrue(tested.add(GROUP, "DELETE", ACCOUNT, NO_BODY).isLeader());
+  }
+
+  @Test
+  public void add_otherGroupOrVersion_separateBatches() {
+    CompositeBatcher tested = new CompositeBatcher(ORG, config, meterRegistry);
+
+    CompositeBatcher.Entry normal = tested.add(GROUP, GET, QUERY, NO_BODY);
+    CompositeBatcher.Entry low = tested.add("LOW", GET, QUERY, NO_BODY);
+    CompositeBatcher.Entry otherVersion =
+        tested.add(
+            GROUP, GET, URI.create(HOST + "/services/data/v53.0/sobjects/Account/001"), NO_BODY);
+    CompositeBatcher.Entry otherHost =
+        tested.add(
+            GROUP, GET, URI.create("https://other.my.salesforce.com" + QUERY.getPath()), NO_BODY);
+
+    assertTrue(normal.isLeader());
+    assertTrue(low.isLeader());
+    assertTrue(otherVersion.isLeader());
+    assertTrue(otherHost.isLeader());
+    assertEquals(
+        URI.create(HOST + "/services/data/v53.0/composite"), otherVersion.getBatch().getUri());
+  }
+
+  @Test
+  public void add_bodyNotJson_notBatched() {
+    CompositeBatcher tested = new CompositeBatcher(ORG, config, meterRegistry);
+
+    assertNull(tested.add(GROUP, POST, ACCOUNT, bytes("Name=Acme")));
+    assertNull(tested.add(GROUP, POST, ACCOUNT, bytes("{} {}")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> tested.add(GROUP, GET, URI.create(HOST + "/services/apexrest/x"), NO_BODY));
+    // whitespace is no body
+    CompositeBatcher.Entry entry = tested.add(GROUP, "PATCH", ACCOUNT, bytes(" "));
+    tested.add(GROUP, GET, QUERY, NO_BODY);
+    assertTrue(
+        string(entry.getBatch().close())
+            .startsWith(
+                "{\"allOrNone\":false,\"compositeRequest\":[{\"method\":\"PATCH\","
+                    + "\"url\":\"/services/data/v52.0/sobjects/Account/001\",\"referenceId\":\"ref0\"},"));
+  }
+
+  @Test
+  public void complete_batchRequestFailed_returnedToEachCall() {
+    CompositeBatcher tested = new CompositeBatcher(ORG, config, meterRegistry);
+    CompositeBatcher.Entry leader = tested.add(GROUP, GET, QUERY, NO_BODY);
+    CompositeBatcher.Entry follower = tested.add(GROUP, GET, QUERY, NO_BODY);
+    leader.getBatch().close();
+
+    leader.getBatch().complete(503, bytes("unavailable"));
+
+    assertEquals(503, leader.getResponse().join().getStatus());
+    assertEquals(503, follower.getResponse().join().getStatus());
+    assertEquals("unavailable", string(follower.getResponse().join().getBody()));
+  }
+
+  @Test
+  public void complete_unexpectedResponse_failed() {
+    CompositeBatcher tested = new CompositeBatcher(ORG, config, meterRegistry);
+    CompositeBatcher.Entry leader = tested.add(GROUP, GET, QUERY, NO_BODY);
+    CompositeBatcher.Entry follower = tested.add(GROUP, GET, QUERY, NO_BODY);
+    leader.getBatch().close();
+
+    leader.getBatch().complete(200, bytes("{\"compositeResponse\":[{\"httpStatusCode\":200}]}"));
+
+    CompletionException exception =
+        assertThrows(CompletionException.class, () -> follower.getResponse().join());
+    assertTrue(exception.getCause() instanceof IOException);
+    assertTrue(leader.getResponse().isCompletedExceptionally());
+
+    CompositeBatcher.Entry next = tested.add(GROUP, GET, QUERY, NO_BODY);
+    tested.add(GROUP, GET, QUERY, NO_BODY);
+    next.getBatch().close();
+    next.getBatch()
+        .complete(200, bytes("{\"compositeResponse\":[{\"httpStatusCode\":200},{\"body\":null}]}"));
+    assertTrue(next.getResponse().isCompletedExceptionally());
+  }
+
+  @Test
+  public void abandon_callsFailedAndBatchClosed() {
+    CompositeBatcher tested = new CompositeBatcher(ORG, config, meterRegistry);
+    CompositeBatcher.Entry leader = tested.add(GROUP, GET, QUERY, NO_BODY);
+    IOException error = new IOException("interrupted");
+
+    leader.getBatch().abandon(error);
+
+    CompletionException exception =
+        assertThrows(CompletionException.class, () -> leader.getResponse().join());
+    assertSame(error, exception.getCause());
+    assertThrows(IllegalStateException.class, leader.getBatch()::close);
+    assertTrue(tested.add(GROUP, GET, QUERY, NO_BODY).isLeader());
+  }
+
+  @Test
+  public void constructor_invalidConfig_thrown() {
+    config.setMaxSize(26);
+    assertThrows(
+        IllegalArgumentException.class, () -> new CompositeBatcher(ORG, config, meterRegistry));
+    config.setMaxSize(0);
+    assertThrows(
+        IllegalArgumentException.class, () -> new CompositeBatcher(ORG, config, meterRegistry));
+    config.setMaxSize(1);
+    config.setWindow(-1);
+    assertThrows(
+        IllegalArgumentException.class, () -> new CompositeBatcher(ORG, config, meterRegistry));
+  }
+
+  private static byte[] bytes(final String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String string(final byte[] value) {
+    return new String(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,92 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CsvJobDataTest {
+
+  private static final String HEADER = "Name\n";
+  // Acme and Globex in the first job, Initech in the second
+  private static final String FIRST_JOB = HEADER + "Acme\nGlobex\n";
+  private static final String CSV = FIRST_JOB + "Initech\n";
+  private static final long MAX_JOB_SIZE = FIRST_JOB.length();
+
+  @Test
+  public void fileRange_jobsReadFromFile(@TempDir final Path dir) throws IOException {
+    Path csv = Files.writeString(dir.resolve("accounts.csv"), CSV);
+    List<CsvJobSplitter.Chunk> chunks = split();
+
+    try (CsvJobData first = CsvJobData.fileRange(csv);
+        CsvJobData second = CsvJobData.fileRange(csv)) {
+      first.append(chunks.get(0));
+      first.append(chunks.get(1));
+      second.append(chunks.get(2));
+
+      assertEquals(FIRST_JOB, read(first));
+      assertEquals(FIRST_JOB, read(first));
+      assertEquals(MAX_JOB_SIZE, first.getSize());
+      assertEquals(HEADER + "Initech\n", read(second));
+    }
+    assertTrue(Files.exists(csv));
+  }
+
+  @Test
+  public void fileRange_fileTruncated_eof(@TempDir final Path dir) throws IOException {
+    Path csv = Files.writeString(dir.resolve("accounts.csv"), CSV);
+    List<CsvJobSplitter.Chunk> chunks = split();
+    CsvJobData data = CsvJobData.fileRange(csv);
+    data.append(chunks.get(2));
+    Files.writeString(csv, HEADER);
+
+    assertThrows(EOFException.class, () -> read(data));
+  }
+
+  @Test
+  public void spill_jobReadAgain_fileDeletedOnClose() throws IOException {
+    List<CsvJobSplitter.Chunk> chunks = split();
+    Path file;
+
+    try (CsvJobData data = CsvJobData.spill()) {
+      data.append(chunks.get(0));
+      data.append(chunks.get(1));
+      file = data.getRegions().get(0).getFile();
+
+      assertEquals(FIRST_JOB, read(data));
+      assertEquals(FIRST_JOB, read(data));
+      assertEquals(MAX_JOB_SIZE, data.getSize());
+    }
+    assertFalse(Files.exists(file));
+  }
+
+  /** Splits CSV into three chunks: Acme and Globex of the first job, Initech of the second. */
+  private static List<CsvJobSplitter.Chunk> split() {
+    CsvJobSplitter splitter = new CsvJobSplitter(MAX_JOB_SIZE);
+    List<CsvJobSplitter.Chunk> chunks = new ArrayList<>(splitter.split(bytes(HEADER + "Acme\n")));
+    chunks.addAll(splitter.split(bytes("Globex\nInitech\n")));
+    chunks.addAll(splitter.finish());
+    return chunks;
+  }
+
+  private static byte[] bytes(final String csv) {
+    return csv.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String read(final CsvJobData data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    data.writeTo(out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+}
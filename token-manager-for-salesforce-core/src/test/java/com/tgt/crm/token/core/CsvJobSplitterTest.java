@@ -0,0 +1,115 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class CsvJobSplitterTest {
+
+  private static final String HEADER = "Name,Description\n";
+  private static final String ACME = "Acme,Anvils\n";
+  private static final String GLOBEX = "Globex,Gadgets\n";
+
+  @Test
+  public void records_splitIntoJobs_headerInEach() {
+    CsvJobSplitter tested = new CsvJobSplitter(HEADER.length() + ACME.length() + GLOBEX.length());
+
+    List<CsvJobSplitter.Chunk> chunks = tested.split(bytes(HEADER + ACME + GLOBEX + ACME));
+    chunks.addAll(tested.finish());
+
+    assertEquals(2, chunks.size());
+    assertEquals(0, chunks.get(0).getJob());
+    assertEquals(HEADER + ACME + GLOBEX, string(chunks.get(0)));
+    assertEquals(1, chunks.get(1).getJob());
+    assertEquals(HEADER + ACME, string(chunks.get(1)));
+  }
+
+  @Test
+  public void recordAcrossPieces_keptWhole() {
+    CsvJobSplitter tested = new CsvJobSplitter(BulkIngest.MAX_JOB_SIZE);
+
+    List<CsvJobSplitter.Chunk> chunks = new ArrayList<>(tested.split(bytes("Name,Desc")));
+    chunks.addAll(tested.split(bytes("ription\nAc")));
+    chunks.addAll(tested.split(bytes("me,")));
+    chunks.addAll(tested.split(bytes("Anvils\nGlobex,Gadgets")));
+    chunks.addAll(tested.finish());
+
+    assertEquals(2, chunks.size());
+    assertEquals(HEADER + ACME, string(chunks.get(0)));
+    assertEquals("Globex,Gadgets", string(chunks.get(1)));
+    assertEquals(0, chunks.get(1).getJob());
+  }
+
+  @Test
+  public void lineBreakInQuotes_notSplit() {
+    String quoted = "Acme,\"Anvils\nand \"\"rockets\"\"\"\n";
+    CsvJobSplitter tested = new CsvJobSplitter(HEADER.length() + quoted.length());
+
+    List<CsvJobSplitter.Chunk> chunks = tested.split(bytes(HEADER + quoted + quoted));
+
+    assertEquals(2, chunks.size());
+    assertEquals(HEADER + quoted, string(chunks.get(0)));
+    assertEquals(HEADER + quoted, string(chunks.get(1)));
+  }
+
+  @Test
+  public void chunks_offsetsInCsv() {
+    CsvJobSplitter tested = new CsvJobSplitter(HEADER.length() + ACME.length() + GLOBEX.length());
+
+    List<CsvJobSplitter.Chunk> chunks = new ArrayList<>(tested.split(bytes(HEADER + ACME)));
+    chunks.addAll(tested.split(bytes(GLOBEX + ACME)));
+    chunks.addAll(tested.finish());
+
+    assertEquals(3, chunks.size());
+    assertEquals(HEADER.length(), chunks.get(0).getHeaderLength());
+    assertEquals(HEADER.length(), chunks.get(0).getStart());
+    assertEquals(HEADER.length() + ACME.length(), chunks.get(0).getEnd());
+    assertEquals(0, chunks.get(1).getHeaderLength());
+    assertEquals(HEADER.length() + ACME.length(), chunks.get(1).getStart());
+    assertEquals(HEADER.length() + ACME.length() + GLOBEX.length(), chunks.get(1).getEnd());
+    assertEquals(1, chunks.get(2).getJob());
+    assertEquals(HEADER.length(), chunks.get(2).getHeaderLength());
+    assertEquals(chunks.get(1).getEnd(), chunks.get(2).getStart());
+    assertEquals(HEADER.length() + 2L * ACME.length() + GLOBEX.length(), chunks.get(2).getEnd());
+  }
+
+  @Test
+  public void headerOnly_noJobs() {
+    CsvJobSplitter tested = new CsvJobSplitter(BulkIngest.MAX_JOB_SIZE);
+
+    assertTrue(tested.split(bytes(HEADER)).isEmpty());
+    assertTrue(tested.finish().isEmpty());
+  }
+
+  @Test
+  public void recordLargerThanJob_illegalArgument() {
+    CsvJobSplitter tested = new CsvJobSplitter(HEADER.length() + ACME.length());
+
+    assertThrows(IllegalArgumentException.class, () -> tested.split(bytes(HEADER + GLOBEX)));
+  }
+
+  @Test
+  public void endsInQuotes_illegalArgument() {
+    CsvJobSplitter tested = new CsvJobSplitter(BulkIngest.MAX_JOB_SIZE);
+    tested.split(bytes(HEADER + "Acme,\"Anvils"));
+
+    assertThrows(IllegalArgumentException.class, tested::finish);
+  }
+
+  private static byte[] bytes(final String csv) {
+    return csv.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String string(final CsvJobSplitter.Chunk chunk) {
+    ByteBuffer data = chunk.getData();
+    byte[] bytes = new byte[data.remaining()];
+    data.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
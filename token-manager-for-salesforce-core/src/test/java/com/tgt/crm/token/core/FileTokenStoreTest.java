@@ -0,0 +1,157 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class FileTokenStoreTest {
+
+  private static final String KEY = "https://test.my.salesforce.com|clientId|username";
+  private static final String ENCRYPTION_KEY = Base64.getEncoder().encodeToString(new byte[16]);
+  private static final String OTHER_ENCRYPTION_KEY =
+      Base64.getEncoder().encodeToString(new byte[32]);
+  private static final String ISSUED_AT = "1626730000000";
+  private static final String FIRST_TOKEN = "first";
+  private static final String SECOND_TOKEN = "second";
+  private static final byte[] CORRUPT_FILE = {2, 1, 2, 3};
+
+  @TempDir
+  @SuppressWarnings("PMD.DefaultPackage")
+  Path directory;
+
+  @Test
+  public void compareAndSet_storedToken_readBack() {
+    FileTokenStore tested = buildStore(ENCRYPTION_KEY);
+
+    assertNull(tested.get(KEY));
+    assertTrue(tested.compareAndSet(KEY, 0, buildAuthResponse(FIRST_TOKEN)));
+
+    StoredToken stored = tested.get(KEY);
+    assertEquals(1, stored.getVersion());
+    assertEquals(buildAuthResponse(FIRST_TOKEN), stored.getAuthResponse());
+
+    assertTrue(tested.compareAndSet(KEY, 1, buildAuthResponse(SECOND_TOKEN)));
+    assertEquals(2, tested.get(KEY).getVersion());
+    assertEquals(SECOND_TOKEN, tested.get(KEY).getAuthResponse().getAccessToken());
+  }
+
+  @Test
+  public void compareAndSet_staleVersion_rejected() {
+    FileTokenStore tested = buildStore(ENCRYPTION_KEY);
+    tested.compareAndSet(KEY, 0, buildAuthResponse(FIRST_TOKEN));
+
+    assertFalse(tested.compareAndSet(KEY, 0, buildAuthResponse(SECOND_TOKEN)));
+    assertFalse(tested.compareAndSet(KEY, 2, buildAuthResponse(SECOND_TOKEN)));
+    assertEquals(FIRST_TOKEN, tested.get(KEY).getAuthResponse().getAccessToken());
+  }
+
+  @Test
+  public void compareAndSet_concurrentWriters_oneWins()
+      throws InterruptedException, ExecutionException {
+    // separate instances on the same directory, as used by separate processes
+    List<Callable<Boolean>> writers =
+        IntStream.range(0, 8)
+            .mapToObj(
+                i -> {
+                  FileTokenStore store = buildStore(ENCRYPTION_KEY);
+                  return (Callable<Boolean>)
+                      () -> store.compareAndSet(KEY, 0, buildAuthResponse("token" + i));
+                })
+            .collect(Collectors.toList());
+    ExecutorService executor = Executors.newFixedThreadPool(writers.size());
+    try {
+      long stored = 0;
+      for (Future<Boolean> result : executor.invokeAll(writers)) {
+        stored += result.get() ? 1 : 0;
+      }
+      assertEquals(1, stored);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, buildStore(ENCRYPTION_KEY).get(KEY).getVersion());
+  }
+
+  @Test
+  public void get_differentKey_notShared() {
+    FileTokenStore tested = buildStore(ENCRYPTION_KEY);
+    tested.compareAndSet(KEY, 0, buildAuthResponse(FIRST_TOKEN));
+
+    assertNull(tested.get("https://test.my.salesforce.com|clientId|otherUsername"));
+  }
+
+  @Test
+  public void get_differentEncryptionKey_treatedAsEmpty() {
+    buildStore(ENCRYPTION_KEY).compareAndSet(KEY, 0, buildAuthResponse(FIRST_TOKEN));
+    FileTokenStore tested = buildStore(OTHER_ENCRYPTION_KEY);
+
+    assertNull(tested.get(KEY));
+    assertTrue(tested.compareAndSet(KEY, 0, buildAuthResponse(SECOND_TOKEN)));
+    assertEquals(SECOND_TOKEN, tested.get(KEY).getAuthResponse().getAccessToken());
+  }
+
+  @Test
+  public void get_corruptFile_treatedAsEmpty() throws IOException {
+    FileTokenStore tested = buildStore(ENCRYPTION_KEY);
+    tested.compareAndSet(KEY, 0, buildAuthResponse(FIRST_TOKEN));
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.collect(Collectors.toList())) {
+        Files.write(file, CORRUPT_FILE);
+      }
+    }
+
+    assertNull(tested.get(KEY));
+  }
+
+  @Test
+  public void invalidConfig_rejected() {
+    TokenStoreConfig noDirectory = new TokenStoreConfig();
+    noDirectory.setEncryptionKey(ENCRYPTION_KEY);
+    assertEquals(
+        "salesforce.token-store.directory is required for the file token store",
+        assertThrows(IllegalArgumentException.class, () -> new FileTokenStore(noDirectory))
+            .getMessage());
+
+    assertEquals(
+        "salesforce.token-store.encryption-key is required for the file token store",
+        assertThrows(IllegalArgumentException.class, () -> buildStore(null)).getMessage());
+    assertThrows(IllegalArgumentException.class, () -> buildStore("not base64!"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> buildStore(Base64.getEncoder().encodeToString(new byte[10])));
+  }
+
+  private FileTokenStore buildStore(final String encryptionKey) {
+    TokenStoreConfig tokenStoreConfig = new TokenStoreConfig();
+    tokenStoreConfig.setDirectory(directory.toString());
+    tokenStoreConfig.setEncryptionKey(encryptionKey);
+    return new FileTokenStore(tokenStoreConfig);
+  }
+
+  private static SalesforceAuthResponse buildAuthResponse(final String accessToken) {
+    SalesforceAuthResponse authResponse = new SalesforceAuthResponse();
+    authResponse.setAccessToken(accessToken);
+    authResponse.setTokenType("Bearer");
+    authResponse.setInstanceUrl("https://test.my.salesforce.com");
+    authResponse.setIssuedAt(ISSUED_AT);
+    return authResponse;
+  }
+}
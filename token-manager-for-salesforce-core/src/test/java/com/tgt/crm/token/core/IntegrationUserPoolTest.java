@@ -0,0 +1,117 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class IntegrationUserPoolTest {
+
+  private static final String FIRST = "first";
+  private static final String SECOND = "second";
+  private static final String THIRD = "third";
+  private static final List<String> USERS = List.of(FIRST, SECOND, THIRD);
+  private static final long COOLDOWN = 60_000;
+  private static final Instant NOW = Instant.ofEpochMilli(1_626_730_000_000L);
+
+  @Test
+  public void acquire_roundRobin_usersInTurn() {
+    IntegrationUserPool<String> tested =
+        new IntegrationUserPool<>(USERS, UserSelection.ROUND_ROBIN, COOLDOWN);
+
+    // leases are not released, round robin ignores requests in flight
+    assertEquals(FIRST, tested.acquire().getUser());
+    assertEquals(SECOND, tested.acquire().getUser());
+    assertEquals(THIRD, tested.acquire().getUser());
+    assertEquals(FIRST, tested.acquire().getUser());
+  }
+
+  @Test
+  public void acquire_leastInFlight_idleUserSelected() {
+    IntegrationUserPool<String> tested =
+        new IntegrationUserPool<>(USERS, UserSelection.LEAST_IN_FLIGHT, COOLDOWN);
+
+    IntegrationUserPool.Lease<String> first = tested.acquire();
+    IntegrationUserPool.Lease<String> second = tested.acquire();
+    assertEquals(FIRST, first.getUser());
+    assertEquals(SECOND, second.getUser());
+    first.release();
+    first.release();
+
+    // the round robin start is at the third user, which is tied with the released first user
+    assertEquals(THIRD, tested.acquire().getUser());
+    assertEquals(FIRST, tested.acquire().getUser());
+    // all users have one request in flight again, ties continue round robin
+    assertEquals(SECOND, tested.acquire().getUser());
+  }
+
+  @Test
+  public void fail_userSkippedUntilCooldownPassed() {
+    MutableClock clock = new MutableClock();
+    IntegrationUserPool<String> tested =
+        new IntegrationUserPool<>(USERS, UserSelection.ROUND_ROBIN, COOLDOWN, clock);
+
+    IntegrationUserPool.Lease<String> first = tested.acquire();
+    first.fail();
+    first.release();
+
+    assertEquals(SECOND, tested.acquire().getUser());
+    assertEquals(THIRD, tested.acquire().getUser());
+    assertEquals(SECOND, tested.acquire().getUser());
+
+    clock.advance(COOLDOWN);
+    assertEquals(SECOND, tested.acquire().getUser());
+    assertEquals(THIRD, tested.acquire().getUser());
+    assertEquals(FIRST, tested.acquire().getUser());
+  }
+
+  @Test
+  public void fail_allUsersFailed_usersStillUsed() {
+    IntegrationUserPool<String> tested =
+        new IntegrationUserPool<>(
+            List.of(FIRST, SECOND), UserSelection.LEAST_IN_FLIGHT, COOLDOWN, new MutableClock());
+
+    tested.acquire().fail();
+    tested.acquire().fail();
+
+    assertEquals(FIRST, tested.acquire().getUser());
+    assertEquals(SECOND, tested.acquire().getUser());
+  }
+
+  @Test
+  public void noUsers_rejected() {
+    List<String> users = List.of();
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new IntegrationUserPool<>(users, UserSelection.ROUND_ROBIN, COOLDOWN));
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant current = NOW;
+
+    private void advance(final long millis) {
+      current = current.plusMillis(millis);
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return current;
+    }
+  }
+}
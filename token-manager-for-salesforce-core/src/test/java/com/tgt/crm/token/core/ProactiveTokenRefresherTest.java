@@ -0,0 +1,173 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class ProactiveTokenRefresherTest {
+
+  private static final int SESSION_TIMEOUT = 7_200_000;
+  private static final int REFRESH_AHEAD = 300_000;
+  private static final int JITTER = 60_000;
+  private static final Instant NOW = Instant.ofEpochMilli(1_626_730_000_000L);
+
+  @Mock private TokenRequester tokenRequester;
+  @Mock private ScheduledExecutorService scheduler;
+  @Mock private ScheduledFuture<?> scheduledFuture;
+
+  @Captor private ArgumentCaptor<Runnable> taskCaptor;
+
+  private ProactiveRefreshConfig config;
+  private TokenManager tokenManager;
+  private ProactiveTokenRefresher tested;
+
+  @BeforeEach
+  public void setUp() {
+    config = new ProactiveRefreshConfig();
+    config.setEnabled(true);
+    config.setSessionTimeout(SESSION_TIMEOUT);
+    config.setRefreshAhead(REFRESH_AHEAD);
+    config.setJitter(JITTER);
+    tokenManager = new TokenManager(tokenRequester);
+    tested = new ProactiveTokenRefresher(tokenManager, config, scheduler);
+  }
+
+  @Test
+  public void refreshDelay_freshToken_beforeSessionTimeoutWithJitter() {
+    long delay = tested.refreshDelay(buildToken(NOW), NOW);
+
+    assertTrue(delay <= SESSION_TIMEOUT - REFRESH_AHEAD);
+    assertTrue(delay >= SESSION_TIMEOUT - REFRESH_AHEAD - JITTER);
+  }
+
+  @Test
+  public void refreshDelay_issuedAtPastRefreshTime_countsFromNow() {
+    Instant issuedAt = NOW.minusMillis(SESSION_TIMEOUT * 2L);
+
+    long delay = tested.refreshDelay(buildToken(issuedAt), NOW);
+
+    assertTrue(delay <= SESSION_TIMEOUT - REFRESH_AHEAD);
+    assertTrue(delay >= SESSION_TIMEOUT - REFRESH_AHEAD - JITTER);
+  }
+
+  @Test
+  public void tokenIssued_refreshScheduled_renewsToken() {
+    when(tokenRequester.requestToken())
+        .thenReturn(buildResponse("first"))
+        .thenReturn(buildResponse("second"));
+    doReturn(scheduledFuture).when(scheduler).schedule(any(Runnable.class), anyLong(), any());
+
+    SalesforceToken first = tokenManager.getToken().join();
+
+    verify(scheduler).schedule(taskCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+    taskCaptor.getValue().run();
+
+    SalesforceToken second = tokenManager.getCachedToken();
+    assertEquals("Bearer second", second.getAuthorization());
+    assertTrue(second.isNewerThan(first));
+
+    // the refreshed token is scheduled in turn, replacing the completed schedule
+    verify(scheduler, times(2)).schedule(any(Runnable.class), anyLong(), any());
+    verify(scheduledFuture).cancel(false);
+  }
+
+  @Test
+  public void backgroundRefreshFails_currentTokenKept() {
+    when(tokenRequester.requestToken())
+        .thenReturn(buildResponse("first"))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("test exception")));
+    doReturn(scheduledFuture).when(scheduler).schedule(any(Runnable.class), anyLong(), any());
+
+    SalesforceToken first = tokenManager.getToken().join();
+
+    verify(scheduler).schedule(taskCaptor.capture(), anyLong(), any());
+    taskCaptor.getValue().run();
+
+    assertEquals(first, tokenManager.getCachedToken());
+  }
+
+  @Test
+  public void registeredTokenManager_refreshedIndependently() {
+    TokenManager otherTokenManager = new TokenManager(tokenRequester);
+    tested.register(otherTokenManager);
+    when(tokenRequester.requestToken())
+        .thenReturn(buildResponse("first"))
+        .thenReturn(buildResponse("other"))
+        .thenReturn(buildResponse("renewed"));
+    doReturn(scheduledFuture).when(scheduler).schedule(any(Runnable.class), anyLong(), any());
+
+    SalesforceToken first = tokenManager.getToken().join();
+    otherTokenManager.getToken().join();
+
+    // each token manager keeps its own schedule, neither cancels the other
+    verify(scheduler, times(2)).schedule(taskCaptor.capture(), anyLong(), any());
+    verify(scheduledFuture, never()).cancel(false);
+
+    taskCaptor.getAllValues().get(1).run();
+
+    assertEquals("Bearer renewed", otherTokenManager.getCachedToken().getAuthorization());
+    assertEquals(first, tokenManager.getCachedToken());
+  }
+
+  @Test
+  public void register_tokenAlreadyCached_refreshScheduled() {
+    TokenManager otherTokenManager = new TokenManager(tokenRequester);
+    when(tokenRequester.requestToken()).thenReturn(buildResponse("cached"));
+    otherTokenManager.getToken().join();
+
+    tested.register(otherTokenManager);
+
+    verify(scheduler).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void invalidConfig_rejected() {
+    config.setRefreshAhead(SESSION_TIMEOUT);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new ProactiveTokenRefresher(tokenManager, config, scheduler));
+  }
+
+  @Test
+  public void close_schedulerShutDown() {
+    tested.close();
+
+    verify(scheduler).shutdownNow();
+  }
+
+  private static SalesforceToken buildToken(final Instant issuedAt) {
+    return new SalesforceToken(1, "Bearer", "token", "Bearer token", null, null, issuedAt, null);
+  }
+
+  private static CompletableFuture<SalesforceAuthResponse> buildResponse(final String accessToken) {
+    SalesforceAuthResponse authResponse = new SalesforceAuthResponse();
+    authResponse.setAccessToken(accessToken);
+    authResponse.setTokenType("Bearer");
+    authResponse.setIssuedAt(String.valueOf(System.currentTimeMillis()));
+    return CompletableFuture.completedFuture(authResponse);
+  }
+}
@@ -0,0 +1,166 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+public class SObjectCollectionsTest {
+
+  private static final String ACCOUNT = "Account";
+  private static final Map<String, Object> ACME = Map.of("Name", "Acme");
+  private static final Map<String, Object> GLOBEX = Map.of("Name", "Globex");
+
+  private final SObjectCollections tested =
+      new SObjectCollections(new SObjectCollectionsConfig(), new ObjectMapper());
+
+  @Test
+  public void defaults() {
+    assertEquals("/services/data/v52.0/composite/sobjects", tested.getPath());
+    assertEquals(SObjectCollections.MAX_RECORDS, tested.getBatchSize());
+    assertEquals(100, tested.getWindow());
+    assertEquals(4, tested.getConcurrency());
+  }
+
+  @Test
+  public void requestBody_recordsWithType() {
+    assertEquals(
+        "{\"allOrNone\":false,\"records\":["
+            + "{\"attributes\":{\"type\":\"Account\"},\"Name\":\"Acme\"},"
+            + "{\"attributes\":{\"type\":\"Account\"},\"Id\":\"001\",\"Name\":\"Globex\"}]}",
+        new String(
+            tested.requestBody(ACCOUNT, List.of(ACME, new Account("001", "Globex"))),
+            StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void requestBody_notAnObject_illegalArgument() {
+    assertThrows(
+        IllegalArgumentException.class, () -> tested.requestBody(ACCOUNT, List.of("Acme")));
+  }
+
+  @Test
+  public void results_pairedWithRecords() throws IOException {
+    List<SaveResult<Map<String, Object>>> results =
+        tested.results(
+            List.of(ACME, GLOBEX),
+            200,
+            bytes(
+                "[{\"id\":\"001\",\"success\":true,\"errors\":[]},"
+                    + "{\"success\":false,\"errors\":[{\"statusCode\":\"REQUIRED_FIELD_MISSING\","
+                    + "\"message\":\"Required fields are missing: [Type]\",\"fields\":[\"Type\"]}]}]"));
+
+    assertSame(ACME, results.get(0).getRecord());
+    assertEquals("001", results.get(0).getId());
+    assertTrue(results.get(0).isSuccess());
+    assertTrue(results.get(0).getErrors().isEmpty());
+    assertSame(GLOBEX, results.get(1).getRecord());
+    assertNull(results.get(1).getId());
+    assertFalse(results.get(1).isSuccess());
+    SaveError error = results.get(1).getErrors().get(0);
+    assertEquals("REQUIRED_FIELD_MISSING", error.getStatusCode());
+    assertEquals("Required fields are missing: [Type]", error.getMessage());
+    assertEquals(List.of("Type"), error.getFields());
+  }
+
+  @Test
+  public void results_resultWithoutErrors_noErrors() throws IOException {
+    assertTrue(
+        tested
+            .results(List.of(ACME), 200, bytes("[{\"id\":\"001\",\"success\":true}]"))
+            .get(0)
+            .getErrors()
+            .isEmpty());
+  }
+
+  @Test
+  public void results_callFailed_everyRecordFailed() throws IOException {
+    List<SaveResult<Map<String, Object>>> results =
+        tested.results(
+            List.of(ACME, GLOBEX),
+            400,
+            bytes(
+                "[{\"errorCode\":\"INVALID_TYPE\",\"message\":\"sObject type does not exist\"}]"));
+
+    for (SaveResult<Map<String, Object>> result : results) {
+      assertFalse(result.isSuccess());
+      assertEquals("INVALID_TYPE", result.getErrors().get(0).getStatusCode());
+      assertEquals("sObject type does not exist", result.getErrors().get(0).getMessage());
+    }
+    assertSame(ACME, results.get(0).getRecord());
+    assertSame(GLOBEX, results.get(1).getRecord());
+  }
+
+  @Test
+  public void results_callFailedWithoutErrors_statusAsError() throws IOException {
+    assertStatusError("Service Unavailable");
+    assertStatusError("[]");
+  }
+
+  @Test
+  public void results_resultsMissing_ioException() {
+    assertThrows(IOException.class, () -> tested.results(List.of(ACME, GLOBEX), 200, bytes("[]")));
+    assertThrows(IOException.class, () -> tested.results(List.of(ACME), 200, bytes("{\"a\":1}")));
+    assertThrows(IOException.class, () -> tested.results(List.of(ACME), 200, bytes("")));
+  }
+
+  @Test
+  public void invalidConfig_illegalArgument() {
+    assertInvalid(invalid -> invalid.setApiVersion("52.0"));
+    assertInvalid(invalid -> invalid.setApiVersion(null));
+    assertInvalid(invalid -> invalid.setBatchSize(0));
+    assertInvalid(invalid -> invalid.setBatchSize(SObjectCollections.MAX_RECORDS + 1));
+    assertInvalid(invalid -> invalid.setWindow(-1));
+    assertInvalid(invalid -> invalid.setConcurrency(0));
+  }
+
+  private void assertStatusError(final String body) throws IOException {
+    SaveError error = tested.results(List.of(ACME), 503, bytes(body)).get(0).getErrors().get(0);
+    assertEquals("503", error.getStatusCode());
+    assertEquals(body, error.getMessage());
+  }
+
+  private static void assertInvalid(final Consumer<SObjectCollectionsConfig> change) {
+    SObjectCollectionsConfig invalid = new SObjectCollectionsConfig();
+    change.accept(invalid);
+    assertThrows(
+        IllegalArgumentException.class, () -> new SObjectCollections(invalid, new ObjectMapper()));
+  }
+
+  private static byte[] bytes(final String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /** A record as an application would define it. */
+  private static final class Account {
+
+    private final String id;
+    private final String name;
+
+    private Account(final String id, final String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    @JsonProperty("Id")
+    public String getId() {
+      return id;
+    }
+
+    @JsonProperty("Name")
+    public String getName() {
+      return name;
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package com.tgt.crm.token.core;
+
+import static com.tgt.crm.token.core.SalesforceConstants.API_LIMIT_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.API_USAGE_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_TIMER;
+import static com.tgt.crm.token.core.SalesforceConstants.USERNAME_TAG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SalesforceOrgRegistryTest {
+
+  private static final String DEFAULT_HOST = "https://default.my.salesforce.com";
+  private static final String ORG = "secondary";
+  private static final String ORG_HOST = "https://secondary.my.salesforce.com:8443";
+  private static final String SF_PATH = "/services/data/v52.0/query?q=SELECT%20Id%20FROM%20Account";
+  private static final String INSTANCE_HOST = "https://na1.salesforce.com";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final TokenManager defaultAuthClient = new TokenManager(() -> null);
+  private final List<SalesforceConfig> builtFor = new ArrayList<>();
+  private SalesforceConfig salesforceConfig;
+
+  @BeforeEach
+  public void setUp() {
+    salesforceConfig = buildConfig(DEFAULT_HOST);
+  }
+
+  @Test
+  public void singleOrg_defaultAuthClientOnly() {
+    SalesforceOrgRegistry<TokenManager> tested = buildRegistry();
+
+    assertFalse(tested.isMultiOrg());
+    assertSame(defaultAuthClient, tested.getAuthClient(DEFAULT_ORG));
+    assertEquals(1, tested.getAuthClients().size());
+    assertEquals(List.of(), builtFor);
+  }
+
+  @Test
+  public void additionalOrg_ownAuthClient() {
+    SalesforceConfig orgConfig = buildConfig(ORG_HOST);
+    salesforceConfig.getOrgs().put(ORG, orgConfig);
+
+    SalesforceOrgRegistry<TokenManager> tested = buildRegistry();
+
+    assertTrue(tested.isMultiOrg());
+    assertNotSame(defaultAuthClient, tested.getAuthClient(ORG));
+    assertEquals(List.of(orgConfig), builtFor);
+    assertSame(tested.getAuthClient(ORG), tested.getUserPool(ORG).getUsers().get(0));
+  }
+
+  @Test
+  public void unknownOrg_rejected() {
+    SalesforceOrgRegistry<TokenManager> tested = buildRegistry();
+
+    assertThrows(IllegalArgumentException.class, () -> tested.getAuthClient(ORG));
+    assertThrows(IllegalArgumentException.class, () -> tested.getUserPool(ORG));
+    assertThrows(IllegalArgumentException.class, () -> tested.getApiLimitTracker(ORG));
+  }
+
+  @Test
+  public void apiLimitTracker_perOrgWithGauges() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+
+    SalesforceOrgRegistry<TokenManager> tested = buildRegistry();
+
+    assertNotSame(tested.getApiLimitTracker(DEFAULT_ORG), tested.getApiLimitTracker(ORG));
+    assertEquals(2, meterRegistry.get(API_USAGE_GAUGE).gauges().size());
+    assertEquals(1, meterRegistry.get(API_LIMIT_GAUGE).tag(ORG_TAG, ORG).gauges().size());
+  }
+
+  @Test
+  public void integrationUsers_pooledWithDefaultUser() {
+    IntegrationUser user = new IntegrationUser();
+    user.setUsername("secondUsername");
+    user.setPassword("secondPassword");
+    salesforceConfig.getUsers().add(user);
+
+    SalesforceOrgRegistry<TokenManager> tested = buildRegistry();
+
+    assertEquals(2, tested.getUserPool(DEFAULT_ORG).getUsers().size());
+    assertSame(defaultAuthClient, tested.getUserPool(DEFAULT_ORG).getUsers().get(0));
+    assertEquals(1, tested.getUserPools().size());
+    assertEquals("secondUsername", builtFor.get(0).getUsername());
+    assertEquals("secondPassword", builtFor.get(0).getPassword());
+    assertEquals(DEFAULT_HOST, builtFor.get(0).getHost());
+    assertEquals(salesforceConfig.getClientId(), builtFor.get(0).getClientId());
+    assertEquals(salesforceConfig.getAuthUri(), builtFor.get(0).getAuthUri());
+    assertTrue(builtFor.get(0).getUsers().isEmpty());
+    assertNotSame(
+        TokenMetrics.NONE, tested.getUserPool(DEFAULT_ORG).getUsers().get(1).getMetrics());
+    assertEquals(
+        4,
+        meterRegistry
+            .get(TOKEN_REFRESH_TIMER)
+            .tag(ORG_TAG, DEFAULT_ORG)
+            .tag(USERNAME_TAG, "secondUsername")
+            .timers()
+            .size());
+  }
+
+  @Test
+  public void defaultOrgName_rejected() {
+    salesforceConfig.getOrgs().put(DEFAULT_ORG, buildConfig(ORG_HOST));
+
+    assertThrows(IllegalArgumentException.class, this::buildRegistry);
+  }
+
+  @Test
+  public void routeToOrg_defaultHostRequest_rewrittenToOrgHost() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+    SalesforceOrgRegistry<TokenManager> tested = buildRegistry();
+
+    URI routed = tested.routeToOrg(URI.create(DEFAULT_HOST + SF_PATH + "#top"), ORG);
+
+    assertEquals(URI.create(ORG_HOST + SF_PATH + "#top"), routed);
+  }
+
+  @Test
+  public void routeToOrg_otherHostOrDefaultOrg_unchanged() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+    SalesforceOrgRegistry<TokenManager> tested = buildRegistry();
+    URI defaultUrl = URI.create(DEFAULT_HOST + SF_PATH);
+    URI otherHostUrl = URI.create("https://other.my.salesforce.com" + SF_PATH);
+
+    assertSame(defaultUrl, tested.routeToOrg(defaultUrl, DEFAULT_ORG));
+    assertSame(otherHostUrl, tested.routeToOrg(otherHostUrl, ORG));
+    assertSame(defaultUrl, tested.routeToOrg(defaultUrl, "unknown"));
+  }
+
+  @Test
+  public void routeToInstance_orgHostRequest_rewrittenToInstanceHost() {
+    salesforceConfig.setUseInstanceUrl(true);
+    SalesforceOrgRegistry<TokenManager> tested = buildRegistry();
+
+    URI routed =
+        tested.routeToInstance(
+            URI.create(DEFAULT_HOST + SF_PATH), DEFAULT_ORG, buildToken(INSTANCE_HOST));
+
+    assertEquals(URI.create(INSTANCE_HOST + SF_PATH), routed);
+  }
+
+  @Test
+  public void routeToInstance_notEnabledOrNotOrgHost_unchanged() {
+    SalesforceConfig orgConfig = buildConfig(ORG_HOST);
+    orgConfig.setUseInstanceUrl(true);
+    salesforceConfig.getOrgs().put(ORG, orgConfig);
+    SalesforceOrgRegistry<TokenManager> tested = buildRegistry();
+    URI defaultUrl = URI.create(DEFAULT_HOST + SF_PATH);
+    URI instanceUrl = URI.create(INSTANCE_HOST + SF_PATH);
+    URI orgUrl = URI.create(ORG_HOST + SF_PATH);
+    SalesforceToken token = buildToken(INSTANCE_HOST);
+
+    assertSame(defaultUrl, tested.routeToInstance(defaultUrl, DEFAULT_ORG, token));
+    assertSame(defaultUrl, tested.routeToInstance(defaultUrl, ORG, token));
+    assertSame(instanceUrl, tested.routeToInstance(instanceUrl, ORG, token));
+    assertSame(orgUrl, tested.routeToInstance(orgUrl, ORG, buildToken("instanceUrl")));
+    assertSame(orgUrl, tested.routeToInstance(orgUrl, ORG, null));
+  }
+
+  private SalesforceOrgRegistry<TokenManager> buildRegistry() {
+    return new SalesforceOrgRegistry<>(
+        defaultAuthClient,
+        salesforceConfig,
+        new ApiLimitConfig(),
+        meterRegistry,
+        config -> {
+          builtFor.add(config);
+          return new TokenManager(() -> null);
+        },
+        Function.identity());
+  }
+
+  private static SalesforceToken buildToken(final String instanceUrl) {
+    return new SalesforceToken(
+        1, "Bearer", "token", "Bearer token", instanceUrl, null, Instant.now(), null);
+  }
+
+  private static SalesforceConfig buildConfig(final String host) {
+    SalesforceConfig config = new SalesforceConfig();
+    config.setHost(host);
+    config.setUsername("username");
+    config.setPassword("password");
+    config.setClientId("clientId");
+    config.setClientSecret("clientSecret");
+    return config;
+  }
+}
@@ -0,0 +1,222 @@
+package com.tgt.crm.token.core;
+
+import static com.tgt.crm.token.core.SalesforceConstants.LIMIT_INFO_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.FormBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SalesforceSimulatorTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final String QUERY = SalesforceSimulator.QUERY_PATH + "?q=SELECT+Id+FROM+Account";
+
+  private static final String RECORDS = "records";
+  // core's tests run without spring-web, so its HttpHeaders constants are not available
+  private static final String RETRY_AFTER = "Retry-After";
+  private static final String AUTHORIZATION = "Authorization";
+
+  private final OkHttpClient client = new OkHttpClient();
+  private MockWebServer server;
+  private SimulatorConfig config;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    server = new MockWebServer();
+    server.start();
+    config = new SimulatorConfig();
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void token_acceptedUntilMaxCalls() throws IOException {
+    config.setTokenMaxCalls(2);
+    config.setApiUsage(10);
+    SalesforceSimulator tested = start();
+    String token = token();
+
+    try (Response response = get(QUERY, token)) {
+      assertEquals(200, response.code());
+      assertEquals("api-usage=11/15000", response.header(LIMIT_INFO_HEADER));
+    }
+    assertEquals(200, status(QUERY, token));
+    assertEquals(401, status(QUERY, token));
+    assertEquals(401, status(QUERY, token));
+    String refreshed = token();
+    assertNotEquals(token, refreshed);
+    assertEquals(200, status(QUERY, refreshed));
+
+    assertEquals(2, tested.getAuthCalls());
+    assertEquals(5, tested.getDataCalls());
+    assertEquals(2, tested.getUnauthorizedResponses());
+    assertEquals(1, tested.getRejectedTokens());
+  }
+
+  @Test
+  public void token_rejectedAfterTtl() throws IOException, InterruptedException {
+    config.setTokenTtl(1);
+    start();
+    String token = token();
+
+    Thread.sleep(5);
+
+    assertEquals(401, status(QUERY, token));
+  }
+
+  @Test
+  public void unknownToken_rejected() throws IOException {
+    SalesforceSimulator tested = start();
+
+    assertEquals(401, status(QUERY, "unknown"));
+    try (Response response =
+        client.newCall(new Request.Builder().url(server.url(QUERY)).build()).execute()) {
+      assertEquals(401, response.code());
+    }
+    assertEquals(2, tested.getUnauthorizedResponses());
+  }
+
+  @Test
+  public void injectedErrors_returned() throws IOException {
+    config.setUnavailableRate(1);
+    config.setRetryAfter(3);
+    SalesforceSimulator tested = start();
+    String token = token();
+
+    try (Response response = get(QUERY, token)) {
+      assertEquals(503, response.code());
+      assertEquals("3", response.header(RETRY_AFTER));
+    }
+
+    config.setUnavailableRate(0);
+    config.setServerErrorRate(1);
+    assertEquals(500, status(QUERY, token));
+
+    config.setServerErrorRate(0);
+    config.setUnauthorizedRate(1);
+    assertEquals(401, status(QUERY, token));
+    config.setUnauthorizedRate(0);
+    assertEquals(401, status(QUERY, token));
+    assertEquals(2, tested.getErrorResponses());
+  }
+
+  @Test
+  public void query_pagedWithNextRecordsUrl() throws IOException {
+    config.setQueryRecords(5);
+    config.setQueryPageSize(2);
+    start();
+    String token = token();
+
+    JsonNode first = body(QUERY, token);
+    assertEquals(5, first.get("totalSize").asInt());
+    assertFalse(first.get("done").asBoolean());
+    assertEquals(2, first.get(RECORDS).size());
+    assertEquals("001SIM000000000000", first.get(RECORDS).get(0).get("Id").asText());
+
+    JsonNode second = body(first.get("nextRecordsUrl").asText(), token);
+    assertEquals("001SIM000000000002", second.get(RECORDS).get(0).get("Id").asText());
+
+    JsonNode last = body(second.get("nextRecordsUrl").asText(), token);
+    assertTrue(last.get("done").asBoolean());
+    assertFalse(last.has("nextRecordsUrl"));
+    assertEquals(1, last.get(RECORDS).size());
+
+    assertEquals("{}", get("/services/data/v52.0/sobjects/Account/001", token).body().string());
+  }
+
+  @Test
+  public void latencyDistributions_withinBounds() {
+    Random random = new Random(1);
+
+    assertEquals(0, LatencyDistribution.none().nextMillis(random));
+    assertEquals(7, LatencyDistribution.fixed(7).nextMillis(random));
+    for (int i = 0; i < 100; i++) {
+      long uniform = LatencyDistribution.uniform(10, 20).nextMillis(random);
+      assertTrue(uniform >= 10 && uniform < 20);
+      assertTrue(LatencyDistribution.logNormal(50, 0.5).nextMillis(random) > 0);
+    }
+  }
+
+  @Test
+  public void loadDriver_countsRequestsAndFailures() throws InterruptedException {
+    AtomicInteger sent = new AtomicInteger();
+
+    LoadReport report =
+        LoadDriver.run(
+            100,
+            Duration.ofMillis(200),
+            () -> {
+              int request = sent.incrementAndGet();
+              if (request % 5 == 0) {
+                throw new IllegalStateException("not sent");
+              }
+              return request % 4 == 0
+                  ? CompletableFuture.failedFuture(new IOException("failed"))
+                  : CompletableFuture.completedFuture(request);
+            });
+
+    assertEquals(20, report.getRequests());
+    assertEquals(8, report.getFailures());
+    assertTrue(report.getP50() <= report.getP99());
+    assertTrue(report.getP99() <= report.getMax());
+    assertTrue(report.toString().startsWith("20 requests, 8 failed"));
+  }
+
+  private SalesforceSimulator start() {
+    SalesforceSimulator simulator = new SalesforceSimulator(config);
+    server.setDispatcher(simulator);
+    return simulator;
+  }
+
+  private String token() throws IOException {
+    Request request =
+        new Request.Builder()
+            .url(server.url(SalesforceSimulator.AUTH_PATH))
+            .post(new FormBody.Builder().add("grant_type", "password").build())
+            .build();
+    try (Response response = client.newCall(request).execute()) {
+      return MAPPER.readTree(response.body().string()).get("access_token").asText();
+    }
+  }
+
+  private int status(final String path, final String token) throws IOException {
+    try (Response response = get(path, token)) {
+      return response.code();
+    }
+  }
+
+  private JsonNode body(final String path, final String token) throws IOException {
+    try (Response response = get(path, token)) {
+      return MAPPER.readTree(response.body().string());
+    }
+  }
+
+  private Response get(final String path, final String token) throws IOException {
+    return client
+        .newCall(
+            new Request.Builder()
+                .url(server.url(path))
+                .header(AUTHORIZATION, "Bearer " + token)
+                .build())
+        .execute();
+  }
+}
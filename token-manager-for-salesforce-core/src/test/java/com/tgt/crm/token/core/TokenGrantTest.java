@@ -0,0 +1,74 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TokenGrantTest {
+
+  private SalesforceConfig salesforceConfig;
+
+  @BeforeEach
+  public void setUp() {
+    salesforceConfig = new SalesforceConfig();
+    salesforceConfig.setUsername("user+name@example.com");
+    salesforceConfig.setPassword("password!@#$%^&*()");
+    salesforceConfig.setClientId("clientId");
+    salesforceConfig.setClientSecret("clientSecret");
+  }
+
+  @Test
+  public void passwordGrant_allValuesEncoded() {
+    TokenGrant tested = TokenGrant.fromConfig(salesforceConfig);
+
+    assertTrue(tested instanceof PasswordGrant);
+    assertEquals(
+        "grant_type=password&username=user%2Bname%40example.com"
+            + "&password=password%21%40%23%24%25%5E%26*%28%29&client_id=clientId"
+            + "&client_secret=clientSecret",
+        tested.requestBody());
+  }
+
+  @Test
+  public void passwordGrant_missingPassword_rejected() {
+    salesforceConfig.setPassword(" ");
+
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> TokenGrant.fromConfig(salesforceConfig));
+    assertEquals("salesforce.password is required for this grant", e.getMessage());
+  }
+
+  @Test
+  public void clientCredentialsGrant_noUserCredentialsSent() {
+    salesforceConfig.setGrantType(GrantType.CLIENT_CREDENTIALS);
+    salesforceConfig.setUsername(null);
+    salesforceConfig.setPassword(null);
+
+    TokenGrant tested = TokenGrant.fromConfig(salesforceConfig);
+
+    assertTrue(tested instanceof ClientCredentialsGrant);
+    assertEquals(
+        "grant_type=client_credentials&client_id=clientId&client_secret=clientSecret",
+        tested.requestBody());
+  }
+
+  @Test
+  public void clientCredentialsGrant_missingClientSecret_rejected() {
+    salesforceConfig.setGrantType(GrantType.CLIENT_CREDENTIALS);
+    salesforceConfig.setClientSecret(null);
+
+    assertThrows(IllegalArgumentException.class, () -> TokenGrant.fromConfig(salesforceConfig));
+  }
+
+  @Test
+  public void jwtBearerGrant_missingPrivateKey_rejected() {
+    salesforceConfig.setGrantType(GrantType.JWT_BEARER);
+
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> TokenGrant.fromConfig(salesforceConfig));
+    assertEquals("salesforce.private-key is required for this grant", e.getMessage());
+  }
+}
@@ -0,0 +1,348 @@
+package com.tgt.crm.token.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("PMD.LinguisticNaming")
+public class TokenManagerTest {
+
+  private static final String ISSUED_AT = "1626730000000";
+  private static final String FIRST_TOKEN = "first";
+  private static final String SECOND_TOKEN = "second";
+  private static final String TEST_EXCEPTION_MSG = "test exception";
+  private static final String STORE_KEY = "https://test.my.salesforce.com|clientId|username";
+
+  @Mock private TokenRequester tokenRequester;
+  @Mock private TokenStore tokenStore;
+
+  private TokenManager tested;
+
+  @BeforeEach
+  public void setUp() {
+    tested = new TokenManager(tokenRequester);
+  }
+
+  @Test
+  public void getToken_noTokenInCache_tokenGenerated() {
+    when(tokenRequester.requestToken()).thenReturn(buildResponse(FIRST_TOKEN));
+
+    SalesforceToken token = tested.getToken().join();
+
+    assertEquals("Bearer first", token.getAuthorization());
+    assertEquals("https://test.my.salesforce.com", token.getInstanceUrl());
+    assertEquals(Long.parseLong(ISSUED_AT), token.getIssuedAt().toEpochMilli());
+    assertEquals(1, token.getGeneration());
+    assertSame(token, tested.getCachedToken());
+  }
+
+  @Test
+  public void getToken_tokenInCache_noRefresh() {
+    when(tokenRequester.requestToken()).thenReturn(buildResponse(FIRST_TOKEN));
+
+    SalesforceToken first = tested.getToken().join();
+
+    assertSame(first, tested.getToken().join());
+    verify(tokenRequester).requestToken();
+  }
+
+  @Test
+  public void refreshToken_concurrentCallers_shareInFlightRefresh() {
+    CompletableFuture<SalesforceAuthResponse> pending = new CompletableFuture<>();
+    when(tokenRequester.requestToken()).thenReturn(pending);
+
+    CompletableFuture<SalesforceToken> first = tested.refreshToken(null);
+    CompletableFuture<SalesforceToken> second = tested.refreshToken(null);
+    assertFalse(first.isDone());
+
+    pending.complete(buildAuthResponse(FIRST_TOKEN));
+
+    assertSame(first.join(), second.join());
+    verify(tokenRequester).requestToken();
+  }
+
+  @Test
+  public void refreshToken_cancelledCaller_sharedRefreshCompletes() {
+    CompletableFuture<SalesforceAuthResponse> pending = new CompletableFuture<>();
+    when(tokenRequester.requestToken()).thenReturn(pending);
+
+    tested.refreshToken(null).cancel(true);
+    CompletableFuture<SalesforceToken> waiting = tested.refreshToken(null);
+
+    pending.complete(buildAuthResponse(FIRST_TOKEN));
+
+    assertEquals("Bearer first", waiting.join().getAuthorization());
+  }
+
+  @Test
+  public void refreshToken_staleGeneration_reusesNewerToken() {
+    when(tokenRequester.requestToken())
+        .thenReturn(buildResponse(FIRST_TOKEN))
+        .thenReturn(buildResponse(SECOND_TOKEN));
+
+    SalesforceToken first = tested.getToken().join();
+    SalesforceToken second = tested.refreshToken(first).join();
+
+    assertEquals("Bearer second", second.getAuthorization());
+    assertTrue(second.isNewerThan(first));
+
+    // late 401s for the first token do not trigger another refresh
+    assertSame(second, tested.refreshToken(first).join());
+    assertSame(second, tested.refreshToken(null).join());
+    verify(tokenRequester, times(2)).requestToken();
+  }
+
+  @Test
+  public void refreshToken_requestFails_waitersFailAndNextCallRetries() {
+    CompletableFuture<SalesforceAuthResponse> pending = new CompletableFuture<>();
+    when(tokenRequester.requestToken()).thenReturn(pending).thenReturn(buildResponse(SECOND_TOKEN));
+
+    CompletableFuture<SalesforceToken> first = tested.refreshToken(null);
+    CompletableFuture<SalesforceToken> second = tested.refreshToken(null);
+    pending.completeExceptionally(new IllegalStateException(TEST_EXCEPTION_MSG));
+
+    assertThrows(CompletionException.class, first::join);
+    assertThrows(CompletionException.class, second::join);
+    assertNull(tested.getCachedToken());
+
+    assertEquals("Bearer second", tested.refreshToken(null).join().getAuthorization());
+  }
+
+  @Test
+  public void refreshToken_requesterThrows_failedFuture() {
+    when(tokenRequester.requestToken()).thenThrow(new IllegalStateException(TEST_EXCEPTION_MSG));
+
+    CompletionException ex =
+        assertThrows(CompletionException.class, () -> tested.refreshToken(null).join());
+    assertEquals(IllegalStateException.class, ex.getCause().getClass());
+  }
+
+  @Test
+  public void refreshToken_emptyResponse_failedFuture() {
+    when(tokenRequester.requestToken()).thenReturn(CompletableFuture.completedFuture(null));
+
+    assertThrows(CompletionException.class, () -> tested.refreshToken(null).join());
+    assertNull(tested.getCachedToken());
+  }
+
+  @Test
+  public void refreshToken_rejectedTokenNotReplaced_tokenDiscarded() {
+    when(tokenRequester.requestToken())
+        .thenReturn(buildResponse(FIRST_TOKEN))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException(TEST_EXCEPTION_MSG)))
+        .thenReturn(buildResponse(SECOND_TOKEN));
+
+    SalesforceToken first = tested.getToken().join();
+
+    assertThrows(CompletionException.class, () -> tested.refreshToken(first).join());
+    assertNull(tested.getCachedToken());
+
+    SalesforceToken second = tested.getToken().join();
+    assertEquals("Bearer second", second.getAuthorization());
+    assertTrue(second.isNewerThan(first));
+  }
+
+  @Test
+  public void renewToken_requestFails_currentTokenKept() {
+    when(tokenRequester.requestToken())
+        .thenReturn(buildResponse(FIRST_TOKEN))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException(TEST_EXCEPTION_MSG)));
+
+    SalesforceToken first = tested.getToken().join();
+
+    assertThrows(CompletionException.class, () -> tested.renewToken(first).join());
+    assertSame(first, tested.getCachedToken());
+  }
+
+  @Test
+  public void addTokenListener_notifiedOfIssuedTokensOnly() {
+    when(tokenRequester.requestToken()).thenReturn(buildResponse(FIRST_TOKEN));
+    List<SalesforceToken> issued = new ArrayList<>();
+    tested.addTokenListener(issued::add);
+    tested.addTokenListener(
+        token -> {
+          throw new IllegalStateException(TEST_EXCEPTION_MSG);
+        });
+
+    SalesforceToken first = tested.getToken().join();
+    tested.getToken().join();
+    tested.refreshToken(null).join();
+
+    assertEquals(List.of(first), issued);
+  }
+
+  @Test
+  public void getToken_tokenStored_usedWithoutRequest() {
+    InMemoryTokenStore tokenStore = new InMemoryTokenStore();
+    tokenStore.compareAndSet(STORE_KEY, 0, buildAuthResponse(FIRST_TOKEN));
+    tested = new TokenManager(tokenRequester, tokenStore, STORE_KEY, new AuthCircuitBreaker(0, 0));
+
+    assertEquals(FIRST_TOKEN, tested.getToken().join().getAccessToken());
+    verify(tokenRequester, never()).requestToken();
+  }
+
+  @Test
+  public void refreshToken_storedTokenRejected_newTokenStored() {
+    InMemoryTokenStore tokenStore = new InMemoryTokenStore();
+    tokenStore.compareAndSet(STORE_KEY, 0, buildAuthResponse(FIRST_TOKEN));
+    tested = new TokenManager(tokenRequester, tokenStore, STORE_KEY, new AuthCircuitBreaker(0, 0));
+    when(tokenRequester.requestToken()).thenReturn(buildResponse(SECOND_TOKEN));
+
+    SalesforceToken first = tested.getToken().join();
+    SalesforceToken second = tested.refreshToken(first).join();
+
+    assertEquals(SECOND_TOKEN, second.getAccessToken());
+    StoredToken stored = tokenStore.get(STORE_KEY);
+    assertEquals(2, stored.getVersion());
+    assertEquals(SECOND_TOKEN, stored.getAuthResponse().getAccessToken());
+  }
+
+  @Test
+  public void refreshToken_otherInstanceStoredFirst_otherTokenUsed() {
+    InMemoryTokenStore tokenStore = new InMemoryTokenStore();
+    tested = new TokenManager(tokenRequester, tokenStore, STORE_KEY, new AuthCircuitBreaker(0, 0));
+    when(tokenRequester.requestToken())
+        .then(
+            invocation -> {
+              // another instance finishes its login while this one is waiting for Salesforce
+              tokenStore.compareAndSet(STORE_KEY, 0, buildAuthResponse(FIRST_TOKEN));
+              return buildResponse(SECOND_TOKEN);
+            });
+
+    assertEquals(FIRST_TOKEN, tested.getToken().join().getAccessToken());
+    assertEquals(1, tokenStore.get(STORE_KEY).getVersion());
+  }
+
+  @Test
+  public void refreshToken_tokenStoreFails_tokenRequested() {
+    tested = new TokenManager(tokenRequester, tokenStore, STORE_KEY, new AuthCircuitBreaker(0, 0));
+    when(tokenStore.get(STORE_KEY)).thenThrow(new IllegalStateException(TEST_EXCEPTION_MSG));
+    when(tokenStore.compareAndSet(eq(STORE_KEY), eq(0L), any()))
+        .thenThrow(new IllegalStateException(TEST_EXCEPTION_MSG));
+    when(tokenRequester.requestToken()).thenReturn(buildResponse(FIRST_TOKEN));
+
+    assertEquals(FIRST_TOKEN, tested.getToken().join().getAccessToken());
+  }
+
+  @Test
+  @SuppressWarnings("PMD.DoNotUseThreads")
+  public void refreshToken_tokenStoreCalledOnStoreExecutor()
+      throws InterruptedException, ExecutionException {
+    ExecutorService storeExecutor = Executors.newSingleThreadExecutor();
+    try {
+      Thread storeThread = storeExecutor.submit(Thread::currentThread).get();
+      List<Thread> storeCallers = new CopyOnWriteArrayList<>();
+      when(tokenStore.get(STORE_KEY))
+          .then(
+              invocation -> {
+                storeCallers.add(Thread.currentThread());
+                return null;
+              });
+      when(tokenStore.compareAndSet(eq(STORE_KEY), eq(0L), any()))
+          .then(
+              invocation -> {
+                storeCallers.add(Thread.currentThread());
+                return true;
+              });
+      when(tokenRequester.requestToken()).thenReturn(buildResponse(FIRST_TOKEN));
+      tested =
+          new TokenManager(
+              tokenRequester, tokenStore, STORE_KEY, new AuthCircuitBreaker(0, 0), storeExecutor);
+
+      assertEquals(FIRST_TOKEN, tested.getToken().join().getAccessToken());
+      assertEquals(List.of(storeThread, storeThread), storeCallers);
+    } finally {
+      storeExecutor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void refreshToken_storeExecutorRejects_refreshFailsAndIsRetried() {
+    tested =
+        new TokenManager(
+            tokenRequester,
+            new InMemoryTokenStore(),
+            STORE_KEY,
+            new AuthCircuitBreaker(0, 0),
+            task -> {
+              throw new RejectedExecutionException(TEST_EXCEPTION_MSG);
+            });
+
+    CompletionException ex =
+        assertThrows(CompletionException.class, () -> tested.getToken().join());
+
+    assertEquals(RejectedExecutionException.class, ex.getCause().getClass());
+    // the failed refresh is no longer in flight, the next caller starts another one
+    assertThrows(CompletionException.class, () -> tested.getToken().join());
+    verify(tokenRequester, never()).requestToken();
+  }
+
+  @Test
+  public void refreshToken_circuitOpen_failsFastWithoutRequest() {
+    tested =
+        new TokenManager(
+            tokenRequester, new InMemoryTokenStore(), STORE_KEY, new AuthCircuitBreaker(1, 60_000));
+    when(tokenRequester.requestToken())
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException(TEST_EXCEPTION_MSG)));
+
+    assertThrows(CompletionException.class, () -> tested.getToken().join());
+    CompletionException ex =
+        assertThrows(CompletionException.class, () -> tested.getToken().join());
+
+    assertEquals(AuthCircuitOpenException.class, ex.getCause().getClass());
+    assertEquals(AuthCircuitBreaker.State.OPEN, tested.getCircuitBreaker().getState());
+    verify(tokenRequester).requestToken();
+  }
+
+  @Test
+  public void refreshToken_circuitOpen_storedTokenUsed() {
+    InMemoryTokenStore tokenStore = new InMemoryTokenStore();
+    tested =
+        new TokenManager(tokenRequester, tokenStore, STORE_KEY, new AuthCircuitBreaker(1, 60_000));
+    when(tokenRequester.requestToken()).thenReturn(CompletableFuture.completedFuture(null));
+
+    assertThrows(CompletionException.class, () -> tested.getToken().join());
+    tokenStore.compareAndSet(STORE_KEY, 0, buildAuthResponse(FIRST_TOKEN));
+
+    assertEquals(FIRST_TOKEN, tested.getToken().join().getAccessToken());
+    verify(tokenRequester).requestToken();
+  }
+
+  private static CompletableFuture<SalesforceAuthResponse> buildResponse(final String accessToken) {
+    return CompletableFuture.completedFuture(buildAuthResponse(accessToken));
+  }
+
+  private static SalesforceAuthResponse buildAuthResponse(final String accessToken) {
+    SalesforceAuthResponse authResponse = new SalesforceAuthResponse();
+    authResponse.setAccessToken(accessToken);
+    authResponse.setTokenType("Bearer");
+    authResponse.setInstanceUrl("https://test.my.salesforce.com");
+    authResponse.setIssuedAt(ISSUED_AT);
+    return authResponse;
+  }
+}
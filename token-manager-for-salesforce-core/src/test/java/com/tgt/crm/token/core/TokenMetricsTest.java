@@ -0,0 +1,148 @@
+package com.tgt.crm.token.core;
+
+import static com.tgt.crm.token.core.SalesforceConstants.AUTH_CIRCUIT_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.GRANT_TYPE_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.OUTCOME_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_AGE_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_REUSED_COUNTER;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_TIMER;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_WAITERS_COUNTER;
+import static com.tgt.crm.token.core.SalesforceConstants.UNAUTHORIZED_RETRY_COUNTER;
+import static com.tgt.crm.token.core.SalesforceConstants.USERNAME_TAG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TokenMetricsTest {
+
+  private static final String ISSUED_AT = "1626730000000";
+  private static final String TOKEN = "token";
+  private static final String USERNAME = "username";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CompletableFuture<SalesforceAuthResponse> pending = new CompletableFuture<>();
+  private TokenManager tokenManager;
+  private TokenMetrics tested;
+
+  @BeforeEach
+  public void init() {
+    SalesforceConfig config = new SalesforceConfig();
+    config.setUsername(USERNAME);
+    config.setGrantType(GrantType.CLIENT_CREDENTIALS);
+    tokenManager =
+        new TokenManager(
+            () -> pending, new InMemoryTokenStore(), "", new AuthCircuitBreaker(1, 60_000));
+    Clock clock =
+        Clock.fixed(Instant.ofEpochMilli(Long.parseLong(ISSUED_AT) + 90_000), ZoneOffset.UTC);
+    tested = TokenMetrics.bind(meterRegistry, DEFAULT_ORG, config, tokenManager, clock);
+  }
+
+  @Test
+  public void bind_metersTaggedAndBoundToTokenManager() {
+    assertSame(tested, tokenManager.getMetrics());
+    assertEquals(
+        4,
+        meterRegistry
+            .get(TOKEN_REFRESH_TIMER)
+            .tag(ORG_TAG, DEFAULT_ORG)
+            .tag(GRANT_TYPE_TAG, "client_credentials")
+            .tag(USERNAME_TAG, USERNAME)
+            .timers()
+            .size());
+    assertTrue(Double.isNaN(meterRegistry.get(TOKEN_AGE_GAUGE).gauge().value()));
+    assertEquals(
+        0,
+        meterRegistry
+            .get(AUTH_CIRCUIT_GAUGE)
+            .tag(ORG_TAG, DEFAULT_ORG)
+            .tag(GRANT_TYPE_TAG, "client_credentials")
+            .tag(USERNAME_TAG, USERNAME)
+            .gauge()
+            .value());
+  }
+
+  @Test
+  public void refresh_waitersReusedAndLatencyRecorded() {
+    CompletableFuture<SalesforceToken> first = tokenManager.refreshToken(null);
+    tokenManager.refreshToken(null);
+    pending.complete(buildAuthResponse());
+    SalesforceToken token = first.join();
+    tokenManager.refreshToken(null);
+    tested.unauthorizedRetry();
+
+    assertEquals(1, refreshCount("success"));
+    assertEquals(0, refreshCount("failure"));
+    assertEquals(1, meterRegistry.get(TOKEN_REFRESH_WAITERS_COUNTER).counter().count());
+    assertEquals(1, meterRegistry.get(TOKEN_REFRESH_REUSED_COUNTER).counter().count());
+    assertEquals(1, meterRegistry.get(UNAUTHORIZED_RETRY_COUNTER).counter().count());
+    assertEquals(90, meterRegistry.get(TOKEN_AGE_GAUGE).gauge().value());
+    assertSame(token, tokenManager.getCachedToken());
+  }
+
+  @Test
+  public void refresh_failedAndCircuitOpen_outcomesRecorded() {
+    pending.completeExceptionally(new IllegalStateException("test exception"));
+
+    assertThrows(CompletionException.class, () -> tokenManager.getToken().join());
+    assertThrows(CompletionException.class, () -> tokenManager.getToken().join());
+    tested.refreshCompleted(
+        System.nanoTime(), new CompletionException(new AuthCircuitOpenException("open")));
+
+    assertEquals(0, refreshCount("success"));
+    assertEquals(1, refreshCount("failure"));
+    assertEquals(2, refreshCount("circuit_open"));
+    assertEquals(
+        AuthCircuitBreaker.State.OPEN.ordinal(),
+        meterRegistry.get(AUTH_CIRCUIT_GAUGE).gauge().value());
+  }
+
+  @Test
+  public void refresh_storedTokenUsed_storedOutcomeRecorded() {
+    InMemoryTokenStore tokenStore = new InMemoryTokenStore();
+    tokenStore.compareAndSet("", 0, buildAuthResponse());
+    SalesforceConfig config = new SalesforceConfig();
+    config.setGrantType(GrantType.PASSWORD);
+    TokenManager storeManager =
+        new TokenManager(() -> pending, tokenStore, "", new AuthCircuitBreaker(0, 0));
+    SimpleMeterRegistry storeRegistry = new SimpleMeterRegistry();
+    TokenMetrics.bind(storeRegistry, DEFAULT_ORG, config, storeManager);
+
+    assertEquals(TOKEN, storeManager.getToken().join().getAccessToken());
+    assertEquals(
+        1, storeRegistry.get(TOKEN_REFRESH_TIMER).tag(OUTCOME_TAG, "stored").timer().count());
+    assertEquals(
+        0, storeRegistry.get(TOKEN_REFRESH_TIMER).tag(OUTCOME_TAG, "success").timer().count());
+  }
+
+  @Test
+  public void none_recordsNothing() {
+    TokenMetrics.NONE.refreshCompleted(System.nanoTime(), null);
+    TokenMetrics.NONE.unauthorizedRetry();
+
+    assertSame(TokenMetrics.NONE, new TokenManager(() -> pending).getMetrics());
+  }
+
+  private long refreshCount(final String outcome) {
+    return meterRegistry.get(TOKEN_REFRESH_TIMER).tag(OUTCOME_TAG, outcome).timer().count();
+  }
+
+  private static SalesforceAuthResponse buildAuthResponse() {
+    SalesforceAuthResponse authResponse = new SalesforceAuthResponse();
+    authResponse.setAccessToken(TOKEN);
+    authResponse.setTokenType("Bearer");
+    authResponse.setIssuedAt(ISSUED_AT);
+    return authResponse;
+  }
+}
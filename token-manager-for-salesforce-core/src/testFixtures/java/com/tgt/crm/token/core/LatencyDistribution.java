@@ -0,0 +1,42 @@
+package com.tgt.crm.token.core;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.Random;
+
+/** How long the {@link SalesforceSimulator} takes to answer a request. */
+@FunctionalInterface
+@SuppressFBWarnings("DMI_RANDOM_USED_ONLY_ONCE") // the random source is the simulator's
+public interface LatencyDistribution {
+
+  /**
+   * Draws the latency of one response.
+   *
+   * @param random the simulator's random source
+   * @return the latency in milliseconds
+   */
+  long nextMillis(Random random);
+
+  static LatencyDistribution none() {
+    return random -> 0;
+  }
+
+  static LatencyDistribution fixed(final long millis) {
+    return random -> millis;
+  }
+
+  static LatencyDistribution uniform(final long minMillis, final long maxMillis) {
+    return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+  }
+
+  /**
+   * Long tailed latency as seen in production, most responses close to the median and a few much
+   * slower.
+   *
+   * @param medianMillis the median latency
+   * @param sigma the spread, around 0.5 gives a p99 of about three times the median
+   * @return the distribution
+   */
+  static LatencyDistribution logNormal(final long medianMillis, final double sigma) {
+    return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+  }
+}
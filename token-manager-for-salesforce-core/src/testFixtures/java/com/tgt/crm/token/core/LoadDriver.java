@@ -0,0 +1,113 @@
+package com.tgt.crm.token.core;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends requests at a fixed rate, whether or not earlier requests completed, and reports their
+ * latency percentiles. Latency is measured from the time a request was due to be sent, so a client
+ * that falls behind shows up in the percentiles instead of lowering the rate.
+ */
+@Slf4j
+public final class LoadDriver {
+
+  private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long COMPLETION_TIMEOUT = 30; // seconds
+  private static final String RPS_VARIABLE = "SALESFORCE_LOAD_RPS";
+  private static final String SECONDS_VARIABLE = "SALESFORCE_LOAD_SECONDS";
+
+  private LoadDriver() {}
+
+  /**
+   * Runs the load at the rate and for the time set by the SALESFORCE_LOAD_RPS and
+   * SALESFORCE_LOAD_SECONDS environment variables, 100 requests per second for 2 seconds by default
+   * so the load tests stay quick in the regular build.
+   *
+   * @param request starts one request, see {@link #run(int, Duration, Supplier)}
+   * @return the report
+   * @throws InterruptedException if interrupted while waiting for requests to complete
+   */
+  public static LoadReport run(final Supplier<CompletionStage<?>> request)
+      throws InterruptedException {
+    int rps = Integer.parseInt(System.getenv().getOrDefault(RPS_VARIABLE, "100"));
+    long seconds = Long.parseLong(System.getenv().getOrDefault(SECONDS_VARIABLE, "2"));
+    return run(rps, Duration.ofSeconds(seconds), request);
+  }
+
+  /**
+   * Runs the load.
+   *
+   * @param rps the target requests per second
+   * @param duration how long to send requests for
+   * @param request starts one request, must not block, e.g. a Mono turned into a future or a
+   *     blocking call submitted to an executor
+   * @return the report, requests that did not complete within 30 seconds of the end count as failed
+   * @throws InterruptedException if interrupted while waiting for requests to complete
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  public static LoadReport run(
+      final int rps, final Duration duration, final Supplier<CompletionStage<?>> request)
+      throws InterruptedException {
+    int total = (int) (rps * duration.toMillis() / 1000);
+    long interval = TimeUnit.SECONDS.toNanos(1) / rps;
+    long[] latencies = new long[total];
+    AtomicInteger failures = new AtomicInteger();
+    CountDownLatch completed = new CountDownLatch(total);
+    long start = System.nanoTime();
+    for (int i = 0; i < total; i++) {
+      long due = start + i * interval;
+      long wait = due - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      int index = i;
+      try {
+        request
+            .get()
+            .whenComplete(
+                (response, error) -> {
+                  latencies[index] = System.nanoTime() - due;
+                  if (error != null) {
+                    log.debug("request failed", error);
+                    failures.incrementAndGet();
+                  }
+                  completed.countDown();
+                });
+      } catch (RuntimeException e) {
+        log.debug("request could not be sent", e);
+        latencies[index] = System.nanoTime() - due;
+        failures.incrementAndGet();
+        completed.countDown();
+      }
+    }
+    if (!completed.await(COMPLETION_TIMEOUT, TimeUnit.SECONDS)) {
+      failures.addAndGet((int) completed.getCount());
+    }
+    double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+    long[] sorted = Arrays.copyOf(latencies, total);
+    Arrays.sort(sorted);
+    return new LoadReport(
+        total,
+        failures.get(),
+        total / seconds,
+        percentile(sorted, 0.5),
+        percentile(sorted, 0.9),
+        percentile(sorted, 0.99),
+        percentile(sorted, 1));
+  }
+
+  private static double percentile(final long[] sorted, final double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, index)] / (double) NANOS_PER_MILLI;
+  }
+}
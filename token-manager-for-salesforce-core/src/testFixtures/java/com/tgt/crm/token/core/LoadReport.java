@@ -0,0 +1,24 @@
+package com.tgt.crm.token.core;
+
+import lombok.Value;
+
+/** Outcome of a {@link LoadDriver} run, latencies in milliseconds. */
+@Value
+public class LoadReport {
+
+  private final int requests;
+  private final int failures;
+  private final double achievedRps;
+  private final double p50;
+  private final double p90;
+  private final double p99;
+  private final double max;
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d requests, %d failed, %.1f rps, latency p50 %.1f ms, p90 %.1f ms, p99 %.1f ms,"
+            + " max %.1f ms",
+        requests, failures, achievedRps, p50, p90, p99, max);
+  }
+}
@@ -37,6 +37,11 @@ public final class MockResponseUtil {
     return buildSuccessResponse(sfAuthSuccess);
   }
 
+  public static MockResponse getSfAuthSuccessResponse(final String instanceUrl) {
+    return buildSuccessResponse(
+        sfAuthSuccess.replace("\"instanceUrl\"", "\"" + instanceUrl + "\""));
+  }
+
   public static MockResponse getSfAuthRefreshedSuccessResponse() {
     return buildSuccessResponse(sfAuthRefreshed);
   }
@@ -0,0 +1,216 @@
+package com.tgt.crm.token.core;
+
+import static com.tgt.crm.token.core.SalesforceConstants.LIMIT_INFO_HEADER;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+/**
+ * A {@link okhttp3.mockwebserver.MockWebServer} dispatcher that behaves like a Salesforce org
+ * rather than serving canned responses. It issues a new token for every token request and rejects
+ * tokens once they expire, injects 401, 500 and 503 responses, reports the api usage in the
+ * Sforce-Limit-Info header and pages query results.
+ *
+ * <p>Tokens expiring while many requests are in flight reproduce the token refresh storms seen in
+ * production, the counters show how many token requests they caused.
+ */
+public class SalesforceSimulator extends Dispatcher {
+
+  public static final String AUTH_PATH = "/services/oauth2/token";
+  public static final String QUERY_PATH = "/services/data/v52.0/query";
+
+  private static final Pattern NEXT_PAGE = Pattern.compile("^" + QUERY_PATH + "/(\\d+)$");
+  private static final String BEARER = "Bearer ";
+  private static final String INVALID_SESSION =
+      "[{\"message\":\"Session expired or invalid\",\"errorCode\":\"INVALID_SESSION_ID\"}]";
+
+  private final SimulatorConfig config;
+  private final Random random;
+  private final Map<String, IssuedToken> tokens = new ConcurrentHashMap<>();
+  private final Set<String> rejectedTokens = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger authCalls = new AtomicInteger();
+  private final AtomicInteger dataCalls = new AtomicInteger();
+  private final AtomicInteger unauthorizedResponses = new AtomicInteger();
+  private final AtomicInteger errorResponses = new AtomicInteger();
+  private final AtomicInteger apiUsage;
+
+  public SalesforceSimulator(final SimulatorConfig config) {
+    super();
+    this.config = config;
+    this.random = new Random(config.getSeed());
+    this.apiUsage = new AtomicInteger(config.getApiUsage());
+  }
+
+  @Override
+  public MockResponse dispatch(final RecordedRequest request) {
+    MockResponse response =
+        AUTH_PATH.equals(request.getPath()) ? issueToken(request) : data(request);
+    return response.setHeadersDelay(config.getLatency().nextMillis(random), TimeUnit.MILLISECONDS);
+  }
+
+  /** Token requests made so far. */
+  public int getAuthCalls() {
+    return authCalls.get();
+  }
+
+  /** Data requests made so far, including rejected ones. */
+  public int getDataCalls() {
+    return dataCalls.get();
+  }
+
+  /** Data requests rejected with a 401, expired and injected. */
+  public int getUnauthorizedResponses() {
+    return unauthorizedResponses.get();
+  }
+
+  /** Distinct tokens rejected with a 401, each should cause at most one token request. */
+  public int getRejectedTokens() {
+    return rejectedTokens.size();
+  }
+
+  /** Data requests answered with an injected 500 or 503. */
+  public int getErrorResponses() {
+    return errorResponses.get();
+  }
+
+  private MockResponse issueToken(final RecordedRequest request) {
+    int tokenNumber = authCalls.incrementAndGet();
+    String accessToken = "00DSIMULATED!" + tokenNumber;
+    long issuedAt = System.currentTimeMillis();
+    tokens.put(accessToken, new IssuedToken(issuedAt));
+    HttpUrl url = request.getRequestUrl();
+    String instanceUrl = url == null ? "" : url.scheme() + "://" + url.host() + ":" + url.port();
+    return json(
+        200,
+        "{\"access_token\":\""
+            + accessToken
+            + "\",\"instance_url\":\""
+            + instanceUrl
+            + "\",\"id\":\""
+            + instanceUrl
+            + "/id/00DSIMULATED/005SIMULATED\",\"token_type\":\"Bearer\",\"issued_at\":\""
+            + issuedAt
+            + "\",\"signature\":\"simulated\"}");
+  }
+
+  @SuppressFBWarnings("DMI_RANDOM_USED_ONLY_ONCE") // the random source is shared by all requests
+  private MockResponse data(final RecordedRequest request) {
+    dataCalls.incrementAndGet();
+    double failure = random.nextDouble();
+    if (failure < config.getUnavailableRate()) {
+      errorResponses.incrementAndGet();
+      return json(
+              503, "[{\"message\":\"Service Unavailable\",\"errorCode\":\"SERVER_UNAVAILABLE\"}]")
+          .setHeader(HttpHeaders.RETRY_AFTER, config.getRetryAfter());
+    }
+    if (failure < config.getUnavailableRate() + config.getServerErrorRate()) {
+      errorResponses.incrementAndGet();
+      return json(
+          500, "[{\"message\":\"Internal Server Error\",\"errorCode\":\"UNKNOWN_EXCEPTION\"}]");
+    }
+    String accessToken = accessToken(request);
+    boolean revoked = random.nextDouble() < config.getUnauthorizedRate();
+    if (!authorized(accessToken, revoked)) {
+      unauthorizedResponses.incrementAndGet();
+      if (accessToken != null) {
+        rejectedTokens.add(accessToken);
+      }
+      return json(401, INVALID_SESSION);
+    }
+    int used = apiUsage.incrementAndGet();
+    return json(200, body(request.getPath()))
+        .setHeader(LIMIT_INFO_HEADER, "api-usage=" + used + "/" + config.getApiLimit());
+  }
+
+  private boolean authorized(final String accessToken, final boolean revoked) {
+    IssuedToken token = accessToken == null ? null : tokens.get(accessToken);
+    if (token == null) {
+      return false;
+    }
+    boolean expired =
+        revoked
+            || config.getTokenTtl() > 0
+                && System.currentTimeMillis() - token.issuedAt >= config.getTokenTtl()
+            || config.getTokenMaxCalls() > 0
+                && token.calls.incrementAndGet() > config.getTokenMaxCalls();
+    if (expired) {
+      // the session is over, like a token that timed out or was revoked by an admin
+      tokens.remove(accessToken);
+    }
+    return !expired;
+  }
+
+  private String body(final String path) {
+    if (path == null) {
+      return "{}";
+    }
+    if (path.startsWith(QUERY_PATH + "?")) {
+      return queryPage(0);
+    }
+    Matcher nextPage = NEXT_PAGE.matcher(path);
+    return nextPage.matches() ? queryPage(Integer.parseInt(nextPage.group(1))) : "{}";
+  }
+
+  /** A page of Account records starting at the given offset, with the url of the next page. */
+  private String queryPage(final int offset) {
+    int end = Math.min(offset + config.getQueryPageSize(), config.getQueryRecords());
+    String records =
+        IntStream.range(offset, end)
+            .mapToObj(record -> String.format("001SIM%012d", record))
+            .map(
+                id ->
+                    "{\"attributes\":{\"type\":\"Account\",\"url\":\"/services/data/v52.0/sobjects/Account/"
+                        + id
+                        + "\"},\"Id\":\""
+                        + id
+                        + "\"}")
+            .collect(Collectors.joining(","));
+    boolean done = end >= config.getQueryRecords();
+    return "{\"totalSize\":"
+        + config.getQueryRecords()
+        + ",\"done\":"
+        + done
+        + (done ? "" : ",\"nextRecordsUrl\":\"" + QUERY_PATH + "/" + end + "\"")
+        + ",\"records\":["
+        + records
+        + "]}";
+  }
+
+  private static String accessToken(final RecordedRequest request) {
+    String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+    return authorization != null && authorization.startsWith(BEARER)
+        ? authorization.substring(BEARER.length())
+        : null;
+  }
+
+  private static MockResponse json(final int status, final String body) {
+    return new MockResponse()
+        .setResponseCode(status)
+        .setBody(body)
+        .addHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+  }
+
+  private static final class IssuedToken {
+    private final long issuedAt;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private IssuedToken(final long issuedAt) {
+      this.issuedAt = issuedAt;
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.tgt.crm.token.core;
+
+import lombok.Data;
+
+/** Behaviour of a {@link SalesforceSimulator}, the defaults answer every request successfully. */
+@Data
+public class SimulatorConfig {
+
+  // latency of every response, token requests included
+  private LatencyDistribution latency = LatencyDistribution.none();
+  // a token is rejected this long after it was issued, 0 never expires
+  private long tokenTtl; // milliseconds
+  // a token is rejected after this many data requests, 0 never expires
+  private int tokenMaxCalls;
+  // share of data requests answered with a 401 that also ends the token's session
+  private double unauthorizedRate;
+  // share of data requests answered with a 500
+  private double serverErrorRate;
+  // share of data requests answered with a 503 and a Retry-After header
+  private double unavailableRate;
+  private int retryAfter = 1; // seconds
+  // daily api requests reported in the Sforce-Limit-Info header, counted from apiUsage
+  private int apiLimit = 15_000;
+  private int apiUsage;
+  // records returned by a query and how many are returned per page
+  private int queryRecords;
+  private int queryPageSize = 2000;
+  // seeds the random source, so a run can be repeated
+  private long seed = 42;
+}
@@ -0,0 +1,273 @@
+package com.tgt.crm.token.jdkhttp;
+
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+
+import com.tgt.crm.token.core.HttpClientConfig;
+import com.tgt.crm.token.core.InMemoryTokenStore;
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceOrgRegistry;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenMetrics;
+import com.tgt.crm.token.core.TokenStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends requests to Salesforce with {@link HttpClient}, for applications that don't run Spring. The
+ * token is generated on the first request and attached to every request. A request rejected with a
+ * 401 is sent once more with a refreshed token.
+ *
+ * <pre>{@code
+ * SalesforceHttpClient client = SalesforceHttpClient.builder(salesforceConfig).build();
+ * HttpResponse<String> response =
+ *     client.send(
+ *         client.newRequest("/services/data/v52.0/query?q=SELECT+Id+FROM+Account").build(),
+ *         HttpResponse.BodyHandlers.ofString());
+ * }</pre>
+ *
+ * <p>Request bodies are sent again on the retry, so they must be published from a source that can
+ * be read more than once, which all {@link HttpRequest.BodyPublishers} except input streams are.
+ */
+@Slf4j
+public class SalesforceHttpClient {
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  static final String CONTENT_TYPE = "Content-Type";
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  static final String JSON_CONTENT_TYPE = "application/json";
+
+  private static final String AUTHORIZATION = "Authorization";
+  private static final int UNAUTHORIZED_STATUS = 401;
+
+  private final HttpClient httpClient;
+  private final SalesforceJdkHttpAuthClient authClient;
+  private final URI host;
+  private final boolean useInstanceUrl;
+  private final Duration readTimeout;
+
+  public SalesforceHttpClient(
+      final HttpClient httpClient,
+      final SalesforceJdkHttpAuthClient authClient,
+      final SalesforceConfig salesforceConfig,
+      final HttpClientConfig httpClientConfig) {
+    this.httpClient = httpClient;
+    this.authClient = authClient;
+    this.host = URI.create(salesforceConfig.getHost());
+    this.useInstanceUrl = salesforceConfig.isUseInstanceUrl();
+    this.readTimeout = Duration.ofMillis(httpClientConfig.getReadTimeout());
+  }
+
+  /**
+   * Starts building a client for an org.
+   *
+   * @param salesforceConfig the org's host and credentials
+   * @return the builder
+   */
+  public static Builder builder(final SalesforceConfig salesforceConfig) {
+    return new Builder(salesforceConfig);
+  }
+
+  /**
+   * Starts a request to a path of the configured host.
+   *
+   * @param path the path and query, e.g. /services/data/v52.0/sobjects/Account/{id}
+   * @return the request builder
+   */
+  public HttpRequest.Builder newRequest(final String path) {
+    return HttpRequest.newBuilder(host.resolve(path));
+  }
+
+  /**
+   * Sends a request, blocking until the response is received.
+   *
+   * @param request the request, without an Authorization header
+   * @param bodyHandler handles the body of the response
+   * @param <T> the response body type
+   * @return the response, a 401 if Salesforce rejected the refreshed token as well
+   * @throws IOException if the request failed or a token could not be generated
+   * @throws InterruptedException if interrupted while waiting for the token or the response
+   */
+  public <T> HttpResponse<T> send(
+      final HttpRequest request, final HttpResponse.BodyHandler<T> bodyHandler)
+      throws IOException, InterruptedException {
+    SalesforceToken token = await(authClient.getSalesforceToken());
+    HttpResponse<T> response =
+        httpClient.send(authorize(request, token), unlessUnauthorized(bodyHandler));
+    if (response.statusCode() != UNAUTHORIZED_STATUS) {
+      return response;
+    }
+    unauthorized();
+    SalesforceToken refreshed = await(authClient.refreshToken(token));
+    return httpClient.send(authorize(request, refreshed), bodyHandler);
+  }
+
+  /**
+   * Sends a request without blocking.
+   *
+   * @param request the request, without an Authorization header
+   * @param bodyHandler handles the body of the response
+   * @param <T> the response body type
+   * @return future completed with the response, a 401 if Salesforce rejected the refreshed token as
+   *     well, or exceptionally if the request failed or a token could not be generated
+   */
+  public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+      final HttpRequest request, final HttpResponse.BodyHandler<T> bodyHandler) {
+    return authClient
+        .getSalesforceToken()
+        .thenCompose(
+            token ->
+                httpClient
+                    .sendAsync(authorize(request, token), unlessUnauthorized(bodyHandler))
+                    .thenCompose(
+                        response -> {
+                          if (response.statusCode() != UNAUTHORIZED_STATUS) {
+                            return CompletableFuture.completedFuture(response);
+                          }
+                          unauthorized();
+                          return authClient
+                              .refreshToken(token)
+                              .thenCompose(
+                                  refreshed ->
+                                      httpClient.sendAsync(
+                                          authorize(request, refreshed), bodyHandler));
+                        }));
+  }
+
+  public SalesforceJdkHttpAuthClient getAuthClient() {
+    return authClient;
+  }
+
+  private void unauthorized() {
+    log.info("received 401 response, refreshing token");
+    authClient.getTokenManager().getMetrics().unauthorizedRetry();
+  }
+
+  /**
+   * Copies the request with the token's Authorization header, sent to the token's instance if
+   * salesforce.use-instance-url is set.
+   */
+  private HttpRequest authorize(final HttpRequest request, final SalesforceToken token) {
+    HttpRequest.Builder builder =
+        HttpRequest.newBuilder(route(request.uri(), token))
+            .method(
+                request.method(),
+                request.bodyPublisher().orElseGet(HttpRequest.BodyPublishers::noBody))
+            .expectContinue(request.expectContinue())
+            .timeout(request.timeout().orElse(readTimeout));
+    request.version().ifPresent(builder::version);
+    request
+        .headers()
+        .map()
+        .forEach(
+            (name, values) -> {
+              if (!AUTHORIZATION.equalsIgnoreCase(name)) {
+                values.forEach(value -> builder.header(name, value));
+              }
+            });
+    if (request.headers().firstValue(CONTENT_TYPE).isEmpty()) {
+      builder.header(CONTENT_TYPE, JSON_CONTENT_TYPE);
+    }
+    return builder.header(AUTHORIZATION, token.getAuthorization()).build();
+  }
+
+  private URI route(final URI uri, final SalesforceToken token) {
+    return useInstanceUrl ? SalesforceOrgRegistry.routeToInstance(uri, host, token) : uri;
+  }
+
+  /** The body of a 401 is discarded, the request is sent again with a refreshed token. */
+  private static <T> HttpResponse.BodyHandler<T> unlessUnauthorized(
+      final HttpResponse.BodyHandler<T> bodyHandler) {
+    return responseInfo ->
+        responseInfo.statusCode() == UNAUTHORIZED_STATUS
+            ? HttpResponse.BodySubscribers.replacing(null)
+            : bodyHandler.apply(responseInfo);
+  }
+
+  private static SalesforceToken await(final CompletableFuture<SalesforceToken> token)
+      throws IOException, InterruptedException {
+    try {
+      return token.get();
+    } catch (ExecutionException e) {
+      // already logged and counted once by the thread that performed the refresh
+      throw new IOException("Salesforce token could not be generated", e);
+    }
+  }
+
+  /**
+   * Creates the {@link HttpClient}, token manager and metrics of a {@link SalesforceHttpClient}.
+   */
+  @SuppressWarnings("PMD.AvoidFieldNameMatchingMethodName")
+  public static final class Builder {
+
+    private final SalesforceConfig salesforceConfig;
+    private HttpClientConfig httpClientConfig = new HttpClientConfig();
+    private TokenGrant tokenGrant;
+    private TokenStore tokenStore = new InMemoryTokenStore();
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+    private HttpClient httpClient;
+
+    private Builder(final SalesforceConfig salesforceConfig) {
+      this.salesforceConfig = salesforceConfig;
+    }
+
+    /** Timeouts, the connection timeout is ignored if an {@link HttpClient} is set. */
+    public Builder httpClientConfig(final HttpClientConfig httpClientConfig) {
+      this.httpClientConfig = httpClientConfig;
+      return this;
+    }
+
+    /** Defaults to the grant configured by salesforce.grant-type. */
+    public Builder tokenGrant(final TokenGrant tokenGrant) {
+      this.tokenGrant = tokenGrant;
+      return this;
+    }
+
+    /** Defaults to an {@link InMemoryTokenStore}. */
+    public Builder tokenStore(final TokenStore tokenStore) {
+      this.tokenStore = tokenStore;
+      return this;
+    }
+
+    /** Defaults to the Micrometer global registry. */
+    public Builder meterRegistry(final MeterRegistry meterRegistry) {
+      this.meterRegistry = meterRegistry;
+      return this;
+    }
+
+    /** Defaults to a client negotiating HTTP/2 with the connection timeout of the config. */
+    public Builder httpClient(final HttpClient httpClient) {
+      this.httpClient = httpClient;
+      return this;
+    }
+
+    public SalesforceHttpClient build() {
+      HttpClient client =
+          httpClient == null
+              ? HttpClient.newBuilder()
+                  .connectTimeout(Duration.ofMillis(httpClientConfig.getConnectionTimeout()))
+                  .build()
+              : httpClient;
+      SalesforceJdkHttpAuthClient authClient =
+          new SalesforceJdkHttpAuthClient(
+              client,
+              salesforceConfig,
+              tokenGrant == null ? TokenGrant.fromConfig(salesforceConfig) : tokenGrant,
+              tokenStore,
+              meterRegistry,
+              Duration.ofMillis(httpClientConfig.getReadTimeout()));
+      TokenMetrics.bind(meterRegistry, DEFAULT_ORG, salesforceConfig, authClient.getTokenManager());
+      return new SalesforceHttpClient(client, authClient, salesforceConfig, httpClientConfig);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package com.tgt.crm.token.jdkhttp;
+
+import static com.tgt.crm.token.core.SalesforceConstants.EXCEPTION_COUNTER;
+import static com.tgt.crm.token.core.SalesforceConstants.EXCEPTION_TYPE_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_EXCEPTION;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tgt.crm.token.core.AuthCircuitBreaker;
+import com.tgt.crm.token.core.SalesforceAuthResponse;
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenManager;
+import com.tgt.crm.token.core.TokenStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Requests tokens from the Salesforce OAuth endpoint with {@link HttpClient} and keeps them in a
+ * {@link TokenManager}, the same way the WebFlux and MVC auth clients do.
+ */
+@Slf4j
+public class SalesforceJdkHttpAuthClient {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final int SUCCESS_STATUS_CLASS = 2;
+
+  private final HttpClient httpClient;
+  private final SalesforceConfig salesforceConfig;
+  private final TokenGrant tokenGrant;
+  private final MeterRegistry meterRegistry;
+  private final TokenManager tokenManager;
+  private final URI authUri;
+  private final Duration timeout;
+
+  public SalesforceJdkHttpAuthClient(
+      final HttpClient httpClient,
+      final SalesforceConfig salesforceConfig,
+      final TokenGrant tokenGrant,
+      final TokenStore tokenStore,
+      final MeterRegistry meterRegistry,
+      final Duration timeout) {
+    this.httpClient = httpClient;
+    this.salesforceConfig = salesforceConfig;
+    this.tokenGrant = tokenGrant;
+    this.meterRegistry = meterRegistry;
+    this.authUri = URI.create(salesforceConfig.getHost()).resolve(salesforceConfig.getAuthUri());
+    this.timeout = timeout;
+    this.tokenManager =
+        new TokenManager(
+            this::requestToken,
+            tokenStore,
+            TokenStore.keyFor(salesforceConfig),
+            AuthCircuitBreaker.fromConfig(salesforceConfig));
+  }
+
+  /**
+   * Returns the cached token, generating the first token if there is none.
+   *
+   * @return future completed with the current token
+   */
+  public CompletableFuture<SalesforceToken> getSalesforceToken() {
+    return tokenManager.getToken();
+  }
+
+  /**
+   * Replaces a token that Salesforce rejected with a 401. Concurrent callers share a single
+   * in-flight refresh, and if the token was already replaced since the request was made the newer
+   * token is returned without calling Salesforce again.
+   *
+   * @param rejectedToken the token used for the request that failed, null if there was none
+   * @return future completed with a token newer than the rejected one
+   */
+  public CompletableFuture<SalesforceToken> refreshToken(final SalesforceToken rejectedToken) {
+    return tokenManager.refreshToken(rejectedToken);
+  }
+
+  public TokenManager getTokenManager() {
+    return tokenManager;
+  }
+
+  private CompletableFuture<SalesforceAuthResponse> requestToken() {
+    return attempt(0)
+        .whenComplete(
+            (authResponse, error) -> {
+              if (error == null) {
+                log.info("token refresh successful");
+              } else {
+                log.error("token refresh failed", error);
+                meterRegistry
+                    .counter(EXCEPTION_COUNTER, EXCEPTION_TYPE_TAG, TOKEN_REFRESH_EXCEPTION)
+                    .increment();
+              }
+            });
+  }
+
+  /** Retries with the backoff delay growing by the configured multiplier after each failure. */
+  private CompletableFuture<SalesforceAuthResponse> attempt(final int retry) {
+    return callAuthUri()
+        .handle(
+            (authResponse, error) -> {
+              if (error == null) {
+                return CompletableFuture.completedFuture(authResponse);
+              }
+              Throwable failure = error instanceof CompletionException ? error.getCause() : error;
+              if (retry >= salesforceConfig.getMaxAuthTokenRetries()) {
+                log.error("retries exhausted");
+                return CompletableFuture.<SalesforceAuthResponse>failedFuture(failure);
+              }
+              log.error("Retry failed. ", failure);
+              long delay =
+                  (long)
+                      (salesforceConfig.getRetryBackoffDelay()
+                          * Math.pow(salesforceConfig.getRetryBackoffMultiplier(), retry));
+              return CompletableFuture.supplyAsync(
+                      () -> attempt(retry + 1),
+                      CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                  .thenCompose(Function.identity());
+            })
+        .thenCompose(Function.identity());
+  }
+
+  private CompletableFuture<SalesforceAuthResponse> callAuthUri() {
+    log.debug("generateToken is called");
+    // composed so a grant failing to build the body, e.g. to sign a jwt, fails the attempt
+    return CompletableFuture.completedFuture(authUri)
+        .thenCompose(
+            uri ->
+                httpClient.sendAsync(
+                    HttpRequest.newBuilder(uri)
+                        .timeout(timeout)
+                        .header(
+                            SalesforceHttpClient.CONTENT_TYPE, "application/x-www-form-urlencoded")
+                        .header("Accept", SalesforceHttpClient.JSON_CONTENT_TYPE)
+                        .POST(HttpRequest.BodyPublishers.ofString(tokenGrant.requestBody()))
+                        .build(),
+                    HttpResponse.BodyHandlers.ofByteArray()))
+        .thenApply(SalesforceJdkHttpAuthClient::parse);
+  }
+
+  private static SalesforceAuthResponse parse(final HttpResponse<byte[]> response) {
+    if (response.statusCode() / 100 != SUCCESS_STATUS_CLASS) {
+      throw new UncheckedIOException(
+          new IOException("token request failed with status " + response.statusCode()));
+    }
+    try {
+      return MAPPER.readValue(response.body(), SalesforceAuthResponse.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
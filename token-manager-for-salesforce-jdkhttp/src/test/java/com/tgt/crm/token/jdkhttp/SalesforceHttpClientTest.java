@@ -0,0 +1,253 @@
+package com.tgt.crm.token.jdkhttp;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthErrorResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthRefreshedSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryUnauthorizedResponse;
+import static com.tgt.crm.token.core.SalesforceConstants.AUTH_CIRCUIT_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.EXCEPTION_COUNTER;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_TIMER;
+import static com.tgt.crm.token.core.SalesforceConstants.UNAUTHORIZED_RETRY_COUNTER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tgt.crm.token.core.HttpClientConfig;
+import com.tgt.crm.token.core.InMemoryTokenStore;
+import com.tgt.crm.token.core.SalesforceConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SalesforceHttpClientTest {
+
+  private static final int TIMEOUT = 5; // seconds
+  private static final String SF_URL = "/some/sf/url";
+  private static final String QUERY_SUCCESSFUL = "query successful";
+  private static final String AUTH_PATH = "/services/oauth2/token";
+  private static final String AUTHORIZATION = "Authorization";
+  private static final String CONTENT_TYPE = "Content-Type";
+  private static final String BEARER_TOKEN = "Bearer bearerToken";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private MockWebServer mockWebServer;
+  private SalesforceConfig salesforceConfig;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+    salesforceConfig = new SalesforceConfig();
+    salesforceConfig.setHost("http://localhost:" + mockWebServer.getPort());
+    salesforceConfig.setUsername("username");
+    salesforceConfig.setPassword("password!@#$%^&*()");
+    salesforceConfig.setClientId("clientId");
+    salesforceConfig.setClientSecret("clientSecret");
+    salesforceConfig.setRetryBackoffDelay(10);
+    salesforceConfig.setMaxAuthTokenRetries(1);
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void send_noTokenInCache_authThenRequest() throws IOException, InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+    SalesforceHttpClient tested = build();
+
+    HttpResponse<String> response =
+        tested.send(tested.newRequest(SF_URL).build(), HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(200, response.statusCode());
+    assertEquals(QUERY_SUCCESSFUL, response.body());
+    validateAuthRequest();
+    RecordedRequest queryReq = validateSfRequest(BEARER_TOKEN);
+    assertEquals("GET", queryReq.getMethod());
+    assertEquals("application/json", queryReq.getHeader(CONTENT_TYPE));
+    assertEquals(
+        1, meterRegistry.get(TOKEN_REFRESH_TIMER).tag("outcome", "success").timer().count());
+    assertEquals(0, meterRegistry.get(AUTH_CIRCUIT_GAUGE).gauge().value());
+  }
+
+  @Test
+  public void send_unauthorized_refreshedAndRetried() throws IOException, InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryUnauthorizedResponse());
+    mockWebServer.enqueue(getSfAuthRefreshedSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+    SalesforceHttpClient tested = build();
+
+    HttpResponse<String> response =
+        tested.send(tested.newRequest(SF_URL).build(), HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(QUERY_SUCCESSFUL, response.body());
+    validateAuthRequest();
+    validateSfRequest(BEARER_TOKEN);
+    validateAuthRequest();
+    validateSfRequest("Bearer new bearerToken");
+    assertEquals(1, meterRegistry.get(UNAUTHORIZED_RETRY_COUNTER).counter().count());
+  }
+
+  @Test
+  public void sendAsync_unauthorized_refreshedAndRetried() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+    mockWebServer.enqueue(getSfQueryUnauthorizedResponse());
+    mockWebServer.enqueue(getSfAuthRefreshedSuccessResponse());
+    mockWebServer.enqueue(getSfQueryUnauthorizedResponse());
+    SalesforceHttpClient tested = build();
+    HttpRequest request = tested.newRequest(SF_URL).build();
+
+    assertEquals(
+        QUERY_SUCCESSFUL,
+        tested.sendAsync(request, HttpResponse.BodyHandlers.ofString()).join().body());
+    HttpResponse<String> rejected =
+        tested.sendAsync(request, HttpResponse.BodyHandlers.ofString()).join();
+
+    // the refreshed token was rejected as well, the response is returned with its body
+    assertEquals(401, rejected.statusCode());
+    assertTrue(rejected.body().contains("INVALID_SESSION_ID"));
+    validateAuthRequest();
+    validateSfRequest(BEARER_TOKEN);
+    validateSfRequest(BEARER_TOKEN);
+    validateAuthRequest();
+    validateSfRequest("Bearer new bearerToken");
+  }
+
+  @Test
+  public void sendAsync_tokenRequestFailed_retriedThenFailed() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthErrorResponse());
+    mockWebServer.enqueue(new MockResponse().setBody("not json"));
+    SalesforceHttpClient tested = build();
+
+    CompletionException exception =
+        assertThrows(
+            CompletionException.class,
+            () ->
+                tested
+                    .sendAsync(
+                        tested.newRequest(SF_URL).build(), HttpResponse.BodyHandlers.ofString())
+                    .join());
+
+    assertTrue(exception.getCause() instanceof UncheckedIOException);
+    validateAuthRequest();
+    validateAuthRequest();
+    assertEquals(2, mockWebServer.getRequestCount());
+    assertEquals(1, meterRegistry.get(EXCEPTION_COUNTER).counter().count());
+    assertEquals(
+        1, meterRegistry.get(TOKEN_REFRESH_TIMER).tag("outcome", "failure").timer().count());
+  }
+
+  @Test
+  public void send_tokenRequestFailed_throwsIoException() {
+    salesforceConfig.setMaxAuthTokenRetries(0);
+    mockWebServer.enqueue(getSfAuthErrorResponse());
+    SalesforceHttpClient tested = build();
+
+    IOException exception =
+        assertThrows(
+            IOException.class,
+            () ->
+                tested.send(
+                    tested.newRequest(SF_URL).build(), HttpResponse.BodyHandlers.ofString()));
+
+    assertTrue(exception.getCause().getMessage().contains("status 400"));
+    assertEquals(1, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void send_useInstanceUrl_sentToInstance() throws IOException, InterruptedException {
+    try (MockWebServer instanceWebServer = new MockWebServer()) {
+      instanceWebServer.start();
+      salesforceConfig.setUseInstanceUrl(true);
+      mockWebServer.enqueue(
+          getSfAuthSuccessResponse("http://localhost:" + instanceWebServer.getPort()));
+      instanceWebServer.enqueue(getSfQueryResponse());
+      instanceWebServer.enqueue(getSfQueryResponse());
+      HttpClientConfig httpClientConfig = new HttpClientConfig();
+      httpClientConfig.setReadTimeout(1_000);
+      SalesforceHttpClient tested =
+          SalesforceHttpClient.builder(salesforceConfig)
+              .httpClientConfig(httpClientConfig)
+              .httpClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build())
+              .tokenGrant(() -> "grant_type=custom")
+              .tokenStore(new InMemoryTokenStore())
+              .meterRegistry(meterRegistry)
+              .build();
+
+      HttpResponse<String> response =
+          tested.send(
+              tested
+                  .newRequest(SF_URL + "?q=a%20b")
+                  .header(AUTHORIZATION, "Bearer ignored")
+                  .header(CONTENT_TYPE, "text/plain")
+                  .timeout(Duration.ofSeconds(TIMEOUT))
+                  .version(HttpClient.Version.HTTP_1_1)
+                  .POST(HttpRequest.BodyPublishers.ofString("body"))
+                  .build(),
+              HttpResponse.BodyHandlers.ofString());
+      // requests to other hosts are left alone
+      tested.send(
+          HttpRequest.newBuilder(instanceWebServer.url(SF_URL).uri()).build(),
+          HttpResponse.BodyHandlers.discarding());
+
+      assertEquals(QUERY_SUCCESSFUL, response.body());
+      RecordedRequest authReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+      assertNotNull(authReq);
+      assertEquals("grant_type=custom", authReq.getBody().readUtf8());
+      RecordedRequest queryReq = instanceWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+      assertNotNull(queryReq);
+      assertEquals("POST", queryReq.getMethod());
+      assertEquals(SF_URL + "?q=a%20b", queryReq.getPath());
+      assertEquals("body", queryReq.getBody().readUtf8());
+      assertEquals("text/plain", queryReq.getHeader(CONTENT_TYPE));
+      assertEquals(1, queryReq.getHeaders().values(AUTHORIZATION).size());
+      assertEquals(BEARER_TOKEN, queryReq.getHeader(AUTHORIZATION));
+      assertEquals(2, instanceWebServer.getRequestCount());
+      assertEquals(1, mockWebServer.getRequestCount());
+      assertEquals(
+          instanceWebServer.getPort(),
+          tested.getAuthClient().getTokenManager().getCachedToken().getInstanceUri().getPort());
+    }
+  }
+
+  private SalesforceHttpClient build() {
+    return SalesforceHttpClient.builder(salesforceConfig).meterRegistry(meterRegistry).build();
+  }
+
+  private void validateAuthRequest() throws InterruptedException {
+    RecordedRequest authReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(authReq);
+    assertEquals("POST", authReq.getMethod());
+    assertEquals(AUTH_PATH, authReq.getPath());
+    assertEquals("application/x-www-form-urlencoded", authReq.getHeader(CONTENT_TYPE));
+    assertEquals(
+        "grant_type=password&username=username&password=password%21%40%23%24%25%5E%26*%28%29&client_id=clientId&client_secret=clientSecret",
+        authReq.getBody().readUtf8());
+  }
+
+  private RecordedRequest validateSfRequest(final String authHeader) throws InterruptedException {
+    RecordedRequest queryReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(queryReq);
+    assertEquals(SF_URL, queryReq.getPath());
+    assertEquals(authHeader, queryReq.getHeader(AUTHORIZATION));
+    return queryReq;
+  }
+}
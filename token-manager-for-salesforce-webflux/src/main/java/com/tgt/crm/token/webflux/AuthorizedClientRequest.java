@@ -0,0 +1,84 @@
+package com.tgt.crm.token.webflux;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Mono;
+
+/**
+ * A request sent with a token and possibly to another URL. Unlike {@link ClientRequest#from} it
+ * does not copy the request's headers, cookies and attributes: the Authorization header is set
+ * directly on the outgoing request when it is written, before the original headers are added.
+ */
+final class AuthorizedClientRequest implements ClientRequest {
+
+  private final ClientRequest request;
+  private final URI routedUrl;
+  private final String authorization;
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  AuthorizedClientRequest(final ClientRequest request, final URI url, final String authorization) {
+    this.request = request;
+    this.routedUrl = url;
+    this.authorization = authorization;
+  }
+
+  @Override
+  public HttpMethod method() {
+    return request.method();
+  }
+
+  @Override
+  public URI url() {
+    return routedUrl;
+  }
+
+  /** Only built for filters that inspect the headers, the exchange itself does not read them. */
+  @Override
+  public HttpHeaders headers() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.addAll(request.headers());
+    headers.set(HttpHeaders.AUTHORIZATION, authorization);
+    return HttpHeaders.readOnlyHttpHeaders(headers);
+  }
+
+  @Override
+  public MultiValueMap<String, String> cookies() {
+    return request.cookies();
+  }
+
+  @Override
+  public BodyInserter<?, ? super ClientHttpRequest> body() {
+    return request.body();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    return request.attributes();
+  }
+
+  @Override
+  public Consumer<ClientHttpRequest> httpRequest() {
+    return request.httpRequest();
+  }
+
+  @Override
+  public String logPrefix() {
+    return request.logPrefix();
+  }
+
+  /** Headers already present on the outgoing request are not overwritten by the original ones. */
+  @Override
+  public Mono<Void> writeTo(
+      final ClientHttpRequest clientHttpRequest, final ExchangeStrategies strategies) {
+    clientHttpRequest.getHeaders().set(HttpHeaders.AUTHORIZATION, authorization);
+    return request.writeTo(clientHttpRequest, strategies);
+  }
+}
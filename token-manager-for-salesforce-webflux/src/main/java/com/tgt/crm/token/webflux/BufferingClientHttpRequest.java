@@ -0,0 +1,94 @@
+package com.tgt.crm.token.webflux;
+
+import java.net.URI;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.AbstractClientHttpRequest;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Collects the body a {@link ClientRequest} writes instead of sending it, so the request can be
+ * sent as a subrequest of a composite batch.
+ */
+final class BufferingClientHttpRequest extends AbstractClientHttpRequest {
+
+  private final HttpMethod method;
+  private final URI uri;
+  private byte[] body = new byte[0];
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  BufferingClientHttpRequest(final HttpMethod method, final URI uri) {
+    super();
+    this.method = method;
+    this.uri = uri;
+  }
+
+  /** The body written, empty if there is none. */
+  @SuppressWarnings("PMD.DefaultPackage")
+  byte[] getBody() {
+    return body.clone();
+  }
+
+  @Override
+  public HttpMethod getMethod() {
+    return method;
+  }
+
+  @Override
+  public URI getURI() {
+    return uri;
+  }
+
+  @Override
+  public DataBufferFactory bufferFactory() {
+    return DefaultDataBufferFactory.sharedInstance;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T getNativeRequest() {
+    return (T) this;
+  }
+
+  @Override
+  public Mono<Void> writeWith(final Publisher<? extends DataBuffer> body) {
+    return doCommit(
+        () ->
+            DataBufferUtils.join(body)
+                .doOnNext(
+                    buffer -> {
+                      byte[] content = new byte[buffer.readableByteCount()];
+                      buffer.read(content);
+                      DataBufferUtils.release(buffer);
+                      this.body = content;
+                    })
+                .then());
+  }
+
+  @Override
+  public Mono<Void> writeAndFlushWith(
+      final Publisher<? extends Publisher<? extends DataBuffer>> body) {
+    return writeWith(Flux.from(body).concatMap(publisher -> publisher));
+  }
+
+  @Override
+  public Mono<Void> setComplete() {
+    return doCommit();
+  }
+
+  @Override
+  protected void applyHeaders() {
+    // the headers of the request are read by the batch filter, not sent
+  }
+
+  @Override
+  protected void applyCookies() {
+    // subrequests have no cookies
+  }
+}
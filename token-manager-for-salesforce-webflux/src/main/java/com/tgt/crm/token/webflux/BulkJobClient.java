@@ -0,0 +1,61 @@
+package com.tgt.crm.token.webflux;
+
+import com.tgt.crm.token.core.BulkJob;
+import java.time.Duration;
+import java.util.function.IntFunction;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * The calls on Bulk API 2.0 jobs that query and ingest jobs share: sending a job request and
+ * polling a job until it is finished.
+ */
+final class BulkJobClient {
+
+  private final WebClient webClient;
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  BulkJobClient(final WebClient webClient) {
+    this.webClient = webClient;
+  }
+
+  /**
+   * Sends a job request.
+   *
+   * @param method the method of the call
+   * @param path the path of the jobs or of a job
+   * @param body the job request
+   * @return the job in the response
+   */
+  @SuppressWarnings("PMD.DefaultPackage")
+  Mono<BulkJob> exchange(final HttpMethod method, final String path, final BulkJob body) {
+    return webClient.method(method).uri(path).bodyValue(body).retrieve().bodyToMono(BulkJob.class);
+  }
+
+  /**
+   * Gets a job until it is finished.
+   *
+   * @param jobPath the path of the job
+   * @param pollDelay the time to wait after each poll, by the number of polls before it
+   * @return the finished job
+   */
+  @SuppressWarnings("PMD.DefaultPackage")
+  Mono<BulkJob> poll(final String jobPath, final IntFunction<Duration> pollDelay) {
+    return poll(jobPath, pollDelay, 0);
+  }
+
+  private Mono<BulkJob> poll(
+      final String jobPath, final IntFunction<Duration> pollDelay, final int polls) {
+    return webClient
+        .get()
+        .uri(jobPath)
+        .retrieve()
+        .bodyToMono(BulkJob.class)
+        .flatMap(
+            job ->
+                job.getState().isFinished()
+                    ? Mono.just(job)
+                    : Mono.delay(pollDelay.apply(polls)).then(poll(jobPath, pollDelay, polls + 1)));
+  }
+}
@@ -0,0 +1,142 @@
+package com.tgt.crm.token.webflux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Operators;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Splits records into batches of up to a maximum size, a batch that is not full is emitted once the
+ * window has passed since its first record. Unlike {@link Flux#bufferTimeout}, a batch cut by the
+ * window while the subscriber has no demand is held instead of failing with an overflow. Records
+ * are requested only to fill the batches the subscriber asked for, counting the records already
+ * requested, so no more records are requested than those batches can hold. A batch cut by the
+ * window leaves fewer than the maximum size records requested for it, they arrive ahead of the next
+ * batch being requested and are held until it is.
+ *
+ * @param <T> the type of the records
+ */
+final class RecordBatcher<T> extends BaseSubscriber<T> {
+
+  private final FluxSink<List<T>> sink;
+  private final int maxSize;
+  private final long window;
+  private final Scheduler scheduler = Schedulers.parallel();
+  private List<T> pending = new ArrayList<>();
+  private long batches;
+  // batches requested and not yet emitted, negative while held batches are waiting for demand
+  private long demand;
+  // records requested and not yet received
+  private long outstanding;
+  private Disposable timer = Disposables.disposed();
+
+  private RecordBatcher(final FluxSink<List<T>> sink, final int maxSize, final Duration window) {
+    super();
+    this.sink = sink;
+    this.maxSize = maxSize;
+    this.window = window.toMillis();
+  }
+
+  /**
+   * Batches records by size and time.
+   *
+   * @param records the records to batch
+   * @param maxSize records per batch
+   * @param window how long a batch waits to fill up after its first record
+   * @param <T> the type of the records
+   * @return the batches, in the order of the records
+   */
+  @SuppressWarnings("PMD.DefaultPackage")
+  static <T> Flux<List<T>> batch(
+      final Publisher<T> records, final int maxSize, final Duration window) {
+    return Flux.create(
+        sink -> {
+          RecordBatcher<T> batcher = new RecordBatcher<>(sink, maxSize, window);
+          sink.onDispose(batcher);
+          records.subscribe(batcher);
+          sink.onRequest(batcher::requestBatches);
+        });
+  }
+
+  private void requestBatches(final long requested) {
+    synchronized (this) {
+      demand = demand < 0 ? demand + requested : Operators.addCap(demand, requested);
+      if (demand >= Long.MAX_VALUE / maxSize) {
+        // as good as unbounded, the records no longer need counting
+        request(Long.MAX_VALUE);
+        return;
+      }
+      long missing = demand * maxSize - pending.size() - outstanding;
+      if (missing > 0) {
+        outstanding += missing;
+        request(missing);
+      }
+    }
+  }
+
+  @Override
+  protected void hookOnSubscribe(final Subscription subscription) {
+    // records are requested as batches are
+  }
+
+  @Override
+  protected void hookOnNext(final T record) {
+    synchronized (this) {
+      outstanding--;
+      if (pending.isEmpty()) {
+        long first = batches;
+        timer = scheduler.schedule(() -> emit(first), window, TimeUnit.MILLISECONDS);
+      }
+      pending.add(record);
+      if (pending.size() >= maxSize) {
+        emit(batches);
+      }
+    }
+  }
+
+  /** Emits the batch unless it was emitted already, the lock keeps the batches in order. */
+  private void emit(final long batch) {
+    synchronized (this) {
+      if (batch != batches || pending.isEmpty()) {
+        return;
+      }
+      timer.dispose();
+      List<T> full = pending;
+      pending = new ArrayList<>();
+      batches++;
+      demand--;
+      sink.next(full);
+    }
+  }
+
+  @Override
+  protected void hookOnComplete() {
+    synchronized (this) {
+      emit(batches);
+    }
+    sink.complete();
+  }
+
+  @Override
+  protected void hookOnError(final Throwable throwable) {
+    sink.error(throwable);
+  }
+
+  @Override
+  protected void hookFinally(final SignalType type) {
+    synchronized (this) {
+      timer.dispose();
+    }
+  }
+}
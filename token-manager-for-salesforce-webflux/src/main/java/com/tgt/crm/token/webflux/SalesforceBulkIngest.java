@@ -0,0 +1,217 @@
+package com.tgt.crm.token.webflux;
+
+import com.tgt.crm.token.core.BulkIngest;
+import com.tgt.crm.token.core.BulkIngestConfig;
+import com.tgt.crm.token.core.BulkJob;
+import com.tgt.crm.token.core.BulkResults;
+import com.tgt.crm.token.core.CsvJobData;
+import com.tgt.crm.token.core.CsvJobSplitter;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Loads CSV data through Bulk API 2.0 ingest jobs with sfWebClient, see {@link BulkIngest}. The
+ * data is split into jobs as it is read and the jobs are run one after the other. The data of the
+ * job being uploaded is kept in files, see {@link CsvJobData}, not in memory: a CSV file is read
+ * again for the upload and any other CSV is spilled to a temporary file per job. File I/O runs on
+ * the bounded elastic scheduler.
+ *
+ * <p>Every call gets the current token, so a token that expires during a long job is refreshed by
+ * the next poll, and an upload rejected with a 401 is sent again from the files. The org and
+ * priority are read from the Reactor Context.
+ */
+@Configuration
+public class SalesforceBulkIngest {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType(BulkIngest.CSV_CONTENT_TYPE);
+
+  private final WebClient webClient;
+  private final BulkIngest bulkIngest;
+  private final BulkJobClient jobClient;
+
+  @Autowired
+  public SalesforceBulkIngest(
+      @Qualifier("sfWebClient") final WebClient webClient,
+      final BulkIngestConfig bulkIngestConfig) {
+    this(webClient, new BulkIngest(bulkIngestConfig));
+  }
+
+  public SalesforceBulkIngest(final WebClient webClient, final BulkIngest bulkIngest) {
+    this.webClient = webClient;
+    this.bulkIngest = bulkIngest;
+    this.jobClient = new BulkJobClient(webClient);
+  }
+
+  /**
+   * Loads CSV data, split into as many jobs as needed.
+   *
+   * @param job the object, the operation and, for an upsert, the external id field of the jobs
+   * @param csv the CSV data, starting with the header, each job is spilled to a temporary file
+   * @return each job once Salesforce processed it, its state tells if it completed or failed
+   */
+  public Flux<BulkJob> ingest(final BulkJob job, final Publisher<DataBuffer> csv) {
+    return ingest(job, csv, CsvJobData::spill);
+  }
+
+  /**
+   * Loads a CSV file, split into as many jobs as needed.
+   *
+   * @param job the object, the operation and, for an upsert, the external id field of the jobs
+   * @param csv the CSV file, starting with the header, read again for each upload so it must not
+   *     change until the jobs are uploaded
+   * @return each job once Salesforce processed it, its state tells if it completed or failed
+   */
+  public Flux<BulkJob> ingest(final BulkJob job, final Path csv) {
+    return ingest(
+        job,
+        DataBufferUtils.read(csv, DefaultDataBufferFactory.sharedInstance, BUFFER_SIZE),
+        () -> CsvJobData.fileRange(csv));
+  }
+
+  private Flux<BulkJob> ingest(
+      final BulkJob job, final Publisher<DataBuffer> csv, final Callable<CsvJobData> newJobData) {
+    return Mono.fromCallable(() -> bulkIngest.createRequest(job))
+        .flatMapMany(
+            request ->
+                split(csv)
+                    .windowUntilChanged(CsvJobSplitter.Chunk::getJob, Integer::equals)
+                    // a CSV that fails to split fails the job it is in, which is still aborted,
+                    // and the one error reaches both the job and the jobs
+                    .concatMapDelayError(chunks -> run(request, chunks, newJobData), false, 1)
+                    .onErrorMap(
+                        Exceptions::isMultiple, error -> Exceptions.unwrapMultiple(error).get(0)));
+  }
+
+  /**
+   * Reads results of a finished job.
+   *
+   * @param jobId the id of the job
+   * @param results which results to read
+   * @return the CSV results, streamed as they are received
+   */
+  public Flux<DataBuffer> results(final String jobId, final BulkResults results) {
+    return webClient
+        .get()
+        .uri(bulkIngest.getResultsPath(jobId, results))
+        .accept(TEXT_CSV)
+        .retrieve()
+        .bodyToFlux(DataBuffer.class);
+  }
+
+  private Flux<CsvJobSplitter.Chunk> split(final Publisher<DataBuffer> csv) {
+    return Flux.defer(
+        () -> {
+          CsvJobSplitter splitter = bulkIngest.newSplitter();
+          return Flux.from(csv)
+              .concatMapIterable(buffer -> splitter.split(read(buffer)))
+              .concatWith(Flux.defer(() -> Flux.fromIterable(splitter.finish())));
+        });
+  }
+
+  /** Creates, uploads and closes a job, aborting it if that fails, and waits for its results. */
+  private Mono<BulkJob> run(
+      final BulkJob request,
+      final Flux<CsvJobSplitter.Chunk> chunks,
+      final Callable<CsvJobData> newJobData) {
+    return jobClient
+        .exchange(HttpMethod.POST, bulkIngest.getJobsPath(), request)
+        .flatMap(
+            job ->
+                Mono.usingWhen(
+                        Mono.fromCallable(newJobData).subscribeOn(Schedulers.boundedElastic()),
+                        data -> collect(chunks, data).then(upload(job.getId(), data)),
+                        data ->
+                            Mono.fromRunnable(data::close).subscribeOn(Schedulers.boundedElastic()))
+                    .then(
+                        jobClient.exchange(
+                            HttpMethod.PATCH,
+                            bulkIngest.getJobPath(job.getId()),
+                            bulkIngest.closeRequest()))
+                    .onErrorResume(error -> abort(job.getId(), error))
+                    .then(
+                        jobClient.poll(bulkIngest.getJobPath(job.getId()), bulkIngest::pollDelay)));
+  }
+
+  private static Mono<Void> collect(
+      final Flux<CsvJobSplitter.Chunk> chunks, final CsvJobData data) {
+    return chunks
+        .publishOn(Schedulers.boundedElastic())
+        .concatMap(
+            chunk ->
+                Mono.<Void>fromCallable(
+                    () -> {
+                      data.append(chunk);
+                      return null;
+                    }))
+        .then();
+  }
+
+  /** Sized by the collected data, so it is only built once all of it is appended. */
+  private Mono<Void> upload(final String jobId, final CsvJobData data) {
+    return Mono.defer(
+        () ->
+            webClient
+                .put()
+                .uri(bulkIngest.getBatchesPath(jobId))
+                .contentType(TEXT_CSV)
+                .contentLength(data.getSize())
+                .body(BodyInserters.fromDataBuffers(replayable(data)))
+                .retrieve()
+                .toBodilessEntity()
+                .then());
+  }
+
+  /**
+   * Reads a job's data from its files, so each subscription, e.g. the upload sent again after a
+   * 401, reads it from the start.
+   */
+  private static Flux<DataBuffer> replayable(final CsvJobData data) {
+    return Flux.defer(() -> Flux.fromIterable(data.getRegions()))
+        .concatMap(
+            region ->
+                DataBufferUtils.takeUntilByteCount(
+                    DataBufferUtils.readAsynchronousFileChannel(
+                        () ->
+                            AsynchronousFileChannel.open(region.getFile(), StandardOpenOption.READ),
+                        region.getPosition(),
+                        DefaultDataBufferFactory.sharedInstance,
+                        BUFFER_SIZE),
+                    region.getLength()));
+  }
+
+  private Mono<BulkJob> abort(final String jobId, final Throwable error) {
+    return jobClient
+        .exchange(HttpMethod.PATCH, bulkIngest.getJobPath(jobId), bulkIngest.abortRequest())
+        .onErrorResume(
+            abortError -> {
+              error.addSuppressed(abortError);
+              return Mono.empty();
+            })
+        .then(Mono.error(error));
+  }
+
+  private static byte[] read(final DataBuffer buffer) {
+    byte[] bytes = new byte[buffer.readableByteCount()];
+    buffer.read(bytes);
+    DataBufferUtils.release(buffer);
+    return bytes;
+  }
+}
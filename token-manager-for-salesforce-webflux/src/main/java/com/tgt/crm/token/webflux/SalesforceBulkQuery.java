@@ -0,0 +1,134 @@
+package com.tgt.crm.token.webflux;
+
+import com.tgt.crm.token.core.BulkIngest;
+import com.tgt.crm.token.core.BulkJob;
+import com.tgt.crm.token.core.BulkQuery;
+import com.tgt.crm.token.core.BulkQueryConfig;
+import java.nio.channels.AsynchronousFileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads the records of a SOQL query through a Bulk API 2.0 query job with sfWebClient, see {@link
+ * BulkQuery}. The CSV results are streamed: each page is passed on as it is received and the next
+ * page is only read once it was consumed, so only a few buffers are held at a time however many
+ * records the query returns. The header row of every page but the first is dropped, so the pages
+ * join into one CSV.
+ *
+ * <p>Every call gets the current token, so a token that expires while a long query runs or its
+ * results are read is refreshed by the next call. The org and priority are read from the Reactor
+ * Context.
+ */
+@Configuration
+public class SalesforceBulkQuery {
+
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType(BulkIngest.CSV_CONTENT_TYPE);
+  private static final byte LINE_FEED = '\n';
+
+  private final WebClient webClient;
+  private final BulkQuery bulkQuery;
+  private final BulkJobClient jobClient;
+
+  @Autowired
+  public SalesforceBulkQuery(
+      @Qualifier("sfWebClient") final WebClient webClient, final BulkQueryConfig bulkQueryConfig) {
+    this(webClient, new BulkQuery(bulkQueryConfig));
+  }
+
+  public SalesforceBulkQuery(final WebClient webClient, final BulkQuery bulkQuery) {
+    this.webClient = webClient;
+    this.bulkQuery = bulkQuery;
+    this.jobClient = new BulkJobClient(webClient);
+  }
+
+  /**
+   * Runs a query and streams its results.
+   *
+   * @param job the operation, query or queryAll, and the query
+   * @return the CSV results, starting with the header row, or a {@link
+   *     com.tgt.crm.token.core.BulkJobFailedException} if the job did not complete
+   */
+  public Flux<DataBuffer> query(final BulkJob job) {
+    return run(job).flatMapMany(completed -> results(completed.getId()));
+  }
+
+  /**
+   * Runs a query and writes its results to a file.
+   *
+   * @param job the operation, query or queryAll, and the query
+   * @param channel receives the CSV results from its start, not closed
+   * @return the completed job once its results are written, or a {@link
+   *     com.tgt.crm.token.core.BulkJobFailedException} if the job did not complete
+   */
+  public Mono<BulkJob> query(final BulkJob job, final AsynchronousFileChannel channel) {
+    return run(job)
+        .flatMap(
+            completed ->
+                DataBufferUtils.write(results(completed.getId()), channel)
+                    .map(DataBufferUtils::release)
+                    .then(Mono.just(completed)));
+  }
+
+  /** Creates a job and waits until it completed. */
+  private Mono<BulkJob> run(final BulkJob job) {
+    return Mono.fromCallable(() -> bulkQuery.createRequest(job))
+        .flatMap(request -> jobClient.exchange(HttpMethod.POST, bulkQuery.getJobsPath(), request))
+        .flatMap(
+            created -> jobClient.poll(bulkQuery.getJobPath(created.getId()), bulkQuery::pollDelay))
+        .map(bulkQuery::checkCompleted);
+  }
+
+  /** Reads the pages one after the other, each with the locator the page before it had. */
+  private Flux<DataBuffer> results(final String jobId) {
+    return Flux.defer(
+        () -> {
+          AtomicReference<String> locator = new AtomicReference<>();
+          return Flux.defer(() -> page(jobId, locator)).repeat(() -> locator.get() != null);
+        });
+  }
+
+  private Flux<DataBuffer> page(final String jobId, final AtomicReference<String> locator) {
+    boolean first = locator.get() == null;
+    return webClient
+        .get()
+        .uri(bulkQuery.getResultsPath(jobId, locator.get()))
+        .accept(TEXT_CSV)
+        .retrieve()
+        .toEntityFlux(DataBuffer.class)
+        .flatMapMany(
+            page -> {
+              locator.set(
+                  bulkQuery.nextLocator(page.getHeaders().getFirst(BulkQuery.LOCATOR_HEADER)));
+              Flux<DataBuffer> body = page.hasBody() ? page.getBody() : Flux.empty();
+              return first ? body : withoutHeader(body);
+            });
+  }
+
+  /** Drops the bytes up to the first line feed, the header row of the page. */
+  private static Flux<DataBuffer> withoutHeader(final Flux<DataBuffer> page) {
+    AtomicBoolean header = new AtomicBoolean(true);
+    return page.handle(
+        (buffer, sink) -> {
+          if (header.get()) {
+            int end = buffer.indexOf(b -> b == LINE_FEED, buffer.readPosition());
+            if (end < 0) {
+              DataBufferUtils.release(buffer);
+              return;
+            }
+            buffer.readPosition(end + 1);
+            header.set(false);
+          }
+          sink.next(buffer);
+        });
+  }
+}
@@ -0,0 +1,184 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_KEY;
+import static com.tgt.crm.token.core.SalesforceConstants.PRIORITY_KEY;
+
+import com.tgt.crm.token.core.CompositeBatchConfig;
+import com.tgt.crm.token.core.CompositeBatcher;
+import com.tgt.crm.token.core.RequestPriority;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Coalesces calls made at the same time into composite requests when
+ * salesforce.composite-batch.enabled is set, see {@link CompositeBatcher}. It runs before the
+ * filter authorizing the calls, so a batch is authorized and routed like any other call. The first
+ * call of a batch sends it, the others wait for their subresponse without holding a thread.
+ *
+ * <p>The org and priority are read from the Reactor Context, which requires Reactor 3.4, spring
+ * boot 2.4.0 or later. Bodies are written and subresponses read with the codecs spring boot
+ * configures for {@link WebClient.Builder}.
+ */
+@Configuration
+@Slf4j
+public class SalesforceCompositeBatchFilter implements ExchangeFilterFunction {
+
+  private final CompositeBatchConfig compositeBatchConfig;
+  private final MeterRegistry meterRegistry;
+  private final ExchangeStrategies strategies;
+  private final Map<String, CompositeBatcher> batchers = new ConcurrentHashMap<>();
+
+  @Autowired
+  public SalesforceCompositeBatchFilter(
+      final CompositeBatchConfig compositeBatchConfig,
+      final MeterRegistry meterRegistry,
+      final ObjectProvider<CodecCustomizer> codecCustomizers) {
+    this(
+        compositeBatchConfig,
+        meterRegistry,
+        ExchangeStrategies.builder()
+            .codecs(
+                configurer ->
+                    codecCustomizers
+                        .orderedStream()
+                        .forEach(customizer -> customizer.customize(configurer)))
+            .build());
+  }
+
+  public SalesforceCompositeBatchFilter(
+      final CompositeBatchConfig compositeBatchConfig,
+      final MeterRegistry meterRegistry,
+      final ExchangeStrategies strategies) {
+    this.compositeBatchConfig = compositeBatchConfig;
+    this.meterRegistry = meterRegistry;
+    this.strategies = strategies;
+  }
+
+  public boolean isEnabled() {
+    return compositeBatchConfig.isEnabled();
+  }
+
+  @Override
+  public Mono<ClientResponse> filter(final ClientRequest request, final ExchangeFunction next) {
+    if (!CompositeBatcher.isBatchable(
+        request.method().name(), request.url(), request.headers().keySet())) {
+      return next.exchange(request);
+    }
+    return Mono.deferContextual(
+        context -> {
+          String org = context.getOrDefault(ORG_KEY, DEFAULT_ORG);
+          RequestPriority priority = context.getOrDefault(PRIORITY_KEY, RequestPriority.NORMAL);
+          return buffer(request)
+              .flatMap(
+                  body -> {
+                    CompositeBatcher.Entry entry =
+                        batchers
+                            .computeIfAbsent(
+                                org,
+                                name ->
+                                    new CompositeBatcher(name, compositeBatchConfig, meterRegistry))
+                            .add(priority.name(), request.method().name(), request.url(), body);
+                    if (entry == null) {
+                      return next.exchange(withBody(request, body));
+                    }
+                    if (entry.isLeader()) {
+                      return lead(entry, request, body, next);
+                    }
+                    return Mono.fromFuture(entry.getResponse()).map(this::toResponse);
+                  });
+        });
+  }
+
+  /** Waits for the batch to fill up, then sends it, or the call alone if nobody joined. */
+  private Mono<ClientResponse> lead(
+      final CompositeBatcher.Entry entry,
+      final ClientRequest request,
+      final byte[] body,
+      final ExchangeFunction next) {
+    CompositeBatcher.Batch batch = entry.getBatch();
+    // the batch is ready on the thread of the call that filled it, holding the batcher's lock, or
+    // on the delayer of CompletableFuture when the window passed, so go on without either
+    return Mono.fromFuture(batch.getReady())
+        .publishOn(Schedulers.parallel())
+        .then(Mono.fromCallable(batch::close))
+        .flatMap(
+            batchBody ->
+                send(batch, batchBody, next)
+                    .then(Mono.fromFuture(entry.getResponse()).map(this::toResponse)))
+        .switchIfEmpty(Mono.defer(() -> next.exchange(withBody(request, body))))
+        .doOnCancel(() -> batch.abandon(new CancellationException("composite batch cancelled")));
+  }
+
+  private Mono<Void> send(
+      final CompositeBatcher.Batch batch, final byte[] batchBody, final ExchangeFunction next) {
+    if (log.isDebugEnabled()) {
+      log.debug("sending composite batch to {}", batch.getUri());
+    }
+    ClientRequest batchRequest =
+        ClientRequest.create(HttpMethod.POST, batch.getUri())
+            .headers(
+                headers -> {
+                  headers.setContentType(MediaType.APPLICATION_JSON);
+                  headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+                })
+            .body(BodyInserters.fromValue(batchBody))
+            .build();
+    return next.exchange(batchRequest)
+        .flatMap(
+            response ->
+                response
+                    .bodyToMono(byte[].class)
+                    .defaultIfEmpty(new byte[0])
+                    .doOnNext(content -> batch.complete(response.rawStatusCode(), content)))
+        .doOnError(batch::fail)
+        .then();
+  }
+
+  /** Reads the body the request would write. */
+  private Mono<byte[]> buffer(final ClientRequest request) {
+    BufferingClientHttpRequest buffered =
+        new BufferingClientHttpRequest(request.method(), request.url());
+    return request.writeTo(buffered, strategies).then(Mono.fromSupplier(buffered::getBody));
+  }
+
+  /** The body was written once already, it is sent as buffered. */
+  private static ClientRequest withBody(final ClientRequest request, final byte[] body) {
+    return body.length == 0
+        ? request
+        : ClientRequest.from(request).body(BodyInserters.fromValue(body)).build();
+  }
+
+  private ClientResponse toResponse(final CompositeBatcher.Subresponse subresponse) {
+    ClientResponse.Builder response =
+        ClientResponse.create(subresponse.getStatus(), strategies)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+    byte[] body = subresponse.getBody();
+    if (body.length > 0) {
+      response.body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+    }
+    return response.build();
+  }
+}
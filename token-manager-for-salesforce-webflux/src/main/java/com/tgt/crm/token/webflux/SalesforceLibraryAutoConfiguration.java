@@ -1,12 +1,79 @@
 package com.tgt.crm.token.webflux;
 
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.BulkIngestConfig;
+import com.tgt.crm.token.core.BulkQueryConfig;
+import com.tgt.crm.token.core.CompositeBatchConfig;
+import com.tgt.crm.token.core.FileTokenStore;
 import com.tgt.crm.token.core.HttpClientConfig;
+import com.tgt.crm.token.core.InMemoryTokenStore;
+import com.tgt.crm.token.core.ProactiveRefreshConfig;
+import com.tgt.crm.token.core.ProactiveTokenRefresher;
+import com.tgt.crm.token.core.SObjectCollectionsConfig;
 import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenManager;
+import com.tgt.crm.token.core.TokenStore;
+import com.tgt.crm.token.core.TokenStoreConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-@EnableConfigurationProperties({SalesforceConfig.class, HttpClientConfig.class})
+@EnableConfigurationProperties({
+  SalesforceConfig.class,
+  HttpClientConfig.class,
+  WebfluxHttpClientConfig.class,
+  ProactiveRefreshConfig.class,
+  TokenStoreConfig.class,
+  ApiLimitConfig.class,
+  CompositeBatchConfig.class,
+  SObjectCollectionsConfig.class,
+  BulkIngestConfig.class,
+  BulkQueryConfig.class
+})
 @ComponentScan
-public class SalesforceLibraryAutoConfiguration {}
+public class SalesforceLibraryAutoConfiguration {
+
+  /** Define a {@link TokenGrant} bean to use a custom grant for the default org. */
+  @Bean
+  @ConditionalOnMissingBean
+  public TokenGrant sfTokenGrant(final SalesforceConfig salesforceConfig) {
+    return TokenGrant.fromConfig(salesforceConfig);
+  }
+
+  @Bean
+  @ConditionalOnProperty("salesforce.proactive-refresh.enabled")
+  public ProactiveTokenRefresher proactiveTokenRefresher(
+      final SalesforceWebfluxOrgRegistry orgRegistry,
+      final ProactiveRefreshConfig proactiveRefreshConfig) {
+    TokenManager defaultTokenManager = orgRegistry.getAuthClient(DEFAULT_ORG).getTokenManager();
+    ProactiveTokenRefresher proactiveTokenRefresher =
+        new ProactiveTokenRefresher(defaultTokenManager, proactiveRefreshConfig);
+    orgRegistry.getUserPools().values().stream()
+        .flatMap(userPool -> userPool.getUsers().stream())
+        .map(SalesforceWebfluxAuthClient::getTokenManager)
+        .filter(tokenManager -> tokenManager != defaultTokenManager)
+        .forEach(proactiveTokenRefresher::register);
+    return proactiveTokenRefresher;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty("salesforce.token-store.enabled")
+  public TokenStore fileTokenStore(final TokenStoreConfig tokenStoreConfig) {
+    return new FileTokenStore(tokenStoreConfig);
+  }
+
+  /** Define a {@link TokenStore} bean to share tokens between instances through other storage. */
+  @Bean
+  @ConditionalOnMissingBean
+  public TokenStore inMemoryTokenStore() {
+    return new InMemoryTokenStore();
+  }
+}
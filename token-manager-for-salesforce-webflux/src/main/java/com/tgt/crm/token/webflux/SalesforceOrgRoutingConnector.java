@@ -0,0 +1,40 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_KEY;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends each request through the connector, and so the connection pool, of the org selected in the
+ * Reactor Context, so a slow org cannot exhaust the connections of the others.
+ */
+@AllArgsConstructor
+public class SalesforceOrgRoutingConnector implements ClientHttpConnector {
+
+  private final Map<String, ClientHttpConnector> connectors;
+
+  @Override
+  public Mono<ClientHttpResponse> connect(
+      final HttpMethod method,
+      final URI uri,
+      final Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+    return Mono.deferContextual(
+        context -> {
+          String org = context.getOrDefault(ORG_KEY, DEFAULT_ORG);
+          ClientHttpConnector connector = connectors.get(org);
+          if (connector == null) {
+            return Mono.error(new IllegalArgumentException("unknown salesforce org " + org));
+          }
+          return connector.connect(method, uri, requestCallback);
+        });
+  }
+}
@@ -0,0 +1,100 @@
+package com.tgt.crm.token.webflux;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tgt.crm.token.core.SObjectCollections;
+import com.tgt.crm.token.core.SObjectCollectionsConfig;
+import com.tgt.crm.token.core.SaveResult;
+import java.time.Duration;
+import java.util.List;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Creates and updates records through sObject Collections with sfWebClient, up to 200 records of a
+ * type per call instead of a call per record, see {@link SObjectCollections}. A batch is sent once
+ * it holds salesforce.sobject-collections.batch-size records, or once the window has passed since
+ * its first record. Up to concurrency calls are in flight per write.
+ *
+ * <p>Records are only requested from the publisher as calls complete, so a fast publisher does not
+ * queue up batches or take more connections than the calls in flight. The results are emitted in
+ * the order of the records. The org and priority are read from the Reactor Context like for any
+ * other call.
+ */
+@Configuration
+public class SalesforceSObjectWriter {
+
+  private final WebClient webClient;
+  private final SObjectCollections collections;
+
+  @Autowired
+  public SalesforceSObjectWriter(
+      @Qualifier("sfWebClient") final WebClient webClient,
+      final SObjectCollectionsConfig sobjectCollectionsConfig,
+      final ObjectProvider<ObjectMapper> objectMapper) {
+    this(
+        webClient,
+        new SObjectCollections(
+            sobjectCollectionsConfig, objectMapper.getIfAvailable(ObjectMapper::new)));
+  }
+
+  public SalesforceSObjectWriter(final WebClient webClient, final SObjectCollections collections) {
+    this.webClient = webClient;
+    this.collections = collections;
+  }
+
+  /**
+   * Creates records.
+   *
+   * @param type the sObject type of the records, e.g. Account
+   * @param records the records, each serialized to a JSON object of fields
+   * @param <T> the type of the records
+   * @return a result for each record, in the order of the records
+   */
+  public <T> Flux<SaveResult<T>> insert(final String type, final Publisher<T> records) {
+    return write(HttpMethod.POST, type, records);
+  }
+
+  /**
+   * Updates records by their Id field.
+   *
+   * @param type the sObject type of the records, e.g. Account
+   * @param records the records, each serialized to a JSON object of fields including the Id
+   * @param <T> the type of the records
+   * @return a result for each record, in the order of the records
+   */
+  public <T> Flux<SaveResult<T>> update(final String type, final Publisher<T> records) {
+    return write(HttpMethod.PATCH, type, records);
+  }
+
+  private <T> Flux<SaveResult<T>> write(
+      final HttpMethod method, final String type, final Publisher<T> records) {
+    return RecordBatcher.batch(
+            records, collections.getBatchSize(), Duration.ofMillis(collections.getWindow()))
+        .flatMapSequential(batch -> send(method, type, batch), collections.getConcurrency());
+  }
+
+  private <T> Flux<SaveResult<T>> send(
+      final HttpMethod method, final String type, final List<T> batch) {
+    return webClient
+        .method(method)
+        .uri(collections.getPath())
+        .bodyValue(collections.requestBody(type, batch))
+        .exchangeToMono(
+            response ->
+                response
+                    .bodyToMono(byte[].class)
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(
+                        body ->
+                            Mono.fromCallable(
+                                () -> collections.results(batch, response.rawStatusCode(), body))))
+        .flatMapIterable(results -> results);
+  }
+}
@@ -1,11 +1,24 @@
 package com.tgt.crm.token.webflux;
 
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.LIMIT_INFO_HEADER;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_KEY;
+import static com.tgt.crm.token.core.SalesforceConstants.PRIORITY_KEY;
+
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.ApiLimitTracker;
 import com.tgt.crm.token.core.HttpClientConfig;
+import com.tgt.crm.token.core.IntegrationUserPool;
+import com.tgt.crm.token.core.RequestPriority;
 import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceToken;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.timeout.ReadTimeoutHandler;
-import java.util.Collections;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import lombok.AllArgsConstructor;
@@ -18,12 +31,15 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.resources.ConnectionProvider;
 import reactor.netty.transport.logging.AdvancedByteBufFormat;
@@ -33,35 +49,83 @@ import reactor.netty.transport.logging.AdvancedByteBufFormat;
 @Slf4j
 public class SalesforceWebClient {
 
-  private final SalesforceWebfluxAuthClient salesforceWebfluxAuthClient;
+  private final SalesforceWebfluxOrgRegistry orgRegistry;
   private final SalesforceConfig salesforceConfig;
   private final HttpClientConfig httpClientConfig;
+  private final WebfluxHttpClientConfig webfluxHttpClientConfig;
+  private final ApiLimitConfig apiLimitConfig;
+  private final SalesforceCompositeBatchFilter compositeBatchFilter;
 
   @Bean
   @Qualifier("sfWebClient")
   @ConditionalOnClass(AdvancedByteBufFormat.class)
   public WebClient sfWebClientWiretap(final WebClient.Builder webClientBuilder) {
-    HttpClient httpClient =
-        HttpClient.create(
-                ConnectionProvider.create(
-                    "sfTokenManagerProvider", httpClientConfig.getMaxConnPerRoute()))
-            .doOnConnected(
-                conn ->
-                    conn.addHandlerLast(
-                        new ReadTimeoutHandler(
-                            httpClientConfig.getReadTimeout(), TimeUnit.MILLISECONDS)))
-            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, httpClientConfig.getConnectionTimeout())
-            .wiretap(
-                "com.tgt.crm.token.webflux.sfWebClient",
-                LogLevel.TRACE,
-                AdvancedByteBufFormat.TEXTUAL);
-    return webClientBuilder
-        .clientConnector(new ReactorClientHttpConnector(httpClient))
-        .baseUrl(salesforceConfig.getHost())
-        .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-        .filter(addAuthHeader())
-        .filter(retryOnUnauthorized())
-        .build();
+    return buildWebClient(
+        webClientBuilder,
+        providerName ->
+            protocol(HttpClient.create(connectionProvider(providerName)))
+                .doOnConnected(
+                    conn ->
+                        conn.addHandlerLast(
+                            new ReadTimeoutHandler(
+                                httpClientConfig.getReadTimeout(), TimeUnit.MILLISECONDS)))
+                .option(
+                    ChannelOption.CONNECT_TIMEOUT_MILLIS, httpClientConfig.getConnectionTimeout())
+                .wiretap(
+                    "com.tgt.crm.token.webflux.sfWebClient",
+                    LogLevel.TRACE,
+                    AdvancedByteBufFormat.TEXTUAL));
+  }
+
+  /**
+   * Pending acquire limits, idle and lifetime eviction, leasing order and pool metrics of {@link
+   * WebfluxHttpClientConfig}. Only the pool size applies to older versions of spring boot.
+   */
+  private ConnectionProvider connectionProvider(final String name) {
+    ConnectionProvider.Builder builder =
+        ConnectionProvider.builder(name)
+            .maxConnections(httpClientConfig.getMaxConnPerRoute())
+            .pendingAcquireTimeout(
+                Duration.ofMillis(webfluxHttpClientConfig.getPendingAcquireTimeout()))
+            .metrics(webfluxHttpClientConfig.isMetrics());
+    if (webfluxHttpClientConfig.getPendingAcquireMaxCount() != 0) {
+      builder.pendingAcquireMaxCount(webfluxHttpClientConfig.getPendingAcquireMaxCount());
+    }
+    if (webfluxHttpClientConfig.getMaxIdleTime() > 0) {
+      builder.maxIdleTime(Duration.ofMillis(webfluxHttpClientConfig.getMaxIdleTime()));
+    }
+    if (webfluxHttpClientConfig.getMaxLifeTime() > 0) {
+      builder.maxLifeTime(Duration.ofMillis(webfluxHttpClientConfig.getMaxLifeTime()));
+    }
+    if (webfluxHttpClientConfig.getEvictInBackground() > 0) {
+      builder.evictInBackground(Duration.ofMillis(webfluxHttpClientConfig.getEvictInBackground()));
+    }
+    if (webfluxHttpClientConfig.isLifo()) {
+      builder.lifo();
+    }
+    return builder.build();
+  }
+
+  /**
+   * HTTP/1.1 unless HTTP/2 is enabled. An HTTP/2 connection carries as many concurrent streams as
+   * the server allows, so the pool size limits connections rather than requests. HTTP/2 requires
+   * Reactor Netty 1.0, spring boot 2.4.0 or later.
+   */
+  private HttpClient protocol(final HttpClient httpClient) {
+    if (!webfluxHttpClientConfig.isHttp2() && !webfluxHttpClientConfig.isH2c()) {
+      return httpClient;
+    }
+    HttpClient http2Client =
+        webfluxHttpClientConfig.isH2c()
+            ? httpClient.protocol(HttpProtocol.H2C)
+            : httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+    if (webfluxHttpClientConfig.getHttp2InitialWindowSize() > 0) {
+      http2Client =
+          http2Client.http2Settings(
+              settings ->
+                  settings.initialWindowSize(webfluxHttpClientConfig.getHttp2InitialWindowSize()));
+    }
+    return http2Client;
   }
 
   /** Uses deprecated configuration to support older versions of spring boot */
@@ -69,64 +133,161 @@ public class SalesforceWebClient {
   @Qualifier("sfWebClient")
   @ConditionalOnMissingClass("reactor.netty.transport.logging.AdvancedByteBufFormat")
   public WebClient sfWebClient(final WebClient.Builder webClientBuilder) {
-    HttpClient httpClient =
-        HttpClient.create(
-                ConnectionProvider.create(
-                    "sfTokenManagerProvider", httpClientConfig.getMaxConnPerRoute()))
-            .tcpConfiguration(
-                tcpClient ->
-                    tcpClient
-                        .option(
-                            ChannelOption.CONNECT_TIMEOUT_MILLIS,
-                            httpClientConfig.getConnectionTimeout())
-                        .doOnConnected(
-                            conn ->
-                                conn.addHandlerLast(
-                                    new ReadTimeoutHandler(
-                                        httpClientConfig.getReadTimeout(),
-                                        TimeUnit.MILLISECONDS))));
-    return webClientBuilder
-        .clientConnector(new ReactorClientHttpConnector(httpClient))
+    return buildWebClient(
+        webClientBuilder,
+        providerName ->
+            protocol(
+                    HttpClient.create(
+                        ConnectionProvider.create(
+                            providerName, httpClientConfig.getMaxConnPerRoute())))
+                .tcpConfiguration(
+                    tcpClient ->
+                        tcpClient
+                            .option(
+                                ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                                httpClientConfig.getConnectionTimeout())
+                            .doOnConnected(
+                                conn ->
+                                    conn.addHandlerLast(
+                                        new ReadTimeoutHandler(
+                                            httpClientConfig.getReadTimeout(),
+                                            TimeUnit.MILLISECONDS)))));
+  }
+
+  /**
+   * With a single org the connector and filter are used as is. Routing by org and request priority
+   * read the Reactor Context with APIs added in Reactor 3.4, so they are only set up once
+   * additional orgs are configured or admission control is enabled and older versions of spring
+   * boot keep working with a single org.
+   */
+  private WebClient buildWebClient(
+      final WebClient.Builder webClientBuilder,
+      final Function<String, HttpClient> httpClientFactory) {
+    ClientHttpConnector connector =
+        new ReactorClientHttpConnector(
+            httpClientFactory.apply(webfluxHttpClientConfig.getPoolName()));
+    ExchangeFilterFunction filter =
+        (request, next) ->
+            authorize(DEFAULT_ORG, RequestPriority.NORMAL, request, request.url(), next);
+    if (orgRegistry.isMultiOrg()) {
+      Map<String, ClientHttpConnector> connectors = new HashMap<>();
+      connectors.put(DEFAULT_ORG, connector);
+      orgRegistry.getAuthClients().keySet().stream()
+          .filter(org -> !DEFAULT_ORG.equals(org))
+          .forEach(
+              org ->
+                  connectors.put(
+                      org,
+                      new ReactorClientHttpConnector(
+                          httpClientFactory.apply(
+                              webfluxHttpClientConfig.getPoolName() + "-" + org))));
+      connector = new SalesforceOrgRoutingConnector(connectors);
+    }
+    if (orgRegistry.isMultiOrg() || apiLimitConfig.isEnabled()) {
+      filter = authorizeFromContext();
+    }
+    webClientBuilder
+        .clientConnector(connector)
         .baseUrl(salesforceConfig.getHost())
-        .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-        .filter(addAuthHeader())
-        .filter(retryOnUnauthorized())
-        .build();
+        .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+    if (compositeBatchFilter.isEnabled()) {
+      // calls are coalesced before they are authorized, a batch is authorized as a single call
+      webClientBuilder.filter(compositeBatchFilter);
+    }
+    return webClientBuilder.filter(filter).build();
   }
 
-  private ExchangeFilterFunction addAuthHeader() {
+  /**
+   * Uses the token of the org selected in the Reactor Context and sends the request to its host,
+   * with the priority set in the Reactor Context.
+   */
+  private ExchangeFilterFunction authorizeFromContext() {
     return (request, next) ->
-        salesforceWebfluxAuthClient
-            .getToken()
-            .map(
-                token ->
-                    ClientRequest.from(request).header(HttpHeaders.AUTHORIZATION, token).build())
-            .flatMap(next::exchange);
+        Mono.deferContextual(
+            context -> {
+              String org = context.getOrDefault(ORG_KEY, DEFAULT_ORG);
+              RequestPriority priority = context.getOrDefault(PRIORITY_KEY, RequestPriority.NORMAL);
+              return authorize(
+                  org, priority, request, orgRegistry.routeToOrg(request.url(), org), next);
+            });
   }
 
-  private ExchangeFilterFunction retryOnUnauthorized() {
-    return (request, next) ->
-        next.exchange(request)
-            .flatMap(
-                (Function<ClientResponse, Mono<ClientResponse>>)
-                    clientResponse -> {
-                      if (clientResponse.statusCode() == HttpStatus.UNAUTHORIZED) {
-                        log.info("received 401 response, refreshing token and retrying request");
-                        return salesforceWebfluxAuthClient
-                            .refreshToken()
-                            .map(
-                                token ->
-                                    ClientRequest.from(request)
-                                        .headers(
-                                            headers ->
-                                                headers.replace(
-                                                    HttpHeaders.AUTHORIZATION,
-                                                    Collections.singletonList(token)))
-                                        .build())
-                            .flatMap(next::exchange);
-                      } else {
-                        return Mono.just(clientResponse);
-                      }
-                    });
+  /**
+   * Delays or rejects a low priority request while the org is close to its api limit, then selects
+   * one of the org's integration users for the request and releases it once the response arrived.
+   * The api usage reported with the response is recorded.
+   */
+  private Mono<ClientResponse> authorize(
+      final String org,
+      final RequestPriority priority,
+      final ClientRequest request,
+      final URI url,
+      final ExchangeFunction next) {
+    IntegrationUserPool<SalesforceWebfluxAuthClient> userPool = orgRegistry.getUserPool(org);
+    ApiLimitTracker apiLimitTracker = orgRegistry.getApiLimitTracker(org);
+    Mono<ClientResponse> response =
+        Mono.defer(
+            () -> {
+              IntegrationUserPool.Lease<SalesforceWebfluxAuthClient> lease = userPool.acquire();
+              return authorize(lease, org, request, url, next).doFinally(signal -> lease.release());
+            });
+    return Mono.defer(
+            () -> {
+              long delay = apiLimitTracker.admissionDelay(priority);
+              return delay > 0 ? Mono.delay(Duration.ofMillis(delay)).then(response) : response;
+            })
+        .doOnNext(
+            clientResponse ->
+                apiLimitTracker.update(
+                    clientResponse.headers().asHttpHeaders().getFirst(LIMIT_INFO_HEADER)));
+  }
+
+  /**
+   * Attaches the current token to each request. If Salesforce responds with a 401 the token is
+   * replaced and the request retried once. The token used by the request is passed along to the
+   * refresh so that a 401 for an already replaced token reuses the newer token. If no token can be
+   * obtained the user is skipped by following requests for a while.
+   */
+  private Mono<ClientResponse> authorize(
+      final IntegrationUserPool.Lease<SalesforceWebfluxAuthClient> lease,
+      final String org,
+      final ClientRequest request,
+      final URI url,
+      final ExchangeFunction next) {
+    SalesforceWebfluxAuthClient authClient = lease.getUser();
+    return authClient
+        .getSalesforceToken()
+        .doOnError(error -> lease.fail())
+        .flatMap(
+            token ->
+                next.exchange(withAuthorization(request, url, org, token))
+                    .flatMap(
+                        clientResponse -> {
+                          if (clientResponse.statusCode() == HttpStatus.UNAUTHORIZED) {
+                            log.info(
+                                "received 401 response, refreshing token and retrying request");
+                            authClient.getTokenManager().getMetrics().unauthorizedRetry();
+                            return clientResponse
+                                .releaseBody()
+                                .then(
+                                    authClient.refreshToken(token).doOnError(error -> lease.fail()))
+                                .flatMap(
+                                    refreshed ->
+                                        next.exchange(
+                                            withAuthorization(request, url, org, refreshed)));
+                          }
+                          return Mono.just(clientResponse);
+                        }));
+  }
+
+  /**
+   * Sends the request to the token's instance if the org uses the instance_url. The request is
+   * wrapped rather than copied, the token's precomputed Authorization header is set when the
+   * request is written.
+   */
+  private ClientRequest withAuthorization(
+      final ClientRequest request, final URI url, final String org, final SalesforceToken token) {
+    return new AuthorizedClientRequest(
+        request, orgRegistry.routeToInstance(url, org, token), token.getAuthorization());
   }
 }
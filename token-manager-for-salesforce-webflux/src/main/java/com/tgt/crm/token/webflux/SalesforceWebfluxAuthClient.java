@@ -4,17 +4,21 @@ import static com.tgt.crm.token.core.SalesforceConstants.EXCEPTION_COUNTER;
 import static com.tgt.crm.token.core.SalesforceConstants.EXCEPTION_TYPE_TAG;
 import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_EXCEPTION;
 
+import com.tgt.crm.token.core.AuthCircuitBreaker;
 import com.tgt.crm.token.core.SalesforceAuthResponse;
 import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenManager;
+import com.tgt.crm.token.core.TokenStore;
 import io.micrometer.core.instrument.MeterRegistry;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 @Slf4j
@@ -23,32 +27,75 @@ public class SalesforceWebfluxAuthClient {
 
   private final WebClient authWebClient;
   private final SalesforceConfig salesforceConfig;
+  private final TokenGrant tokenGrant;
   private final MeterRegistry meterRegistry;
-  private String token;
+  private final TokenManager tokenManager;
 
   public SalesforceWebfluxAuthClient(
       final @Qualifier("sfAuthWebClient") WebClient authWebClient,
       final SalesforceConfig salesforceConfig,
+      final TokenGrant tokenGrant,
+      final TokenStore tokenStore,
       final MeterRegistry meterRegistry) {
     this.authWebClient = authWebClient;
     this.salesforceConfig = salesforceConfig;
+    this.tokenGrant = tokenGrant;
     this.meterRegistry = meterRegistry;
+    this.tokenManager =
+        new TokenManager(
+            () -> requestToken().toFuture(),
+            tokenStore,
+            TokenStore.keyFor(salesforceConfig),
+            AuthCircuitBreaker.fromConfig(salesforceConfig),
+            // token responses complete on an event loop, keep the token store off it
+            task -> Schedulers.boundedElastic().schedule(task));
   }
 
   public Mono<String> getToken() {
-    // will be null on first call to Salesforce
-    if (this.token == null) {
-      log.info("token is null, calling refresh token to generate first token");
-      return refreshToken();
-    }
-    return Mono.just(this.token);
+    return getSalesforceToken().map(SalesforceToken::getAuthorization);
   }
 
+  /**
+   * Generates a new Salesforce token. Concurrent callers share a single in-flight refresh so a
+   * burst of 401s or a cold start results in one call to the Salesforce OAuth endpoint.
+   *
+   * @return the refreshed Salesforce oAuth bearer token
+   */
   public Mono<String> refreshToken() {
+    return Mono.defer(() -> refreshToken(tokenManager.getCachedToken()))
+        .map(SalesforceToken::getAuthorization);
+  }
+
+  /**
+   * Returns the cached token, generating the first token if there is none.
+   *
+   * @return the current token
+   */
+  public Mono<SalesforceToken> getSalesforceToken() {
+    return Mono.defer(() -> Mono.fromFuture(tokenManager.getToken()));
+  }
+
+  /**
+   * Replaces a token that Salesforce rejected with a 401. If the token was already replaced since
+   * the request was made, the newer token is used without calling Salesforce again.
+   *
+   * @param rejectedToken the token used for the request that failed
+   * @return a token newer than the rejected one
+   */
+  public Mono<SalesforceToken> refreshToken(final SalesforceToken rejectedToken) {
+    return Mono.defer(() -> Mono.fromFuture(tokenManager.refreshToken(rejectedToken)));
+  }
+
+  public TokenManager getTokenManager() {
+    return tokenManager;
+  }
+
+  private Mono<SalesforceAuthResponse> requestToken() {
     return authWebClient
         .post()
         .uri(salesforceConfig.getAuthUri())
-        .body(Mono.just(initAuthString()), String.class)
+        // evaluated per subscription so each retry gets a fresh body, e.g. a new jwt assertion
+        .body(Mono.fromSupplier(tokenGrant::requestBody), String.class)
         .retrieve()
         .bodyToMono(SalesforceAuthResponse.class)
         .retryWhen(
@@ -69,19 +116,6 @@ public class SalesforceWebfluxAuthClient {
                   .counter(EXCEPTION_COUNTER, EXCEPTION_TYPE_TAG, TOKEN_REFRESH_EXCEPTION)
                   .increment();
             })
-        .doOnSuccess(success -> log.info("token refresh successful"))
-        .map(val -> this.token = val.getSalesforceAuthToken());
-  }
-
-  private String initAuthString() {
-    return "grant_type=password"
-        + "&username="
-        + salesforceConfig.getUsername()
-        + "&password="
-        + URLEncoder.encode(salesforceConfig.getPassword(), StandardCharsets.UTF_8)
-        + "&client_id="
-        + salesforceConfig.getClientId()
-        + "&client_secret="
-        + salesforceConfig.getClientSecret();
+        .doOnSuccess(success -> log.info("token refresh successful"));
   }
 }
@@ -0,0 +1,43 @@
+package com.tgt.crm.token.webflux;
+
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceOrgRegistry;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * The {@link SalesforceOrgRegistry} of the WebClient clients. Requests select an org by setting
+ * {@link com.tgt.crm.token.core.SalesforceConstants#ORG_KEY} in the Reactor Context, requests
+ * without it go to the default org.
+ */
+@Configuration
+public class SalesforceWebfluxOrgRegistry
+    extends SalesforceOrgRegistry<SalesforceWebfluxAuthClient> {
+
+  public SalesforceWebfluxOrgRegistry(
+      final SalesforceWebfluxAuthClient salesforceWebfluxAuthClient,
+      final @Qualifier("sfAuthWebClient") WebClient authWebClient,
+      final SalesforceConfig salesforceConfig,
+      final TokenStore tokenStore,
+      final ApiLimitConfig apiLimitConfig,
+      final MeterRegistry meterRegistry) {
+    super(
+        salesforceWebfluxAuthClient,
+        salesforceConfig,
+        apiLimitConfig,
+        meterRegistry,
+        config ->
+            new SalesforceWebfluxAuthClient(
+                authWebClient.mutate().baseUrl(config.getHost()).build(),
+                config,
+                TokenGrant.fromConfig(config),
+                tokenStore,
+                meterRegistry),
+        SalesforceWebfluxAuthClient::getTokenManager);
+  }
+}
@@ -0,0 +1,33 @@
+package com.tgt.crm.token.webflux;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Connection pool of the Salesforce WebClient, sized by salesforce.httpclient.max-conn-per-route.
+ * Each org gets its own pool, named after the pool name and the org. Durations are in milliseconds,
+ * 0 disables the limit.
+ */
+@Data
+@ConfigurationProperties("salesforce.httpclient.webflux")
+public class WebfluxHttpClientConfig {
+  private String poolName = "sfTokenManagerProvider";
+  // requests waiting for a connection, 0 allows twice the pool size and -1 any number
+  private int pendingAcquireMaxCount;
+  private long pendingAcquireTimeout = 45_000;
+  // closes connections before the server or a load balancer drops them
+  private long maxIdleTime;
+  private long maxLifeTime;
+  // how often idle and expired connections are evicted in the background
+  private long evictInBackground;
+  // lease the most recently used connection first, so idle connections expire sooner
+  private boolean lifo;
+  // registers reactor.netty.connection.provider gauges with the Micrometer global registry
+  private boolean metrics = true;
+  // negotiates HTTP/2 with ALPN, falling back to HTTP/1.1 if the server does not support it
+  private boolean http2;
+  // HTTP/2 without TLS and without fallback, for a proxy or sidecar that speaks h2c
+  private boolean h2c;
+  // flow control window of each HTTP/2 stream in bytes, 0 keeps the protocol default of 65535
+  private int http2InitialWindowSize;
+}
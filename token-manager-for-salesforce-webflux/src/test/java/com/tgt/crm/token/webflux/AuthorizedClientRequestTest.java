@@ -0,0 +1,76 @@
+package com.tgt.crm.token.webflux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.net.URI;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.test.StepVerifier;
+
+public class AuthorizedClientRequestTest {
+
+  private static final URI URL = URI.create("https://default.my.salesforce.com/some/sf/url");
+  private static final URI INSTANCE_URL = URI.create("https://na1.salesforce.com/some/sf/url");
+  private static final String AUTHORIZATION = "Bearer token";
+  private static final String BODY = "{}";
+  private static final String CALL_OPTIONS_HEADER = "Sforce-Call-Options";
+  private static final String CALL_OPTIONS = "client=test";
+
+  @Test
+  public void delegatesToRequest_exceptUrlAndAuthorization() {
+    Consumer<ClientHttpRequest> httpRequest = request -> {};
+    ClientRequest request =
+        ClientRequest.create(HttpMethod.POST, URL)
+            .header(HttpHeaders.AUTHORIZATION, "Bearer stale")
+            .header(CALL_OPTIONS_HEADER, CALL_OPTIONS)
+            .cookie("cookie", "value")
+            .attribute("attribute", "value")
+            .httpRequest(httpRequest)
+            .body(BodyInserters.fromValue(BODY))
+            .build();
+
+    AuthorizedClientRequest tested =
+        new AuthorizedClientRequest(request, INSTANCE_URL, AUTHORIZATION);
+
+    assertEquals(HttpMethod.POST, tested.method());
+    assertEquals(INSTANCE_URL, tested.url());
+    assertEquals(List.of(AUTHORIZATION), tested.headers().get(HttpHeaders.AUTHORIZATION));
+    assertEquals(CALL_OPTIONS, tested.headers().getFirst(CALL_OPTIONS_HEADER));
+    assertSame(request.cookies(), tested.cookies());
+    assertSame(request.body(), tested.body());
+    assertSame(request.attributes(), tested.attributes());
+    assertSame(request.httpRequest(), tested.httpRequest());
+    assertEquals(request.logPrefix(), tested.logPrefix());
+  }
+
+  @Test
+  public void writeTo_authorizationSetOnceWithRequestHeaders() {
+    ClientRequest request =
+        ClientRequest.create(HttpMethod.POST, URL)
+            .header(HttpHeaders.AUTHORIZATION, "Bearer stale")
+            .header(CALL_OPTIONS_HEADER, CALL_OPTIONS)
+            .body(BodyInserters.fromValue(BODY))
+            .build();
+    MockClientHttpRequest clientHttpRequest =
+        new MockClientHttpRequest(HttpMethod.POST, INSTANCE_URL);
+
+    StepVerifier.create(
+            new AuthorizedClientRequest(request, INSTANCE_URL, AUTHORIZATION)
+                .writeTo(clientHttpRequest, ExchangeStrategies.withDefaults()))
+        .verifyComplete();
+
+    assertEquals(
+        List.of(AUTHORIZATION), clientHttpRequest.getHeaders().get(HttpHeaders.AUTHORIZATION));
+    assertEquals(CALL_OPTIONS, clientHttpRequest.getHeaders().getFirst(CALL_OPTIONS_HEADER));
+    StepVerifier.create(clientHttpRequest.getBodyAsString()).expectNext(BODY).verifyComplete();
+  }
+}
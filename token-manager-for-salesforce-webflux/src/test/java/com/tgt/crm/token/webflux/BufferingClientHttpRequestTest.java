@@ -0,0 +1,53 @@
+package com.tgt.crm.token.webflux;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class BufferingClientHttpRequestTest {
+
+  private static final URI URL =
+      URI.create("https://test.my.salesforce.com/services/data/v52.0/sobjects/Account");
+
+  private final BufferingClientHttpRequest tested =
+      new BufferingClientHttpRequest(HttpMethod.POST, URL);
+
+  @Test
+  public void request_describesCall() {
+    assertEquals(HttpMethod.POST, tested.getMethod());
+    assertEquals(URL, tested.getURI());
+    assertSame(tested, tested.getNativeRequest());
+  }
+
+  @Test
+  public void writeAndFlushWith_bodyJoined() {
+    StepVerifier.create(
+            tested.writeAndFlushWith(
+                Flux.just(Flux.just(buffer("{\"Name\":")), Flux.just(buffer("\"Acme\"}")))))
+        .verifyComplete();
+
+    assertTrue(tested.isCommitted());
+    assertArrayEquals("{\"Name\":\"Acme\"}".getBytes(StandardCharsets.UTF_8), tested.getBody());
+  }
+
+  @Test
+  public void setComplete_noBody() {
+    StepVerifier.create(tested.setComplete()).verifyComplete();
+
+    assertTrue(tested.isCommitted());
+    assertEquals(0, tested.getBody().length);
+  }
+
+  private DataBuffer buffer(final String content) {
+    return tested.bufferFactory().wrap(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,134 @@
+package com.tgt.crm.token.webflux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+public class RecordBatcherTest {
+
+  private static final Duration LONG_WINDOW = Duration.ofSeconds(5);
+  private static final Duration SHORT_WINDOW = Duration.ofMillis(50);
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+  @Test
+  public void fullBatches_emittedBySize_restOnComplete() {
+    assertEquals(
+        List.of(List.of(0, 1), List.of(2, 3), List.of(4)),
+        RecordBatcher.batch(Flux.range(0, 5), 2, LONG_WINDOW).collectList().block(TIMEOUT));
+  }
+
+  @Test
+  public void partialBatch_emittedAfterWindow() {
+    Sinks.Many<Integer> records = Sinks.many().unicast().onBackpressureBuffer();
+
+    Duration took =
+        StepVerifier.create(RecordBatcher.batch(records.asFlux(), 2, SHORT_WINDOW))
+            .then(() -> records.tryEmitNext(1))
+            .expectNext(List.of(1))
+            .then(() -> records.tryEmitNext(2))
+            .then(() -> records.tryEmitNext(3))
+            .expectNext(List.of(2, 3))
+            .then(records::tryEmitComplete)
+            .expectComplete()
+            .verify(TIMEOUT);
+
+    assertTrue(took.compareTo(SHORT_WINDOW) >= 0);
+  }
+
+  @Test
+  public void recordsRequested_perBatchRequested() {
+    AtomicLong requested = new AtomicLong();
+    Flux<Integer> records = Flux.range(0, 10).doOnRequest(requested::addAndGet);
+
+    StepVerifier.create(RecordBatcher.batch(records, 3, LONG_WINDOW), 1)
+        .expectNext(List.of(0, 1, 2))
+        .then(() -> assertEquals(3, requested.get()))
+        .thenRequest(2)
+        .expectNext(List.of(3, 4, 5), List.of(6, 7, 8))
+        .thenCancel()
+        .verify(TIMEOUT);
+
+    assertEquals(9, requested.get());
+  }
+
+  @Test
+  public void windowWithoutDemand_batchHeldUntilRequested() {
+    AtomicLong requested = new AtomicLong();
+    Sinks.Many<Integer> records = Sinks.many().unicast().onBackpressureBuffer();
+
+    StepVerifier.create(
+            RecordBatcher.batch(
+                records.asFlux().doOnRequest(requested::addAndGet), 2, SHORT_WINDOW),
+            1)
+        .then(() -> records.tryEmitNext(1))
+        .expectNext(List.of(1))
+        .then(() -> records.tryEmitNext(2))
+        .expectNoEvent(SHORT_WINDOW.multipliedBy(3))
+        .thenRequest(1)
+        .expectNext(List.of(2))
+        .thenCancel()
+        .verify(TIMEOUT);
+
+    // the second record was requested with the first batch, the window cut it before it arrived
+    assertEquals(2, requested.get());
+  }
+
+  @Test
+  public void partialBatch_recordsStillRequested_countedForNextBatch() {
+    AtomicLong requested = new AtomicLong();
+    Sinks.Many<Integer> records = Sinks.many().unicast().onBackpressureBuffer();
+
+    StepVerifier.create(
+            RecordBatcher.batch(
+                records.asFlux().doOnRequest(requested::addAndGet), 3, SHORT_WINDOW),
+            2)
+        .then(() -> records.tryEmitNext(1))
+        .expectNext(List.of(1))
+        .then(() -> records.tryEmitNext(2))
+        .then(() -> records.tryEmitNext(3))
+        .then(() -> records.tryEmitNext(4))
+        .expectNext(List.of(2, 3, 4))
+        .then(() -> assertEquals(6, requested.get()))
+        .thenRequest(1)
+        .then(() -> records.tryEmitNext(5))
+        .then(() -> records.tryEmitNext(6))
+        .then(() -> records.tryEmitNext(7))
+        .expectNext(List.of(5, 6, 7))
+        .thenCancel()
+        .verify(TIMEOUT);
+
+    // 3 batches of up to 3 records, 2 of them still requested for the first batch when it was cut
+    assertEquals(7, requested.get());
+  }
+
+  @Test
+  public void error_propagated() {
+    Flux<Integer> records = Flux.just(1).concatWith(Flux.error(new IllegalStateException()));
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> RecordBatcher.batch(records, 2, LONG_WINDOW).blockLast(TIMEOUT));
+  }
+
+  @Test
+  public void cancel_cancelsRecords() {
+    AtomicBoolean cancelled = new AtomicBoolean();
+    Flux<Integer> records = Flux.<Integer>never().doOnCancel(() -> cancelled.set(true));
+
+    StepVerifier.create(RecordBatcher.batch(records, 2, LONG_WINDOW))
+        .expectSubscription()
+        .thenCancel()
+        .verify(TIMEOUT);
+
+    assertTrue(cancelled.get());
+  }
+}
@@ -0,0 +1,354 @@
+package com.tgt.crm.token.webflux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tgt.crm.token.core.BulkIngest;
+import com.tgt.crm.token.core.BulkIngestConfig;
+import com.tgt.crm.token.core.BulkJob;
+import com.tgt.crm.token.core.BulkJobState;
+import com.tgt.crm.token.core.BulkOperation;
+import com.tgt.crm.token.core.BulkResults;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class SalesforceBulkIngestTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+  private static final String JOBS_PATH = "/services/data/v52.0/jobs/ingest";
+  private static final String HEADER = "Name\n";
+  private static final String ACCOUNTS = HEADER + "Acme\nGlobex\nInitech\n";
+  // a job of the first record only
+  private static final String ACME_JOB = HEADER + "Acme\n";
+  private static final String ACCOUNT = "Account";
+  private static final String CLOSE = "UploadComplete";
+  private static final String ABORT = "Aborted";
+  private static final String EXPIRED = "Expired";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final BulkIngestConfig config = new BulkIngestConfig();
+  private final SalesforceDispatcher salesforce = new SalesforceDispatcher();
+  private MockWebServer mockWebServer;
+  private WebClient webClient;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.setDispatcher(salesforce);
+    mockWebServer.start();
+    webClient =
+        WebClient.builder()
+            .baseUrl(mockWebServer.url("").toString())
+            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .build();
+    config.setPollInterval(1);
+    config.setMaxPollInterval(1);
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void csv_splitIntoJobs_eachUploadedClosedAndPolled() {
+    config.setMaxJobSize(HEADER.length() + "Acme\nGlobex\n".length());
+
+    StepVerifier.create(
+            tested().ingest(job(ACCOUNT), buffers("Name\nAc", "me\nGlobex\nInit", "ech")))
+        .expectNextMatches(job -> "job-0".equals(job.getId()) && completed(job))
+        .expectNextMatches(job -> "job-1".equals(job.getId()) && completed(job))
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertEquals(List.of(HEADER + "Acme\nGlobex\n", HEADER + "Initech"), salesforce.uploads);
+    assertEquals(List.of(CLOSE, CLOSE), salesforce.states);
+    assertEquals(
+        "{\"object\":\"Account\",\"operation\":\"insert\",\"contentType\":\"CSV\",\"lineEnding\":\"LF\"}",
+        salesforce.creates.get(0));
+    assertEquals(2, salesforce.creates.size());
+  }
+
+  @Test
+  public void csvFile_ingested(@TempDir final Path dir) throws IOException {
+    Path csv = Files.writeString(dir.resolve("accounts.csv"), ACCOUNTS);
+
+    StepVerifier.create(tested().ingest(job(ACCOUNT), csv))
+        .expectNextMatches(SalesforceBulkIngestTest::completed)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertEquals(List.of(ACCOUNTS), salesforce.uploads);
+  }
+
+  @Test
+  public void headerOnly_noJobs() {
+    StepVerifier.create(tested().ingest(job(ACCOUNT), buffers(HEADER)))
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void jobFailed_emittedWithState() {
+    StepVerifier.create(tested().ingest(job("Failing"), buffers(ACCOUNTS)))
+        .expectNextMatches(
+            job ->
+                job.getState() == BulkJobState.FAILED && "bad data".equals(job.getErrorMessage()))
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertEquals(List.of(CLOSE), salesforce.states);
+  }
+
+  @Test
+  public void uploadRejected_jobAborted() {
+    StepVerifier.create(tested().ingest(job("Unwritable"), buffers(ACCOUNTS)))
+        .expectError(WebClientResponseException.BadRequest.class)
+        .verify(TIMEOUT);
+
+    assertEquals(List.of(ABORT), salesforce.states);
+  }
+
+  @Test
+  public void uploadUnauthorized_sentAgainFromStart() {
+    String first = ACME_JOB;
+    String second = HEADER + "Globex\n";
+    config.setMaxJobSize(second.length());
+
+    StepVerifier.create(
+            new SalesforceBulkIngest(retrying(), new BulkIngest(config))
+                .ingest(job(EXPIRED), buffers("Name\nAc", "me\nGlo", "bex\n")))
+        .expectNextMatches(SalesforceBulkIngestTest::completed)
+        .expectNextMatches(SalesforceBulkIngestTest::completed)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertEquals(List.of(first, first, second, second), salesforce.uploads);
+    assertEquals(List.of(CLOSE, CLOSE), salesforce.states);
+  }
+
+  @Test
+  public void csvFileUploadUnauthorized_jobsReadAgainFromFile(@TempDir final Path dir)
+      throws IOException {
+    String first = ACME_JOB;
+    String second = HEADER + "Globex\n";
+    Path csv = Files.writeString(dir.resolve("accounts.csv"), HEADER + "Acme\nGlobex\n");
+    config.setMaxJobSize(second.length());
+
+    StepVerifier.create(
+            new SalesforceBulkIngest(retrying(), new BulkIngest(config)).ingest(job(EXPIRED), csv))
+        .expectNextMatches(SalesforceBulkIngestTest::completed)
+        .expectNextMatches(SalesforceBulkIngestTest::completed)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertEquals(List.of(first, first, second, second), salesforce.uploads);
+  }
+
+  @Test
+  public void abortRejected_suppressed() {
+    StepVerifier.create(tested().ingest(job("Unabortable"), buffers(ACCOUNTS)))
+        .expectErrorMatches(
+            error ->
+                error instanceof WebClientResponseException.BadRequest
+                    && Arrays.stream(error.getSuppressed())
+                        .anyMatch(WebClientResponseException.Conflict.class::isInstance))
+        .verify(TIMEOUT);
+
+    assertEquals(List.of(), salesforce.states);
+  }
+
+  @Test
+  public void invalidCsv_jobAborted() {
+    config.setMaxJobSize(ACME_JOB.length());
+
+    StepVerifier.create(tested().ingest(job(ACCOUNT), buffers(ACME_JOB, "Globex\n")))
+        .expectError(IllegalArgumentException.class)
+        .verify(TIMEOUT);
+
+    assertEquals(List.of(ABORT), salesforce.states);
+  }
+
+  @Test
+  public void invalidJob_error() {
+    StepVerifier.create(tested().ingest(new BulkJob(), buffers(ACCOUNTS)))
+        .expectError(IllegalArgumentException.class)
+        .verify(TIMEOUT);
+
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void results_streamed() throws InterruptedException {
+    String results =
+        DataBufferUtils.join(tested().results("job-0", BulkResults.SUCCESSFUL))
+            .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+            .block(TIMEOUT);
+
+    assertEquals("\"sf__Id\",\"sf__Created\",Name\n\"001\",\"true\",Acme\n", results);
+    RecordedRequest request = mockWebServer.takeRequest();
+    assertEquals(JOBS_PATH + "/job-0/successfulResults", request.getPath());
+    assertTrue(request.getHeader(HttpHeaders.ACCEPT).contains(BulkIngest.CSV_CONTENT_TYPE));
+  }
+
+  @Test
+  public void autowiredConstructor_configured() {
+    StepVerifier.create(
+            new SalesforceBulkIngest(webClient, config).ingest(job(ACCOUNT), buffers(ACCOUNTS)))
+        .expectNextMatches(SalesforceBulkIngestTest::completed)
+        .expectComplete()
+        .verify(TIMEOUT);
+
+    assertEquals(1, salesforce.creates.size());
+  }
+
+  /** Sends a request rejected with a 401 once more, like the token filter of sfWebClient. */
+  private WebClient retrying() {
+    return webClient
+        .mutate()
+        .filter(
+            (request, next) ->
+                next.exchange(request)
+                    .flatMap(
+                        response ->
+                            response.statusCode() == HttpStatus.UNAUTHORIZED
+                                ? response.releaseBody().then(next.exchange(request))
+                                : Mono.just(response)))
+        .build();
+  }
+
+  private SalesforceBulkIngest tested() {
+    return new SalesforceBulkIngest(webClient, new BulkIngest(config));
+  }
+
+  private static BulkJob job(final String object) {
+    BulkJob job = new BulkJob();
+    job.setObject(object);
+    job.setOperation(BulkOperation.INSERT);
+    return job;
+  }
+
+  private static boolean completed(final BulkJob job) {
+    return job.getState() == BulkJobState.JOB_COMPLETE;
+  }
+
+  private static Flux<DataBuffer> buffers(final String... pieces) {
+    return Flux.fromArray(pieces)
+        .map(
+            piece ->
+                DefaultDataBufferFactory.sharedInstance.wrap(
+                    piece.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Runs jobs like Salesforce: a job is in progress on the first poll and complete on the next.
+   * Jobs of Failing fail, uploads for Unwritable and Unabortable are rejected and Unabortable jobs
+   * cannot be aborted. The first upload of each Expired job is rejected with a 401.
+   */
+  private static final class SalesforceDispatcher extends Dispatcher {
+
+    private static final int FIRST_POLL = 1;
+
+    private final List<String> creates = new CopyOnWriteArrayList<>();
+    private final List<String> uploads = new CopyOnWriteArrayList<>();
+    private final List<String> states = new CopyOnWriteArrayList<>();
+    private final Map<String, String> objects = new ConcurrentHashMap<>();
+    private final Map<String, Integer> polls = new ConcurrentHashMap<>();
+    private final Set<String> expired = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public MockResponse dispatch(final RecordedRequest request) {
+      String path = String.valueOf(request.getPath());
+      if (path.endsWith("/successfulResults")) {
+        return new MockResponse()
+            .setHeader(HttpHeaders.CONTENT_TYPE, BulkIngest.CSV_CONTENT_TYPE)
+            .setBody("\"sf__Id\",\"sf__Created\",Name\n\"001\",\"true\",Acme\n");
+      }
+      String body = request.getBody().clone().readUtf8();
+      if (JOBS_PATH.equals(path)) {
+        String id = "job-" + creates.size();
+        creates.add(body);
+        objects.put(id, read(body).path("object").asText());
+        return job(id, "Open");
+      }
+      String id = path.substring(JOBS_PATH.length() + 1).replace("/batches", "");
+      String object = objects.get(id);
+      if (path.endsWith("/batches")) {
+        return upload(id, object, body);
+      }
+      if ("PATCH".equals(request.getMethod())) {
+        if ("Unabortable".equals(object)) {
+          return new MockResponse().setResponseCode(409);
+        }
+        states.add(read(body).path("state").asText());
+        return job(id, states.get(states.size() - 1));
+      }
+      if (polls.merge(id, 1, Integer::sum) == FIRST_POLL) {
+        return job(id, "InProgress");
+      }
+      return "Failing".equals(object)
+          ? json("{\"id\":\"" + id + "\",\"state\":\"Failed\",\"errorMessage\":\"bad data\"}")
+          : job(id, "JobComplete");
+    }
+
+    private MockResponse upload(final String id, final String object, final String body) {
+      uploads.add(body);
+      if (EXPIRED.equals(object) && expired.add(id)) {
+        return new MockResponse().setResponseCode(401);
+      }
+      return object.startsWith("Un")
+          ? new MockResponse().setResponseCode(400)
+          : new MockResponse().setResponseCode(201);
+    }
+
+    private static JsonNode read(final String body) {
+      try {
+        return MAPPER.readTree(body);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static MockResponse job(final String id, final String state) {
+      return json("{\"id\":\"" + id + "\",\"state\":\"" + state + "\"}");
+    }
+
+    private static MockResponse json(final String body) {
+      return new MockResponse()
+          .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+          .setBody(body);
+    }
+  }
+}
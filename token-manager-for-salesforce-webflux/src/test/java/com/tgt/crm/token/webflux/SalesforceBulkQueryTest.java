@@ -0,0 +1,234 @@
+package com.tgt.crm.token.webflux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tgt.crm.token.core.BulkIngest;
+import com.tgt.crm.token.core.BulkJob;
+import com.tgt.crm.token.core.BulkJobFailedException;
+import com.tgt.crm.token.core.BulkJobState;
+import com.tgt.crm.token.core.BulkOperation;
+import com.tgt.crm.token.core.BulkQuery;
+import com.tgt.crm.token.core.BulkQueryConfig;
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class SalesforceBulkQueryTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+  private static final String JOBS_PATH = "/services/data/v52.0/jobs/query";
+  private static final String ACCOUNTS = "SELECT Id, Name FROM Account";
+  // the pages joined, a line break in a quoted field does not end the header of a page
+  private static final String RESULTS = "Id,Name\n001,Acme\n002,\"Glo\nbex\"\n003,Initech\n";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final BulkQueryConfig config = new BulkQueryConfig();
+  private final SalesforceDispatcher salesforce = new SalesforceDispatcher();
+  private MockWebServer mockWebServer;
+  private WebClient webClient;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.setDispatcher(salesforce);
+    mockWebServer.start();
+    webClient =
+        WebClient.builder()
+            .baseUrl(mockWebServer.url("").toString())
+            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .build();
+    config.setPollInterval(1);
+    config.setMaxPollInterval(1);
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void query_pagesFollowedAndJoined() {
+    assertEquals(RESULTS, join(tested().query(job(ACCOUNTS))));
+
+    assertEquals(
+        "{\"operation\":\"query\",\"query\":\"SELECT Id, Name FROM Account\","
+            + "\"contentType\":\"CSV\",\"lineEnding\":\"LF\"}",
+        salesforce.creates.get(0));
+    String results = JOBS_PATH + "/job-0/results";
+    assertEquals(
+        List.of(results, results + "?locator=page-1", results + "?locator=page-2"),
+        salesforce.pages);
+  }
+
+  @Test
+  public void queryToFile_resultsWritten(@TempDir final Path dir) throws IOException {
+    Path csv = dir.resolve("accounts.csv");
+    try (AsynchronousFileChannel channel =
+        AsynchronousFileChannel.open(csv, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      StepVerifier.create(tested().query(job(ACCOUNTS), channel))
+          .expectNextMatches(job -> job.getState() == BulkJobState.JOB_COMPLETE)
+          .expectComplete()
+          .verify(TIMEOUT);
+    }
+
+    assertEquals(RESULTS, Files.readString(csv));
+  }
+
+  @Test
+  public void jobFailed_error() {
+    StepVerifier.create(tested().query(job("SELECT Failing FROM Account")))
+        .expectErrorMatches(
+            error ->
+                error instanceof BulkJobFailedException
+                    && ((BulkJobFailedException) error).getState() == BulkJobState.FAILED)
+        .verify(TIMEOUT);
+
+    assertEquals(List.of(), salesforce.pages);
+  }
+
+  @Test
+  public void pageRejected_error() {
+    StepVerifier.create(tested().query(job("SELECT Expired FROM Account")))
+        .expectError(WebClientResponseException.NotFound.class)
+        .verify(TIMEOUT);
+
+    assertEquals(1, salesforce.pages.size());
+  }
+
+  @Test
+  public void invalidJob_error() {
+    StepVerifier.create(tested().query(new BulkJob()))
+        .expectError(IllegalArgumentException.class)
+        .verify(TIMEOUT);
+
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void autowiredConstructor_configured() {
+    config.setMaxRecords(1);
+
+    assertEquals(RESULTS, join(new SalesforceBulkQuery(webClient, config).query(job(ACCOUNTS))));
+
+    assertTrue(salesforce.pages.get(0).endsWith("/results?maxRecords=1"));
+    assertTrue(salesforce.pages.get(2).endsWith("/results?maxRecords=1&locator=page-2"));
+  }
+
+  private SalesforceBulkQuery tested() {
+    return new SalesforceBulkQuery(webClient, new BulkQuery(config));
+  }
+
+  private static BulkJob job(final String query) {
+    BulkJob job = new BulkJob();
+    job.setOperation(BulkOperation.QUERY);
+    job.setQuery(query);
+    return job;
+  }
+
+  private static String join(final Flux<DataBuffer> csv) {
+    return DataBufferUtils.join(csv)
+        .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+        .block(TIMEOUT);
+  }
+
+  /**
+   * Runs queries like Salesforce: a job is in progress on the first poll and complete on the next.
+   * Its results have three pages, the pages after the first are sent a few bytes at a time. Jobs of
+   * Failing queries fail and the results of Expired queries are not found.
+   */
+  private static final class SalesforceDispatcher extends Dispatcher {
+
+    private static final int FIRST_POLL = 1;
+    private static final List<String> PAGES =
+        List.of("Id,Name\n001,Acme\n", "Id,Name\n002,\"Glo\nbex\"\n", "Id,Name\n003,Initech\n");
+
+    private final List<String> creates = new CopyOnWriteArrayList<>();
+    private final List<String> pages = new CopyOnWriteArrayList<>();
+    private final Map<String, String> queries = new ConcurrentHashMap<>();
+    private final Map<String, Integer> polls = new ConcurrentHashMap<>();
+
+    @Override
+    public MockResponse dispatch(final RecordedRequest request) {
+      String path = String.valueOf(request.getPath());
+      if (JOBS_PATH.equals(path)) {
+        String body = request.getBody().clone().readUtf8();
+        String id = "job-" + creates.size();
+        creates.add(body);
+        queries.put(id, read(body).path("query").asText());
+        return job(id, "UploadComplete");
+      }
+      String id = path.substring(JOBS_PATH.length() + 1).replaceAll("/results.*", "");
+      String query = queries.get(id);
+      if (path.contains("/results")) {
+        return page(path, query);
+      }
+      if (polls.merge(id, 1, Integer::sum) == FIRST_POLL) {
+        return job(id, "InProgress");
+      }
+      return query.contains("Failing")
+          ? json("{\"id\":\"" + id + "\",\"state\":\"Failed\",\"errorMessage\":\"bad query\"}")
+          : job(id, "JobComplete");
+    }
+
+    private MockResponse page(final String path, final String query) {
+      pages.add(path);
+      if (query.contains("Expired")) {
+        return new MockResponse().setResponseCode(404);
+      }
+      int page = path.contains("locator=") ? Integer.parseInt(path.replaceAll(".*page-", "")) : 0;
+      MockResponse response =
+          new MockResponse()
+              .setHeader(HttpHeaders.CONTENT_TYPE, BulkIngest.CSV_CONTENT_TYPE)
+              .setHeader(
+                  BulkQuery.LOCATOR_HEADER, page + 1 < PAGES.size() ? "page-" + (page + 1) : "null")
+              .setBody(PAGES.get(page));
+      return page == 0 ? response : response.throttleBody(3, 10, TimeUnit.MILLISECONDS);
+    }
+
+    private static JsonNode read(final String body) {
+      try {
+        return MAPPER.readTree(body);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static MockResponse job(final String id, final String state) {
+      return json("{\"id\":\"" + id + "\",\"state\":\"" + state + "\"}");
+    }
+
+    private static MockResponse json(final String body) {
+      return new MockResponse()
+          .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+          .setBody(body);
+    }
+  }
+}
@@ -0,0 +1,284 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.SalesforceConstants.COMPOSITE_BATCH_SIZE_SUMMARY;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_KEY;
+import static com.tgt.crm.token.core.SalesforceConstants.PRIORITY_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tgt.crm.token.core.CompositeBatchConfig;
+import com.tgt.crm.token.core.RequestPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+public class SalesforceCompositeBatchFilterTest {
+
+  private static final int TIMEOUT = 5; // seconds
+  private static final String BATCH_PATH = "/services/data/v52.0/composite";
+  private static final String ACCOUNT_PATH = "/services/data/v52.0/sobjects/Account/";
+  private static final String MISSING = "missing";
+  private static final String DIRECT = "direct";
+  private static final String FIRST = "001";
+  private static final String SECOND = "002";
+  private static final String ERROR = "error";
+  private static final String ACCOUNT = "{\"Name\":\"Acme\"}";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CompositeBatchConfig config = new CompositeBatchConfig();
+  private MockWebServer mockWebServer;
+  private SalesforceCompositeBatchFilter tested;
+  private WebClient webClient;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.setDispatcher(new BatchDispatcher());
+    mockWebServer.start();
+    config.setEnabled(true);
+    config.setWindow(TimeUnit.SECONDS.toMillis(TIMEOUT));
+    config.setMaxSize(2);
+    tested =
+        new SalesforceCompositeBatchFilter(
+            config, meterRegistry, ExchangeStrategies.withDefaults());
+    webClient = WebClient.builder().filter(tested).build();
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void concurrentCalls_sentAsOneBatch() throws InterruptedException {
+    assertTrue(tested.isEnabled());
+
+    Mono<String> get = get(ACCOUNT_PATH + FIRST);
+    Mono<String> patch =
+        webClient
+            .patch()
+            .uri(url(ACCOUNT_PATH + MISSING))
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(ACCOUNT)
+            .retrieve()
+            .bodyToMono(String.class)
+            .onErrorResume(
+                WebClientResponseException.class,
+                e -> Mono.just(e.getRawStatusCode() + " " + e.getResponseBodyAsString()));
+
+    StepVerifier.create(
+            Mono.zip(get, patch)
+                .contextWrite(Context.of(ORG_KEY, "secondary", PRIORITY_KEY, RequestPriority.LOW)))
+        .assertNext(
+            responses -> {
+              assertEquals(
+                  "{\"url\":\"/services/data/v52.0/sobjects/Account/001\"}", responses.getT1());
+              assertEquals("499 [{\"errorCode\":\"NOT_FOUND\"}]", responses.getT2());
+            })
+        .verifyComplete();
+    RecordedRequest batchReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(batchReq);
+    assertEquals("POST", batchReq.getMethod());
+    assertEquals(BATCH_PATH, batchReq.getPath());
+    assertEquals(MediaType.APPLICATION_JSON_VALUE, batchReq.getHeader(HttpHeaders.CONTENT_TYPE));
+    assertTrue(
+        batchReq
+            .getBody()
+            .readUtf8()
+            .contains(
+                "{\"method\":\"PATCH\",\"url\":\"/services/data/v52.0/sobjects/Account/missing\","
+                    + "\"body\":"
+                    + ACCOUNT
+                    + ",\"referenceId\":"));
+    assertEquals(1, mockWebServer.getRequestCount());
+    assertEquals(2, meterRegistry.get(COMPOSITE_BATCH_SIZE_SUMMARY).summary().totalAmount());
+  }
+
+  @Test
+  public void aloneWhenWindowPassed_sentOnItsOwn() throws InterruptedException {
+    config.setWindow(10);
+
+    StepVerifier.create(get(ACCOUNT_PATH + FIRST)).expectNext(DIRECT).verifyComplete();
+
+    RecordedRequest request = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(request);
+    assertEquals(ACCOUNT_PATH + FIRST, request.getPath());
+  }
+
+  @Test
+  public void batchReady_leaderGoesOnOnParallelScheduler() {
+    config.setWindow(10);
+    AtomicReference<String> thread = new AtomicReference<>();
+    webClient =
+        WebClient.builder()
+            .filter(tested)
+            .filter(
+                (request, next) -> {
+                  thread.set(Thread.currentThread().getName());
+                  return next.exchange(request);
+                })
+            .build();
+
+    StepVerifier.create(get(ACCOUNT_PATH + FIRST)).expectNext(DIRECT).verifyComplete();
+
+    assertTrue(thread.get().startsWith("parallel-"), thread.get());
+  }
+
+  @Test
+  public void codecCustomizers_appliedToStrategies() {
+    AtomicInteger customized = new AtomicInteger();
+    DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    beanFactory.registerSingleton(
+        "codecCustomizer", (CodecCustomizer) configurer -> customized.incrementAndGet());
+
+    SalesforceCompositeBatchFilter filter =
+        new SalesforceCompositeBatchFilter(
+            config, meterRegistry, beanFactory.getBeanProvider(CodecCustomizer.class));
+
+    assertTrue(filter.isEnabled());
+    assertEquals(1, customized.get());
+  }
+
+  @Test
+  public void notBatchable_sentOnItsOwn() throws InterruptedException {
+    StepVerifier.create(get("/services/apexrest/x")).expectNext(DIRECT).verifyComplete();
+    StepVerifier.create(
+            webClient
+                .post()
+                .uri(url(ACCOUNT_PATH))
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("Name=Acme")
+                .retrieve()
+                .bodyToMono(String.class))
+        .expectNext(DIRECT)
+        .verifyComplete();
+
+    assertNotNull(mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS));
+    RecordedRequest request = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(request);
+    assertEquals(ACCOUNT_PATH, request.getPath());
+    assertEquals("Name=Acme", request.getBody().readUtf8());
+  }
+
+  @Test
+  public void batchRequestFailed_returnedToEachCall() {
+    StepVerifier.create(
+            Mono.zip(status(ACCOUNT_PATH + "503"), status(ACCOUNT_PATH + SECOND), (a, b) -> a + b))
+        .expectNext(2 * HttpStatus.SERVICE_UNAVAILABLE.value())
+        .verifyComplete();
+    assertEquals(1, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void batchRequestNotSent_errorToEachCall() throws IOException {
+    mockWebServer.shutdown();
+
+    StepVerifier.create(
+            Mono.zip(
+                get(ACCOUNT_PATH + FIRST).onErrorReturn(ERROR),
+                get(ACCOUNT_PATH + SECOND).onErrorReturn(ERROR)))
+        .assertNext(
+            responses -> {
+              assertEquals(ERROR, responses.getT1());
+              assertEquals(ERROR, responses.getT2());
+            })
+        .verifyComplete();
+    assertEquals(2, meterRegistry.get(COMPOSITE_BATCH_SIZE_SUMMARY).summary().totalAmount());
+  }
+
+  @Test
+  public void leaderCancelled_batchAbandoned() throws InterruptedException {
+    config.setWindow(200);
+
+    StepVerifier.create(get(ACCOUNT_PATH + FIRST).timeout(Duration.ofMillis(50)))
+        .expectError(TimeoutException.class)
+        .verify();
+    // the next call opens a new batch instead of joining the abandoned one
+    StepVerifier.create(get(ACCOUNT_PATH + SECOND)).expectNext(DIRECT).verifyComplete();
+
+    RecordedRequest request = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(request);
+    assertEquals(ACCOUNT_PATH + SECOND, request.getPath());
+    assertEquals(1, mockWebServer.getRequestCount());
+  }
+
+  private String url(final String path) {
+    return mockWebServer.url(path).toString();
+  }
+
+  private Mono<String> get(final String path) {
+    return webClient.get().uri(url(path)).retrieve().bodyToMono(String.class);
+  }
+
+  private Mono<Integer> status(final String path) {
+    return webClient
+        .get()
+        .uri(url(path))
+        .exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode()));
+  }
+
+  /** Answers each subrequest with its url, or an error if the url ends with "missing". */
+  private static final class BatchDispatcher extends Dispatcher {
+
+    @Override
+    public MockResponse dispatch(final RecordedRequest request) {
+      if (!BATCH_PATH.equals(request.getPath())) {
+        return new MockResponse().setBody(DIRECT);
+      }
+      String body = request.getBody().clone().readUtf8();
+      if (body.contains("503")) {
+        return new MockResponse().setResponseCode(503);
+      }
+      try {
+        ObjectNode response = MAPPER.createObjectNode();
+        ArrayNode results = response.putArray("compositeResponse");
+        for (JsonNode subrequest : MAPPER.readTree(body).get("compositeRequest")) {
+          String url = subrequest.get("url").asText();
+          ObjectNode result = results.addObject();
+          if (url.endsWith(MISSING)) {
+            result
+                .put("httpStatusCode", 499)
+                .putArray("body")
+                .addObject()
+                .put("errorCode", "NOT_FOUND");
+          } else {
+            result.put("httpStatusCode", 200).putObject("body").put("url", url);
+          }
+        }
+        return new MockResponse()
+            .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .setBody(MAPPER.writeValueAsString(response));
+      } catch (IOException e) {
+        return new MockResponse().setResponseCode(400);
+      }
+    }
+  }
+}
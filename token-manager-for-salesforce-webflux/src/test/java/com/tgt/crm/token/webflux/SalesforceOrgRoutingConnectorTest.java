@@ -0,0 +1,75 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_KEY;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+@ExtendWith(MockitoExtension.class)
+public class SalesforceOrgRoutingConnectorTest {
+
+  private static final String ORG = "secondary";
+  private static final URI URL = URI.create("https://secondary.my.salesforce.com/some/sf/url");
+  private static final Function<ClientHttpRequest, Mono<Void>> CALLBACK = request -> Mono.empty();
+
+  @Mock private ClientHttpConnector defaultConnector;
+  @Mock private ClientHttpConnector orgConnector;
+  @Mock private ClientHttpResponse response;
+
+  private SalesforceOrgRoutingConnector tested;
+
+  @BeforeEach
+  public void setUp() {
+    tested =
+        new SalesforceOrgRoutingConnector(Map.of(DEFAULT_ORG, defaultConnector, ORG, orgConnector));
+  }
+
+  @Test
+  public void noOrgInContext_defaultConnectorUsed() {
+    when(defaultConnector.connect(any(), any(), any())).thenReturn(Mono.just(response));
+
+    StepVerifier.create(tested.connect(HttpMethod.GET, URL, CALLBACK))
+        .expectNext(response)
+        .verifyComplete();
+    verifyNoInteractions(orgConnector);
+  }
+
+  @Test
+  public void orgInContext_orgConnectorUsed() {
+    when(orgConnector.connect(any(), any(), any())).thenReturn(Mono.just(response));
+
+    StepVerifier.create(
+            tested.connect(HttpMethod.GET, URL, CALLBACK).contextWrite(Context.of(ORG_KEY, ORG)))
+        .expectNext(response)
+        .verifyComplete();
+    verifyNoInteractions(defaultConnector);
+  }
+
+  @Test
+  public void unknownOrgInContext_error() {
+    StepVerifier.create(
+            tested
+                .connect(HttpMethod.GET, URL, CALLBACK)
+                .contextWrite(Context.of(ORG_KEY, "unknown")))
+        .expectError(IllegalArgumentException.class)
+        .verify();
+    verifyNoInteractions(defaultConnector, orgConnector);
+  }
+}
@@ -0,0 +1,187 @@
+package com.tgt.crm.token.webflux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tgt.crm.token.core.SObjectCollections;
+import com.tgt.crm.token.core.SObjectCollectionsConfig;
+import com.tgt.crm.token.core.SaveResult;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class SalesforceSObjectWriterTest {
+
+  private static final int TIMEOUT = 5; // seconds
+  private static final String ACCOUNT = "Account";
+  private static final String NAME = "Name";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final SObjectCollectionsConfig config = new SObjectCollectionsConfig();
+  private final AtomicInteger read = new AtomicInteger();
+  private final List<Integer> readWhenCalled = new CopyOnWriteArrayList<>();
+  private MockWebServer mockWebServer;
+  private WebClient webClient;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.setDispatcher(new CollectionsDispatcher());
+    mockWebServer.start();
+    webClient =
+        WebClient.builder()
+            .baseUrl(mockWebServer.url("").toString())
+            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .build();
+    config.setBatchSize(2);
+    config.setConcurrency(2);
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void insert_sentInBatches_resultsInOrder() throws InterruptedException {
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    SalesforceSObjectWriter tested =
+        new SalesforceSObjectWriter(
+            webClient, config, beanFactory.getBeanProvider(ObjectMapper.class));
+
+    List<SaveResult<Map<String, String>>> results =
+        tested.insert(ACCOUNT, accounts(5)).collectList().block(Duration.ofSeconds(TIMEOUT));
+
+    assertNotNull(results);
+    assertEquals(
+        List.of("id-0", "id-1", "id-2", "id-3", "id-4"),
+        results.stream().map(SaveResult::getId).collect(Collectors.toList()));
+    assertEquals("0", results.get(0).getRecord().get(NAME));
+    assertTrue(results.get(4).isSuccess());
+    assertEquals(3, mockWebServer.getRequestCount());
+    for (int i = 0; i < 3; i++) {
+      RecordedRequest request = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+      assertNotNull(request);
+      assertEquals(HttpMethod.POST.name(), request.getMethod());
+      assertEquals("/services/data/v52.0/composite/sobjects", request.getPath());
+    }
+  }
+
+  @Test
+  public void update_sentAsPatch() throws InterruptedException {
+    StepVerifier.create(writer().update(ACCOUNT, accounts(1)))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify(Duration.ofSeconds(TIMEOUT));
+
+    RecordedRequest request = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(request);
+    assertEquals(HttpMethod.PATCH.name(), request.getMethod());
+  }
+
+  @Test
+  public void records_notReadAheadOfCallsInFlight() {
+    config.setBatchSize(1);
+    config.setConcurrency(1);
+
+    StepVerifier.create(writer().insert(ACCOUNT, accounts(3)))
+        .expectNextCount(3)
+        .expectComplete()
+        .verify(Duration.ofSeconds(TIMEOUT));
+
+    assertEquals(List.of(1, 2, 3), readWhenCalled);
+  }
+
+  @Test
+  public void callFailed_everyRecordFailed() {
+    StepVerifier.create(writer().insert("Missing", Flux.just(Map.of(NAME, "a"), Map.of(NAME, "b"))))
+        .expectNextMatches(SalesforceSObjectWriterTest::invalidType)
+        .expectNextMatches(SalesforceSObjectWriterTest::invalidType)
+        .expectComplete()
+        .verify(Duration.ofSeconds(TIMEOUT));
+    assertEquals(1, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void unexpectedResponse_error() {
+    StepVerifier.create(writer().insert("Unexpected", Flux.just(Map.of(NAME, "a"))))
+        .expectError(IOException.class)
+        .verify(Duration.ofSeconds(TIMEOUT));
+    assertEquals(1, mockWebServer.getRequestCount());
+  }
+
+  private SalesforceSObjectWriter writer() {
+    return new SalesforceSObjectWriter(webClient, new SObjectCollections(config, MAPPER));
+  }
+
+  private static boolean invalidType(final SaveResult<Map<String, String>> result) {
+    return !result.isSuccess() && "INVALID_TYPE".equals(result.getErrors().get(0).getStatusCode());
+  }
+
+  /** Named accounts, counting the records read. */
+  private Flux<Map<String, String>> accounts(final int count) {
+    return Flux.range(0, count)
+        .map(i -> Map.of(NAME, String.valueOf(i)))
+        .doOnNext(account -> read.incrementAndGet());
+  }
+
+  /** Saves the accounts with an id from their name, rejects other types. */
+  private final class CollectionsDispatcher extends Dispatcher {
+
+    @Override
+    public MockResponse dispatch(final RecordedRequest request) {
+      JsonNode records;
+      try {
+        records = MAPPER.readTree(request.getBody().clone().readUtf8()).path("records");
+      } catch (IOException e) {
+        return new MockResponse().setResponseCode(500);
+      }
+      String type = records.path(0).path("attributes").path("type").asText();
+      if ("Missing".equals(type)) {
+        return json(400, "[{\"errorCode\":\"INVALID_TYPE\",\"message\":\"no such type\"}]");
+      }
+      if ("Unexpected".equals(type)) {
+        return json(200, "[]");
+      }
+      readWhenCalled.add(read.get());
+      List<String> results = new ArrayList<>();
+      records.forEach(
+          record ->
+              results.add(
+                  "{\"id\":\"id-"
+                      + record.path(NAME).asText()
+                      + "\",\"success\":true,\"errors\":[]}"));
+      return json(200, "[" + String.join(",", results) + "]");
+    }
+
+    private MockResponse json(final int status, final String body) {
+      return new MockResponse()
+          .setResponseCode(status)
+          .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+          .setBody(body);
+    }
+  }
+}
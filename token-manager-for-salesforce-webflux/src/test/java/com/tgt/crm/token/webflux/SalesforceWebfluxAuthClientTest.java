@@ -12,7 +12,9 @@ import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tgt.crm.token.core.InMemoryTokenStore;
 import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceToken;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import java.io.IOException;
@@ -34,7 +36,9 @@ import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 @Slf4j
@@ -42,10 +46,10 @@ import reactor.test.StepVerifier;
 public class SalesforceWebfluxAuthClientTest {
 
   private static final String BEARER_TOKEN = "Bearer bearerToken";
-  private static final String TEST_USER_NAME = "testUserName";
-  private static final String TEST_PASSWORD = "testPassword!@#$%^&*()";
-  private static final String TEST_CLIENT_ID = "testClientId";
-  private static final String TEST_CLIENT_SECRET = "testClientSecret";
+  private static final String REQUEST_BODY =
+      "grant_type=password&username=testUserName&password=testPassword&client_id=testClientId"
+          + "&client_secret=testClientSecret";
+  private static final int CONCURRENT_SUBSCRIBERS = 1000;
 
   @Mock private SalesforceConfig salesforceConfig;
   @Mock private ExchangeFunction exchangeFunction;
@@ -82,15 +86,17 @@ public class SalesforceWebfluxAuthClientTest {
   @BeforeEach
   public void setUp() {
     WebClient webClient = WebClient.builder().exchangeFunction(exchangeFunction).build();
-    systemUnderTest = new SalesforceWebfluxAuthClient(webClient, salesforceConfig, meterRegistry);
+    systemUnderTest =
+        new SalesforceWebfluxAuthClient(
+            webClient,
+            salesforceConfig,
+            () -> REQUEST_BODY,
+            new InMemoryTokenStore(),
+            meterRegistry);
   }
 
   @Test
   public void testGetToken_getTokenFirst_useCachedSecond() {
-    when(salesforceConfig.getUsername()).thenReturn(TEST_USER_NAME);
-    when(salesforceConfig.getPassword()).thenReturn(TEST_PASSWORD);
-    when(salesforceConfig.getClientId()).thenReturn(TEST_CLIENT_ID);
-    when(salesforceConfig.getClientSecret()).thenReturn(TEST_CLIENT_SECRET);
     when(salesforceConfig.getAuthUri()).thenReturn(AUTH_URI);
 
     when(exchangeFunction.exchange(any(ClientRequest.class)))
@@ -110,15 +116,13 @@ public class SalesforceWebfluxAuthClientTest {
     ClientRequest actualRequest = requestCaptor.getValue();
     assertEquals(HttpMethod.POST, actualRequest.method());
     assertEquals(AUTH_URI, actualRequest.url().getPath());
+    assertEquals(
+        BEARER_TOKEN, systemUnderTest.getTokenManager().getCachedToken().getAuthorization());
     // not possible to read body from ClientRequest currently, verified in integration tests
   }
 
   @Test
   public void testGetToken_refreshToken() {
-    when(salesforceConfig.getUsername()).thenReturn(TEST_USER_NAME);
-    when(salesforceConfig.getPassword()).thenReturn(TEST_PASSWORD);
-    when(salesforceConfig.getClientId()).thenReturn(TEST_CLIENT_ID);
-    when(salesforceConfig.getClientSecret()).thenReturn(TEST_CLIENT_SECRET);
 
     when(exchangeFunction.exchange(any(ClientRequest.class)))
         .thenReturn(buildMockResponseSuccess())
@@ -141,10 +145,6 @@ public class SalesforceWebfluxAuthClientTest {
 
   @Test
   public void testGetToken_fail_retries() {
-    when(salesforceConfig.getUsername()).thenReturn(TEST_USER_NAME);
-    when(salesforceConfig.getPassword()).thenReturn(TEST_PASSWORD);
-    when(salesforceConfig.getClientId()).thenReturn(TEST_CLIENT_ID);
-    when(salesforceConfig.getClientSecret()).thenReturn(TEST_CLIENT_SECRET);
 
     when(exchangeFunction.exchange(any(ClientRequest.class)))
         .thenReturn(buildMockResponseFailure())
@@ -161,10 +161,6 @@ public class SalesforceWebfluxAuthClientTest {
 
   @Test
   public void testGetToken_fail_shouldNotUpdateToken() {
-    when(salesforceConfig.getUsername()).thenReturn(TEST_USER_NAME);
-    when(salesforceConfig.getPassword()).thenReturn(TEST_PASSWORD);
-    when(salesforceConfig.getClientId()).thenReturn(TEST_CLIENT_ID);
-    when(salesforceConfig.getClientSecret()).thenReturn(TEST_CLIENT_SECRET);
 
     when(exchangeFunction.exchange(any(ClientRequest.class)))
         .thenReturn(buildMockResponseSuccess())
@@ -192,6 +188,72 @@ public class SalesforceWebfluxAuthClientTest {
     verify(counter).increment();
   }
 
+  @Test
+  public void testGetToken_concurrentSubscribers_singleAuthCall() {
+
+    // delay the auth response so every subscriber arrives while the refresh is in flight
+    when(exchangeFunction.exchange(any(ClientRequest.class)))
+        .thenReturn(buildMockResponseSuccess().delayElement(Duration.ofMillis(200)));
+
+    Flux<String> actual =
+        Flux.range(0, CONCURRENT_SUBSCRIBERS)
+            .parallel(CONCURRENT_SUBSCRIBERS)
+            .runOn(Schedulers.parallel())
+            .flatMap(idx -> systemUnderTest.getToken())
+            .sequential();
+
+    StepVerifier.create(actual).expectNextCount(CONCURRENT_SUBSCRIBERS).verifyComplete();
+
+    verify(exchangeFunction, times(1)).exchange(any(ClientRequest.class));
+  }
+
+  @Test
+  public void testRefreshToken_concurrentSubscribers_singleAuthCall() {
+
+    when(exchangeFunction.exchange(any(ClientRequest.class)))
+        .thenReturn(buildMockResponseSuccess().delayElement(Duration.ofMillis(200)))
+        .thenReturn(buildMockResponseRefreshed());
+
+    Flux<String> actual =
+        Flux.range(0, CONCURRENT_SUBSCRIBERS)
+            .parallel(CONCURRENT_SUBSCRIBERS)
+            .runOn(Schedulers.parallel())
+            .flatMap(idx -> systemUnderTest.refreshToken())
+            .sequential()
+            .filter(BEARER_TOKEN::equals);
+
+    StepVerifier.create(actual).expectNextCount(CONCURRENT_SUBSCRIBERS).verifyComplete();
+
+    verify(exchangeFunction, times(1)).exchange(any(ClientRequest.class));
+
+    // once the shared refresh completes, the next refresh calls out again
+    StepVerifier.create(systemUnderTest.refreshToken())
+        .expectNextMatches("Bearer newBearerToken"::equals)
+        .verifyComplete();
+
+    verify(exchangeFunction, times(2)).exchange(any(ClientRequest.class));
+  }
+
+  @Test
+  public void testRefreshToken_rejectedTokenAlreadyReplaced_noAuthCall() {
+
+    when(exchangeFunction.exchange(any(ClientRequest.class)))
+        .thenReturn(buildMockResponseSuccess())
+        .thenReturn(buildMockResponseRefreshed());
+
+    SalesforceToken rejected = systemUnderTest.getSalesforceToken().block();
+    SalesforceToken refreshed =
+        systemUnderTest.refreshToken(rejected).blockOptional().orElseThrow();
+    assertEquals("Bearer newBearerToken", refreshed.getAuthorization());
+
+    // a late 401 for the first token reuses the refreshed token
+    StepVerifier.create(systemUnderTest.refreshToken(rejected))
+        .expectNext(refreshed)
+        .verifyComplete();
+
+    verify(exchangeFunction, times(2)).exchange(any(ClientRequest.class));
+  }
+
   private Mono<ClientResponse> buildMockResponseSuccess() {
     return Mono.just(
         ClientResponse.create(HttpStatus.OK)
@@ -0,0 +1,244 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.SalesforceConstants.API_LIMIT_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.API_USAGE_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_TIMER;
+import static com.tgt.crm.token.core.SalesforceConstants.USERNAME_TAG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.InMemoryTokenStore;
+import com.tgt.crm.token.core.IntegrationUser;
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenManager;
+import com.tgt.crm.token.core.TokenMetrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class SalesforceWebfluxOrgRegistryTest {
+
+  private static final String DEFAULT_HOST = "https://default.my.salesforce.com";
+  private static final String ORG = "secondary";
+  private static final String ORG_HOST = "https://secondary.my.salesforce.com:8443";
+  private static final String SF_PATH = "/services/data/v52.0/query?q=SELECT%20Id%20FROM%20Account";
+  private static final String INSTANCE_HOST = "https://na1.salesforce.com";
+
+  @Mock private SalesforceWebfluxAuthClient defaultAuthClient;
+  @Mock private ExchangeFunction exchangeFunction;
+  @Spy private SimpleMeterRegistry meterRegistry;
+
+  @Captor private ArgumentCaptor<ClientRequest> requestCaptor;
+
+  private SalesforceConfig salesforceConfig;
+  private WebClient authWebClient;
+
+  @BeforeEach
+  public void setUp() {
+    salesforceConfig = buildConfig(DEFAULT_HOST);
+    authWebClient =
+        WebClient.builder().baseUrl(DEFAULT_HOST).exchangeFunction(exchangeFunction).build();
+  }
+
+  @Test
+  public void singleOrg_defaultAuthClientOnly() {
+    SalesforceWebfluxOrgRegistry tested = buildRegistry();
+
+    assertFalse(tested.isMultiOrg());
+    assertSame(defaultAuthClient, tested.getAuthClient(DEFAULT_ORG));
+    assertEquals(1, tested.getAuthClients().size());
+  }
+
+  @Test
+  public void additionalOrg_ownAuthClientCallsOrgHost() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+    when(exchangeFunction.exchange(any(ClientRequest.class)))
+        .thenReturn(
+            Mono.just(
+                ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"access_token\":\"orgToken\",\"token_type\":\"Bearer\"}")
+                    .build()));
+
+    SalesforceWebfluxOrgRegistry tested = buildRegistry();
+    SalesforceWebfluxAuthClient orgAuthClient = tested.getAuthClient(ORG);
+
+    assertTrue(tested.isMultiOrg());
+    assertNotSame(defaultAuthClient, orgAuthClient);
+    assertSame(orgAuthClient, tested.getAuthClients().get(ORG));
+    StepVerifier.create(orgAuthClient.getToken()).expectNext("Bearer orgToken").verifyComplete();
+    verify(exchangeFunction).exchange(requestCaptor.capture());
+    assertEquals(
+        URI.create(ORG_HOST).getAuthority(), requestCaptor.getValue().url().getAuthority());
+  }
+
+  @Test
+  public void unknownOrg_rejected() {
+    SalesforceWebfluxOrgRegistry tested = buildRegistry();
+
+    assertThrows(IllegalArgumentException.class, () -> tested.getAuthClient(ORG));
+    assertThrows(IllegalArgumentException.class, () -> tested.getUserPool(ORG));
+    assertThrows(IllegalArgumentException.class, () -> tested.getApiLimitTracker(ORG));
+  }
+
+  @Test
+  public void apiLimitTracker_perOrgWithGauges() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+
+    SalesforceWebfluxOrgRegistry tested = buildRegistry();
+
+    assertNotSame(tested.getApiLimitTracker(DEFAULT_ORG), tested.getApiLimitTracker(ORG));
+    verify(meterRegistry)
+        .gauge(
+            eq(API_USAGE_GAUGE),
+            eq(Tags.of(ORG_TAG, ORG)),
+            eq(tested.getApiLimitTracker(ORG)),
+            any());
+    verify(meterRegistry)
+        .gauge(
+            eq(API_LIMIT_GAUGE),
+            eq(Tags.of(ORG_TAG, DEFAULT_ORG)),
+            eq(tested.getApiLimitTracker(DEFAULT_ORG)),
+            any());
+  }
+
+  @Test
+  public void integrationUsers_pooledWithDefaultUser() {
+    IntegrationUser user = new IntegrationUser();
+    user.setUsername("secondUsername");
+    user.setPassword("secondPassword");
+    salesforceConfig.getUsers().add(user);
+
+    SalesforceWebfluxOrgRegistry tested = buildRegistry();
+
+    assertEquals(2, tested.getUserPool(DEFAULT_ORG).getUsers().size());
+    assertSame(defaultAuthClient, tested.getUserPool(DEFAULT_ORG).getUsers().get(0));
+    assertEquals(1, tested.getUserPools().size());
+    assertNotSame(
+        TokenMetrics.NONE,
+        tested.getUserPool(DEFAULT_ORG).getUsers().get(1).getTokenManager().getMetrics());
+    assertEquals(
+        4,
+        meterRegistry
+            .get(TOKEN_REFRESH_TIMER)
+            .tag(ORG_TAG, DEFAULT_ORG)
+            .tag(USERNAME_TAG, "secondUsername")
+            .timers()
+            .size());
+  }
+
+  @Test
+  public void defaultOrgName_rejected() {
+    salesforceConfig.getOrgs().put(DEFAULT_ORG, buildConfig(ORG_HOST));
+
+    assertThrows(IllegalArgumentException.class, this::buildRegistry);
+  }
+
+  @Test
+  public void routeToOrg_defaultHostRequest_rewrittenToOrgHost() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+    SalesforceWebfluxOrgRegistry tested = buildRegistry();
+
+    URI routed = tested.routeToOrg(URI.create(DEFAULT_HOST + SF_PATH), ORG);
+
+    assertEquals(URI.create(ORG_HOST + SF_PATH), routed);
+  }
+
+  @Test
+  public void routeToOrg_otherHostOrDefaultOrg_unchanged() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+    SalesforceWebfluxOrgRegistry tested = buildRegistry();
+    URI defaultUrl = URI.create(DEFAULT_HOST + SF_PATH);
+    URI otherHostUrl = URI.create("https://other.my.salesforce.com" + SF_PATH);
+
+    assertSame(defaultUrl, tested.routeToOrg(defaultUrl, DEFAULT_ORG));
+    assertSame(otherHostUrl, tested.routeToOrg(otherHostUrl, ORG));
+    assertSame(defaultUrl, tested.routeToOrg(defaultUrl, "unknown"));
+  }
+
+  @Test
+  public void routeToInstance_orgHostRequest_rewrittenToInstanceHost() {
+    salesforceConfig.setUseInstanceUrl(true);
+    SalesforceWebfluxOrgRegistry tested = buildRegistry();
+
+    URI routed =
+        tested.routeToInstance(
+            URI.create(DEFAULT_HOST + SF_PATH), DEFAULT_ORG, buildToken(INSTANCE_HOST));
+
+    assertEquals(URI.create(INSTANCE_HOST + SF_PATH), routed);
+  }
+
+  @Test
+  public void routeToInstance_notEnabledOrNotOrgHost_unchanged() {
+    SalesforceConfig orgConfig = buildConfig(ORG_HOST);
+    orgConfig.setUseInstanceUrl(true);
+    salesforceConfig.getOrgs().put(ORG, orgConfig);
+    SalesforceWebfluxOrgRegistry tested = buildRegistry();
+    URI defaultUrl = URI.create(DEFAULT_HOST + SF_PATH);
+    URI instanceUrl = URI.create(INSTANCE_HOST + SF_PATH);
+    SalesforceToken token = buildToken(INSTANCE_HOST);
+
+    assertSame(defaultUrl, tested.routeToInstance(defaultUrl, DEFAULT_ORG, token));
+    assertSame(defaultUrl, tested.routeToInstance(defaultUrl, ORG, token));
+    assertSame(instanceUrl, tested.routeToInstance(instanceUrl, ORG, token));
+    URI orgUrl = URI.create(ORG_HOST + SF_PATH);
+    assertSame(orgUrl, tested.routeToInstance(orgUrl, ORG, buildToken("instanceUrl")));
+  }
+
+  private SalesforceWebfluxOrgRegistry buildRegistry() {
+    when(defaultAuthClient.getTokenManager()).thenReturn(new TokenManager(() -> null));
+    return new SalesforceWebfluxOrgRegistry(
+        defaultAuthClient,
+        authWebClient,
+        salesforceConfig,
+        new InMemoryTokenStore(),
+        new ApiLimitConfig(),
+        meterRegistry);
+  }
+
+  private static SalesforceToken buildToken(final String instanceUrl) {
+    return new SalesforceToken(
+        1, "Bearer", "token", "Bearer token", instanceUrl, null, Instant.now(), null);
+  }
+
+  private static SalesforceConfig buildConfig(final String host) {
+    SalesforceConfig config = new SalesforceConfig();
+    config.setHost(host);
+    config.setUsername("username");
+    config.setPassword("password");
+    config.setClientId("clientId");
+    config.setClientSecret("clientSecret");
+    return config;
+  }
+}
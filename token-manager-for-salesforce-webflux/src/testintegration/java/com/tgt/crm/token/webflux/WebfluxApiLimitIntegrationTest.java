@@ -0,0 +1,71 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static com.tgt.crm.token.core.SalesforceConstants.API_USAGE_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.LIMIT_INFO_HEADER;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.PRIORITY_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.tgt.crm.token.core.ApiLimitExceededException;
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import com.tgt.crm.token.core.RequestPriority;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxApiLimitIntegrationTest extends BaseIntegrationTest {
+
+  @Qualifier("sfWebClient")
+  @Autowired
+  private WebClient webClient;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerApiLimitProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.api-limit.enabled", () -> "true");
+  }
+
+  @Test
+  void apiUsageNearLimit_lowPriorityRejected() {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse().addHeader(LIMIT_INFO_HEADER, "api-usage=96/100"));
+    mockWebServer.enqueue(getSfQueryResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    StepVerifier.create(query()).expectNext(QUERY_SUCCESSFUL).verifyComplete();
+    assertEquals(96, meterRegistry.get(API_USAGE_GAUGE).tag(ORG_TAG, DEFAULT_ORG).gauge().value());
+
+    StepVerifier.create(query().contextWrite(Context.of(PRIORITY_KEY, RequestPriority.LOW)))
+        .verifyError(ApiLimitExceededException.class);
+    assertEquals(2, mockWebServer.getRequestCount() - prevReqCount);
+
+    StepVerifier.create(query()).expectNext(QUERY_SUCCESSFUL).verifyComplete();
+    assertEquals(3, mockWebServer.getRequestCount() - prevReqCount);
+  }
+
+  private Mono<String> query() {
+    return webClient.get().uri(SF_URL).retrieve().bodyToMono(String.class);
+  }
+}
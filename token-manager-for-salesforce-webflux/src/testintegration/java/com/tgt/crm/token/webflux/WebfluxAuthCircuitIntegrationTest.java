@@ -0,0 +1,64 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthErrorResponse;
+import static com.tgt.crm.token.core.SalesforceConstants.AUTH_CIRCUIT_GAUGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.tgt.crm.token.core.AuthCircuitBreaker;
+import com.tgt.crm.token.core.AuthCircuitOpenException;
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxAuthCircuitIntegrationTest extends BaseIntegrationTest {
+
+  @Qualifier("sfWebClient")
+  @Autowired
+  private WebClient webClient;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerCircuitProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.max-auth-token-retries", () -> "0");
+    registry.add("salesforce.auth-failure-threshold", () -> "1");
+    registry.add("salesforce.auth-circuit-open-duration", () -> "60000");
+  }
+
+  @Test
+  void authFails_circuitOpen_failsFastWithoutAuthCall() {
+    mockWebServer.enqueue(getSfAuthErrorResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    StepVerifier.create(query()).verifyError(WebClientResponseException.BadRequest.class);
+    assertEquals(
+        AuthCircuitBreaker.State.OPEN.ordinal(),
+        meterRegistry.get(AUTH_CIRCUIT_GAUGE).gauge().value());
+
+    StepVerifier.create(query()).verifyError(AuthCircuitOpenException.class);
+    assertEquals(1, mockWebServer.getRequestCount() - prevReqCount);
+  }
+
+  private Mono<String> query() {
+    return webClient.get().uri(SF_URL).retrieve().bodyToMono(String.class);
+  }
+}
@@ -0,0 +1,140 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthRefreshedSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryUnauthorizedResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import com.tgt.crm.token.core.BulkJob;
+import com.tgt.crm.token.core.BulkJobState;
+import com.tgt.crm.token.core.BulkOperation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxBulkIngestIntegrationTest extends BaseIntegrationTest {
+
+  private static final String JOB_URL = "/services/data/v52.0/jobs/ingest/750";
+  private static final String CSV = "Name\nAcme\n";
+
+  @Autowired private SalesforceBulkIngest bulkIngest;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerBulkIngestProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.bulk-ingest.poll-interval", () -> "1");
+    registry.add("salesforce.bulk-ingest.max-poll-interval", () -> "1");
+  }
+
+  @Test
+  void csv_ingestedWithAuthorizedCalls() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(job("Open"));
+    mockWebServer.enqueue(new MockResponse().setResponseCode(201));
+    mockWebServer.enqueue(job("UploadComplete"));
+    mockWebServer.enqueue(job("InProgress"));
+    mockWebServer.enqueue(job("JobComplete"));
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    BulkJob job = new BulkJob();
+    job.setObject("Account");
+    job.setOperation(BulkOperation.INSERT);
+    StepVerifier.create(
+            bulkIngest
+                .ingest(
+                    job,
+                    Flux.just(
+                        DefaultDataBufferFactory.sharedInstance.wrap(
+                            CSV.getBytes(StandardCharsets.UTF_8))))
+                .map(BulkJob::getState))
+        .expectNext(BulkJobState.JOB_COMPLETE)
+        .verifyComplete();
+
+    assertEquals(6, mockWebServer.getRequestCount() - prevReqCount);
+    validateAuthRequest();
+    List<String> calls =
+        List.of(
+            "POST /services/data/v52.0/jobs/ingest",
+            "PUT " + JOB_URL + "/batches",
+            "PATCH " + JOB_URL,
+            "GET " + JOB_URL,
+            "GET " + JOB_URL);
+    List<String> uploads = new ArrayList<>();
+    for (String call : calls) {
+      RecordedRequest bulkReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+      assertNotNull(bulkReq);
+      assertEquals(call, bulkReq.getMethod() + " " + bulkReq.getPath());
+      assertEquals("Bearer bearerToken", bulkReq.getHeader(HttpHeaders.AUTHORIZATION));
+      uploads.add(bulkReq.getBody().readUtf8());
+    }
+    assertEquals(CSV, uploads.get(1));
+  }
+
+  @Test
+  void uploadUnauthorized_sentAgainWithRefreshedToken() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(job("Open"));
+    mockWebServer.enqueue(getSfQueryUnauthorizedResponse());
+    mockWebServer.enqueue(getSfAuthRefreshedSuccessResponse());
+    mockWebServer.enqueue(new MockResponse().setResponseCode(201));
+    mockWebServer.enqueue(job("UploadComplete"));
+    mockWebServer.enqueue(job("JobComplete"));
+
+    BulkJob job = new BulkJob();
+    job.setObject("Account");
+    job.setOperation(BulkOperation.INSERT);
+    StepVerifier.create(
+            bulkIngest
+                .ingest(
+                    job,
+                    Flux.just(
+                        DefaultDataBufferFactory.sharedInstance.wrap(
+                            CSV.getBytes(StandardCharsets.UTF_8))))
+                .map(BulkJob::getState))
+        .expectNext(BulkJobState.JOB_COMPLETE)
+        .verifyComplete();
+
+    validateAuthRequest();
+    RecordedRequest createReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(createReq);
+    RecordedRequest rejectedReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(rejectedReq);
+    assertEquals(CSV, rejectedReq.getBody().readUtf8());
+    validateAuthRequest();
+    RecordedRequest uploadReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(uploadReq);
+    assertEquals("PUT " + JOB_URL + "/batches", uploadReq.getMethod() + " " + uploadReq.getPath());
+    assertEquals("Bearer new bearerToken", uploadReq.getHeader(HttpHeaders.AUTHORIZATION));
+    assertEquals(CSV, uploadReq.getBody().readUtf8());
+  }
+
+  private static MockResponse job(final String state) {
+    return new MockResponse()
+        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .setBody("{\"id\":\"750\",\"state\":\"" + state + "\"}");
+  }
+}
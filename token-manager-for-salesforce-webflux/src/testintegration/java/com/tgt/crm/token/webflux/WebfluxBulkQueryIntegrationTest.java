@@ -0,0 +1,95 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import com.tgt.crm.token.core.BulkJob;
+import com.tgt.crm.token.core.BulkOperation;
+import com.tgt.crm.token.core.BulkQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxBulkQueryIntegrationTest extends BaseIntegrationTest {
+
+  private static final String JOB_URL = "/services/data/v52.0/jobs/query/750";
+
+  @Autowired private SalesforceBulkQuery bulkQuery;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerBulkQueryProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.bulk-query.max-records", () -> "1");
+    registry.add("salesforce.bulk-query.poll-interval", () -> "1");
+    registry.add("salesforce.bulk-query.max-poll-interval", () -> "1");
+  }
+
+  @Test
+  void results_readPageByPageWithAuthorizedCalls() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(job("UploadComplete"));
+    mockWebServer.enqueue(job("JobComplete"));
+    mockWebServer.enqueue(page("Id\n001\n", "MQ"));
+    mockWebServer.enqueue(page("Id\n002\n", "null"));
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    BulkJob job = new BulkJob();
+    job.setOperation(BulkOperation.QUERY);
+    job.setQuery("SELECT Id FROM Account");
+    StepVerifier.create(
+            DataBufferUtils.join(bulkQuery.query(job))
+                .map(buffer -> buffer.toString(StandardCharsets.UTF_8)))
+        .expectNext("Id\n001\n002\n")
+        .verifyComplete();
+
+    assertEquals(5, mockWebServer.getRequestCount() - prevReqCount);
+    validateAuthRequest();
+    List<String> calls =
+        List.of(
+            "POST /services/data/v52.0/jobs/query",
+            "GET " + JOB_URL,
+            "GET " + JOB_URL + "/results?maxRecords=1",
+            "GET " + JOB_URL + "/results?maxRecords=1&locator=MQ");
+    for (String call : calls) {
+      RecordedRequest bulkReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+      assertNotNull(bulkReq);
+      assertEquals(call, bulkReq.getMethod() + " " + bulkReq.getPath());
+      assertEquals("Bearer bearerToken", bulkReq.getHeader(HttpHeaders.AUTHORIZATION));
+    }
+  }
+
+  private static MockResponse job(final String state) {
+    return new MockResponse()
+        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .setBody("{\"id\":\"750\",\"state\":\"" + state + "\"}");
+  }
+
+  private static MockResponse page(final String csv, final String locator) {
+    return new MockResponse()
+        .setHeader(HttpHeaders.CONTENT_TYPE, "text/csv")
+        .setHeader(BulkQuery.LOCATOR_HEADER, locator)
+        .setBody(csv);
+  }
+}
@@ -0,0 +1,81 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxCompositeBatchIntegrationTest extends BaseIntegrationTest {
+
+  private static final String ACCOUNT_URL = "/services/data/v52.0/sobjects/Account/";
+
+  @Qualifier("sfWebClient")
+  @Autowired
+  private WebClient webClient;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerBatchProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.composite-batch.enabled", () -> "true");
+    registry.add("salesforce.composite-batch.window", () -> "5000");
+    registry.add("salesforce.composite-batch.max-size", () -> "2");
+  }
+
+  @Test
+  void concurrentRequests_sentAsOneAuthorizedBatch() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(
+        new MockResponse()
+            .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .setBody(
+                "{\"compositeResponse\":["
+                    + "{\"body\":{\"Id\":\"001\"},\"httpStatusCode\":200,\"referenceId\":\"ref0\"},"
+                    + "{\"body\":{\"Id\":\"002\"},\"httpStatusCode\":200,\"referenceId\":\"ref1\"}]}"));
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    StepVerifier.create(Mono.zip(get(ACCOUNT_URL + "001"), get(ACCOUNT_URL + "002")))
+        .assertNext(
+            responses -> {
+              assertEquals("{\"Id\":\"001\"}", responses.getT1());
+              assertEquals("{\"Id\":\"002\"}", responses.getT2());
+            })
+        .verifyComplete();
+
+    assertEquals(2, mockWebServer.getRequestCount() - prevReqCount);
+    validateAuthRequest();
+    RecordedRequest batchReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(batchReq);
+    assertEquals(HttpMethod.POST.name(), batchReq.getMethod());
+    assertEquals("/services/data/v52.0/composite", batchReq.getPath());
+    assertEquals("Bearer bearerToken", batchReq.getHeader(HttpHeaders.AUTHORIZATION));
+  }
+
+  private Mono<String> get(final String uri) {
+    return webClient.get().uri(uri).retrieve().bodyToMono(String.class);
+  }
+}
@@ -0,0 +1,84 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxConnectionPoolIntegrationTest extends BaseIntegrationTest {
+
+  private static final String POOL_NAME = "testPool";
+
+  private static final SimpleMeterRegistry POOL_METER_REGISTRY = new SimpleMeterRegistry();
+
+  @Qualifier("sfWebClient")
+  @Autowired
+  private WebClient webClient;
+
+  @BeforeAll
+  static void addPoolMeterRegistry() {
+    Metrics.addRegistry(POOL_METER_REGISTRY);
+  }
+
+  @AfterAll
+  static void removePoolMeterRegistry() {
+    Metrics.removeRegistry(POOL_METER_REGISTRY);
+  }
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerPoolProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.httpclient.webflux.pool-name", () -> POOL_NAME);
+    registry.add("salesforce.httpclient.webflux.pending-acquire-max-count", () -> "-1");
+    registry.add("salesforce.httpclient.webflux.pending-acquire-timeout", () -> "5000");
+    registry.add("salesforce.httpclient.webflux.max-idle-time", () -> "20000");
+    registry.add("salesforce.httpclient.webflux.max-life-time", () -> "60000");
+    registry.add("salesforce.httpclient.webflux.evict-in-background", () -> "10000");
+    registry.add("salesforce.httpclient.webflux.lifo", () -> "true");
+  }
+
+  @Test
+  void makeRequest_configuredPoolReportsMetrics() {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+
+    StepVerifier.create(webClient.get().uri(SF_URL).retrieve().bodyToMono(String.class))
+        .expectNext(QUERY_SUCCESSFUL)
+        .verifyComplete();
+
+    assertEquals(
+        1,
+        POOL_METER_REGISTRY
+            .get("reactor.netty.connection.provider.total.connections")
+            .tag("name", POOL_NAME)
+            .gauge()
+            .value());
+    assertEquals(
+        0,
+        POOL_METER_REGISTRY
+            .get("reactor.netty.connection.provider.pending.connections")
+            .tag("name", POOL_NAME)
+            .gauge()
+            .value());
+  }
+}
@@ -0,0 +1,104 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxHttp2IntegrationTest extends BaseIntegrationTest {
+
+  private static final int CONCURRENT_QUERIES = 10;
+  private static final String POOL_NAME = "h2Pool";
+
+  private static final SimpleMeterRegistry POOL_METER_REGISTRY = new SimpleMeterRegistry();
+
+  // only speaks HTTP/2, an HTTP/1.1 request is not answered
+  private static MockWebServer h2WebServer;
+
+  @Qualifier("sfWebClient")
+  @Autowired
+  private WebClient webClient;
+
+  @BeforeAll
+  static void setupH2() throws IOException {
+    h2WebServer = new MockWebServer();
+    h2WebServer.setProtocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+    h2WebServer.start();
+    Metrics.addRegistry(POOL_METER_REGISTRY);
+  }
+
+  @AfterAll
+  static void shutdownH2() throws IOException {
+    h2WebServer.shutdown();
+    Metrics.removeRegistry(POOL_METER_REGISTRY);
+  }
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerH2Properties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.use-instance-url", () -> "true");
+    registry.add("salesforce.httpclient.max-conn-per-route", () -> "1");
+    registry.add("salesforce.httpclient.webflux.pool-name", () -> POOL_NAME);
+    registry.add("salesforce.httpclient.webflux.h2c", () -> "true");
+    registry.add("salesforce.httpclient.webflux.http2-initial-window-size", () -> "1048576");
+  }
+
+  @Test
+  void concurrentRequests_multiplexedOnOneConnection() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse("http://localhost:" + h2WebServer.getPort()));
+    for (int i = 0; i < CONCURRENT_QUERIES; i++) {
+      h2WebServer.enqueue(getSfQueryResponse());
+    }
+
+    StepVerifier.create(
+            Flux.range(0, CONCURRENT_QUERIES)
+                .flatMap(i -> webClient.get().uri(SF_URL).retrieve().bodyToMono(String.class)))
+        .expectNextCount(CONCURRENT_QUERIES)
+        .verifyComplete();
+
+    int maxSequenceNumber = 0;
+    for (int i = 0; i < CONCURRENT_QUERIES; i++) {
+      RecordedRequest queryReq = h2WebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+      assertNotNull(queryReq);
+      assertEquals(SF_URL, queryReq.getPath());
+      maxSequenceNumber = Math.max(maxSequenceNumber, queryReq.getSequenceNumber());
+    }
+    // the sequence number counts the requests on a connection
+    assertEquals(CONCURRENT_QUERIES - 1, maxSequenceNumber);
+    assertEquals(
+        1,
+        POOL_METER_REGISTRY
+            .get("reactor.netty.connection.provider.total.connections")
+            .tag("name", POOL_NAME)
+            .gauge()
+            .value());
+  }
+}
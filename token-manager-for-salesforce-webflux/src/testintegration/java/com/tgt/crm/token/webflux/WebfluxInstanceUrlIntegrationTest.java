@@ -0,0 +1,80 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxInstanceUrlIntegrationTest extends BaseIntegrationTest {
+
+  private static MockWebServer instanceWebServer;
+
+  @Qualifier("sfWebClient")
+  @Autowired
+  private WebClient webClient;
+
+  @BeforeAll
+  static void setupInstance() throws IOException {
+    instanceWebServer = new MockWebServer();
+    instanceWebServer.start();
+  }
+
+  @AfterAll
+  static void shutdownInstance() throws IOException {
+    instanceWebServer.shutdown();
+  }
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerInstanceProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.use-instance-url", () -> "true");
+  }
+
+  @Test
+  void makeRequest_sentToInstanceUrl() throws InterruptedException {
+    mockWebServer.enqueue(
+        getSfAuthSuccessResponse("http://localhost:" + instanceWebServer.getPort()));
+    instanceWebServer.enqueue(getSfQueryResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    StepVerifier.create(query()).expectNext(QUERY_SUCCESSFUL).verifyComplete();
+
+    validateAuthRequest();
+    assertEquals(1, mockWebServer.getRequestCount() - prevReqCount);
+    RecordedRequest queryReq = instanceWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(queryReq);
+    assertEquals(SF_URL, queryReq.getPath());
+    assertEquals("Bearer bearerToken", queryReq.getHeader(HttpHeaders.AUTHORIZATION));
+  }
+
+  private Mono<String> query() {
+    return webClient.get().uri(SF_URL).retrieve().bodyToMono(String.class);
+  }
+}
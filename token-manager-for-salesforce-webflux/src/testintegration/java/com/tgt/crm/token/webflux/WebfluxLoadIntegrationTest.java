@@ -0,0 +1,71 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.SalesforceConstants.OUTCOME_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_TIMER;
+import static com.tgt.crm.token.core.SalesforceConstants.UNAUTHORIZED_RETRY_COUNTER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import com.tgt.crm.token.core.LatencyDistribution;
+import com.tgt.crm.token.core.LoadDriver;
+import com.tgt.crm.token.core.LoadReport;
+import com.tgt.crm.token.core.SalesforceSimulator;
+import com.tgt.crm.token.core.SimulatorConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Slf4j
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxLoadIntegrationTest extends BaseIntegrationTest {
+
+  @Qualifier("sfWebClient")
+  @Autowired
+  private WebClient webClient;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Test
+  void expiringTokens_oneRefreshPerRejectedToken() throws InterruptedException {
+    SimulatorConfig config = new SimulatorConfig();
+    config.setLatency(LatencyDistribution.uniform(5, 20));
+    config.setTokenMaxCalls(50);
+    config.setUnauthorizedRate(0.01);
+    config.setQueryRecords(10);
+    SalesforceSimulator simulator = new SalesforceSimulator(config);
+    mockWebServer.setDispatcher(simulator);
+
+    LoadReport report =
+        LoadDriver.run(
+            () ->
+                webClient
+                    .get()
+                    .uri(SalesforceSimulator.QUERY_PATH + "?q=SELECT+Id+FROM+Account")
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .toFuture());
+
+    log.info("webflux load: {}, {} token requests", report, simulator.getAuthCalls());
+    assertTrue(simulator.getAuthCalls() <= simulator.getRejectedTokens() + 1);
+    // only a retry that is rejected again fails
+    assertTrue(report.getFailures() <= simulator.getUnauthorizedResponses());
+    assertEquals(
+        simulator.getAuthCalls(),
+        meterRegistry.get(TOKEN_REFRESH_TIMER).tag(OUTCOME_TAG, "success").timer().count());
+    double retries = meterRegistry.get(UNAUTHORIZED_RETRY_COUNTER).counter().count();
+    assertTrue(retries >= simulator.getRejectedTokens());
+    assertTrue(retries <= simulator.getUnauthorizedResponses());
+  }
+}
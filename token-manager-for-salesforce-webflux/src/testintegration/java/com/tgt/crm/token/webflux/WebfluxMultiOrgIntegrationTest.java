@@ -0,0 +1,116 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthRefreshedSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxMultiOrgIntegrationTest extends BaseIntegrationTest {
+
+  private static final String ORG = "secondary";
+
+  private static MockWebServer orgWebServer;
+
+  @Qualifier("sfWebClient")
+  @Autowired
+  private WebClient webClient;
+
+  @BeforeAll
+  static void setupOrg() throws IOException {
+    orgWebServer = new MockWebServer();
+    orgWebServer.start();
+  }
+
+  @AfterAll
+  static void shutdownOrg() throws IOException {
+    orgWebServer.shutdown();
+  }
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerOrgProperties(final DynamicPropertyRegistry registry) {
+    String prefix = "salesforce.orgs." + ORG + ".";
+    registry.add(prefix + "host", () -> "http://localhost:" + orgWebServer.getPort());
+    registry.add(prefix + "username", () -> "orgUsername");
+    registry.add(prefix + "password", () -> "orgPassword");
+    registry.add(prefix + "client-id", () -> "orgClientId");
+    registry.add(prefix + "client-secret", () -> "orgClientSecret");
+    registry.add(prefix + "retry-backoff-delay", () -> "50");
+  }
+
+  @Test
+  void makeRequests_eachOrgUsesOwnHostAndToken() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+    orgWebServer.enqueue(getSfAuthRefreshedSuccessResponse());
+    orgWebServer.enqueue(getSfQueryResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    StepVerifier.create(query()).expectNext(QUERY_SUCCESSFUL).verifyComplete();
+    StepVerifier.create(query().contextWrite(Context.of(ORG_KEY, ORG)))
+        .expectNext(QUERY_SUCCESSFUL)
+        .verifyComplete();
+
+    validateAuthRequest();
+    validateSfRequest();
+    assertEquals(2, mockWebServer.getRequestCount() - prevReqCount);
+
+    RecordedRequest orgAuthReq = orgWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(orgAuthReq);
+    assertEquals("/services/oauth2/token", orgAuthReq.getPath());
+    assertEquals(
+        "grant_type=password&username=orgUsername&password=orgPassword&client_id=orgClientId&client_secret=orgClientSecret",
+        orgAuthReq.getBody().readUtf8());
+    RecordedRequest orgQueryReq = orgWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(orgQueryReq);
+    assertEquals(SF_URL, orgQueryReq.getPath());
+    assertEquals("Bearer new bearerToken", orgQueryReq.getHeader(HttpHeaders.AUTHORIZATION));
+  }
+
+  @Test
+  void makeRequest_unknownOrg_reqFail() {
+    int prevReqCount = mockWebServer.getRequestCount();
+    int prevOrgReqCount = orgWebServer.getRequestCount();
+
+    StepVerifier.create(query().contextWrite(Context.of(ORG_KEY, "unknown")))
+        .expectError(IllegalArgumentException.class)
+        .verify();
+
+    assertEquals(0, mockWebServer.getRequestCount() - prevReqCount);
+    assertEquals(0, orgWebServer.getRequestCount() - prevOrgReqCount);
+  }
+
+  private Mono<String> query() {
+    return webClient.get().uri(SF_URL).retrieve().bodyToMono(String.class);
+  }
+}
@@ -0,0 +1,74 @@
+package com.tgt.crm.token.webflux;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthRefreshedSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.reactive.function.client.WebClientAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      WebClientAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class WebfluxMultiUserIntegrationTest extends BaseIntegrationTest {
+
+  @Qualifier("sfWebClient")
+  @Autowired
+  private WebClient webClient;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerUserProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.users[0].username", () -> "secondUsername");
+    registry.add("salesforce.users[0].password", () -> "secondPassword");
+    registry.add("salesforce.user-selection", () -> "round-robin");
+  }
+
+  @Test
+  void makeRequests_spreadAcrossUsers() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+    mockWebServer.enqueue(getSfAuthRefreshedSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    StepVerifier.create(query()).expectNext(QUERY_SUCCESSFUL).verifyComplete();
+    StepVerifier.create(query()).expectNext(QUERY_SUCCESSFUL).verifyComplete();
+    StepVerifier.create(query()).expectNext(QUERY_SUCCESSFUL).verifyComplete();
+
+    validateAuthRequest();
+    validateSfRequest();
+    RecordedRequest secondAuthReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(secondAuthReq);
+    assertEquals(
+        "grant_type=password&username=secondUsername&password=secondPassword&client_id=clientId&client_secret=clientSecret",
+        secondAuthReq.getBody().readUtf8());
+    validateSfRequest("Bearer new bearerToken");
+    // back to the first user and its cached token
+    validateSfRequest();
+    assertEquals(5, mockWebServer.getRequestCount() - prevReqCount);
+  }
+
+  private Mono<String> query() {
+    return webClient.get().uri(SF_URL).retrieve().bodyToMono(String.class);
+  }
+}
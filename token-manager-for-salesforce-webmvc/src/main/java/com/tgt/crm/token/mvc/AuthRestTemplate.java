@@ -19,8 +19,14 @@ public class AuthRestTemplate {
 
   @Bean
   public RestTemplate sfAuthRestTemplate(final RestTemplateBuilder restTemplateBuilder) {
+    return buildAuthRestTemplate(restTemplateBuilder, salesforceConfig.getHost());
+  }
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  static RestTemplate buildAuthRestTemplate(
+      final RestTemplateBuilder restTemplateBuilder, final String host) {
     return restTemplateBuilder
-        .rootUri(salesforceConfig.getHost())
+        .rootUri(host)
         .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
         .build();
   }
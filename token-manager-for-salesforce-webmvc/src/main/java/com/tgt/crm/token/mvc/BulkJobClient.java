@@ -0,0 +1,67 @@
+package com.tgt.crm.token.mvc;
+
+import com.tgt.crm.token.core.BulkJob;
+import java.time.Duration;
+import java.util.function.IntFunction;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * The calls on Bulk API 2.0 jobs that query and ingest jobs share: sending a job request and
+ * polling a job until it is finished.
+ */
+final class BulkJobClient {
+
+  private final RestTemplate restTemplate;
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  BulkJobClient(final RestTemplate restTemplate) {
+    this.restTemplate = restTemplate;
+  }
+
+  /**
+   * Sends a job request.
+   *
+   * @param method the method of the call
+   * @param path the path of the jobs or of a job
+   * @param body the job request, null to send none
+   * @return the job in the response
+   * @throws RestClientException if the call failed or the response had no job
+   */
+  @SuppressWarnings("PMD.DefaultPackage")
+  BulkJob exchange(final HttpMethod method, final String path, @Nullable final BulkJob body) {
+    HttpEntity<?> request = body == null ? HttpEntity.EMPTY : new HttpEntity<>(body);
+    ResponseEntity<BulkJob> response = restTemplate.exchange(path, method, request, BulkJob.class);
+    if (!response.hasBody()) {
+      throw new RestClientException("no bulk job in the response to " + method + " " + path);
+    }
+    return response.getBody();
+  }
+
+  /**
+   * Gets a job until it is finished.
+   *
+   * @param jobPath the path of the job
+   * @param pollDelay the time to wait after each poll, by the number of polls before it
+   * @return the finished job
+   * @throws RestClientException if a call failed or the thread was interrupted while waiting
+   */
+  @SuppressWarnings("PMD.DefaultPackage")
+  BulkJob poll(final String jobPath, final IntFunction<Duration> pollDelay) {
+    BulkJob job = exchange(HttpMethod.GET, jobPath, null);
+    for (int polls = 0; !job.getState().isFinished(); polls++) {
+      try {
+        Thread.sleep(pollDelay.apply(polls).toMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RestClientException("interrupted while waiting for bulk job " + jobPath, e);
+      }
+      job = exchange(HttpMethod.GET, jobPath, null);
+    }
+    return job;
+  }
+}
@@ -0,0 +1,71 @@
+package com.tgt.crm.token.mvc;
+
+import com.tgt.crm.token.core.CsvJobData;
+import com.tgt.crm.token.core.CsvJobSplitter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.springframework.lang.Nullable;
+
+/**
+ * Reads CSV data job by job, see {@link CsvJobSplitter}. The stream is only read as far as the data
+ * of the job being read, so the data of later jobs is not held. The data of a job is kept in files,
+ * see {@link CsvJobData}.
+ */
+final class CsvJobReader {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final InputStream csv;
+  // the file the stream reads, if any, so jobs are read again from it rather than spilled
+  private final Path file;
+  private final CsvJobSplitter splitter;
+  private final Deque<CsvJobSplitter.Chunk> chunks = new ArrayDeque<>();
+  private boolean finished;
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  CsvJobReader(final InputStream csv, @Nullable final Path file, final CsvJobSplitter splitter) {
+    this.csv = csv;
+    this.file = file;
+    this.splitter = splitter;
+  }
+
+  /** Whether there is data of another job to read. */
+  @SuppressWarnings("PMD.DefaultPackage")
+  boolean hasNextJob() throws IOException {
+    fill();
+    return !chunks.isEmpty();
+  }
+
+  /** Reads the data of the next job, to be closed once it is uploaded. */
+  @SuppressWarnings({"PMD.DefaultPackage", "PMD.AvoidCatchingGenericException"})
+  CsvJobData readJob() throws IOException {
+    fill();
+    int job = chunks.isEmpty() ? -1 : chunks.peek().getJob();
+    CsvJobData data = file == null ? CsvJobData.spill() : CsvJobData.fileRange(file);
+    try {
+      while (!chunks.isEmpty() && chunks.peek().getJob() == job) {
+        data.append(chunks.poll());
+        fill();
+      }
+    } catch (IOException | RuntimeException e) {
+      data.close();
+      throw e;
+    }
+    return data;
+  }
+
+  private void fill() throws IOException {
+    while (chunks.isEmpty() && !finished) {
+      byte[] piece = csv.readNBytes(BUFFER_SIZE);
+      if (piece.length == 0) {
+        chunks.addAll(splitter.finish());
+        finished = true;
+      } else {
+        chunks.addAll(splitter.split(piece));
+      }
+    }
+  }
+}
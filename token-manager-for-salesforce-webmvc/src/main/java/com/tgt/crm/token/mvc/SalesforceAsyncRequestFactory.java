@@ -0,0 +1,309 @@
+package com.tgt.crm.token.mvc;
+
+import com.tgt.crm.token.core.HttpClientConfig;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.NonNull;
+
+/**
+ * Sends requests with Apache HttpClient 5 on its async I/O reactor instead of a thread per
+ * connection. Connections are opened, leased and read by the reactor, the calling thread only waits
+ * for the response, so it parks rather than pins when it is a virtual thread. Requests that fail
+ * with an {@link IOException} or a 5xx are retried like with the blocking client, but the retry
+ * interval is scheduled rather than slept.
+ *
+ * <p>Request and response bodies are buffered in memory.
+ */
+@Slf4j
+public class SalesforceAsyncRequestFactory implements ClientHttpRequestFactory, DisposableBean {
+
+  private final CloseableHttpAsyncClient httpClient;
+  private final int retries;
+  private final long retryInterval;
+
+  public SalesforceAsyncRequestFactory(
+      final HttpClientConfig httpClientConfig,
+      final WebMvcHttpClientConfig webMvcHttpClientConfig) {
+    this.retries = webMvcHttpClientConfig.getRetries();
+    this.retryInterval = webMvcHttpClientConfig.getRetryInterval();
+    this.httpClient =
+        HttpAsyncClients.custom()
+            .setConnectionManager(
+                PoolingAsyncClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(webMvcHttpClientConfig.getMaxPools())
+                    .setMaxConnPerRoute(webMvcHttpClientConfig.getMaxConnPerRoute(httpClientConfig))
+                    .build())
+            .setDefaultRequestConfig(
+                RequestConfig.custom()
+                    .setConnectTimeout(
+                        Timeout.ofMilliseconds(httpClientConfig.getConnectionTimeout()))
+                    .setConnectionRequestTimeout(
+                        Timeout.ofMilliseconds(
+                            webMvcHttpClientConfig.getConnectionRequestTimeout()))
+                    .setResponseTimeout(Timeout.ofMilliseconds(httpClientConfig.getReadTimeout()))
+                    .build())
+            // retried here, so the interval doesn't hold a thread
+            .disableAutomaticRetries()
+            .build();
+    this.httpClient.start();
+  }
+
+  @Override
+  @NonNull
+  public ClientHttpRequest createRequest(@NonNull final URI uri, @NonNull final HttpMethod method) {
+    return new AsyncClientHttpRequest(uri, method);
+  }
+
+  @Override
+  public void destroy() {
+    httpClient.close(CloseMode.GRACEFUL);
+  }
+
+  /**
+   * Sends a request, retrying failed attempts.
+   *
+   * @param request creates the request of each attempt
+   * @param exchange the request's attempts, so they can be cancelled
+   * @param executionCount the attempt, starting at 1
+   */
+  private CompletableFuture<SimpleHttpResponse> send(
+      final Supplier<SimpleHttpRequest> request,
+      final Exchange exchange,
+      final int executionCount) {
+    if (exchange.isCancelled()) {
+      return CompletableFuture.failedFuture(new CancellationException("request cancelled"));
+    }
+    CompletableFuture<SimpleHttpResponse> response = new CompletableFuture<>();
+    exchange.setCurrent(
+        httpClient.execute(
+            request.get(),
+            new FutureCallback<>() {
+              @Override
+              public void completed(final SimpleHttpResponse result) {
+                response.complete(result);
+              }
+
+              @Override
+              public void failed(final Exception exception) {
+                response.completeExceptionally(exception);
+              }
+
+              @Override
+              public void cancelled() {
+                response.completeExceptionally(new CancellationException("request cancelled"));
+              }
+            }));
+    return response
+        .handle(
+            (result, error) -> {
+              if (executionCount >= retries) {
+                return response;
+              }
+              if (error instanceof IOException) {
+                log.error(
+                    "{} exception thrown during execution count {} with message {}",
+                    error.getClass(),
+                    executionCount,
+                    error.getMessage());
+                return send(request, exchange, executionCount + 1);
+              }
+              if (error != null
+                  || HttpStatus.Series.resolve(result.getCode())
+                      != HttpStatus.Series.SERVER_ERROR) {
+                return response;
+              }
+              CompletableFuture<CompletableFuture<SimpleHttpResponse>> retry =
+                  CompletableFuture.supplyAsync(
+                      () -> send(request, exchange, executionCount + 1),
+                      CompletableFuture.delayedExecutor(retryInterval, TimeUnit.MILLISECONDS));
+              exchange.setCurrent(retry);
+              return retry.thenCompose(Function.identity());
+            })
+        .thenCompose(Function.identity());
+  }
+
+  /** Buffers the body, then sends the request and waits for the response. */
+  private final class AsyncClientHttpRequest extends AbstractClientHttpRequest {
+
+    private final URI uri;
+    private final HttpMethod method;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+    private AsyncClientHttpRequest(final URI uri, final HttpMethod method) {
+      super();
+      this.uri = uri;
+      this.method = method;
+    }
+
+    @Override
+    @NonNull
+    public String getMethodValue() {
+      return method.name();
+    }
+
+    @Override
+    @NonNull
+    public URI getURI() {
+      return uri;
+    }
+
+    @Override
+    @NonNull
+    protected OutputStream getBodyInternal(@NonNull final HttpHeaders headers) {
+      return body;
+    }
+
+    @Override
+    @NonNull
+    protected ClientHttpResponse executeInternal(@NonNull final HttpHeaders headers)
+        throws IOException {
+      byte[] content = body.toByteArray();
+      Exchange exchange = new Exchange();
+      CompletableFuture<SimpleHttpResponse> response =
+          send(() -> toSimpleRequest(headers, content), exchange, 1);
+      try {
+        return new BufferedClientHttpResponse(response.get());
+      } catch (InterruptedException e) {
+        // releases the connection or drops the scheduled retry, a cancelled exchange is not retried
+        exchange.cancel();
+        Thread.currentThread().interrupt();
+        InterruptedIOException interrupted =
+            new InterruptedIOException("interrupted waiting for " + method + " " + uri);
+        interrupted.initCause(e);
+        throw interrupted;
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException(e.getCause().getMessage(), e);
+      }
+    }
+
+    /** Each attempt needs a request of its own, the client adds headers to the one it sends. */
+    private SimpleHttpRequest toSimpleRequest(final HttpHeaders headers, final byte[] content) {
+      SimpleHttpRequest request = new SimpleHttpRequest(method.name(), uri);
+      headers.forEach(
+          (name, values) -> {
+            // set by the client from the body
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                && !HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+              values.forEach(value -> request.addHeader(name, value));
+            }
+          });
+      if (content.length > 0
+          || method == HttpMethod.POST
+          || method == HttpMethod.PUT
+          || method == HttpMethod.PATCH) {
+        request.setBody(content, null);
+      }
+      return request;
+    }
+  }
+
+  /**
+   * The attempts of one request. Holds the attempt in flight or the retry waiting for its interval,
+   * so cancelling the exchange stops either and no further attempt is sent.
+   */
+  private static final class Exchange {
+
+    private final AtomicReference<Future<?>> current = new AtomicReference<>();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    private boolean isCancelled() {
+      return cancelled.get();
+    }
+
+    private void setCurrent(final Future<?> future) {
+      current.set(future);
+      // cancelled while the attempt was being started
+      if (cancelled.get()) {
+        future.cancel(true);
+      }
+    }
+
+    private void cancel() {
+      cancelled.set(true);
+      Future<?> future = current.get();
+      if (future != null) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private static final class BufferedClientHttpResponse extends AbstractClientHttpResponse {
+
+    private final SimpleHttpResponse response;
+    private final HttpHeaders headers = new HttpHeaders();
+
+    private BufferedClientHttpResponse(final SimpleHttpResponse response) {
+      super();
+      this.response = response;
+      for (Header header : response.getHeaders()) {
+        headers.add(header.getName(), header.getValue());
+      }
+    }
+
+    @Override
+    public int getRawStatusCode() {
+      return response.getCode();
+    }
+
+    @Override
+    @NonNull
+    public String getStatusText() {
+      return response.getReasonPhrase() == null ? "" : response.getReasonPhrase();
+    }
+
+    @Override
+    @NonNull
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+
+    @Override
+    @NonNull
+    public InputStream getBody() {
+      byte[] body = response.getBodyBytes();
+      return new ByteArrayInputStream(body == null ? new byte[0] : body);
+    }
+
+    @Override
+    public void close() {
+      // the body is buffered, the connection was already released
+    }
+  }
+}
@@ -0,0 +1,187 @@
+package com.tgt.crm.token.mvc;
+
+import com.tgt.crm.token.core.BulkIngest;
+import com.tgt.crm.token.core.BulkIngestConfig;
+import com.tgt.crm.token.core.BulkJob;
+import com.tgt.crm.token.core.BulkResults;
+import com.tgt.crm.token.core.CsvJobData;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Loads CSV data through Bulk API 2.0 ingest jobs with sfRestTemplate, see {@link BulkIngest}. The
+ * data is read job by job and the jobs are run one after the other. The data of the job being
+ * uploaded is kept in files, see {@link CsvJobData}, not in memory: a CSV file is read again for
+ * the upload and any other CSV is spilled to a temporary file per job.
+ *
+ * <p>RestTemplate interceptors buffer request bodies, so uploads are streamed from the files with
+ * {@link SalesforceRestTemplateInterceptor#execute} and sfUploadRequestFactory instead, authorized
+ * like the other calls. Every call gets the current token, so a token that expires during a long
+ * job is refreshed by the next poll, and an upload rejected with a 401 is sent again from the
+ * files. The org and priority of the current request apply to every call.
+ */
+@Configuration
+public class SalesforceBulkIngest {
+
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType(BulkIngest.CSV_CONTENT_TYPE);
+
+  private final RestTemplate restTemplate;
+  private final SalesforceRestTemplateInterceptor interceptor;
+  private final ClientHttpRequestFactory uploadRequestFactory;
+  private final BulkIngest bulkIngest;
+  private final BulkJobClient jobClient;
+
+  @Autowired
+  public SalesforceBulkIngest(
+      @Qualifier("sfRestTemplate") final RestTemplate restTemplate,
+      final SalesforceRestTemplateInterceptor interceptor,
+      @Qualifier("sfUploadRequestFactory") final ClientHttpRequestFactory uploadRequestFactory,
+      final BulkIngestConfig bulkIngestConfig) {
+    this(restTemplate, interceptor, uploadRequestFactory, new BulkIngest(bulkIngestConfig));
+  }
+
+  public SalesforceBulkIngest(
+      final RestTemplate restTemplate,
+      final SalesforceRestTemplateInterceptor interceptor,
+      final ClientHttpRequestFactory uploadRequestFactory,
+      final BulkIngest bulkIngest) {
+    this.restTemplate = restTemplate;
+    this.interceptor = interceptor;
+    this.uploadRequestFactory = uploadRequestFactory;
+    this.bulkIngest = bulkIngest;
+    this.jobClient = new BulkJobClient(restTemplate);
+  }
+
+  /**
+   * Loads CSV data, split into as many jobs as needed.
+   *
+   * @param job the object, the operation and, for an upsert, the external id field of the jobs
+   * @param csv the CSV data, starting with the header, not closed, each job is spilled to a
+   *     temporary file
+   * @return each job once Salesforce processed it, its state tells if it completed or failed
+   * @throws UncheckedIOException if the CSV could not be read or spilled, a job being read is
+   *     aborted
+   * @throws RestClientException if a call failed, the job it was for is aborted
+   */
+  public List<BulkJob> ingest(final BulkJob job, final InputStream csv) {
+    return ingest(job, csv, null);
+  }
+
+  /**
+   * Loads a CSV file, split into as many jobs as needed.
+   *
+   * @param job the object, the operation and, for an upsert, the external id field of the jobs
+   * @param csv the CSV file, starting with the header, read again for each upload so it must not
+   *     change until the jobs are uploaded
+   * @return each job once Salesforce processed it, its state tells if it completed or failed
+   * @throws UncheckedIOException if the file could not be read
+   * @throws RestClientException if a call failed, the job it was for is aborted
+   */
+  public List<BulkJob> ingest(final BulkJob job, final Path csv) {
+    try (InputStream in = Files.newInputStream(csv)) {
+      return ingest(job, in, csv);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private List<BulkJob> ingest(
+      final BulkJob job, final InputStream csv, @Nullable final Path file) {
+    BulkJob request = bulkIngest.createRequest(job);
+    CsvJobReader reader = new CsvJobReader(csv, file, bulkIngest.newSplitter());
+    List<BulkJob> jobs = new ArrayList<>();
+    try {
+      while (reader.hasNextJob()) {
+        jobs.add(run(request, reader));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return jobs;
+  }
+
+  /**
+   * Reads results of a finished job.
+   *
+   * @param jobId the id of the job
+   * @param results which results to read
+   * @param out receives the CSV results as they are received, not closed
+   */
+  public void results(final String jobId, final BulkResults results, final OutputStream out) {
+    restTemplate.execute(
+        bulkIngest.getResultsPath(jobId, results),
+        HttpMethod.GET,
+        request -> request.getHeaders().setAccept(List.of(TEXT_CSV)),
+        response -> StreamUtils.copy(response.getBody(), out));
+  }
+
+  /** Creates, uploads and closes a job, aborting it if that fails, and waits for its results. */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private BulkJob run(final BulkJob request, final CsvJobReader reader) {
+    String jobId = jobClient.exchange(HttpMethod.POST, bulkIngest.getJobsPath(), request).getId();
+    try (CsvJobData data = readJob(reader)) {
+      upload(bulkIngest.getBatchesPath(jobId), data);
+      jobClient.exchange(HttpMethod.PATCH, bulkIngest.getJobPath(jobId), bulkIngest.closeRequest());
+    } catch (RuntimeException e) {
+      abort(jobId, e);
+      throw e;
+    }
+    return jobClient.poll(bulkIngest.getJobPath(jobId), bulkIngest::pollDelay);
+  }
+
+  private static CsvJobData readJob(final CsvJobReader reader) {
+    try {
+      return reader.readJob();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Streams the data with the interceptor of sfRestTemplate, then handles errors like it. */
+  private void upload(final String path, final CsvJobData data) {
+    URI url = restTemplate.getUriTemplateHandler().expand(path);
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(TEXT_CSV);
+    headers.setContentLength(data.getSize());
+    try (ClientHttpResponse response =
+        interceptor.execute(url, HttpMethod.PUT, headers, data::writeTo, uploadRequestFactory)) {
+      ResponseErrorHandler errorHandler = restTemplate.getErrorHandler();
+      if (errorHandler.hasError(response)) {
+        errorHandler.handleError(url, HttpMethod.PUT, response);
+      }
+    } catch (IOException e) {
+      throw new ResourceAccessException(
+          "I/O error on PUT request for \"" + url + "\": " + e.getMessage(), e);
+    }
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private void abort(final String jobId, final RuntimeException error) {
+    try {
+      jobClient.exchange(HttpMethod.PATCH, bulkIngest.getJobPath(jobId), bulkIngest.abortRequest());
+    } catch (RuntimeException e) {
+      error.addSuppressed(e);
+    }
+  }
+}
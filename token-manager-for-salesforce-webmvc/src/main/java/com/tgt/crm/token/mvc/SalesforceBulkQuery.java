@@ -0,0 +1,122 @@
+package com.tgt.crm.token.mvc;
+
+import com.tgt.crm.token.core.BulkIngest;
+import com.tgt.crm.token.core.BulkJob;
+import com.tgt.crm.token.core.BulkQuery;
+import com.tgt.crm.token.core.BulkQueryConfig;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Reads the records of a SOQL query through a Bulk API 2.0 query job with sfRestTemplate, see
+ * {@link BulkQuery}. The CSV results are copied to the output page by page as they are received, so
+ * the heap used does not grow with the records the query returns. The header row of every page but
+ * the first is skipped, so the pages join into one CSV. With the async transport each page is
+ * buffered, salesforce.bulk-query.max-records bounds it.
+ *
+ * <p>Every call gets the current token, so a token that expires while a long query runs or its
+ * results are read is refreshed by the next call. The org and priority of the current request apply
+ * to every call.
+ */
+@Configuration
+public class SalesforceBulkQuery {
+
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType(BulkIngest.CSV_CONTENT_TYPE);
+  private static final int LINE_FEED = '\n';
+  private static final int END_OF_STREAM = -1;
+
+  private final RestTemplate restTemplate;
+  private final BulkQuery bulkQuery;
+  private final BulkJobClient jobClient;
+
+  @Autowired
+  public SalesforceBulkQuery(
+      @Qualifier("sfRestTemplate") final RestTemplate restTemplate,
+      final BulkQueryConfig bulkQueryConfig) {
+    this(restTemplate, new BulkQuery(bulkQueryConfig));
+  }
+
+  public SalesforceBulkQuery(final RestTemplate restTemplate, final BulkQuery bulkQuery) {
+    this.restTemplate = restTemplate;
+    this.bulkQuery = bulkQuery;
+    this.jobClient = new BulkJobClient(restTemplate);
+  }
+
+  /**
+   * Runs a query and copies its results.
+   *
+   * @param job the operation, query or queryAll, and the query
+   * @param out receives the CSV results, starting with the header row, not closed
+   * @return the completed job
+   * @throws com.tgt.crm.token.core.BulkJobFailedException if the job did not complete
+   * @throws RestClientException if a call failed or the results could not be written
+   */
+  public BulkJob query(final BulkJob job, final OutputStream out) {
+    String jobId =
+        jobClient
+            .exchange(HttpMethod.POST, bulkQuery.getJobsPath(), bulkQuery.createRequest(job))
+            .getId();
+    BulkJob completed =
+        bulkQuery.checkCompleted(jobClient.poll(bulkQuery.getJobPath(jobId), bulkQuery::pollDelay));
+    String locator = page(completed.getId(), null, out);
+    while (locator != null) {
+      locator = page(completed.getId(), locator, out);
+    }
+    return completed;
+  }
+
+  /**
+   * Runs a query and writes its results to a file.
+   *
+   * @param job the operation, query or queryAll, and the query
+   * @param file receives the CSV results, created or replaced
+   * @return the completed job
+   * @throws com.tgt.crm.token.core.BulkJobFailedException if the job did not complete
+   * @throws UncheckedIOException if the file could not be written
+   * @throws RestClientException if a call failed
+   */
+  public BulkJob query(final BulkJob job, final Path file) {
+    try (OutputStream out = Files.newOutputStream(file)) {
+      return query(job, out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Copies a page and returns the locator of the next one, null if it was the last. */
+  private String page(final String jobId, final String locator, final OutputStream out) {
+    return restTemplate.execute(
+        bulkQuery.getResultsPath(jobId, locator),
+        HttpMethod.GET,
+        request -> request.getHeaders().setAccept(List.of(TEXT_CSV)),
+        response -> {
+          InputStream body = response.getBody();
+          if (locator != null) {
+            skipHeader(body);
+          }
+          StreamUtils.copy(body, out);
+          return bulkQuery.nextLocator(response.getHeaders().getFirst(BulkQuery.LOCATOR_HEADER));
+        });
+  }
+
+  /** Reads up to the first line feed, the header row of the page. */
+  private static void skipHeader(final InputStream body) throws IOException {
+    int next = body.read();
+    while (next != LINE_FEED && next != END_OF_STREAM) {
+      next = body.read();
+    }
+  }
+}
@@ -0,0 +1,224 @@
+package com.tgt.crm.token.mvc;
+
+import com.tgt.crm.token.core.CompositeBatchConfig;
+import com.tgt.crm.token.core.CompositeBatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.lang.NonNull;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Coalesces calls made at the same time into composite requests when
+ * salesforce.composite-batch.enabled is set, see {@link CompositeBatcher}. It runs before the
+ * {@link SalesforceRestTemplateInterceptor}, so a batch is authorized, routed and retried like any
+ * other call. The first call of a batch sends it on its own thread, the others wait for their
+ * subresponse.
+ */
+@Configuration
+@Slf4j
+public class SalesforceCompositeBatchInterceptor implements ClientHttpRequestInterceptor {
+
+  private final CompositeBatchConfig compositeBatchConfig;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, CompositeBatcher> batchers = new ConcurrentHashMap<>();
+
+  public SalesforceCompositeBatchInterceptor(
+      final CompositeBatchConfig compositeBatchConfig, final MeterRegistry meterRegistry) {
+    this.compositeBatchConfig = compositeBatchConfig;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public boolean isEnabled() {
+    return compositeBatchConfig.isEnabled();
+  }
+
+  @Override
+  @NonNull
+  public ClientHttpResponse intercept(
+      final HttpRequest request,
+      @NonNull final byte[] body,
+      final ClientHttpRequestExecution execution)
+      throws IOException {
+    if (!CompositeBatcher.isBatchable(
+        request.getMethodValue(), request.getURI(), request.getHeaders().keySet())) {
+      return execution.execute(request, body);
+    }
+    String org = SalesforceMvcOrgRegistry.currentOrg();
+    CompositeBatcher.Entry entry =
+        batchers
+            .computeIfAbsent(
+                org, name -> new CompositeBatcher(name, compositeBatchConfig, meterRegistry))
+            .add(
+                SalesforceMvcOrgRegistry.currentPriority().name(),
+                request.getMethodValue(),
+                request.getURI(),
+                body);
+    if (entry == null) {
+      return execution.execute(request, body);
+    }
+    if (entry.isLeader()) {
+      return lead(entry, request, body, execution);
+    }
+    return new SubresponseClientHttpResponse(await(entry.getResponse()));
+  }
+
+  /** Waits for the batch to fill up, then sends it, or the call alone if nobody joined. */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private static ClientHttpResponse lead(
+      final CompositeBatcher.Entry entry,
+      final HttpRequest request,
+      final byte[] body,
+      final ClientHttpRequestExecution execution)
+      throws IOException {
+    CompositeBatcher.Batch batch = entry.getBatch();
+    byte[] batchBody;
+    try {
+      await(batch.getReady());
+      batchBody = batch.close();
+    } catch (IOException | RuntimeException e) {
+      batch.abandon(e);
+      throw e;
+    }
+    if (batchBody == null) {
+      return execution.execute(request, body);
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("sending composite batch to {}", batch.getUri());
+    }
+    try (ClientHttpResponse response =
+        execution.execute(new BatchRequest(request, batch.getUri()), batchBody)) {
+      batch.complete(response.getRawStatusCode(), readBody(response));
+    } catch (IOException | RuntimeException e) {
+      batch.fail(e);
+      throw e;
+    }
+    return new SubresponseClientHttpResponse(await(entry.getResponse()));
+  }
+
+  /** Like the default error handler, an error response without a readable body has none. */
+  private static byte[] readBody(final ClientHttpResponse response) throws IOException {
+    try {
+      return StreamUtils.copyToByteArray(response.getBody());
+    } catch (IOException e) {
+      if (HttpStatus.Series.resolve(response.getRawStatusCode()) == HttpStatus.Series.SUCCESSFUL) {
+        throw e;
+      }
+      return new byte[0];
+    }
+  }
+
+  private static <T> T await(final CompletableFuture<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (InterruptedIOException)
+          new InterruptedIOException("interrupted waiting for composite batch").initCause(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException("composite batch failed: " + e.getCause().getMessage(), e);
+    }
+  }
+
+  /** POST of the composite batch, with headers of its own for the interceptors to set. */
+  private static final class BatchRequest extends HttpRequestWrapper {
+
+    private final URI uri;
+    private final HttpHeaders headers = new HttpHeaders();
+
+    private BatchRequest(final HttpRequest request, final URI uri) {
+      super(request);
+      this.uri = uri;
+      headers.setContentType(MediaType.APPLICATION_JSON);
+      headers.setAccept(MediaType.parseMediaTypes(MediaType.APPLICATION_JSON_VALUE));
+    }
+
+    @Override
+    @NonNull
+    public HttpMethod getMethod() {
+      return HttpMethod.POST;
+    }
+
+    @Override
+    @NonNull
+    public String getMethodValue() {
+      return HttpMethod.POST.name();
+    }
+
+    @Override
+    @NonNull
+    public URI getURI() {
+      return uri;
+    }
+
+    @Override
+    @NonNull
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+
+  /** The response of one call in a batch. */
+  private static final class SubresponseClientHttpResponse extends AbstractClientHttpResponse {
+
+    private final CompositeBatcher.Subresponse subresponse;
+    private final HttpHeaders headers = new HttpHeaders();
+
+    private SubresponseClientHttpResponse(final CompositeBatcher.Subresponse subresponse) {
+      super();
+      this.subresponse = subresponse;
+      headers.setContentType(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    public int getRawStatusCode() {
+      return subresponse.getStatus();
+    }
+
+    @Override
+    @NonNull
+    public String getStatusText() {
+      HttpStatus status = HttpStatus.resolve(subresponse.getStatus());
+      return status == null ? "" : status.getReasonPhrase();
+    }
+
+    @Override
+    @NonNull
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+
+    @Override
+    @NonNull
+    public InputStream getBody() {
+      return new ByteArrayInputStream(subresponse.getBody());
+    }
+
+    @Override
+    public void close() {
+      // the body is buffered
+    }
+  }
+}
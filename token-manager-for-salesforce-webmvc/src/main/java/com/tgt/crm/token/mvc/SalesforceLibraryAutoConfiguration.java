@@ -1,8 +1,32 @@
 package com.tgt.crm.token.mvc;
 
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.BulkIngestConfig;
+import com.tgt.crm.token.core.BulkQueryConfig;
+import com.tgt.crm.token.core.CompositeBatchConfig;
+import com.tgt.crm.token.core.FileTokenStore;
 import com.tgt.crm.token.core.HttpClientConfig;
+import com.tgt.crm.token.core.InMemoryTokenStore;
+import com.tgt.crm.token.core.ProactiveRefreshConfig;
+import com.tgt.crm.token.core.ProactiveTokenRefresher;
+import com.tgt.crm.token.core.SObjectCollectionsConfig;
 import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenManager;
+import com.tgt.crm.token.core.TokenStore;
+import com.tgt.crm.token.core.TokenStoreConfig;
+import java.util.concurrent.ExecutorService;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.retry.annotation.EnableRetry;
@@ -11,8 +35,87 @@ import org.springframework.retry.annotation.EnableRetry;
 @EnableConfigurationProperties({
   SalesforceConfig.class,
   HttpClientConfig.class,
-  WebMvcHttpClientConfig.class
+  WebMvcHttpClientConfig.class,
+  ProactiveRefreshConfig.class,
+  TokenStoreConfig.class,
+  ApiLimitConfig.class,
+  CompositeBatchConfig.class,
+  SObjectCollectionsConfig.class,
+  BulkIngestConfig.class,
+  BulkQueryConfig.class
 })
 @EnableRetry
 @ComponentScan
-public class SalesforceLibraryAutoConfiguration {}
+public class SalesforceLibraryAutoConfiguration {
+
+  /** Define a {@link TokenGrant} bean to use a custom grant for the default org. */
+  @Bean
+  @ConditionalOnMissingBean
+  public TokenGrant sfTokenGrant(final SalesforceConfig salesforceConfig) {
+    return TokenGrant.fromConfig(salesforceConfig);
+  }
+
+  @Bean
+  @ConditionalOnProperty("salesforce.proactive-refresh.enabled")
+  public ProactiveTokenRefresher proactiveTokenRefresher(
+      final SalesforceMvcOrgRegistry orgRegistry,
+      final ProactiveRefreshConfig proactiveRefreshConfig) {
+    TokenManager defaultTokenManager = orgRegistry.getAuthClient(DEFAULT_ORG).getTokenManager();
+    ProactiveTokenRefresher proactiveTokenRefresher =
+        new ProactiveTokenRefresher(defaultTokenManager, proactiveRefreshConfig);
+    orgRegistry.getUserPools().values().stream()
+        .flatMap(userPool -> userPool.getUsers().stream())
+        .map(SalesforceMvcAuthClient::getTokenManager)
+        .filter(tokenManager -> tokenManager != defaultTokenManager)
+        .forEach(proactiveTokenRefresher::register);
+    return proactiveTokenRefresher;
+  }
+
+  /**
+   * Runs the token refreshes and token store calls, and Salesforce calls submitted to it, on
+   * virtual threads. A call waiting for a token, a pooled connection, a retry interval or the
+   * response parks its virtual thread instead of holding a platform thread. Requires Java 21 or
+   * later.
+   */
+  @Bean(destroyMethod = "shutdown")
+  @SuppressWarnings("PMD.DoNotUseThreads")
+  @ConditionalOnProperty("salesforce.httpclient.webmvc.virtual-threads")
+  public ExecutorService sfVirtualThreadExecutor() {
+    return VirtualThreadUtils.newThreadPerTaskExecutor("sf-call-");
+  }
+
+  /**
+   * sfRestTemplate blocks the thread that calls it, so its calls only park when that thread is
+   * virtual. Handling the servlet requests on sfVirtualThreadExecutor changes the application's own
+   * server, so it takes tomcat-virtual-threads in addition to virtual-threads.
+   */
+  @Configuration
+  @ConditionalOnClass(Tomcat.class)
+  @ConditionalOnProperty({
+    "salesforce.httpclient.webmvc.virtual-threads",
+    "salesforce.httpclient.webmvc.tomcat-virtual-threads"
+  })
+  public static class VirtualThreadTomcatConfiguration {
+
+    @Bean
+    @SuppressWarnings("PMD.DoNotUseThreads")
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> sfVirtualThreadTomcatCustomizer(
+        @Qualifier("sfVirtualThreadExecutor") final ExecutorService sfVirtualThreadExecutor) {
+      return protocolHandler -> protocolHandler.setExecutor(sfVirtualThreadExecutor);
+    }
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty("salesforce.token-store.enabled")
+  public TokenStore fileTokenStore(final TokenStoreConfig tokenStoreConfig) {
+    return new FileTokenStore(tokenStoreConfig);
+  }
+
+  /** Define a {@link TokenStore} bean to share tokens between instances through other storage. */
+  @Bean
+  @ConditionalOnMissingBean
+  public TokenStore inMemoryTokenStore() {
+    return new InMemoryTokenStore();
+  }
+}
@@ -2,43 +2,91 @@ package com.tgt.crm.token.mvc;
 
 import static com.tgt.crm.token.core.SalesforceConstants.EXCEPTION_COUNTER;
 import static com.tgt.crm.token.core.SalesforceConstants.EXCEPTION_TYPE_TAG;
-import static com.tgt.crm.token.core.SalesforceConstants.MAX_AUTH_TOKEN_RETRIES_DEFAULT;
-import static com.tgt.crm.token.core.SalesforceConstants.RETRY_BACKOFF_DELAY_DEFAULT;
-import static com.tgt.crm.token.core.SalesforceConstants.RETRY_BACKOFF_MULTIPLIER_DEFAULT;
 import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_EXCEPTION;
 
+import com.tgt.crm.token.core.AuthCircuitBreaker;
+import com.tgt.crm.token.core.AuthCircuitOpenException;
 import com.tgt.crm.token.core.SalesforceAuthResponse;
 import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenManager;
+import com.tgt.crm.token.core.TokenStore;
 import io.micrometer.core.instrument.MeterRegistry;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.lang.Nullable;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 @Slf4j
 @Configuration
+@SuppressWarnings("PMD.DoNotUseThreads")
 public class SalesforceMvcAuthClient {
 
   private final SalesforceConfig salesforceConfig;
+  private final TokenGrant tokenGrant;
   private final RestTemplate restTemplate;
   private final MeterRegistry meterRegistry;
-  private String token;
+  private final RetryTemplate retryTemplate;
+  private final TokenManager tokenManager;
+  private final ExecutorService refreshExecutor;
 
   public SalesforceMvcAuthClient(
       final SalesforceConfig salesforceConfig,
-      final @Qualifier("sfAuthRestTemplate") RestTemplate sfAuthRestTemplate,
+      final TokenGrant tokenGrant,
+      final TokenStore tokenStore,
+      final RestTemplate sfAuthRestTemplate,
       final MeterRegistry meterRegistry) {
+    this(salesforceConfig, tokenGrant, tokenStore, sfAuthRestTemplate, meterRegistry, null);
+  }
+
+  /**
+   * Creates an auth client that refreshes its token and calls the token store on the given
+   * executor, so neither the auth call nor its retry backoff blocks the thread that triggered the
+   * refresh.
+   *
+   * @param salesforceConfig the org and integration user
+   * @param tokenGrant builds the token request
+   * @param tokenStore shares the token between instances
+   * @param sfAuthRestTemplate calls the Salesforce OAuth endpoint
+   * @param meterRegistry counts failed refreshes
+   * @param refreshExecutor sfVirtualThreadExecutor if it is defined, the refresh runs on the thread
+   *     that triggered it if null
+   */
+  @Autowired
+  public SalesforceMvcAuthClient(
+      final SalesforceConfig salesforceConfig,
+      final TokenGrant tokenGrant,
+      final TokenStore tokenStore,
+      final @Qualifier("sfAuthRestTemplate") RestTemplate sfAuthRestTemplate,
+      final MeterRegistry meterRegistry,
+      final @Qualifier("sfVirtualThreadExecutor") @Nullable ExecutorService refreshExecutor) {
     this.restTemplate = sfAuthRestTemplate;
     this.salesforceConfig = salesforceConfig;
+    this.tokenGrant = tokenGrant;
     this.meterRegistry = meterRegistry;
+    this.retryTemplate = buildRetryTemplate(salesforceConfig);
+    this.refreshExecutor = refreshExecutor;
+    this.tokenManager =
+        new TokenManager(
+            this::requestToken,
+            tokenStore,
+            TokenStore.keyFor(salesforceConfig),
+            AuthCircuitBreaker.fromConfig(salesforceConfig),
+            refreshExecutor == null ? Runnable::run : refreshExecutor);
   }
 
   /**
@@ -47,63 +95,122 @@ public class SalesforceMvcAuthClient {
    * @return the Salesforce oAuth bearer token
    */
   public String getToken() {
-    return this.token == null ? null : this.token;
+    SalesforceToken token = tokenManager.getCachedToken();
+    return token == null ? null : token.getAuthorization();
   }
 
   /**
-   * Generates a new Salesforce token by calling Salesforce OAuth endpoint. Note that the @Retryable
-   * annotation only works if this method is called from outside of this class. That is the reason
-   * we return null from getToken() instead of calling refreshToken() there. This way we can check
-   * if getToken() is null from wherever we call it and call generateToken() from outside of this
-   * class if it is.
+   * Generates a new Salesforce token even if one is cached. See {@link
+   * #refreshToken(SalesforceToken)}.
+   *
+   * @return the refreshed Salesforce oAuth bearer token, null if every attempt failed
    */
-  @Retryable(
-      maxAttemptsExpression =
-          "${salesforce.max-auth-token-retries:" + MAX_AUTH_TOKEN_RETRIES_DEFAULT + "}",
-      backoff =
-          @Backoff(
-              multiplierExpression =
-                  "${salesforce.retry-backoff-multiplier:" + RETRY_BACKOFF_MULTIPLIER_DEFAULT + "}",
-              delayExpression =
-                  "${salesforce.retry-backoff-delay:" + RETRY_BACKOFF_DELAY_DEFAULT + "}"))
   public String refreshToken() {
+    SalesforceToken token = refreshToken(tokenManager.getCachedToken());
+    return token == null ? null : token.getAuthorization();
+  }
+
+  /**
+   * Returns the cached token, generating the first token if there is none.
+   *
+   * @return the current token, null if it could not be generated
+   * @throws AuthCircuitOpenException if the auth circuit is open, so no call is made without a
+   *     token
+   */
+  public SalesforceToken getSalesforceToken() {
+    return await(tokenManager.getToken());
+  }
+
+  /**
+   * Replaces a token that Salesforce rejected with a 401 by calling the Salesforce OAuth endpoint,
+   * retrying with exponential backoff on failure. Only one thread performs the refresh at a time,
+   * any other thread calling this method while a refresh is in flight waits for and shares its
+   * result. If the token was already replaced since the request was made, the newer token is
+   * returned without calling Salesforce again.
+   *
+   * @param rejectedToken the token used for the request that failed, null if there was none
+   * @return a token newer than the rejected one, null if every attempt failed
+   * @throws AuthCircuitOpenException if the auth circuit is open
+   */
+  public SalesforceToken refreshToken(final SalesforceToken rejectedToken) {
+    return await(tokenManager.refreshToken(rejectedToken));
+  }
+
+  public TokenManager getTokenManager() {
+    return tokenManager;
+  }
+
+  private SalesforceToken await(final CompletableFuture<SalesforceToken> token) {
+    try {
+      return token.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof AuthCircuitOpenException) {
+        throw (AuthCircuitOpenException) e.getCause();
+      }
+      if (tokenManager.getCircuitBreaker().getState() == AuthCircuitBreaker.State.OPEN) {
+        // this failure opened the circuit, a call without a token would only be rejected
+        throw new AuthCircuitOpenException(
+            "salesforce token request failed and opened the auth circuit", e);
+      }
+      // already logged and counted once by the thread that performed the refresh
+      return null;
+    }
+  }
+
+  /**
+   * Runs on the refresh executor if there is one, or else on the thread that won the refresh.
+   * Waiting threads park on the token manager's shared future.
+   */
+  private CompletableFuture<SalesforceAuthResponse> requestToken() {
+    if (refreshExecutor == null) {
+      return requestTokenWithRetries();
+    }
+    return CompletableFuture.supplyAsync(this::requestTokenWithRetries, refreshExecutor)
+        .thenCompose(Function.identity());
+  }
+
+  private CompletableFuture<SalesforceAuthResponse> requestTokenWithRetries() {
+    try {
+      return CompletableFuture.completedFuture(retryTemplate.execute(context -> callAuthUri()));
+    } catch (RestClientException e) {
+      // the token manager discards a rejected token so the next request tries to refresh again
+      log.error("token refresh failed", e);
+      meterRegistry
+          .counter(EXCEPTION_COUNTER, EXCEPTION_TYPE_TAG, TOKEN_REFRESH_EXCEPTION)
+          .increment();
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private SalesforceAuthResponse callAuthUri() {
     log.debug("generateToken is called");
 
     ResponseEntity<SalesforceAuthResponse> salesforceAuthResponseEntity =
         restTemplate.exchange(
             salesforceConfig.getAuthUri(),
             HttpMethod.POST,
-            new HttpEntity<>(initAuthString()),
+            new HttpEntity<>(tokenGrant.requestBody()),
             SalesforceAuthResponse.class);
 
     assert salesforceAuthResponseEntity.getBody() != null
         : "salesforce auth response body should never be null";
-    this.token = salesforceAuthResponseEntity.getBody().getSalesforceAuthToken();
     log.info("token successfully generated");
-    return this.token;
+    return salesforceAuthResponseEntity.getBody();
   }
 
-  @Recover
-  @SuppressWarnings("PMD.NullAssignment")
-  public String handleRefreshFailure(final Throwable ex) {
-    log.error("token refresh failed", ex);
-    meterRegistry
-        .counter(EXCEPTION_COUNTER, EXCEPTION_TYPE_TAG, TOKEN_REFRESH_EXCEPTION)
-        .increment();
-    // set to null so the next time getToken is called, it will try to refresh token again
-    this.token = null;
-    return null;
-  }
+  /**
+   * Retry is configured programmatically rather than with @Retryable so the whole retry cycle runs
+   * once inside the shared refresh instead of once per waiting thread.
+   */
+  private static RetryTemplate buildRetryTemplate(final SalesforceConfig salesforceConfig) {
+    ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
+    backOffPolicy.setInitialInterval(salesforceConfig.getRetryBackoffDelay());
+    backOffPolicy.setMultiplier(salesforceConfig.getRetryBackoffMultiplier());
 
-  private String initAuthString() {
-    return "grant_type=password"
-        + "&username="
-        + salesforceConfig.getUsername()
-        + "&password="
-        + URLEncoder.encode(salesforceConfig.getPassword(), StandardCharsets.UTF_8)
-        + "&client_id="
-        + salesforceConfig.getClientId()
-        + "&client_secret="
-        + salesforceConfig.getClientSecret();
+    RetryTemplate retryTemplate = new RetryTemplate();
+    retryTemplate.setRetryPolicy(
+        new SimpleRetryPolicy(Math.max(1, salesforceConfig.getMaxAuthTokenRetries())));
+    retryTemplate.setBackOffPolicy(backOffPolicy);
+    return retryTemplate;
   }
 }
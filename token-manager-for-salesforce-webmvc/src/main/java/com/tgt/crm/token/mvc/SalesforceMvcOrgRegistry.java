@@ -0,0 +1,156 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_KEY;
+import static com.tgt.crm.token.core.SalesforceConstants.PRIORITY_KEY;
+
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.RequestPriority;
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceOrgRegistry;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenGrant;
+import com.tgt.crm.token.core.TokenStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * The {@link SalesforceOrgRegistry} of the RestTemplate clients. Requests select an org by setting
+ * the {@link com.tgt.crm.token.core.SalesforceConstants#ORG_KEY} request attribute on the current
+ * request, calls made without it go to the default org.
+ */
+@Configuration
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class SalesforceMvcOrgRegistry extends SalesforceOrgRegistry<SalesforceMvcAuthClient> {
+
+  public SalesforceMvcOrgRegistry(
+      final SalesforceMvcAuthClient salesforceMvcAuthClient,
+      final SalesforceConfig salesforceConfig,
+      final RestTemplateBuilder restTemplateBuilder,
+      final TokenStore tokenStore,
+      final ApiLimitConfig apiLimitConfig,
+      final MeterRegistry meterRegistry) {
+    this(
+        salesforceMvcAuthClient,
+        salesforceConfig,
+        restTemplateBuilder,
+        tokenStore,
+        apiLimitConfig,
+        meterRegistry,
+        null);
+  }
+
+  /** The auth clients of additional orgs and users refresh on sfVirtualThreadExecutor if set. */
+  @Autowired
+  public SalesforceMvcOrgRegistry(
+      final SalesforceMvcAuthClient salesforceMvcAuthClient,
+      final SalesforceConfig salesforceConfig,
+      final RestTemplateBuilder restTemplateBuilder,
+      final TokenStore tokenStore,
+      final ApiLimitConfig apiLimitConfig,
+      final MeterRegistry meterRegistry,
+      final @Qualifier("sfVirtualThreadExecutor") @Nullable ExecutorService refreshExecutor) {
+    super(
+        salesforceMvcAuthClient,
+        salesforceConfig,
+        apiLimitConfig,
+        meterRegistry,
+        config ->
+            buildAuthClient(
+                config, restTemplateBuilder, tokenStore, meterRegistry, refreshExecutor),
+        SalesforceMvcAuthClient::getTokenManager);
+  }
+
+  private static SalesforceMvcAuthClient buildAuthClient(
+      final SalesforceConfig config,
+      final RestTemplateBuilder restTemplateBuilder,
+      final TokenStore tokenStore,
+      final MeterRegistry meterRegistry,
+      final ExecutorService refreshExecutor) {
+    return new SalesforceMvcAuthClient(
+        config,
+        TokenGrant.fromConfig(config),
+        tokenStore,
+        AuthRestTemplate.buildAuthRestTemplate(restTemplateBuilder, config.getHost()),
+        meterRegistry,
+        refreshExecutor);
+  }
+
+  /**
+   * Reads the org selected for the current request.
+   *
+   * @return the org name, the default org if none was selected or there is no current request
+   */
+  public static String currentOrg() {
+    Object org = currentRequestAttribute(ORG_KEY);
+    return org == null ? DEFAULT_ORG : org.toString();
+  }
+
+  /**
+   * Reads the priority set for the current request.
+   *
+   * @return the priority, normal if none was set or there is no current request
+   */
+  public static RequestPriority currentPriority() {
+    Object priority = currentRequestAttribute(PRIORITY_KEY);
+    return priority instanceof RequestPriority
+        ? (RequestPriority) priority
+        : RequestPriority.NORMAL;
+  }
+
+  private static Object currentRequestAttribute(final String name) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return attributes == null
+        ? null
+        : attributes.getAttribute(name, RequestAttributes.SCOPE_REQUEST);
+  }
+
+  /**
+   * Points a request at the host of the given org, see {@link #routeToOrg(URI, String)}.
+   *
+   * @param request the request to route
+   * @param org the org name
+   * @return the request with the org's scheme, host and port
+   */
+  public HttpRequest routeToOrg(final HttpRequest request, final String org) {
+    return withUri(request, routeToOrg(request.getURI(), org));
+  }
+
+  /**
+   * Points a request at the instance_url of the token used for it, see {@link #routeToInstance(URI,
+   * String, SalesforceToken)}. Headers are shared with the given request.
+   *
+   * @param request the request, already routed to the org
+   * @param org the org name
+   * @param token the token used for the request, null if there is none
+   * @return the request to the token's instance host
+   */
+  public HttpRequest routeToInstance(
+      final HttpRequest request, final String org, final SalesforceToken token) {
+    return withUri(request, routeToInstance(request.getURI(), org, token));
+  }
+
+  private static HttpRequest withUri(final HttpRequest request, final URI url) {
+    if (url.equals(request.getURI())) {
+      return request;
+    }
+    return new HttpRequestWrapper(request) {
+      @Override
+      @NonNull
+      public URI getURI() {
+        return url;
+      }
+    };
+  }
+}
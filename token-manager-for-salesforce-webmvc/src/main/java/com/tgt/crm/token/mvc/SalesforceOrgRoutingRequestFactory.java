@@ -0,0 +1,32 @@
+package com.tgt.crm.token.mvc;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.lang.NonNull;
+
+/**
+ * Creates each request with the request factory, and so the connection pool, of the org selected
+ * for the current request, so a slow org cannot exhaust the connections of the others.
+ */
+@AllArgsConstructor
+public class SalesforceOrgRoutingRequestFactory implements ClientHttpRequestFactory {
+
+  private final Map<String, ClientHttpRequestFactory> requestFactories;
+
+  @Override
+  @NonNull
+  public ClientHttpRequest createRequest(@NonNull final URI uri, @NonNull final HttpMethod method)
+      throws IOException {
+    String org = SalesforceMvcOrgRegistry.currentOrg();
+    ClientHttpRequestFactory requestFactory = requestFactories.get(org);
+    if (requestFactory == null) {
+      throw new IllegalArgumentException("unknown salesforce org " + org);
+    }
+    return requestFactory.createRequest(uri, method);
+  }
+}
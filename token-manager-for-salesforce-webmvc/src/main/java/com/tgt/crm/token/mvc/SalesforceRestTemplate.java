@@ -2,6 +2,11 @@ package com.tgt.crm.token.mvc;
 
 import com.tgt.crm.token.core.HttpClientConfig;
 import com.tgt.crm.token.core.SalesforceConfig;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpResponse;
@@ -10,6 +15,7 @@ import org.apache.http.client.ServiceUnavailableRetryStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.protocol.HttpContext;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,27 +29,82 @@ import org.springframework.web.client.RestTemplate;
 @AllArgsConstructor
 @Configuration
 @Slf4j
-public class SalesforceRestTemplate {
+public class SalesforceRestTemplate implements DisposableBean {
 
   private final SalesforceRestTemplateInterceptor sfRestTemplateInterceptor;
+  private final SalesforceCompositeBatchInterceptor compositeBatchInterceptor;
+  private final SalesforceMvcOrgRegistry orgRegistry;
   private final SalesforceConfig salesforceConfig;
   private final HttpClientConfig httpClientConfig;
   private final WebMvcHttpClientConfig webMvcHttpClientConfig;
+  private final List<SalesforceAsyncRequestFactory> asyncRequestFactories = new ArrayList<>();
 
+  /** Calls are coalesced into composite batches before they are authorized, if enabled. */
   @Bean
   public RestTemplate sfRestTemplate(final RestTemplateBuilder restTemplateBuilder) {
     return restTemplateBuilder
-        .requestFactory(this::getHttpFactory)
+        .requestFactory(() -> getRequestFactory(this::getHttpFactory))
         .rootUri(salesforceConfig.getHost())
-        .additionalInterceptors(sfRestTemplateInterceptor)
+        .additionalInterceptors(
+            compositeBatchInterceptor.isEnabled()
+                ? List.of(compositeBatchInterceptor, sfRestTemplateInterceptor)
+                : List.of(sfRestTemplateInterceptor))
         .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
         .build();
   }
 
+  /**
+   * Creates the requests of bodies streamed with {@link SalesforceRestTemplateInterceptor#execute},
+   * e.g. bulk uploads: the body is written to the connection instead of being buffered. They are
+   * sent with HttpClient 4 also when async-transport is enabled, from connection pools of their
+   * own. A request that fails with an IOException is not retried, as its body was already written.
+   */
+  @Bean
+  public ClientHttpRequestFactory sfUploadRequestFactory() {
+    return getRequestFactory(this::getUploadFactory);
+  }
+
+  /** Each org gets its own connection pool when additional orgs are configured. */
+  private ClientHttpRequestFactory getRequestFactory(
+      final Supplier<ClientHttpRequestFactory> httpFactory) {
+    if (!orgRegistry.isMultiOrg()) {
+      return httpFactory.get();
+    }
+    Map<String, ClientHttpRequestFactory> requestFactories = new HashMap<>();
+    orgRegistry
+        .getAuthClients()
+        .keySet()
+        .forEach(org -> requestFactories.put(org, httpFactory.get()));
+    return new SalesforceOrgRoutingRequestFactory(requestFactories);
+  }
+
+  /** The async client runs its own I/O threads, they are stopped with the application context. */
+  @Override
+  public void destroy() {
+    asyncRequestFactories.forEach(SalesforceAsyncRequestFactory::destroy);
+  }
+
   private ClientHttpRequestFactory getHttpFactory() {
+    if (webMvcHttpClientConfig.isAsyncTransport()) {
+      SalesforceAsyncRequestFactory asyncRequestFactory =
+          new SalesforceAsyncRequestFactory(httpClientConfig, webMvcHttpClientConfig);
+      asyncRequestFactories.add(asyncRequestFactory);
+      return asyncRequestFactory;
+    }
+    return getHttpComponentsFactory();
+  }
+
+  private ClientHttpRequestFactory getUploadFactory() {
+    HttpComponentsClientHttpRequestFactory uploadFactory = getHttpComponentsFactory();
+    uploadFactory.setBufferRequestBody(false);
+    return uploadFactory;
+  }
+
+  private HttpComponentsClientHttpRequestFactory getHttpComponentsFactory() {
     PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
     connectionManager.setMaxTotal(webMvcHttpClientConfig.getMaxPools());
-    connectionManager.setDefaultMaxPerRoute(httpClientConfig.getMaxConnPerRoute());
+    connectionManager.setDefaultMaxPerRoute(
+        webMvcHttpClientConfig.getMaxConnPerRoute(httpClientConfig));
     HttpClient httpClient =
         HttpClientBuilder.create()
             .setConnectionManager(connectionManager)
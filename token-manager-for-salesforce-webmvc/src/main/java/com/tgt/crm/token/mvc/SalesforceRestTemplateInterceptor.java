@@ -1,26 +1,40 @@
 package com.tgt.crm.token.mvc;
 
+import static com.tgt.crm.token.core.SalesforceConstants.LIMIT_INFO_HEADER;
+
+import com.tgt.crm.token.core.ApiLimitTracker;
+import com.tgt.crm.token.core.AuthCircuitOpenException;
+import com.tgt.crm.token.core.IntegrationUserPool;
+import com.tgt.crm.token.core.SalesforceToken;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.SerializationUtils;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 
 @AllArgsConstructor
 @Slf4j
 @Configuration
 public class SalesforceRestTemplateInterceptor implements ClientHttpRequestInterceptor {
 
-  private final SalesforceMvcAuthClient salesForceMvcAuthClient;
+  private final SalesforceMvcOrgRegistry orgRegistry;
 
   @Override
   @NonNull
@@ -30,34 +44,144 @@ public class SalesforceRestTemplateInterceptor implements ClientHttpRequestInter
       final ClientHttpRequestExecution execution)
       throws IOException {
     log.debug("Entering intercept method for Salesforce call");
+    return authorize(request, body, authorized -> execution.execute(authorized, body));
+  }
+
+  /**
+   * Sends a request whose body is streamed rather than buffered, authorized and routed like the
+   * calls of sfRestTemplate. RestTemplate interceptors get the whole body as a byte array, so a
+   * large body, e.g. the CSV of a bulk upload, is sent with this instead.
+   *
+   * @param uri the absolute url of the request, routed to the org and instance like sfRestTemplate
+   * @param method the method of the request
+   * @param headers the headers of the request, the Authorization header is added
+   * @param body writes the body, again if the request is sent again after a 401
+   * @param requestFactory creates the request, a streaming one unless it buffers the body itself
+   * @return the response, to be closed by the caller
+   * @throws IOException if the request could not be sent
+   */
+  public ClientHttpResponse execute(
+      final URI uri,
+      final HttpMethod method,
+      final HttpHeaders headers,
+      final StreamingHttpOutputMessage.Body body,
+      final ClientHttpRequestFactory requestFactory)
+      throws IOException {
+    log.debug("Entering execute method for streamed Salesforce call");
+    return authorize(
+        new StreamedRequest(uri, method, headers),
+        null,
+        authorized -> stream(authorized, body, requestFactory));
+  }
+
+  private ClientHttpResponse authorize(
+      final HttpRequest request, @Nullable final byte[] body, final Sender sender)
+      throws IOException {
+    String org = SalesforceMvcOrgRegistry.currentOrg();
+    HttpRequest orgRequest = orgRegistry.routeToOrg(request, org);
+    IntegrationUserPool<SalesforceMvcAuthClient> userPool = orgRegistry.getUserPool(org);
+    ApiLimitTracker apiLimitTracker = orgRegistry.getApiLimitTracker(org);
+    delay(apiLimitTracker.admissionDelay(SalesforceMvcOrgRegistry.currentPriority()));
+    IntegrationUserPool.Lease<SalesforceMvcAuthClient> lease = userPool.acquire();
+    ClientHttpResponse response;
+    try {
+      response = intercept(lease, org, orgRequest, body, sender);
+    } catch (AuthCircuitOpenException e) {
+      // the user's circuit is open, let the following calls use the other users
+      lease.fail();
+      throw e;
+    } finally {
+      lease.release();
+    }
+    apiLimitTracker.update(response.getHeaders().getFirst(LIMIT_INFO_HEADER));
+    return response;
+  }
 
-    String token =
-        salesForceMvcAuthClient.getToken() == null
-            ? salesForceMvcAuthClient.refreshToken()
-            : salesForceMvcAuthClient.getToken();
+  /** Holds back a low priority call while the org is close to its api limit. */
+  private static void delay(final long millis) throws InterruptedIOException {
+    if (millis > 0) {
+      log.debug("delaying low priority call by {} ms", millis);
+      try {
+        TimeUnit.MILLISECONDS.sleep(millis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw (InterruptedIOException)
+            new InterruptedIOException("interrupted while delaying low priority call").initCause(e);
+      }
+    }
+  }
 
-    request.getHeaders().add(HttpHeaders.AUTHORIZATION, token);
-    request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+  private ClientHttpResponse intercept(
+      final IntegrationUserPool.Lease<SalesforceMvcAuthClient> lease,
+      final String org,
+      final HttpRequest orgRequest,
+      @Nullable final byte[] body,
+      final Sender sender)
+      throws IOException {
+    SalesforceMvcAuthClient salesForceMvcAuthClient = lease.getUser();
+    SalesforceToken token = salesForceMvcAuthClient.getSalesforceToken();
+    if (token == null) {
+      // the user's token could not be generated, let the following calls use the other users
+      lease.fail();
+    }
 
-    logRequest(request, body);
+    HttpHeaders headers = orgRequest.getHeaders();
+    headers.set(HttpHeaders.AUTHORIZATION, authorization(token));
+    // json unless the caller chose another body type, e.g. the csv of a bulk upload
+    if (!headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
+      headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    logRequest(orgRequest, body);
 
-    ClientHttpResponse response = execution.execute(request, body);
+    ClientHttpResponse response = sender.send(orgRegistry.routeToInstance(orgRequest, org, token));
 
     logResponse(response);
 
-    // if we get a 401, refresh the token and try request again
+    // if we get a 401, refresh the token and try request again. The token used for this request is
+    // passed along so a 401 for a token that was already replaced reuses the newer token
     if (response.getStatusCode() == HttpStatus.UNAUTHORIZED) {
       log.info("received 401 response, refreshing token");
+      salesForceMvcAuthClient.getTokenManager().getMetrics().unauthorizedRetry();
       response.close();
-      request.getHeaders().set(HttpHeaders.AUTHORIZATION, salesForceMvcAuthClient.refreshToken());
-      response = execution.execute(request, body);
+      SalesforceToken refreshed = salesForceMvcAuthClient.refreshToken(token);
+      if (refreshed == null) {
+        lease.fail();
+      }
+      headers.set(HttpHeaders.AUTHORIZATION, authorization(refreshed));
+      // the refreshed token may be issued for another instance
+      response = sender.send(orgRegistry.routeToInstance(orgRequest, org, refreshed));
       logResponse(response);
     }
 
     return response;
   }
 
-  private void logRequest(final HttpRequest request, final byte[] body) {
+  private static ClientHttpResponse stream(
+      final HttpRequest request,
+      final StreamingHttpOutputMessage.Body body,
+      final ClientHttpRequestFactory requestFactory)
+      throws IOException {
+    HttpMethod method = HttpMethod.valueOf(request.getMethodValue());
+    ClientHttpRequest clientRequest = requestFactory.createRequest(request.getURI(), method);
+    clientRequest.getHeaders().putAll(request.getHeaders());
+    if (clientRequest instanceof StreamingHttpOutputMessage) {
+      ((StreamingHttpOutputMessage) clientRequest).setBody(body);
+    } else {
+      body.writeTo(clientRequest.getBody());
+    }
+    return clientRequest.execute();
+  }
+
+  /**
+   * Built once when the token was issued. It is set rather than put as a shared list, so each
+   * request gets a list of its own that the caller and the request factory may add to.
+   */
+  private static String authorization(final SalesforceToken token) {
+    return token == null ? null : token.getAuthorization();
+  }
+
+  private void logRequest(final HttpRequest request, @Nullable final byte[] body) {
     if (log.isTraceEnabled()) {
       HttpHeaders headerDeepCopy = SerializationUtils.clone(request.getHeaders());
       headerDeepCopy.setBearerAuth("************");
@@ -66,7 +190,9 @@ public class SalesforceRestTemplateInterceptor implements ClientHttpRequestInter
       log.trace("URI         : {}", request.getURI());
       log.trace("Method      : {}", request.getMethod());
       log.trace("Headers     : {}", headerDeepCopy);
-      log.trace("Request body: {}", new String(body, StandardCharsets.UTF_8));
+      log.trace(
+          "Request body: {}",
+          body == null ? "(streamed)" : new String(body, StandardCharsets.UTF_8));
       log.trace(
           "==========================request end===============================================");
     }
@@ -85,4 +211,38 @@ public class SalesforceRestTemplateInterceptor implements ClientHttpRequestInter
           "=======================response end=================================================");
     }
   }
+
+  /** Sends the authorized request, once more after a 401. */
+  @FunctionalInterface
+  private interface Sender {
+
+    ClientHttpResponse send(HttpRequest request) throws IOException;
+  }
+
+  /** The url, method and headers of a streamed request, its body is written when it is sent. */
+  @AllArgsConstructor
+  private static final class StreamedRequest implements HttpRequest {
+
+    private final URI uri;
+    private final HttpMethod method;
+    private final HttpHeaders headers;
+
+    @Override
+    @NonNull
+    public String getMethodValue() {
+      return method.name();
+    }
+
+    @Override
+    @NonNull
+    public URI getURI() {
+      return uri;
+    }
+
+    @Override
+    @NonNull
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
 }
@@ -0,0 +1,195 @@
+package com.tgt.crm.token.mvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tgt.crm.token.core.SObjectCollections;
+import com.tgt.crm.token.core.SObjectCollectionsConfig;
+import com.tgt.crm.token.core.SaveResult;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Creates and updates records through sObject Collections with sfRestTemplate, up to 200 records of
+ * a type per call instead of a call per record, see {@link SObjectCollections}. The records are
+ * read in batches of salesforce.sobject-collections.batch-size, and up to concurrency batches are
+ * sent at a time on sfVirtualThreadExecutor if it is defined, or else on threads of the writer.
+ *
+ * <p>The next batch is only read once a call completes, so a large or lazy iterable is not read
+ * ahead of the calls in flight. The org and priority of the current request apply to every call.
+ */
+@Configuration
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class SalesforceSObjectWriter implements DisposableBean {
+
+  private final RestTemplate restTemplate;
+  private final SObjectCollections collections;
+  private final ExecutorService executor;
+  private final boolean ownExecutor;
+
+  @Autowired
+  public SalesforceSObjectWriter(
+      @Qualifier("sfRestTemplate") final RestTemplate restTemplate,
+      final SObjectCollectionsConfig sobjectCollectionsConfig,
+      final ObjectProvider<ObjectMapper> objectMapper,
+      @Qualifier("sfVirtualThreadExecutor") final ObjectProvider<ExecutorService> executor) {
+    this(
+        restTemplate,
+        new SObjectCollections(
+            sobjectCollectionsConfig, objectMapper.getIfAvailable(ObjectMapper::new)),
+        executor.getIfAvailable());
+  }
+
+  /**
+   * Creates a writer.
+   *
+   * @param restTemplate sends the calls
+   * @param collections builds the calls
+   * @param executor runs the calls, a cached pool of the writer is used if null
+   */
+  public SalesforceSObjectWriter(
+      final RestTemplate restTemplate,
+      final SObjectCollections collections,
+      final ExecutorService executor) {
+    this.restTemplate = restTemplate;
+    this.collections = collections;
+    this.ownExecutor = executor == null;
+    this.executor = ownExecutor ? newExecutor() : executor;
+  }
+
+  /**
+   * Creates records.
+   *
+   * @param type the sObject type of the records, e.g. Account
+   * @param records the records, each serialized to a JSON object of fields
+   * @param <T> the type of the records
+   * @return a result for each record, in the order of the records
+   * @throws RestClientException if a call could not be sent or its response not read
+   */
+  public <T> List<SaveResult<T>> insert(final String type, final Iterable<T> records) {
+    return write(HttpMethod.POST, type, records);
+  }
+
+  /**
+   * Updates records by their Id field.
+   *
+   * @param type the sObject type of the records, e.g. Account
+   * @param records the records, each serialized to a JSON object of fields including the Id
+   * @param <T> the type of the records
+   * @return a result for each record, in the order of the records
+   * @throws RestClientException if a call could not be sent or its response not read
+   */
+  public <T> List<SaveResult<T>> update(final String type, final Iterable<T> records) {
+    return write(HttpMethod.PATCH, type, records);
+  }
+
+  /** The threads of the writer are stopped with the application context. */
+  @Override
+  public void destroy() {
+    if (ownExecutor) {
+      executor.shutdown();
+    }
+  }
+
+  private <T> List<SaveResult<T>> write(
+      final HttpMethod method, final String type, final Iterable<T> records) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    Deque<CompletableFuture<List<SaveResult<T>>>> inFlight = new ArrayDeque<>();
+    List<SaveResult<T>> results = new ArrayList<>();
+    Iterator<T> iterator = records.iterator();
+    try {
+      while (iterator.hasNext()) {
+        if (inFlight.size() == collections.getConcurrency()) {
+          results.addAll(await(inFlight.poll()));
+        }
+        List<T> batch = nextBatch(iterator);
+        inFlight.add(
+            CompletableFuture.supplyAsync(() -> send(attributes, method, type, batch), executor));
+      }
+      while (!inFlight.isEmpty()) {
+        results.addAll(await(inFlight.poll()));
+      }
+    } finally {
+      inFlight.forEach(call -> call.cancel(false));
+    }
+    return results;
+  }
+
+  private <T> List<T> nextBatch(final Iterator<T> iterator) {
+    List<T> batch = new ArrayList<>(collections.getBatchSize());
+    while (iterator.hasNext() && batch.size() < collections.getBatchSize()) {
+      batch.add(iterator.next());
+    }
+    return batch;
+  }
+
+  /** Calls on the thread of the caller's request, so it selects the same org and priority. */
+  private <T> List<SaveResult<T>> send(
+      final RequestAttributes attributes,
+      final HttpMethod method,
+      final String type,
+      final List<T> batch) {
+    RequestContextHolder.setRequestAttributes(attributes);
+    try {
+      ResponseEntity<byte[]> response = exchange(method, collections.requestBody(type, batch));
+      return collections.results(
+          batch,
+          response.getStatusCodeValue(),
+          response.hasBody() ? response.getBody() : new byte[0]);
+    } catch (IOException e) {
+      throw new RestClientException(e.getMessage(), e);
+    } finally {
+      RequestContextHolder.resetRequestAttributes();
+    }
+  }
+
+  /** A call that failed as a whole is a response too, each record fails with its errors. */
+  private ResponseEntity<byte[]> exchange(final HttpMethod method, final byte[] body) {
+    try {
+      return restTemplate.exchange(
+          collections.getPath(), method, new HttpEntity<>(body), byte[].class);
+    } catch (HttpStatusCodeException e) {
+      return ResponseEntity.status(e.getRawStatusCode()).body(e.getResponseBodyAsByteArray());
+    }
+  }
+
+  private static <T> List<SaveResult<T>> await(final CompletableFuture<List<SaveResult<T>>> call) {
+    try {
+      return call.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RestClientException("interrupted while writing records", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RestClientException(e.getCause().getMessage(), e);
+    }
+  }
+
+  private static ExecutorService newExecutor() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("sf-collections-");
+    threadFactory.setDaemon(true);
+    return Executors.newCachedThreadPool(threadFactory);
+  }
+}
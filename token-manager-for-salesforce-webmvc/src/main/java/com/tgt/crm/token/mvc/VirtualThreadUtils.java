@@ -0,0 +1,51 @@
+package com.tgt.crm.token.mvc;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads are looked up reflectively so the module keeps compiling for and running on Java
+ * 11, they are only created when running on Java 21 or later.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class VirtualThreadUtils {
+
+  private VirtualThreadUtils() {}
+
+  @SuppressWarnings("PMD.DefaultPackage")
+  static boolean isSupported() {
+    try {
+      Thread.class.getMethod("ofVirtual");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * An executor starting a new virtual thread for each task, equivalent to {@code
+   * Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())}.
+   *
+   * @param prefix the thread name prefix, followed by a counter
+   * @return the executor
+   * @throws IllegalStateException if the JVM does not support virtual threads
+   */
+  @SuppressWarnings("PMD.DefaultPackage")
+  static ExecutorService newThreadPerTaskExecutor(final String prefix) {
+    try {
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+      ThreadFactory threadFactory =
+          (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+      return (ExecutorService)
+          Executors.class
+              .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+              .invoke(null, threadFactory);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(
+          "salesforce.httpclient.webmvc.virtual-threads requires Java 21 or later", e);
+    }
+  }
+}
@@ -1,13 +1,43 @@
 package com.tgt.crm.token.mvc;
 
+import static com.tgt.crm.token.core.SalesforceConstants.MAX_CONN_PER_ROUTE_DEFAULT;
+import static com.tgt.crm.token.mvc.WebMvcHttpClientConstants.MAX_POOLS_DEFAULT;
+import static com.tgt.crm.token.mvc.WebMvcHttpClientConstants.VIRTUAL_THREADS_MAX_CONN_PER_ROUTE_DEFAULT;
+import static com.tgt.crm.token.mvc.WebMvcHttpClientConstants.VIRTUAL_THREADS_MAX_POOLS_DEFAULT;
+
+import com.tgt.crm.token.core.HttpClientConfig;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @Data
 @ConfigurationProperties("salesforce.httpclient.webmvc")
 public class WebMvcHttpClientConfig {
-  private int maxPools = 50;
+  // null if not set, defaults to more connections with virtual threads
+  private Integer maxPools;
   private int connectionRequestTimeout = 30_000;
   private int retries = 3;
   private int retryInterval = 2_000;
+  private boolean virtualThreads;
+  // also runs the requests of the application's embedded Tomcat on virtual threads
+  private boolean tomcatVirtualThreads;
+  private boolean asyncTransport;
+
+  public int getMaxPools() {
+    if (maxPools != null) {
+      return maxPools;
+    }
+    return virtualThreads ? VIRTUAL_THREADS_MAX_POOLS_DEFAULT : MAX_POOLS_DEFAULT;
+  }
+
+  /**
+   * Connections per route of the MVC connection pools.
+   *
+   * @param httpClientConfig the shared http client config
+   * @return salesforce.httpclient.max-conn-per-route if set, or else a default that is raised with
+   *     virtual threads
+   */
+  public int getMaxConnPerRoute(final HttpClientConfig httpClientConfig) {
+    return httpClientConfig.getMaxConnPerRoute(
+        virtualThreads ? VIRTUAL_THREADS_MAX_CONN_PER_ROUTE_DEFAULT : MAX_CONN_PER_ROUTE_DEFAULT);
+  }
 }
@@ -7,6 +7,9 @@ public final class WebMvcHttpClientConstants {
   public static final int CONNECTION_REQUEST_TIMEOUT_DEFAULT = 30_000;
   public static final int RETRIES_DEFAULT = 3;
   public static final int RETRY_INTERVAL_DEFAULT = 2_000;
+  // with virtual threads, thousands of calls in flight each hold a pooled connection
+  public static final int VIRTUAL_THREADS_MAX_POOLS_DEFAULT = 1_000;
+  public static final int VIRTUAL_THREADS_MAX_CONN_PER_ROUTE_DEFAULT = 1_000;
 
   private WebMvcHttpClientConstants() {}
 }
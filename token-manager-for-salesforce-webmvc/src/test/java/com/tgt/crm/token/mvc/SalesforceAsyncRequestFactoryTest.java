@@ -0,0 +1,225 @@
+package com.tgt.crm.token.mvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tgt.crm.token.core.HttpClientConfig;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+public class SalesforceAsyncRequestFactoryTest {
+
+  private static final int TIMEOUT = 5; // seconds
+  private static final String SF_URL = "/some/sf/url";
+  private static final String QUERY_SUCCESSFUL = "query successful";
+  private static final long RETRY_INTERVAL = 100;
+
+  private final HttpClientConfig httpClientConfig = new HttpClientConfig();
+  private final WebMvcHttpClientConfig webMvcHttpClientConfig = new WebMvcHttpClientConfig();
+  private MockWebServer mockWebServer;
+  private SalesforceAsyncRequestFactory tested;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+    webMvcHttpClientConfig.setRetries(3);
+    webMvcHttpClientConfig.setRetryInterval((int) RETRY_INTERVAL);
+    tested = new SalesforceAsyncRequestFactory(httpClientConfig, webMvcHttpClientConfig);
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    tested.destroy();
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void get_responseReturned() throws IOException, InterruptedException {
+    mockWebServer.enqueue(
+        new MockResponse()
+            .setBody(QUERY_SUCCESSFUL)
+            .addHeader("Sforce-Limit-Info", "api-usage=25/15000"));
+    ClientHttpRequest request = tested.createRequest(uri(), HttpMethod.GET);
+    request.getHeaders().add("Authorization", "Bearer bearerToken");
+    request.getHeaders().setContentLength(0);
+
+    try (ClientHttpResponse response = request.execute()) {
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      assertEquals("OK", response.getStatusText());
+      assertEquals("api-usage=25/15000", response.getHeaders().getFirst("Sforce-Limit-Info"));
+      assertEquals(QUERY_SUCCESSFUL, body(response));
+    }
+    RecordedRequest recorded = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(recorded);
+    assertEquals("GET", recorded.getMethod());
+    assertEquals(SF_URL, recorded.getPath());
+    assertEquals("Bearer bearerToken", recorded.getHeader("Authorization"));
+    assertEquals(0, recorded.getBodySize());
+    assertEquals(HttpMethod.GET, request.getMethod());
+    assertEquals(uri(), request.getURI());
+  }
+
+  @Test
+  public void post_bodySent() throws IOException, InterruptedException {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(204));
+    ClientHttpRequest request = tested.createRequest(uri(), HttpMethod.POST);
+    request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    request.getBody().write("{\"Name\":\"Acme\"}".getBytes(StandardCharsets.UTF_8));
+
+    try (ClientHttpResponse response = request.execute()) {
+      assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+      assertEquals("", body(response));
+    }
+    RecordedRequest recorded = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(recorded);
+    assertEquals("POST", recorded.getMethod());
+    assertEquals("application/json", recorded.getHeader("Content-Type"));
+    assertEquals("{\"Name\":\"Acme\"}", recorded.getBody().readUtf8());
+  }
+
+  @Test
+  public void serverError_retriedAfterInterval() throws IOException {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+    mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+    mockWebServer.enqueue(new MockResponse().setBody(QUERY_SUCCESSFUL));
+    long start = System.nanoTime();
+
+    try (ClientHttpResponse response = tested.createRequest(uri(), HttpMethod.PUT).execute()) {
+      assertEquals(QUERY_SUCCESSFUL, body(response));
+    }
+    assertEquals(3, mockWebServer.getRequestCount());
+    assertTrue(
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 2 * RETRY_INTERVAL,
+        "retries waited for the retry interval");
+  }
+
+  @Test
+  public void serverError_retriesExhausted_errorReturned() throws IOException {
+    webMvcHttpClientConfig.setRetries(2);
+    tested.destroy();
+    tested = new SalesforceAsyncRequestFactory(httpClientConfig, webMvcHttpClientConfig);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+    mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+    mockWebServer.enqueue(new MockResponse().setBody(QUERY_SUCCESSFUL));
+
+    try (ClientHttpResponse response = tested.createRequest(uri(), HttpMethod.GET).execute()) {
+      assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+    assertEquals(2, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void connectionFailed_retriedWithoutInterval() throws IOException {
+    mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+    mockWebServer.enqueue(new MockResponse().setBody(QUERY_SUCCESSFUL));
+
+    try (ClientHttpResponse response = tested.createRequest(uri(), HttpMethod.GET).execute()) {
+      assertEquals(QUERY_SUCCESSFUL, body(response));
+    }
+    assertEquals(2, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void connectionFailed_retriesExhausted_thrown() {
+    MockResponse disconnect = new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START);
+    for (int i = 0; i < 3; i++) {
+      mockWebServer.enqueue(disconnect);
+    }
+
+    assertThrows(IOException.class, () -> tested.createRequest(uri(), HttpMethod.GET).execute());
+    assertEquals(3, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void requestRejected_thrownAsIoException() {
+    // no authority to send the request to
+    ClientHttpRequest request = tested.createRequest(URI.create(SF_URL), HttpMethod.GET);
+
+    IOException exception = assertThrows(IOException.class, request::execute);
+
+    assertTrue(exception.getCause() instanceof ExecutionException);
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  @SuppressWarnings("PMD.DoNotUseThreads")
+  public void interrupted_thrownAsInterruptedIoException()
+      throws InterruptedException, ExecutionException {
+    mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+    Thread caller = Thread.currentThread();
+    CompletableFuture<Void> interrupt =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              caller.interrupt();
+            });
+
+    assertThrows(
+        InterruptedIOException.class, () -> tested.createRequest(uri(), HttpMethod.GET).execute());
+
+    assertTrue(Thread.interrupted());
+    interrupt.get();
+  }
+
+  @Test
+  @SuppressWarnings("PMD.DoNotUseThreads")
+  public void interruptedWaitingForRetry_notRetried()
+      throws InterruptedException, ExecutionException {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+    mockWebServer.enqueue(new MockResponse().setBody(QUERY_SUCCESSFUL));
+    Thread caller = Thread.currentThread();
+    CompletableFuture<Void> interrupt =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              caller.interrupt();
+            });
+
+    assertThrows(
+        InterruptedIOException.class, () -> tested.createRequest(uri(), HttpMethod.GET).execute());
+
+    assertTrue(Thread.interrupted());
+    interrupt.get();
+    // whether interrupted during the first attempt or the retry interval, no retry is sent
+    assertNull(mockWebServer.takeRequest(3 * RETRY_INTERVAL, TimeUnit.MILLISECONDS));
+    assertEquals(1, mockWebServer.getRequestCount());
+  }
+
+  private URI uri() {
+    return mockWebServer.url(SF_URL).uri();
+  }
+
+  private static String body(final ClientHttpResponse response) throws IOException {
+    return StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+  }
+}
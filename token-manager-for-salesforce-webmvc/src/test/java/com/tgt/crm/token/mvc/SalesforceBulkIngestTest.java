@@ -0,0 +1,471 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.ApiLimitTracker;
+import com.tgt.crm.token.core.BulkIngest;
+import com.tgt.crm.token.core.BulkIngestConfig;
+import com.tgt.crm.token.core.BulkJob;
+import com.tgt.crm.token.core.BulkJobState;
+import com.tgt.crm.token.core.BulkOperation;
+import com.tgt.crm.token.core.BulkResults;
+import com.tgt.crm.token.core.IntegrationUserPool;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenManager;
+import com.tgt.crm.token.core.UserSelection;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class SalesforceBulkIngestTest {
+
+  private static final String JOBS_PATH = "/services/data/v52.0/jobs/ingest";
+  private static final String HEADER = "Name\n";
+  // the records of the first job when a job holds two
+  private static final String FIRST_RECORDS = "Acme\nGlobex\n";
+  private static final String ACCOUNTS = HEADER + FIRST_RECORDS + "Initech\n";
+  private static final String ACCOUNT = "Account";
+  private static final String CLOSE = "UploadComplete";
+  private static final String ABORT = "Aborted";
+  private static final String EXPIRED = "Expired";
+  private static final String BEARER_TOKEN = "Bearer token";
+  private static final SalesforceToken ISSUED = token(1, BEARER_TOKEN);
+  private static final SalesforceToken REFRESHED = token(2, "Bearer refreshed");
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final BulkIngestConfig config = new BulkIngestConfig();
+  private final SalesforceDispatcher salesforce = new SalesforceDispatcher();
+  private MockWebServer mockWebServer;
+  private RestTemplate restTemplate;
+  private SalesforceRestTemplateInterceptor interceptor;
+  private HttpComponentsClientHttpRequestFactory uploadRequestFactory;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.setDispatcher(salesforce);
+    mockWebServer.start();
+    restTemplate =
+        new RestTemplateBuilder()
+            .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+            .rootUri(mockWebServer.url("").toString())
+            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .build();
+    config.setPollInterval(1);
+    config.setMaxPollInterval(1);
+    uploadRequestFactory = new HttpComponentsClientHttpRequestFactory();
+    uploadRequestFactory.setBufferRequestBody(false);
+    interceptor = new SalesforceRestTemplateInterceptor(orgRegistry());
+  }
+
+  /** One user whose token is replaced by REFRESHED after a 401, the calls stay on their host. */
+  private static SalesforceMvcOrgRegistry orgRegistry() {
+    SalesforceMvcAuthClient authClient = mock(SalesforceMvcAuthClient.class);
+    when(authClient.getSalesforceToken()).thenReturn(ISSUED);
+    when(authClient.refreshToken(ISSUED)).thenReturn(REFRESHED);
+    when(authClient.getTokenManager()).thenReturn(new TokenManager(() -> null));
+    SalesforceMvcOrgRegistry orgRegistry = mock(SalesforceMvcOrgRegistry.class);
+    when(orgRegistry.getUserPool(DEFAULT_ORG))
+        .thenReturn(
+            new IntegrationUserPool<>(List.of(authClient), UserSelection.LEAST_IN_FLIGHT, 60_000));
+    when(orgRegistry.getApiLimitTracker(DEFAULT_ORG))
+        .thenReturn(new ApiLimitTracker(DEFAULT_ORG, new ApiLimitConfig()));
+    when(orgRegistry.routeToOrg(any(HttpRequest.class), eq(DEFAULT_ORG))).then(returnsFirstArg());
+    when(orgRegistry.routeToInstance(any(HttpRequest.class), eq(DEFAULT_ORG), any()))
+        .then(returnsFirstArg());
+    return orgRegistry;
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void csv_splitIntoJobs_eachUploadedClosedAndPolled() throws InterruptedException {
+    config.setMaxJobSize(HEADER.length() + FIRST_RECORDS.length());
+
+    List<BulkJob> jobs = tested().ingest(job(ACCOUNT), csv("Name\nAcme\nGlobex\nInitech"));
+
+    assertEquals(
+        List.of("job-0", "job-1"), jobs.stream().map(BulkJob::getId).collect(Collectors.toList()));
+    assertTrue(jobs.stream().allMatch(SalesforceBulkIngestTest::completed));
+    assertEquals(List.of(HEADER + FIRST_RECORDS, HEADER + "Initech"), salesforce.uploads);
+    assertEquals(List.of(CLOSE, CLOSE), salesforce.states);
+    assertEquals(
+        "{\"object\":\"Account\",\"operation\":\"insert\",\"contentType\":\"CSV\",\"lineEnding\":\"LF\"}",
+        salesforce.creates.get(0));
+    assertEquals(2, salesforce.creates.size());
+    mockWebServer.takeRequest();
+    RecordedRequest upload = mockWebServer.takeRequest();
+    assertEquals(BulkIngest.CSV_CONTENT_TYPE, upload.getHeader(HttpHeaders.CONTENT_TYPE));
+    assertEquals(BEARER_TOKEN, upload.getHeader(HttpHeaders.AUTHORIZATION));
+    assertEquals(
+        String.valueOf(HEADER.length() + FIRST_RECORDS.length()),
+        upload.getHeader(HttpHeaders.CONTENT_LENGTH));
+  }
+
+  @Test
+  public void csvFile_ingested(@TempDir final Path dir) throws IOException {
+    Path csv = Files.writeString(dir.resolve("accounts.csv"), ACCOUNTS);
+
+    List<BulkJob> jobs = tested().ingest(job(ACCOUNT), csv);
+
+    assertEquals(1, jobs.size());
+    assertTrue(completed(jobs.get(0)));
+    assertEquals(List.of(ACCOUNTS), salesforce.uploads);
+  }
+
+  @Test
+  public void uploadUnauthorized_sentAgainWithRefreshedToken() {
+    String first = HEADER + "Acme\n";
+    String second = HEADER + "Globex\n";
+    config.setMaxJobSize(second.length());
+
+    List<BulkJob> jobs = tested().ingest(job(EXPIRED), csv(HEADER + FIRST_RECORDS));
+
+    assertTrue(jobs.stream().allMatch(SalesforceBulkIngestTest::completed));
+    assertEquals(List.of(first, first, second, second), salesforce.uploads);
+    assertEquals(
+        List.of(BEARER_TOKEN, "Bearer refreshed", BEARER_TOKEN, "Bearer refreshed"),
+        salesforce.uploadAuthorizations);
+  }
+
+  @Test
+  public void csvFileUploadUnauthorized_jobsReadAgainFromFile(@TempDir final Path dir)
+      throws IOException {
+    String first = HEADER + "Acme\n";
+    String second = HEADER + "Globex\n";
+    Path csv = Files.writeString(dir.resolve("accounts.csv"), HEADER + FIRST_RECORDS);
+    config.setMaxJobSize(second.length());
+
+    List<BulkJob> jobs = tested().ingest(job(EXPIRED), csv);
+
+    assertTrue(jobs.stream().allMatch(SalesforceBulkIngestTest::completed));
+    assertEquals(List.of(first, first, second, second), salesforce.uploads);
+  }
+
+  @Test
+  public void missingFile_error(@TempDir final Path dir) {
+    SalesforceBulkIngest ingest = tested();
+    Path csv = dir.resolve("missing.csv");
+
+    assertThrows(UncheckedIOException.class, () -> ingest.ingest(job(ACCOUNT), csv));
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void headerOnly_noJobs() {
+    assertEquals(List.of(), tested().ingest(job(ACCOUNT), csv(HEADER)));
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void jobFailed_returnedWithState() {
+    List<BulkJob> jobs = tested().ingest(job("Failing"), csv(ACCOUNTS));
+
+    assertEquals(BulkJobState.FAILED, jobs.get(0).getState());
+    assertEquals("bad data", jobs.get(0).getErrorMessage());
+  }
+
+  @Test
+  public void uploadRejected_jobAborted() {
+    SalesforceBulkIngest ingest = tested();
+    BulkJob job = job("Unwritable");
+    InputStream csv = csv(ACCOUNTS);
+
+    assertThrows(HttpClientErrorException.BadRequest.class, () -> ingest.ingest(job, csv));
+    assertEquals(List.of(ABORT), salesforce.states);
+  }
+
+  @Test
+  public void abortRejected_suppressed() {
+    SalesforceBulkIngest ingest = tested();
+    BulkJob job = job("Unabortable");
+    InputStream csv = csv(ACCOUNTS);
+
+    HttpClientErrorException error =
+        assertThrows(HttpClientErrorException.BadRequest.class, () -> ingest.ingest(job, csv));
+    assertTrue(
+        Arrays.stream(error.getSuppressed())
+            .anyMatch(HttpClientErrorException.Conflict.class::isInstance));
+  }
+
+  @Test
+  public void invalidCsv_jobAborted() {
+    SalesforceBulkIngest ingest = tested();
+    BulkJob job = job(ACCOUNT);
+    InputStream csv = csv(HEADER + "Acme\n\"Globex");
+
+    assertThrows(IllegalArgumentException.class, () -> ingest.ingest(job, csv));
+    assertEquals(List.of(ABORT), salesforce.states);
+  }
+
+  @Test
+  public void unreadableCsv_error() {
+    SalesforceBulkIngest ingest = tested();
+    BulkJob job = job(ACCOUNT);
+
+    assertThrows(UncheckedIOException.class, () -> ingest.ingest(job, new BrokenInputStream()));
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void csvUnreadableAfterJobCreated_jobAbortedNotUploaded() throws IOException {
+    SalesforceBulkIngest ingest = tested();
+    BulkJob job = job(ACCOUNT);
+    // more than is read at once, so the job has been created when the stream breaks
+    try (InputStream csv =
+        new SequenceInputStream(csv(HEADER + "Acme\n".repeat(20_000)), new BrokenInputStream())) {
+      assertThrows(UncheckedIOException.class, () -> ingest.ingest(job, csv));
+    }
+    assertEquals(List.of(ABORT), salesforce.states);
+    assertEquals(List.of(), salesforce.uploads);
+  }
+
+  @Test
+  public void uploadUnreachable_jobAborted() {
+    // only the upload goes to a closed port, the other calls still reach Salesforce
+    SalesforceBulkIngest ingest =
+        new SalesforceBulkIngest(
+            restTemplate,
+            interceptor,
+            (uri, method) ->
+                uploadRequestFactory.createRequest(
+                    URI.create("http://localhost:1" + uri.getPath()), method),
+            new BulkIngest(config));
+    BulkJob job = job(ACCOUNT);
+    InputStream csv = csv(ACCOUNTS);
+
+    assertThrows(ResourceAccessException.class, () -> ingest.ingest(job, csv));
+    assertEquals(List.of(ABORT), salesforce.states);
+  }
+
+  @Test
+  public void noJobInResponse_error() {
+    SalesforceBulkIngest ingest = tested();
+    BulkJob job = job("Bodiless");
+    InputStream csv = csv(ACCOUNTS);
+
+    assertThrows(RestClientException.class, () -> ingest.ingest(job, csv));
+    assertEquals(List.of(), salesforce.uploads);
+  }
+
+  @Test
+  public void invalidJob_error() {
+    SalesforceBulkIngest ingest = tested();
+    BulkJob job = new BulkJob();
+    InputStream csv = csv(ACCOUNTS);
+
+    assertThrows(IllegalArgumentException.class, () -> ingest.ingest(job, csv));
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void interruptedWhilePolling_error() {
+    SalesforceBulkIngest ingest = tested();
+    BulkJob job = job(ACCOUNT);
+    InputStream csv = csv(ACCOUNTS);
+
+    salesforce.interruptOnPoll.set(Thread.currentThread());
+    try {
+      assertThrows(RestClientException.class, () -> ingest.ingest(job, csv));
+    } finally {
+      assertTrue(Thread.interrupted());
+    }
+  }
+
+  @Test
+  public void results_streamed() throws InterruptedException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    tested().results("job-0", BulkResults.SUCCESSFUL, out);
+
+    assertEquals(
+        "\"sf__Id\",\"sf__Created\",Name\n\"001\",\"true\",Acme\n",
+        out.toString(StandardCharsets.UTF_8));
+    RecordedRequest request = mockWebServer.takeRequest();
+    assertEquals(JOBS_PATH + "/job-0/successfulResults", request.getPath());
+    assertTrue(request.getHeader(HttpHeaders.ACCEPT).contains(BulkIngest.CSV_CONTENT_TYPE));
+  }
+
+  @Test
+  public void autowiredConstructor_configured() {
+    List<BulkJob> jobs =
+        new SalesforceBulkIngest(restTemplate, interceptor, uploadRequestFactory, config)
+            .ingest(job(ACCOUNT), csv(ACCOUNTS));
+
+    assertEquals(1, jobs.size());
+  }
+
+  private SalesforceBulkIngest tested() {
+    return new SalesforceBulkIngest(
+        restTemplate, interceptor, uploadRequestFactory, new BulkIngest(config));
+  }
+
+  private static SalesforceToken token(final long generation, final String authorization) {
+    return new SalesforceToken(
+        generation, "Bearer", authorization, authorization, null, null, Instant.now(), null);
+  }
+
+  private static BulkJob job(final String object) {
+    BulkJob job = new BulkJob();
+    job.setObject(object);
+    job.setOperation(BulkOperation.INSERT);
+    return job;
+  }
+
+  private static boolean completed(final BulkJob job) {
+    return job.getState() == BulkJobState.JOB_COMPLETE;
+  }
+
+  private static InputStream csv(final String csv) {
+    return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static final class BrokenInputStream extends InputStream {
+
+    @Override
+    public int read() throws IOException {
+      throw new IOException("broken");
+    }
+  }
+
+  /**
+   * Runs jobs like Salesforce: a job is in progress on the first poll and complete on the next.
+   * Jobs of Failing fail, Bodiless jobs are created without a body, uploads for Unwritable and
+   * Unabortable are rejected and Unabortable jobs cannot be aborted. The first upload of each
+   * Expired job is rejected with a 401. The first poll of a job interrupts interruptOnPoll, if set.
+   */
+  private static final class SalesforceDispatcher extends Dispatcher {
+
+    private static final int FIRST_POLL = 1;
+
+    private final List<String> creates = new CopyOnWriteArrayList<>();
+    private final List<String> uploads = new CopyOnWriteArrayList<>();
+    private final List<String> uploadAuthorizations = new CopyOnWriteArrayList<>();
+    private final List<String> states = new CopyOnWriteArrayList<>();
+    private final Map<String, String> objects = new ConcurrentHashMap<>();
+    private final Map<String, Integer> polls = new ConcurrentHashMap<>();
+    private final AtomicReference<Thread> interruptOnPoll = new AtomicReference<>();
+    private final Set<String> expired = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public MockResponse dispatch(final RecordedRequest request) {
+      String path = String.valueOf(request.getPath());
+      if (path.endsWith("/successfulResults")) {
+        return new MockResponse()
+            .setHeader(HttpHeaders.CONTENT_TYPE, BulkIngest.CSV_CONTENT_TYPE)
+            .setBody("\"sf__Id\",\"sf__Created\",Name\n\"001\",\"true\",Acme\n");
+      }
+      String body = request.getBody().clone().readUtf8();
+      if (JOBS_PATH.equals(path)) {
+        return create(body);
+      }
+      String id = path.substring(JOBS_PATH.length() + 1).replace("/batches", "");
+      String object = objects.get(id);
+      if (path.endsWith("/batches")) {
+        uploads.add(body);
+        uploadAuthorizations.add(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (EXPIRED.equals(object) && expired.add(id)) {
+          return new MockResponse().setResponseCode(401);
+        }
+        return object.startsWith("Un")
+            ? new MockResponse().setResponseCode(400)
+            : new MockResponse().setResponseCode(201);
+      }
+      if ("PATCH".equals(request.getMethod())) {
+        if ("Unabortable".equals(object)) {
+          return new MockResponse().setResponseCode(409);
+        }
+        states.add(read(body).path("state").asText());
+        return job(id, states.get(states.size() - 1));
+      }
+      return poll(id, object);
+    }
+
+    private MockResponse poll(final String id, final String object) {
+      if (polls.merge(id, 1, Integer::sum) == FIRST_POLL) {
+        Thread thread = interruptOnPoll.get();
+        if (thread != null) {
+          thread.interrupt();
+        }
+        return job(id, "InProgress");
+      }
+      return "Failing".equals(object)
+          ? json("{\"id\":\"" + id + "\",\"state\":\"Failed\",\"errorMessage\":\"bad data\"}")
+          : job(id, "JobComplete");
+    }
+
+    private MockResponse create(final String body) {
+      String id = "job-" + creates.size();
+      creates.add(body);
+      String object = read(body).path("object").asText();
+      objects.put(id, object);
+      return "Bodiless".equals(object) ? new MockResponse().setResponseCode(201) : job(id, "Open");
+    }
+
+    private static JsonNode read(final String body) {
+      try {
+        return MAPPER.readTree(body);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static MockResponse job(final String id, final String state) {
+      return json("{\"id\":\"" + id + "\",\"state\":\"" + state + "\"}");
+    }
+
+    private static MockResponse json(final String body) {
+      return new MockResponse()
+          .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+          .setBody(body);
+    }
+  }
+}
@@ -0,0 +1,286 @@
+package com.tgt.crm.token.mvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tgt.crm.token.core.BulkIngest;
+import com.tgt.crm.token.core.BulkJob;
+import com.tgt.crm.token.core.BulkJobFailedException;
+import com.tgt.crm.token.core.BulkJobState;
+import com.tgt.crm.token.core.BulkOperation;
+import com.tgt.crm.token.core.BulkQuery;
+import com.tgt.crm.token.core.BulkQueryConfig;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class SalesforceBulkQueryTest {
+
+  private static final String JOBS_PATH = "/services/data/v52.0/jobs/query";
+  private static final String ACCOUNTS = "SELECT Id, Name FROM Account";
+  // the pages joined, a line break in a quoted field does not end the header of a page
+  private static final String RESULTS = "Id,Name\n001,Acme\n002,\"Glo\nbex\"\n003,Initech\n";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final BulkQueryConfig config = new BulkQueryConfig();
+  private final SalesforceDispatcher salesforce = new SalesforceDispatcher();
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private MockWebServer mockWebServer;
+  private RestTemplate restTemplate;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.setDispatcher(salesforce);
+    mockWebServer.start();
+    restTemplate =
+        new RestTemplateBuilder()
+            .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+            .rootUri(mockWebServer.url("").toString())
+            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .build();
+    config.setPollInterval(1);
+    config.setMaxPollInterval(1);
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void query_pagesFollowedAndJoined() {
+    BulkJob job = tested().query(job(ACCOUNTS), out);
+
+    assertEquals(BulkJobState.JOB_COMPLETE, job.getState());
+    assertEquals(RESULTS, out.toString(StandardCharsets.UTF_8));
+    assertEquals(
+        "{\"operation\":\"query\",\"query\":\"SELECT Id, Name FROM Account\","
+            + "\"contentType\":\"CSV\",\"lineEnding\":\"LF\"}",
+        salesforce.creates.get(0));
+    String results = JOBS_PATH + "/job-0/results";
+    assertEquals(
+        List.of(results, results + "?locator=page-1", results + "?locator=page-2"),
+        salesforce.pages);
+  }
+
+  @Test
+  public void queryToFile_resultsWritten(@TempDir final Path dir) throws IOException {
+    Path csv = dir.resolve("accounts.csv");
+
+    tested().query(job(ACCOUNTS), csv);
+
+    assertEquals(RESULTS, Files.readString(csv));
+  }
+
+  @Test
+  public void fileNotWritable_error(@TempDir final Path dir) {
+    SalesforceBulkQuery query = tested();
+    BulkJob job = job(ACCOUNTS);
+    Path csv = dir.resolve("missing").resolve("accounts.csv");
+
+    assertThrows(UncheckedIOException.class, () -> query.query(job, csv));
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void outputBroken_error() throws IOException {
+    SalesforceBulkQuery query = tested();
+    BulkJob job = job(ACCOUNTS);
+    try (OutputStream broken =
+        new OutputStream() {
+          @Override
+          public void write(final int b) throws IOException {
+            throw new IOException("broken");
+          }
+        }) {
+      assertThrows(ResourceAccessException.class, () -> query.query(job, broken));
+    }
+    assertEquals(1, salesforce.pages.size());
+  }
+
+  @Test
+  public void jobFailed_error() {
+    SalesforceBulkQuery query = tested();
+    BulkJob job = job("SELECT Failing FROM Account");
+
+    BulkJobFailedException error =
+        assertThrows(BulkJobFailedException.class, () -> query.query(job, out));
+    assertEquals(BulkJobState.FAILED, error.getState());
+    assertEquals(List.of(), salesforce.pages);
+  }
+
+  @Test
+  public void pageRejected_error() {
+    SalesforceBulkQuery query = tested();
+    BulkJob job = job("SELECT Expired FROM Account");
+
+    assertThrows(HttpClientErrorException.NotFound.class, () -> query.query(job, out));
+    assertEquals(1, salesforce.pages.size());
+  }
+
+  @Test
+  public void noJobInResponse_error() {
+    SalesforceBulkQuery query = tested();
+    BulkJob job = job("SELECT Bodiless FROM Account");
+
+    assertThrows(RestClientException.class, () -> query.query(job, out));
+    assertEquals(1, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void invalidJob_error() {
+    SalesforceBulkQuery query = tested();
+    BulkJob job = new BulkJob();
+
+    assertThrows(IllegalArgumentException.class, () -> query.query(job, out));
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void interruptedWhilePolling_error() {
+    SalesforceBulkQuery query = tested();
+    BulkJob job = job(ACCOUNTS);
+
+    salesforce.interruptOnPoll.set(Thread.currentThread());
+    try {
+      assertThrows(RestClientException.class, () -> query.query(job, out));
+    } finally {
+      assertTrue(Thread.interrupted());
+    }
+  }
+
+  @Test
+  public void autowiredConstructor_configured() {
+    config.setMaxRecords(1);
+
+    new SalesforceBulkQuery(restTemplate, config).query(job(ACCOUNTS), out);
+
+    assertEquals(RESULTS, out.toString(StandardCharsets.UTF_8));
+    assertTrue(salesforce.pages.get(0).endsWith("/results?maxRecords=1"));
+    assertTrue(salesforce.pages.get(2).endsWith("/results?maxRecords=1&locator=page-2"));
+  }
+
+  private SalesforceBulkQuery tested() {
+    return new SalesforceBulkQuery(restTemplate, new BulkQuery(config));
+  }
+
+  private static BulkJob job(final String query) {
+    BulkJob job = new BulkJob();
+    job.setOperation(BulkOperation.QUERY);
+    job.setQuery(query);
+    return job;
+  }
+
+  /**
+   * Runs queries like Salesforce: a job is in progress on the first poll and complete on the next.
+   * Its results have three pages. Jobs of Failing queries fail, Bodiless jobs are created without a
+   * body and the results of Expired queries are not found. The first poll of a job interrupts
+   * interruptOnPoll, if set.
+   */
+  private static final class SalesforceDispatcher extends Dispatcher {
+
+    private static final int FIRST_POLL = 1;
+    private static final List<String> PAGES =
+        List.of("Id,Name\n001,Acme\n", "Id,Name\n002,\"Glo\nbex\"\n", "Id,Name\n003,Initech\n");
+
+    private final List<String> creates = new CopyOnWriteArrayList<>();
+    private final List<String> pages = new CopyOnWriteArrayList<>();
+    private final Map<String, String> queries = new ConcurrentHashMap<>();
+    private final Map<String, Integer> polls = new ConcurrentHashMap<>();
+    private final AtomicReference<Thread> interruptOnPoll = new AtomicReference<>();
+
+    @Override
+    public MockResponse dispatch(final RecordedRequest request) {
+      String path = String.valueOf(request.getPath());
+      if (JOBS_PATH.equals(path)) {
+        return create(request.getBody().clone().readUtf8());
+      }
+      String id = path.substring(JOBS_PATH.length() + 1).replaceAll("/results.*", "");
+      String query = queries.get(id);
+      if (path.contains("/results")) {
+        return page(path, query);
+      }
+      if (polls.merge(id, 1, Integer::sum) == FIRST_POLL) {
+        Thread thread = interruptOnPoll.get();
+        if (thread != null) {
+          thread.interrupt();
+        }
+        return job(id, "InProgress");
+      }
+      return query.contains("Failing")
+          ? json("{\"id\":\"" + id + "\",\"state\":\"Failed\",\"errorMessage\":\"bad query\"}")
+          : job(id, "JobComplete");
+    }
+
+    private MockResponse create(final String body) {
+      String id = "job-" + creates.size();
+      creates.add(body);
+      String query = read(body).path("query").asText();
+      queries.put(id, query);
+      return query.contains("Bodiless")
+          ? new MockResponse().setResponseCode(200)
+          : job(id, "UploadComplete");
+    }
+
+    private MockResponse page(final String path, final String query) {
+      pages.add(path);
+      if (query.contains("Expired")) {
+        return new MockResponse().setResponseCode(404);
+      }
+      int page = path.contains("locator=") ? Integer.parseInt(path.replaceAll(".*page-", "")) : 0;
+      return new MockResponse()
+          .setHeader(HttpHeaders.CONTENT_TYPE, BulkIngest.CSV_CONTENT_TYPE)
+          .setHeader(
+              BulkQuery.LOCATOR_HEADER, page + 1 < PAGES.size() ? "page-" + (page + 1) : "null")
+          .setBody(PAGES.get(page));
+    }
+
+    private static JsonNode read(final String body) {
+      try {
+        return MAPPER.readTree(body);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static MockResponse job(final String id, final String state) {
+      return json("{\"id\":\"" + id + "\",\"state\":\"" + state + "\"}");
+    }
+
+    private static MockResponse json(final String body) {
+      return new MockResponse()
+          .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+          .setBody(body);
+    }
+  }
+}
@@ -0,0 +1,298 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.SalesforceConstants.COMPOSITE_BATCH_SIZE_SUMMARY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tgt.crm.token.core.ApiLimitExceededException;
+import com.tgt.crm.token.core.CompositeBatchConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class SalesforceCompositeBatchInterceptorTest {
+
+  private static final int TIMEOUT = 5; // seconds
+  private static final String BATCH_PATH = "/services/data/v52.0/composite";
+  private static final String ACCOUNT_PATH = "/services/data/v52.0/sobjects/Account/";
+  private static final String FIRST = "001";
+  private static final String SECOND = "002";
+  private static final String MISSING = "missing";
+  private static final String DIRECT = "direct";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CompositeBatchConfig config = new CompositeBatchConfig();
+  private MockWebServer mockWebServer;
+  private SalesforceCompositeBatchInterceptor tested;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.setDispatcher(new BatchDispatcher());
+    mockWebServer.start();
+    config.setEnabled(true);
+    config.setWindow(TimeUnit.SECONDS.toMillis(TIMEOUT));
+    config.setMaxSize(2);
+    tested = new SalesforceCompositeBatchInterceptor(config, meterRegistry);
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void concurrentCalls_sentAsOneBatch() throws InterruptedException {
+    assertTrue(tested.isEnabled());
+    RestTemplate restTemplate = restTemplate(tested);
+
+    CompletableFuture<String> get =
+        CompletableFuture.supplyAsync(
+            () -> restTemplate.getForObject(url(ACCOUNT_PATH + FIRST), String.class));
+    CompletableFuture<String> patch =
+        CompletableFuture.supplyAsync(
+            () ->
+                restTemplate
+                    .exchange(
+                        url(ACCOUNT_PATH + MISSING),
+                        HttpMethod.PATCH,
+                        new HttpEntity<>("{\"Name\":\"Acme\"}", jsonHeaders()),
+                        String.class)
+                    .getBody());
+
+    assertEquals("{\"url\":\"/services/data/v52.0/sobjects/Account/001\"}", get.join());
+    CompletionException exception = assertThrows(CompletionException.class, patch::join);
+    UnknownHttpStatusCodeException rejected = (UnknownHttpStatusCodeException) exception.getCause();
+    assertEquals(499, rejected.getRawStatusCode());
+    assertEquals("", rejected.getStatusText());
+    assertEquals(MediaType.APPLICATION_JSON, rejected.getResponseHeaders().getContentType());
+    assertEquals("[{\"errorCode\":\"NOT_FOUND\"}]", rejected.getResponseBodyAsString());
+    RecordedRequest batchReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(batchReq);
+    assertEquals("POST", batchReq.getMethod());
+    assertEquals(BATCH_PATH, batchReq.getPath());
+    assertEquals(MediaType.APPLICATION_JSON_VALUE, batchReq.getHeader(HttpHeaders.CONTENT_TYPE));
+    assertTrue(
+        batchReq
+            .getBody()
+            .readUtf8()
+            .contains(
+                "{\"method\":\"PATCH\",\"url\":\"/services/data/v52.0/sobjects/Account/missing\","
+                    + "\"body\":{\"Name\":\"Acme\"}"));
+    assertEquals(1, mockWebServer.getRequestCount());
+    assertEquals(2, meterRegistry.get(COMPOSITE_BATCH_SIZE_SUMMARY).summary().totalAmount());
+  }
+
+  @Test
+  public void aloneWhenWindowPassed_sentOnItsOwn() throws InterruptedException {
+    config.setWindow(10);
+
+    assertEquals(
+        DIRECT, restTemplate(tested).getForObject(url(ACCOUNT_PATH + FIRST), String.class));
+
+    RecordedRequest request = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(request);
+    assertEquals(ACCOUNT_PATH + FIRST, request.getPath());
+  }
+
+  @Test
+  public void notBatchable_sentOnItsOwn() throws InterruptedException {
+    RestTemplate restTemplate = restTemplate(tested);
+
+    assertEquals(DIRECT, restTemplate.getForObject(url("/services/apexrest/x"), String.class));
+    assertEquals(
+        DIRECT,
+        restTemplate.postForObject(
+            url(ACCOUNT_PATH), new HttpEntity<>("Name=Acme", jsonHeaders()), String.class));
+
+    assertNotNull(mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS));
+    RecordedRequest request = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(request);
+    assertEquals(ACCOUNT_PATH, request.getPath());
+    assertEquals("Name=Acme", request.getBody().readUtf8());
+  }
+
+  @Test
+  public void batchRequestFailed_returnedToEachCall() {
+    RestTemplate restTemplate = restTemplate(tested);
+
+    List<CompletableFuture<String>> calls =
+        List.of(
+            CompletableFuture.supplyAsync(
+                () -> restTemplate.getForObject(url(ACCOUNT_PATH + "503"), String.class)),
+            CompletableFuture.supplyAsync(
+                () -> restTemplate.getForObject(url(ACCOUNT_PATH + SECOND), String.class)));
+
+    for (CompletableFuture<String> call : calls) {
+      CompletionException exception = assertThrows(CompletionException.class, call::join);
+      assertEquals(
+          HttpStatus.SERVICE_UNAVAILABLE,
+          ((HttpServerErrorException) exception.getCause()).getStatusCode());
+    }
+  }
+
+  @Test
+  public void batchRequestNotSent_thrownToEachCall() {
+    assertBatchThrownToEachCall(restTemplate(tested), ACCOUNT_PATH + "disconnect");
+  }
+
+  @Test
+  public void batchResponseNotRead_thrownToEachCall() throws IOException {
+    ClientHttpResponse response = mock(ClientHttpResponse.class);
+    when(response.getRawStatusCode()).thenReturn(HttpStatus.OK.value());
+    when(response.getBody()).thenThrow(new IOException("connection reset"));
+    ClientHttpRequestInterceptor unreadable = (request, body, execution) -> response;
+
+    assertBatchThrownToEachCall(restTemplate(tested, unreadable), ACCOUNT_PATH + FIRST);
+  }
+
+  @Test
+  public void batchRejected_rejectionThrownToEachCall() {
+    ApiLimitExceededException rejection = new ApiLimitExceededException("over the limit");
+    ClientHttpRequestInterceptor rejecting =
+        (request, body, execution) -> {
+          assertEquals(HttpMethod.POST, request.getMethod());
+          assertEquals(HttpMethod.POST.name(), request.getMethodValue());
+          throw rejection;
+        };
+    RestTemplate restTemplate = restTemplate(tested, rejecting);
+
+    List<CompletableFuture<String>> calls =
+        List.of(
+            CompletableFuture.supplyAsync(
+                () -> restTemplate.getForObject(url(ACCOUNT_PATH + FIRST), String.class)),
+            CompletableFuture.supplyAsync(
+                () -> restTemplate.getForObject(url(ACCOUNT_PATH + SECOND), String.class)));
+
+    for (CompletableFuture<String> call : calls) {
+      CompletionException exception = assertThrows(CompletionException.class, call::join);
+      assertSame(rejection, exception.getCause());
+    }
+    assertEquals(0, mockWebServer.getRequestCount());
+  }
+
+  @Test
+  public void leaderInterrupted_batchAbandoned() {
+    config.setWindow(100);
+    RestTemplate restTemplate = restTemplate(tested);
+    Thread.currentThread().interrupt();
+
+    ResourceAccessException exception =
+        assertThrows(
+            ResourceAccessException.class,
+            () -> restTemplate.getForObject(url(ACCOUNT_PATH + FIRST), String.class));
+
+    assertTrue(Thread.interrupted());
+    assertTrue(exception.getCause() instanceof InterruptedIOException);
+    assertEquals(0, mockWebServer.getRequestCount());
+    // the next call opens a new batch instead of joining the abandoned one
+    assertEquals(DIRECT, restTemplate.getForObject(url(ACCOUNT_PATH + FIRST), String.class));
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  private void assertBatchThrownToEachCall(final RestTemplate restTemplate, final String path) {
+    List<CompletableFuture<String>> calls =
+        List.of(
+            CompletableFuture.supplyAsync(() -> restTemplate.getForObject(url(path), String.class)),
+            CompletableFuture.supplyAsync(
+                () -> restTemplate.getForObject(url(ACCOUNT_PATH + SECOND), String.class)));
+
+    for (CompletableFuture<String> call : calls) {
+      CompletionException exception = assertThrows(CompletionException.class, call::join);
+      assertTrue(exception.getCause() instanceof ResourceAccessException);
+      assertTrue(exception.getCause().getCause() instanceof IOException);
+    }
+  }
+
+  private String url(final String path) {
+    return mockWebServer.url(path).toString();
+  }
+
+  private static HttpHeaders jsonHeaders() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    return headers;
+  }
+
+  private static RestTemplate restTemplate(final ClientHttpRequestInterceptor... interceptors) {
+    RestTemplate restTemplate = new RestTemplate(new SimpleClientHttpRequestFactory());
+    restTemplate.setInterceptors(List.of(interceptors));
+    return restTemplate;
+  }
+
+  /** Answers each subrequest with its url, or an error if the url ends with "missing". */
+  private static final class BatchDispatcher extends Dispatcher {
+
+    @Override
+    public MockResponse dispatch(final RecordedRequest request) {
+      if (!BATCH_PATH.equals(request.getPath())) {
+        return new MockResponse().setBody(DIRECT);
+      }
+      String body = request.getBody().clone().readUtf8();
+      if (body.contains("503")) {
+        return new MockResponse().setResponseCode(503);
+      }
+      if (body.contains("disconnect")) {
+        return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START);
+      }
+      try {
+        ObjectNode response = MAPPER.createObjectNode();
+        ArrayNode results = response.putArray("compositeResponse");
+        for (JsonNode subrequest : MAPPER.readTree(body).get("compositeRequest")) {
+          String url = subrequest.get("url").asText();
+          ObjectNode result = results.addObject();
+          if (url.endsWith(MISSING)) {
+            result
+                .put("httpStatusCode", 499)
+                .putArray("body")
+                .addObject()
+                .put("errorCode", "NOT_FOUND");
+          } else {
+            result.put("httpStatusCode", 200).putObject("body").put("url", url);
+          }
+        }
+        return new MockResponse()
+            .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .setBody(MAPPER.writeValueAsString(response));
+      } catch (IOException e) {
+        return new MockResponse().setResponseCode(400);
+      }
+    }
+  }
+}
@@ -4,14 +4,32 @@ import static com.tgt.crm.token.core.SalesforceConstants.EXCEPTION_COUNTER;
 import static com.tgt.crm.token.core.SalesforceConstants.EXCEPTION_TYPE_TAG;
 import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_EXCEPTION;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.tgt.crm.token.core.AuthCircuitOpenException;
+import com.tgt.crm.token.core.InMemoryTokenStore;
 import com.tgt.crm.token.core.SalesforceAuthResponse;
 import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenGrant;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,6 +40,7 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,26 +50,17 @@ public class SalesforceMvcAuthClientTest {
   private static final String TEST_TOKEN_TYPE = "testTokenType";
   private static final String TEST_ACCESS_TOKEN = "testAccessToken";
   private static final String EXPECTED_TOKEN = TEST_TOKEN_TYPE + " " + TEST_ACCESS_TOKEN;
-  private static final String TEST_USER_NAME = "testUserName";
-  private static final String TEST_PASSWORD = "testPassword!@#$%^&*()";
-  private static final String TEST_PASSWORD_ENCODED = "testPassword%21%40%23%24%25%5E%26*%28%29";
-  private static final String TEST_CLIENT_ID = "testClientId";
-  private static final String TEST_CLIENT_SECRET = "testClientSecret";
   private static final String REQUEST_ENTITY_BODY =
-      "grant_type=password"
-          + "&username="
-          + TEST_USER_NAME
-          + "&password="
-          + TEST_PASSWORD_ENCODED
-          + "&client_id="
-          + TEST_CLIENT_ID
-          + "&client_secret="
-          + TEST_CLIENT_SECRET;
+      "grant_type=password&username=testUserName&password=testPassword&client_id=testClientId"
+          + "&client_secret=testClientSecret";
   private static final String AUTH_URI = "/services/oauth2/token";
+  private static final int CONCURRENT_CALLERS = 50;
+  private static final int TIMEOUT_SECONDS = 5;
 
   @InjectMocks private SalesforceMvcAuthClient tested;
   @Mock private RestTemplate restTemplate;
   @Mock private SalesforceConfig salesforceConfig;
+  @Mock private TokenGrant tokenGrant;
   @Mock private MeterRegistry meterRegistry;
   @Mock private Counter counter;
 
@@ -74,10 +84,7 @@ public class SalesforceMvcAuthClientTest {
 
   @Test
   public void refreshToken_successfulResponse_tokenReturned() {
-    when(salesforceConfig.getUsername()).thenReturn(TEST_USER_NAME);
-    when(salesforceConfig.getPassword()).thenReturn(TEST_PASSWORD);
-    when(salesforceConfig.getClientId()).thenReturn(TEST_CLIENT_ID);
-    when(salesforceConfig.getClientSecret()).thenReturn(TEST_CLIENT_SECRET);
+    when(tokenGrant.requestBody()).thenReturn(REQUEST_ENTITY_BODY);
     when(salesforceConfig.getAuthUri()).thenReturn(AUTH_URI);
 
     when(restTemplate.exchange(
@@ -90,12 +97,80 @@ public class SalesforceMvcAuthClientTest {
         .exchange(AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class);
   }
 
+  @Test
+  @SuppressWarnings("PMD.DoNotUseThreads")
+  public void refreshToken_refreshExecutor_authCallOnExecutor() {
+    when(tokenGrant.requestBody()).thenReturn(REQUEST_ENTITY_BODY);
+    when(salesforceConfig.getAuthUri()).thenReturn(AUTH_URI);
+
+    List<Thread> authCallThreads = new ArrayList<>();
+    when(restTemplate.exchange(
+            AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class))
+        .thenAnswer(
+            invocation -> {
+              authCallThreads.add(Thread.currentThread());
+              return responseEntity;
+            });
+
+    ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+    SalesforceMvcAuthClient executorClient =
+        new SalesforceMvcAuthClient(
+            salesforceConfig,
+            tokenGrant,
+            new InMemoryTokenStore(),
+            restTemplate,
+            meterRegistry,
+            refreshExecutor);
+
+    assertEquals(EXPECTED_TOKEN, executorClient.refreshToken());
+    refreshExecutor.shutdown();
+
+    assertEquals(1, authCallThreads.size());
+    assertNotSame(Thread.currentThread(), authCallThreads.get(0));
+  }
+
+  @Test
+  public void getSalesforceToken_noTokenInCache_tokenGenerated() {
+    when(tokenGrant.requestBody()).thenReturn(REQUEST_ENTITY_BODY);
+    when(salesforceConfig.getAuthUri()).thenReturn(AUTH_URI);
+
+    when(restTemplate.exchange(
+            AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class))
+        .thenReturn(responseEntity);
+
+    SalesforceToken first = tested.getSalesforceToken();
+    assertEquals(EXPECTED_TOKEN, first.getAuthorization());
+
+    // second call uses the cached token
+    assertSame(first, tested.getSalesforceToken());
+
+    verify(restTemplate)
+        .exchange(AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class);
+  }
+
+  @Test
+  public void refreshToken_rejectedTokenAlreadyReplaced_noAuthCall() {
+    when(tokenGrant.requestBody()).thenReturn(REQUEST_ENTITY_BODY);
+    when(salesforceConfig.getAuthUri()).thenReturn(AUTH_URI);
+
+    when(restTemplate.exchange(
+            AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class))
+        .thenReturn(responseEntity);
+
+    SalesforceToken rejected = tested.getSalesforceToken();
+    SalesforceToken refreshed = tested.refreshToken(rejected);
+    assertTrue(refreshed.isNewerThan(rejected));
+
+    // a late 401 for the first token reuses the refreshed token
+    assertSame(refreshed, tested.refreshToken(rejected));
+
+    verify(restTemplate, times(2))
+        .exchange(AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class);
+  }
+
   @Test
   public void getToken_tokenInCache_cachedTokenReturned() {
-    when(salesforceConfig.getUsername()).thenReturn(TEST_USER_NAME);
-    when(salesforceConfig.getPassword()).thenReturn(TEST_PASSWORD);
-    when(salesforceConfig.getClientId()).thenReturn(TEST_CLIENT_ID);
-    when(salesforceConfig.getClientSecret()).thenReturn(TEST_CLIENT_SECRET);
+    when(tokenGrant.requestBody()).thenReturn(REQUEST_ENTITY_BODY);
     when(salesforceConfig.getAuthUri()).thenReturn(AUTH_URI);
 
     when(restTemplate.exchange(
@@ -105,6 +180,7 @@ public class SalesforceMvcAuthClientTest {
     tested.refreshToken();
 
     assertEquals(EXPECTED_TOKEN, tested.getToken());
+    assertEquals(EXPECTED_TOKEN, tested.getTokenManager().getCachedToken().getAuthorization());
 
     verify(restTemplate)
         .exchange(AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class);
@@ -112,24 +188,114 @@ public class SalesforceMvcAuthClientTest {
 
   @Test
   public void testHandleRefreshFailure() {
-    when(salesforceConfig.getUsername()).thenReturn(TEST_USER_NAME);
-    when(salesforceConfig.getPassword()).thenReturn(TEST_PASSWORD);
-    when(salesforceConfig.getClientId()).thenReturn(TEST_CLIENT_ID);
-    when(salesforceConfig.getClientSecret()).thenReturn(TEST_CLIENT_SECRET);
+    when(tokenGrant.requestBody()).thenReturn(REQUEST_ENTITY_BODY);
     when(salesforceConfig.getAuthUri()).thenReturn(AUTH_URI);
     when(meterRegistry.counter(EXCEPTION_COUNTER, EXCEPTION_TYPE_TAG, TOKEN_REFRESH_EXCEPTION))
         .thenReturn(counter);
 
     when(restTemplate.exchange(
             AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class))
-        .thenReturn(responseEntity);
+        .thenReturn(responseEntity)
+        .thenThrow(new RestClientException("test exception"));
 
     assertEquals(EXPECTED_TOKEN, tested.refreshToken());
 
-    assertNull(tested.handleRefreshFailure(new RuntimeException("test exception")));
+    // the rejected token is discarded when it cannot be replaced
+    assertNull(tested.refreshToken());
 
     assertNull(tested.getToken());
 
     verify(counter).increment();
   }
+
+  @Test
+  public void refreshToken_authFails_retriedThenRecovered() {
+    when(tokenGrant.requestBody()).thenReturn(REQUEST_ENTITY_BODY);
+    when(salesforceConfig.getAuthUri()).thenReturn(AUTH_URI);
+    when(salesforceConfig.getMaxAuthTokenRetries()).thenReturn(3);
+    when(meterRegistry.counter(EXCEPTION_COUNTER, EXCEPTION_TYPE_TAG, TOKEN_REFRESH_EXCEPTION))
+        .thenReturn(counter);
+
+    when(restTemplate.exchange(
+            AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class))
+        .thenThrow(new RestClientException("test exception"));
+
+    SalesforceMvcAuthClient retryingClient =
+        new SalesforceMvcAuthClient(
+            salesforceConfig, tokenGrant, new InMemoryTokenStore(), restTemplate, meterRegistry);
+
+    assertNull(retryingClient.refreshToken());
+    assertNull(retryingClient.getToken());
+
+    verify(restTemplate, times(3))
+        .exchange(AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class);
+    verify(counter).increment();
+  }
+
+  @Test
+  public void getSalesforceToken_authFailureOpensCircuit_failsFast() {
+    when(tokenGrant.requestBody()).thenReturn(REQUEST_ENTITY_BODY);
+    when(salesforceConfig.getAuthUri()).thenReturn(AUTH_URI);
+    when(salesforceConfig.getAuthFailureThreshold()).thenReturn(1);
+    when(salesforceConfig.getAuthCircuitOpenDuration()).thenReturn(60_000L);
+    when(meterRegistry.counter(EXCEPTION_COUNTER, EXCEPTION_TYPE_TAG, TOKEN_REFRESH_EXCEPTION))
+        .thenReturn(counter);
+
+    when(restTemplate.exchange(
+            AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class))
+        .thenThrow(new RestClientException("test exception"));
+
+    SalesforceMvcAuthClient circuitClient =
+        new SalesforceMvcAuthClient(
+            salesforceConfig, tokenGrant, new InMemoryTokenStore(), restTemplate, meterRegistry);
+
+    AuthCircuitOpenException opened =
+        assertThrows(AuthCircuitOpenException.class, circuitClient::getSalesforceToken);
+    assertEquals(RestClientException.class, opened.getCause().getCause().getClass());
+    assertThrows(AuthCircuitOpenException.class, () -> circuitClient.refreshToken(null));
+
+    verify(restTemplate)
+        .exchange(AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class);
+  }
+
+  @Test
+  @SuppressWarnings("PMD.DoNotUseThreads")
+  public void refreshToken_concurrentCallers_singleAuthCall()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    when(tokenGrant.requestBody()).thenReturn(REQUEST_ENTITY_BODY);
+    when(salesforceConfig.getAuthUri()).thenReturn(AUTH_URI);
+
+    CountDownLatch callersStarted = new CountDownLatch(CONCURRENT_CALLERS);
+    // hold the auth call open until every caller is waiting on the in-flight refresh
+    when(restTemplate.exchange(
+            AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class))
+        .thenAnswer(
+            invocation -> {
+              assertTrue(callersStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+              Thread.sleep(200);
+              return responseEntity;
+            });
+
+    ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_CALLERS; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  callersStarted.countDown();
+                  return tested.refreshToken();
+                }));
+      }
+      for (Future<String> result : results) {
+        assertEquals(EXPECTED_TOKEN, result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(EXPECTED_TOKEN, tested.getToken());
+    verify(restTemplate)
+        .exchange(AUTH_URI, HttpMethod.POST, requestEntity, SalesforceAuthResponse.class);
+  }
 }
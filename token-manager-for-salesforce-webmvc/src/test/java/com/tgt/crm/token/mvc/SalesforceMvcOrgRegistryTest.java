@@ -0,0 +1,264 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.SalesforceConstants.API_LIMIT_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.API_USAGE_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_KEY;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.PRIORITY_KEY;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_TIMER;
+import static com.tgt.crm.token.core.SalesforceConstants.USERNAME_TAG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.InMemoryTokenStore;
+import com.tgt.crm.token.core.IntegrationUser;
+import com.tgt.crm.token.core.RequestPriority;
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenManager;
+import com.tgt.crm.token.core.TokenMetrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+@ExtendWith(MockitoExtension.class)
+public class SalesforceMvcOrgRegistryTest {
+
+  private static final String DEFAULT_HOST = "https://default.my.salesforce.com";
+  private static final String ORG = "secondary";
+  private static final String ORG_HOST = "https://secondary.my.salesforce.com:8443";
+  private static final String SF_PATH = "/services/data/v52.0/query?q=SELECT%20Id%20FROM%20Account";
+  private static final String INSTANCE_HOST = "https://na1.salesforce.com";
+
+  @Mock private SalesforceMvcAuthClient defaultAuthClient;
+  @Spy private SimpleMeterRegistry meterRegistry;
+
+  private SalesforceConfig salesforceConfig;
+
+  @BeforeEach
+  public void setUp() {
+    salesforceConfig = buildConfig(DEFAULT_HOST);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void singleOrg_defaultAuthClientOnly() {
+    SalesforceMvcOrgRegistry tested = buildRegistry();
+
+    assertFalse(tested.isMultiOrg());
+    assertSame(defaultAuthClient, tested.getAuthClient(DEFAULT_ORG));
+    assertEquals(1, tested.getAuthClients().size());
+  }
+
+  @Test
+  public void additionalOrg_ownAuthClient() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+
+    SalesforceMvcOrgRegistry tested = buildRegistry();
+    SalesforceMvcAuthClient orgAuthClient = tested.getAuthClient(ORG);
+
+    assertTrue(tested.isMultiOrg());
+    assertNotSame(defaultAuthClient, orgAuthClient);
+    assertSame(orgAuthClient, tested.getAuthClients().get(ORG));
+  }
+
+  @Test
+  public void unknownOrg_rejected() {
+    SalesforceMvcOrgRegistry tested = buildRegistry();
+
+    assertThrows(IllegalArgumentException.class, () -> tested.getAuthClient(ORG));
+    assertThrows(IllegalArgumentException.class, () -> tested.getUserPool(ORG));
+    assertThrows(IllegalArgumentException.class, () -> tested.getApiLimitTracker(ORG));
+  }
+
+  @Test
+  public void apiLimitTracker_perOrgWithGauges() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+
+    SalesforceMvcOrgRegistry tested = buildRegistry();
+
+    assertNotSame(tested.getApiLimitTracker(DEFAULT_ORG), tested.getApiLimitTracker(ORG));
+    verify(meterRegistry)
+        .gauge(
+            eq(API_USAGE_GAUGE),
+            eq(Tags.of(ORG_TAG, ORG)),
+            eq(tested.getApiLimitTracker(ORG)),
+            any());
+    verify(meterRegistry)
+        .gauge(
+            eq(API_LIMIT_GAUGE),
+            eq(Tags.of(ORG_TAG, DEFAULT_ORG)),
+            eq(tested.getApiLimitTracker(DEFAULT_ORG)),
+            any());
+  }
+
+  @Test
+  public void integrationUsers_pooledWithDefaultUser() {
+    IntegrationUser user = new IntegrationUser();
+    user.setUsername("secondUsername");
+    user.setPassword("secondPassword");
+    salesforceConfig.getUsers().add(user);
+
+    SalesforceMvcOrgRegistry tested = buildRegistry();
+
+    assertEquals(2, tested.getUserPool(DEFAULT_ORG).getUsers().size());
+    assertSame(defaultAuthClient, tested.getUserPool(DEFAULT_ORG).getUsers().get(0));
+    assertEquals(1, tested.getUserPools().size());
+    assertNotSame(
+        TokenMetrics.NONE,
+        tested.getUserPool(DEFAULT_ORG).getUsers().get(1).getTokenManager().getMetrics());
+    assertEquals(
+        4,
+        meterRegistry
+            .get(TOKEN_REFRESH_TIMER)
+            .tag(ORG_TAG, DEFAULT_ORG)
+            .tag(USERNAME_TAG, "secondUsername")
+            .timers()
+            .size());
+  }
+
+  @Test
+  public void defaultOrgName_rejected() {
+    salesforceConfig.getOrgs().put(DEFAULT_ORG, buildConfig(ORG_HOST));
+
+    assertThrows(IllegalArgumentException.class, this::buildRegistry);
+  }
+
+  @Test
+  public void currentOrg_readFromRequestAttribute() {
+    assertEquals(DEFAULT_ORG, SalesforceMvcOrgRegistry.currentOrg());
+
+    MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+    assertEquals(DEFAULT_ORG, SalesforceMvcOrgRegistry.currentOrg());
+
+    servletRequest.setAttribute(ORG_KEY, ORG);
+    assertEquals(ORG, SalesforceMvcOrgRegistry.currentOrg());
+  }
+
+  @Test
+  public void currentPriority_readFromRequestAttribute() {
+    assertEquals(RequestPriority.NORMAL, SalesforceMvcOrgRegistry.currentPriority());
+
+    MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+    assertEquals(RequestPriority.NORMAL, SalesforceMvcOrgRegistry.currentPriority());
+
+    servletRequest.setAttribute(PRIORITY_KEY, RequestPriority.LOW);
+    assertEquals(RequestPriority.LOW, SalesforceMvcOrgRegistry.currentPriority());
+  }
+
+  @Test
+  public void routeToOrg_defaultHostRequest_rewrittenToOrgHost() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+    SalesforceMvcOrgRegistry tested = buildRegistry();
+    HttpRequest request = buildRequest(DEFAULT_HOST + SF_PATH);
+
+    HttpRequest routed = tested.routeToOrg(request, ORG);
+    routed.getHeaders().setBearerAuth("token");
+
+    assertEquals(URI.create(ORG_HOST + SF_PATH), routed.getURI());
+    assertEquals("Bearer token", request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+  }
+
+  @Test
+  public void routeToOrg_otherHostOrDefaultOrg_unchanged() {
+    salesforceConfig.getOrgs().put(ORG, buildConfig(ORG_HOST));
+    SalesforceMvcOrgRegistry tested = buildRegistry();
+    HttpRequest defaultRequest = buildRequest(DEFAULT_HOST + SF_PATH);
+    HttpRequest otherHostRequest = buildRequest("https://other.my.salesforce.com" + SF_PATH);
+
+    assertSame(defaultRequest, tested.routeToOrg(defaultRequest, DEFAULT_ORG));
+    assertSame(otherHostRequest, tested.routeToOrg(otherHostRequest, ORG));
+    assertSame(defaultRequest, tested.routeToOrg(defaultRequest, "unknown"));
+  }
+
+  @Test
+  public void routeToInstance_orgHostRequest_rewrittenToInstanceHost() {
+    salesforceConfig.setUseInstanceUrl(true);
+    SalesforceMvcOrgRegistry tested = buildRegistry();
+    HttpRequest request = buildRequest(DEFAULT_HOST + SF_PATH);
+
+    HttpRequest routed = tested.routeToInstance(request, DEFAULT_ORG, buildToken(INSTANCE_HOST));
+
+    assertEquals(URI.create(INSTANCE_HOST + SF_PATH), routed.getURI());
+  }
+
+  @Test
+  public void routeToInstance_notEnabledOrNotOrgHost_unchanged() {
+    SalesforceConfig orgConfig = buildConfig(ORG_HOST);
+    orgConfig.setUseInstanceUrl(true);
+    salesforceConfig.getOrgs().put(ORG, orgConfig);
+    SalesforceMvcOrgRegistry tested = buildRegistry();
+    HttpRequest defaultRequest = buildRequest(DEFAULT_HOST + SF_PATH);
+    HttpRequest instanceRequest = buildRequest(INSTANCE_HOST + SF_PATH);
+    HttpRequest orgRequest = buildRequest(ORG_HOST + SF_PATH);
+    SalesforceToken token = buildToken(INSTANCE_HOST);
+
+    assertSame(defaultRequest, tested.routeToInstance(defaultRequest, DEFAULT_ORG, token));
+    assertSame(defaultRequest, tested.routeToInstance(defaultRequest, ORG, token));
+    assertSame(instanceRequest, tested.routeToInstance(instanceRequest, ORG, token));
+    assertSame(orgRequest, tested.routeToInstance(orgRequest, ORG, buildToken("instanceUrl")));
+    assertSame(orgRequest, tested.routeToInstance(orgRequest, ORG, null));
+  }
+
+  private SalesforceMvcOrgRegistry buildRegistry() {
+    when(defaultAuthClient.getTokenManager()).thenReturn(new TokenManager(() -> null));
+    return new SalesforceMvcOrgRegistry(
+        defaultAuthClient,
+        salesforceConfig,
+        new RestTemplateBuilder(),
+        new InMemoryTokenStore(),
+        new ApiLimitConfig(),
+        meterRegistry);
+  }
+
+  private static HttpRequest buildRequest(final String url) {
+    return new MockClientHttpRequest(HttpMethod.GET, URI.create(url));
+  }
+
+  private static SalesforceToken buildToken(final String instanceUrl) {
+    return new SalesforceToken(
+        1, "Bearer", "token", "Bearer token", instanceUrl, null, Instant.now(), null);
+  }
+
+  private static SalesforceConfig buildConfig(final String host) {
+    SalesforceConfig config = new SalesforceConfig();
+    config.setHost(host);
+    config.setUsername("username");
+    config.setPassword("password");
+    config.setClientId("clientId");
+    config.setClientSecret("clientSecret");
+    return config;
+  }
+}
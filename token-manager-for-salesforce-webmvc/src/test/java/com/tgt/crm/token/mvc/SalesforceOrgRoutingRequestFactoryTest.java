@@ -0,0 +1,77 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_KEY;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+@ExtendWith(MockitoExtension.class)
+public class SalesforceOrgRoutingRequestFactoryTest {
+
+  private static final String ORG = "secondary";
+  private static final URI URL = URI.create("https://secondary.my.salesforce.com/some/sf/url");
+
+  @Mock private ClientHttpRequestFactory defaultRequestFactory;
+  @Mock private ClientHttpRequestFactory orgRequestFactory;
+  @Mock private ClientHttpRequest clientHttpRequest;
+
+  private MockHttpServletRequest servletRequest;
+  private SalesforceOrgRoutingRequestFactory tested;
+
+  @BeforeEach
+  public void setUp() {
+    servletRequest = new MockHttpServletRequest();
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+    tested =
+        new SalesforceOrgRoutingRequestFactory(
+            Map.of(DEFAULT_ORG, defaultRequestFactory, ORG, orgRequestFactory));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void noOrgSelected_defaultRequestFactoryUsed() throws IOException {
+    when(defaultRequestFactory.createRequest(URL, HttpMethod.GET)).thenReturn(clientHttpRequest);
+
+    assertSame(clientHttpRequest, tested.createRequest(URL, HttpMethod.GET));
+    verifyNoInteractions(orgRequestFactory);
+  }
+
+  @Test
+  public void orgSelected_orgRequestFactoryUsed() throws IOException {
+    servletRequest.setAttribute(ORG_KEY, ORG);
+    when(orgRequestFactory.createRequest(URL, HttpMethod.GET)).thenReturn(clientHttpRequest);
+
+    assertSame(clientHttpRequest, tested.createRequest(URL, HttpMethod.GET));
+    verifyNoInteractions(defaultRequestFactory);
+  }
+
+  @Test
+  public void unknownOrgSelected_rejected() {
+    servletRequest.setAttribute(ORG_KEY, "unknown");
+
+    assertThrows(IllegalArgumentException.class, () -> tested.createRequest(URL, HttpMethod.GET));
+    verifyNoInteractions(defaultRequestFactory, orgRequestFactory);
+  }
+}
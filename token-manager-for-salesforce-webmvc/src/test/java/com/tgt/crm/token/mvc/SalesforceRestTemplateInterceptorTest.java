@@ -1,14 +1,44 @@
 package com.tgt.crm.token.mvc;
 
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.LIMIT_INFO_HEADER;
+import static com.tgt.crm.token.core.SalesforceConstants.PRIORITY_KEY;
+import static com.tgt.crm.token.core.SalesforceConstants.UNAUTHORIZED_RETRY_COUNTER;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.tgt.crm.token.core.ApiLimitConfig;
+import com.tgt.crm.token.core.ApiLimitExceededException;
+import com.tgt.crm.token.core.ApiLimitTracker;
+import com.tgt.crm.token.core.AuthCircuitOpenException;
+import com.tgt.crm.token.core.IntegrationUserPool;
+import com.tgt.crm.token.core.RequestPriority;
+import com.tgt.crm.token.core.SalesforceConfig;
+import com.tgt.crm.token.core.SalesforceToken;
+import com.tgt.crm.token.core.TokenManager;
+import com.tgt.crm.token.core.TokenMetrics;
+import com.tgt.crm.token.core.UserSelection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -16,13 +46,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.mock.http.client.MockClientHttpRequest;
 import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 @SuppressWarnings("ConstantConditions")
 @ExtendWith(MockitoExtension.class)
@@ -31,22 +66,53 @@ public class SalesforceRestTemplateInterceptorTest {
   private static final byte[] TEST_BYTE_ARRAY = "body".getBytes(StandardCharsets.UTF_8);
   private static final String TEST_TOKEN_INVALID = "test_token_invalid";
   private static final String TEST_TOKEN = "test_token";
+  private static final SalesforceToken SF_TOKEN_INVALID = buildToken(1, TEST_TOKEN_INVALID);
+  private static final SalesforceToken SF_TOKEN = buildToken(2, TEST_TOKEN);
+  private static final long USER_COOLDOWN = 60_000;
+  private static final long MAX_DELAY = 20;
 
+  @Mock private SalesforceMvcOrgRegistry orgRegistry;
   @Mock private SalesforceMvcAuthClient authClient;
+  @Mock private SalesforceMvcAuthClient otherUserAuthClient;
   @Mock private ClientHttpRequestExecution execution;
   @InjectMocks private SalesforceRestTemplateInterceptor tested;
 
+  private ApiLimitTracker apiLimitTracker;
+
+  @BeforeEach
+  public void setUp() {
+    when(orgRegistry.getUserPool(DEFAULT_ORG))
+        .thenReturn(
+            new IntegrationUserPool<>(
+                List.of(authClient), UserSelection.LEAST_IN_FLIGHT, USER_COOLDOWN));
+    when(orgRegistry.routeToOrg(any(HttpRequest.class), eq(DEFAULT_ORG))).then(returnsFirstArg());
+    // not reached by calls rejected before a token is used
+    lenient()
+        .when(orgRegistry.routeToInstance(any(HttpRequest.class), eq(DEFAULT_ORG), any()))
+        .then(returnsFirstArg());
+    ApiLimitConfig apiLimitConfig = new ApiLimitConfig();
+    apiLimitConfig.setEnabled(true);
+    apiLimitConfig.setMaxDelay(MAX_DELAY);
+    apiLimitTracker = new ApiLimitTracker(DEFAULT_ORG, apiLimitConfig);
+    when(orgRegistry.getApiLimitTracker(DEFAULT_ORG)).thenReturn(apiLimitTracker);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
   @Test
-  public void nullToken_refreshToken_reqSuccess() throws IOException {
+  public void validToken_processRequest_noRefresh() throws IOException {
     MockClientHttpRequest request = new MockClientHttpRequest();
     ClientHttpResponse response = new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.OK);
 
-    when(authClient.getToken()).thenReturn(null);
-    when(authClient.refreshToken()).thenReturn(TEST_TOKEN);
+    when(authClient.getSalesforceToken()).thenReturn(SF_TOKEN);
     when(execution.execute(request, TEST_BYTE_ARRAY)).thenReturn(response);
 
     ClientHttpResponse actualResponse = tested.intercept(request, TEST_BYTE_ARRAY, execution);
 
+    verify(authClient, never()).refreshToken(any());
     assertEquals(response, actualResponse);
 
     ArgumentCaptor<HttpRequest> argument = ArgumentCaptor.forClass(HttpRequest.class);
@@ -59,25 +125,39 @@ public class SalesforceRestTemplateInterceptorTest {
   }
 
   @Test
-  public void validToken_processRequest_noRefresh() throws IOException {
+  public void contentTypeSet_notReplaced() throws IOException {
     MockClientHttpRequest request = new MockClientHttpRequest();
+    request.getHeaders().setContentType(MediaType.TEXT_PLAIN);
     ClientHttpResponse response = new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.OK);
 
-    when(authClient.getToken()).thenReturn(TEST_TOKEN);
+    when(authClient.getSalesforceToken()).thenReturn(SF_TOKEN);
     when(execution.execute(request, TEST_BYTE_ARRAY)).thenReturn(response);
 
-    ClientHttpResponse actualResponse = tested.intercept(request, TEST_BYTE_ARRAY, execution);
+    tested.intercept(request, TEST_BYTE_ARRAY, execution);
 
-    verify(authClient, never()).refreshToken();
-    assertEquals(response, actualResponse);
+    assertEquals(MediaType.TEXT_PLAIN, request.getHeaders().getContentType());
+  }
+
+  @Test
+  public void headersSet_canStillBeAppendedTo() throws IOException {
+    MockClientHttpRequest first = new MockClientHttpRequest();
+    MockClientHttpRequest second = new MockClientHttpRequest();
+    ClientHttpResponse response = new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.OK);
+
+    when(authClient.getSalesforceToken()).thenReturn(SF_TOKEN);
+    when(execution.execute(any(), eq(TEST_BYTE_ARRAY))).thenReturn(response);
+
+    tested.intercept(first, TEST_BYTE_ARRAY, execution);
+    tested.intercept(second, TEST_BYTE_ARRAY, execution);
+    first.getHeaders().add(HttpHeaders.AUTHORIZATION, "Bearer other");
+    first.getHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE);
 
-    ArgumentCaptor<HttpRequest> argument = ArgumentCaptor.forClass(HttpRequest.class);
-    verify(execution).execute(argument.capture(), eq(TEST_BYTE_ARRAY));
     assertEquals(
-        TEST_TOKEN, argument.getValue().getHeaders().get(HttpHeaders.AUTHORIZATION).get(0));
+        List.of(TEST_TOKEN, "Bearer other"), first.getHeaders().get(HttpHeaders.AUTHORIZATION));
+    assertEquals(List.of(TEST_TOKEN), second.getHeaders().get(HttpHeaders.AUTHORIZATION));
     assertEquals(
-        MediaType.APPLICATION_JSON_VALUE,
-        argument.getValue().getHeaders().get(HttpHeaders.CONTENT_TYPE).get(0));
+        List.of(MediaType.APPLICATION_JSON_VALUE),
+        second.getHeaders().get(HttpHeaders.CONTENT_TYPE));
   }
 
   @Test
@@ -88,8 +168,12 @@ public class SalesforceRestTemplateInterceptorTest {
     ClientHttpResponse unauthorizedResponse =
         new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.UNAUTHORIZED);
 
-    when(authClient.getToken()).thenReturn(TEST_TOKEN_INVALID);
-    when(authClient.refreshToken()).thenReturn(TEST_TOKEN);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    TokenManager tokenManager = new TokenManager(() -> null);
+    TokenMetrics.bind(meterRegistry, DEFAULT_ORG, new SalesforceConfig(), tokenManager);
+    when(authClient.getTokenManager()).thenReturn(tokenManager);
+    when(authClient.getSalesforceToken()).thenReturn(SF_TOKEN_INVALID);
+    when(authClient.refreshToken(SF_TOKEN_INVALID)).thenReturn(SF_TOKEN);
     when(execution.execute(request, TEST_BYTE_ARRAY))
         .thenReturn(unauthorizedResponse)
         .thenReturn(expectedResponse);
@@ -106,5 +190,184 @@ public class SalesforceRestTemplateInterceptorTest {
     assertEquals(
         MediaType.APPLICATION_JSON_VALUE,
         argument.getValue().getHeaders().get(HttpHeaders.CONTENT_TYPE).get(0));
+    assertEquals(1, meterRegistry.get(UNAUTHORIZED_RETRY_COUNTER).counter().count());
+  }
+
+  @Test
+  public void streamed_unauthorized_bodyWrittenAgainWithRefreshedToken() throws IOException {
+    List<MockClientHttpRequest> requests = new ArrayList<>();
+    Deque<ClientHttpResponse> responses =
+        new ArrayDeque<>(
+            List.of(
+                new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.UNAUTHORIZED),
+                new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.OK)));
+    ClientHttpRequestFactory requestFactory =
+        (uri, method) -> {
+          MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+          request.setResponse(responses.poll());
+          requests.add(request);
+          return request;
+        };
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.TEXT_PLAIN);
+
+    when(authClient.getTokenManager()).thenReturn(new TokenManager(() -> null));
+    when(authClient.getSalesforceToken()).thenReturn(SF_TOKEN_INVALID);
+    when(authClient.refreshToken(SF_TOKEN_INVALID)).thenReturn(SF_TOKEN);
+
+    ClientHttpResponse response =
+        tested.execute(
+            URI.create("https://test.salesforce.com/upload"),
+            HttpMethod.PUT,
+            headers,
+            out -> out.write(TEST_BYTE_ARRAY),
+            requestFactory);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(2, requests.size());
+    assertEquals(
+        TEST_TOKEN_INVALID, requests.get(0).getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+    assertEquals(TEST_TOKEN, requests.get(1).getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+    assertEquals(HttpMethod.PUT, requests.get(1).getMethod());
+    assertEquals(MediaType.TEXT_PLAIN, requests.get(1).getHeaders().getContentType());
+    assertEquals("body", requests.get(0).getBodyAsString());
+    assertEquals("body", requests.get(1).getBodyAsString());
+  }
+
+  @Test
+  public void tokenUnavailable_reqSentWithoutToken() throws IOException {
+    MockClientHttpRequest request = new MockClientHttpRequest();
+    ClientHttpResponse response =
+        new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.UNAUTHORIZED);
+
+    when(authClient.getTokenManager()).thenReturn(new TokenManager(() -> null));
+    when(authClient.getSalesforceToken()).thenReturn(null);
+    when(authClient.refreshToken(null)).thenReturn(null);
+    when(execution.execute(request, TEST_BYTE_ARRAY)).thenReturn(response);
+
+    ClientHttpResponse actualResponse = tested.intercept(request, TEST_BYTE_ARRAY, execution);
+
+    assertEquals(response, actualResponse);
+    verify(execution, times(2)).execute(request, TEST_BYTE_ARRAY);
+  }
+
+  @Test
+  public void tokenUnavailable_userSkipped_otherUserUsed() throws IOException {
+    when(orgRegistry.getUserPool(DEFAULT_ORG))
+        .thenReturn(
+            new IntegrationUserPool<>(
+                List.of(authClient, otherUserAuthClient),
+                UserSelection.ROUND_ROBIN,
+                USER_COOLDOWN));
+    MockClientHttpRequest request = new MockClientHttpRequest();
+    ClientHttpResponse response = new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.OK);
+
+    when(authClient.getSalesforceToken()).thenReturn(null);
+    when(otherUserAuthClient.getSalesforceToken()).thenReturn(SF_TOKEN);
+    when(execution.execute(request, TEST_BYTE_ARRAY)).thenReturn(response);
+
+    tested.intercept(request, TEST_BYTE_ARRAY, execution);
+    tested.intercept(request, TEST_BYTE_ARRAY, execution);
+    tested.intercept(request, TEST_BYTE_ARRAY, execution);
+
+    // round robin would return to the first user on the third call if it had not failed
+    verify(authClient, times(1)).getSalesforceToken();
+    verify(otherUserAuthClient, times(2)).getSalesforceToken();
+  }
+
+  @Test
+  public void authCircuitOpen_notSent_otherUserUsed() throws IOException {
+    when(orgRegistry.getUserPool(DEFAULT_ORG))
+        .thenReturn(
+            new IntegrationUserPool<>(
+                List.of(authClient, otherUserAuthClient),
+                UserSelection.ROUND_ROBIN,
+                USER_COOLDOWN));
+    MockClientHttpRequest request = new MockClientHttpRequest();
+    ClientHttpResponse response = new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.OK);
+
+    when(authClient.getSalesforceToken()).thenThrow(new AuthCircuitOpenException("open"));
+    when(otherUserAuthClient.getSalesforceToken()).thenReturn(SF_TOKEN);
+    when(execution.execute(request, TEST_BYTE_ARRAY)).thenReturn(response);
+
+    assertThrows(
+        AuthCircuitOpenException.class,
+        () -> tested.intercept(request, TEST_BYTE_ARRAY, execution));
+    verify(execution, never()).execute(any(), any());
+
+    tested.intercept(request, TEST_BYTE_ARRAY, execution);
+    tested.intercept(request, TEST_BYTE_ARRAY, execution);
+
+    verify(authClient, times(1)).getSalesforceToken();
+    verify(otherUserAuthClient, times(2)).getSalesforceToken();
+  }
+
+  @Test
+  public void limitInfoHeader_apiUsageTracked() throws IOException {
+    MockClientHttpRequest request = new MockClientHttpRequest();
+    MockClientHttpResponse response = new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.OK);
+    response.getHeaders().add(LIMIT_INFO_HEADER, "api-usage=25/15000");
+
+    when(authClient.getSalesforceToken()).thenReturn(SF_TOKEN);
+    when(execution.execute(request, TEST_BYTE_ARRAY)).thenReturn(response);
+
+    tested.intercept(request, TEST_BYTE_ARRAY, execution);
+
+    assertEquals(25, apiLimitTracker.getUsed());
+    assertEquals(15_000, apiLimitTracker.getLimit());
+  }
+
+  @Test
+  public void lowPriority_nearLimit_delayed() throws IOException {
+    MockClientHttpRequest request = new MockClientHttpRequest();
+    ClientHttpResponse response = new MockClientHttpResponse(TEST_BYTE_ARRAY, HttpStatus.OK);
+    apiLimitTracker.update("api-usage=90/100");
+    setPriority(RequestPriority.LOW);
+
+    when(authClient.getSalesforceToken()).thenReturn(SF_TOKEN);
+    when(execution.execute(request, TEST_BYTE_ARRAY)).thenReturn(response);
+
+    assertEquals(response, tested.intercept(request, TEST_BYTE_ARRAY, execution));
+  }
+
+  @Test
+  public void lowPriority_delayInterrupted_notSent() throws IOException {
+    MockClientHttpRequest request = new MockClientHttpRequest();
+    apiLimitTracker.update("api-usage=90/100");
+    setPriority(RequestPriority.LOW);
+
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(
+          InterruptedIOException.class,
+          () -> tested.intercept(request, TEST_BYTE_ARRAY, execution));
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+    }
+    verify(execution, never()).execute(any(), any());
+  }
+
+  @Test
+  public void lowPriority_atLimit_rejected() throws IOException {
+    MockClientHttpRequest request = new MockClientHttpRequest();
+    apiLimitTracker.update("api-usage=96/100");
+    setPriority(RequestPriority.LOW);
+
+    assertThrows(
+        ApiLimitExceededException.class,
+        () -> tested.intercept(request, TEST_BYTE_ARRAY, execution));
+    verify(execution, never()).execute(any(), any());
+  }
+
+  private static void setPriority(final RequestPriority priority) {
+    MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+    servletRequest.setAttribute(PRIORITY_KEY, priority);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+  }
+
+  private static SalesforceToken buildToken(final long generation, final String authorization) {
+    return new SalesforceToken(
+        generation, "Bearer", authorization, authorization, null, null, Instant.now(), null);
   }
 }
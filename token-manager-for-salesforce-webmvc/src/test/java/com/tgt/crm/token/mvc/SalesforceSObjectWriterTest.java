@@ -0,0 +1,287 @@
+package com.tgt.crm.token.mvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tgt.crm.token.core.SObjectCollections;
+import com.tgt.crm.token.core.SObjectCollectionsConfig;
+import com.tgt.crm.token.core.SalesforceConstants;
+import com.tgt.crm.token.core.SaveResult;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class SalesforceSObjectWriterTest {
+
+  private static final int TIMEOUT = 5; // seconds
+  private static final String ACCOUNT = "Account";
+  private static final String PATH = "/services/data/v52.0/composite/sobjects";
+  private static final String NAME = "Name";
+  private static final String ORG_HEADER = "X-Org";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final SObjectCollectionsConfig config = new SObjectCollectionsConfig();
+  private final AtomicInteger read = new AtomicInteger();
+  private final List<Integer> readWhenCalled = new CopyOnWriteArrayList<>();
+  private MockWebServer mockWebServer;
+  private RestTemplate restTemplate;
+  private SalesforceSObjectWriter tested;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.setDispatcher(new CollectionsDispatcher());
+    mockWebServer.start();
+    restTemplate =
+        new RestTemplateBuilder()
+            .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+            .rootUri(mockWebServer.url("").toString())
+            .additionalInterceptors(
+                (request, body, execution) -> {
+                  request.getHeaders().set(ORG_HEADER, SalesforceMvcOrgRegistry.currentOrg());
+                  return execution.execute(request, body);
+                })
+            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .build();
+    config.setBatchSize(2);
+    config.setConcurrency(2);
+    tested = writer();
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    tested.destroy();
+    RequestContextHolder.resetRequestAttributes();
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void insert_sentInBatches_resultsInOrder() throws InterruptedException {
+    List<SaveResult<Map<String, String>>> results = tested.insert(ACCOUNT, accounts(5));
+
+    assertEquals(
+        List.of("id-0", "id-1", "id-2", "id-3", "id-4"),
+        results.stream().map(SaveResult::getId).collect(Collectors.toList()));
+    assertEquals("0", results.get(0).getRecord().get(NAME));
+    assertTrue(results.get(4).isSuccess());
+    assertEquals(3, mockWebServer.getRequestCount());
+    for (int i = 0; i < 3; i++) {
+      RecordedRequest request = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+      assertNotNull(request);
+      assertEquals(HttpMethod.POST.name(), request.getMethod());
+      assertEquals(PATH, request.getPath());
+    }
+  }
+
+  @Test
+  public void update_sentAsPatch() throws InterruptedException {
+    assertEquals(1, tested.update(ACCOUNT, accounts(1)).size());
+
+    RecordedRequest request = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(request);
+    assertEquals(HttpMethod.PATCH.name(), request.getMethod());
+  }
+
+  @Test
+  public void records_notReadAheadOfCallsInFlight() {
+    config.setBatchSize(1);
+    config.setConcurrency(1);
+    SalesforceSObjectWriter sequential = writer();
+    try {
+      assertEquals(3, sequential.insert(ACCOUNT, accounts(3)).size());
+    } finally {
+      sequential.destroy();
+    }
+
+    assertEquals(List.of(1, 2, 3), readWhenCalled);
+  }
+
+  @Test
+  public void callFailed_everyRecordFailed() {
+    List<SaveResult<Map<String, String>>> results =
+        tested.insert("Missing", List.of(Map.of(NAME, "a"), Map.of(NAME, "b")));
+
+    assertEquals(2, results.size());
+    for (SaveResult<Map<String, String>> result : results) {
+      assertFalse(result.isSuccess());
+      assertEquals("INVALID_TYPE", result.getErrors().get(0).getStatusCode());
+    }
+  }
+
+  @Test
+  public void unexpectedResponse_restClientException() {
+    assertThrows(
+        RestClientException.class, () -> tested.insert("Unexpected", List.of(Map.of(NAME, "a"))));
+  }
+
+  @Test
+  public void requestOrg_usedByEveryCall() throws InterruptedException {
+    MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+    servletRequest.setAttribute(SalesforceConstants.ORG_KEY, "eu");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+
+    assertEquals(4, tested.insert(ACCOUNT, accounts(4)).size());
+
+    for (int i = 0; i < 2; i++) {
+      RecordedRequest request = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+      assertNotNull(request);
+      assertEquals("eu", request.getHeader(ORG_HEADER));
+    }
+  }
+
+  @Test
+  public void interrupted_restClientException() {
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(RestClientException.class, () -> tested.insert(ACCOUNT, accounts(1)));
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void errorInCall_restClientException() {
+    RestTemplate failing = mock(RestTemplate.class);
+    when(failing.exchange(
+            anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(byte[].class)))
+        .thenThrow(new AssertionError("failed"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    SalesforceSObjectWriter writer =
+        new SalesforceSObjectWriter(failing, new SObjectCollections(config, MAPPER), executor);
+    try {
+      RestClientException exception =
+          assertThrows(RestClientException.class, () -> writer.insert(ACCOUNT, accounts(1)));
+      assertTrue(exception.getCause().getCause() instanceof AssertionError);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void givenExecutor_notShutDown() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    beanFactory.addBean("sfVirtualThreadExecutor", executor);
+    SalesforceSObjectWriter writer =
+        new SalesforceSObjectWriter(
+            restTemplate,
+            config,
+            beanFactory.getBeanProvider(ObjectMapper.class),
+            beanFactory.getBeanProvider(ExecutorService.class));
+    try {
+      assertEquals(1, writer.insert(ACCOUNT, accounts(1)).size());
+      writer.destroy();
+      assertFalse(executor.isShutdown());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void ownExecutor_shutDown() {
+    tested.destroy();
+
+    assertThrows(RejectedExecutionException.class, () -> tested.insert(ACCOUNT, accounts(1)));
+  }
+
+  private SalesforceSObjectWriter writer() {
+    return new SalesforceSObjectWriter(restTemplate, new SObjectCollections(config, MAPPER), null);
+  }
+
+  /** Named accounts, counting the records read. */
+  private Iterable<Map<String, String>> accounts(final int count) {
+    Iterator<Map<String, String>> accounts =
+        IntStream.range(0, count).mapToObj(i -> Map.of(NAME, String.valueOf(i))).iterator();
+    return () ->
+        new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return accounts.hasNext();
+          }
+
+          @Override
+          public Map<String, String> next() {
+            read.incrementAndGet();
+            return accounts.next();
+          }
+        };
+  }
+
+  /** Saves the accounts with an id from their name, rejects other types. */
+  private final class CollectionsDispatcher extends Dispatcher {
+
+    @Override
+    public MockResponse dispatch(final RecordedRequest request) {
+      JsonNode records;
+      try {
+        records = MAPPER.readTree(request.getBody().clone().readUtf8()).path("records");
+      } catch (IOException e) {
+        return new MockResponse().setResponseCode(500);
+      }
+      String type = records.path(0).path("attributes").path("type").asText();
+      if ("Missing".equals(type)) {
+        return json(400, "[{\"errorCode\":\"INVALID_TYPE\",\"message\":\"no such type\"}]");
+      }
+      if ("Unexpected".equals(type)) {
+        return json(200, "[]");
+      }
+      readWhenCalled.add(read.get());
+      List<String> results = new ArrayList<>();
+      records.forEach(
+          record ->
+              results.add(
+                  "{\"id\":\"id-"
+                      + record.path(NAME).asText()
+                      + "\",\"success\":true,\"errors\":[]}"));
+      return json(200, "[" + String.join(",", results) + "]");
+    }
+
+    private MockResponse json(final int status, final String body) {
+      return new MockResponse()
+          .setResponseCode(status)
+          .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+          .setBody(body);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.tgt.crm.token.mvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class VirtualThreadUtilsTest {
+
+  @Test
+  public void newThreadPerTaskExecutor_java21_runsOnVirtualThread()
+      throws ExecutionException, InterruptedException, ReflectiveOperationException {
+    assumeTrue(VirtualThreadUtils.isSupported());
+    ExecutorService tested = VirtualThreadUtils.newThreadPerTaskExecutor("sf-test-");
+
+    Thread thread = tested.submit(Thread::currentThread).get();
+    tested.shutdown();
+
+    assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+    assertEquals("sf-test-0", thread.getName());
+  }
+
+  @Test
+  public void newThreadPerTaskExecutor_beforeJava21_fails() {
+    assumeFalse(VirtualThreadUtils.isSupported());
+
+    IllegalStateException exception =
+        assertThrows(
+            IllegalStateException.class,
+            () -> VirtualThreadUtils.newThreadPerTaskExecutor("sf-test-"));
+    assertTrue(exception.getMessage().contains("Java 21"));
+  }
+}
@@ -0,0 +1,37 @@
+package com.tgt.crm.token.mvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.tgt.crm.token.core.HttpClientConfig;
+import org.junit.jupiter.api.Test;
+
+public class WebMvcHttpClientConfigTest {
+
+  private final HttpClientConfig httpClientConfig = new HttpClientConfig();
+  private final WebMvcHttpClientConfig tested = new WebMvcHttpClientConfig();
+
+  @Test
+  public void poolSizes_notSet_defaults() {
+    assertEquals(50, tested.getMaxPools());
+    assertEquals(20, tested.getMaxConnPerRoute(httpClientConfig));
+  }
+
+  @Test
+  public void poolSizes_virtualThreads_raisedDefaults() {
+    tested.setVirtualThreads(true);
+
+    assertEquals(1_000, tested.getMaxPools());
+    assertEquals(1_000, tested.getMaxConnPerRoute(httpClientConfig));
+  }
+
+  @Test
+  public void poolSizes_virtualThreadsAndSet_configuredValues() {
+    tested.setVirtualThreads(true);
+    tested.setMaxPools(200);
+    httpClientConfig.setMaxConnPerRoute(100);
+
+    assertEquals(200, tested.getMaxPools());
+    assertEquals(100, tested.getMaxConnPerRoute(httpClientConfig));
+    assertEquals(100, httpClientConfig.getMaxConnPerRoute());
+  }
+}
@@ -0,0 +1,77 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static com.tgt.crm.token.core.SalesforceConstants.API_USAGE_GAUGE;
+import static com.tgt.crm.token.core.SalesforceConstants.DEFAULT_ORG;
+import static com.tgt.crm.token.core.SalesforceConstants.LIMIT_INFO_HEADER;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.PRIORITY_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.tgt.crm.token.core.ApiLimitExceededException;
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import com.tgt.crm.token.core.RequestPriority;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      RestTemplateAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class MvcApiLimitIntegrationTest extends BaseIntegrationTest {
+
+  @Autowired
+  private @Qualifier("sfRestTemplate") RestTemplate restTemplate;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerApiLimitProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.api-limit.enabled", () -> "true");
+  }
+
+  @AfterEach
+  public void tearDownEach() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void apiUsageNearLimit_lowPriorityRejected() {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse().addHeader(LIMIT_INFO_HEADER, "api-usage=96/100"));
+    mockWebServer.enqueue(getSfQueryResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    assertEquals(QUERY_SUCCESSFUL, restTemplate.getForObject(SF_URL, String.class));
+    assertEquals(96, meterRegistry.get(API_USAGE_GAUGE).tag(ORG_TAG, DEFAULT_ORG).gauge().value());
+
+    MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+    servletRequest.setAttribute(PRIORITY_KEY, RequestPriority.LOW);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+    assertThrows(
+        ApiLimitExceededException.class, () -> restTemplate.getForObject(SF_URL, String.class));
+    assertEquals(2, mockWebServer.getRequestCount() - prevReqCount);
+
+    servletRequest.setAttribute(PRIORITY_KEY, RequestPriority.NORMAL);
+    assertEquals(QUERY_SUCCESSFUL, restTemplate.getForObject(SF_URL, String.class));
+    assertEquals(3, mockWebServer.getRequestCount() - prevReqCount);
+  }
+}
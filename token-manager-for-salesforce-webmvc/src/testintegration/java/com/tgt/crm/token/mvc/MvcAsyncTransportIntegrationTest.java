@@ -0,0 +1,58 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthRefreshedSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryUnauthorizedResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      RestTemplateAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class MvcAsyncTransportIntegrationTest extends BaseIntegrationTest {
+
+  @Autowired
+  private @Qualifier("sfRestTemplate") RestTemplate restTemplate;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerAsyncProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.httpclient.webmvc.async-transport", () -> "true");
+    registry.add("salesforce.httpclient.webmvc.retry-interval", () -> "50");
+  }
+
+  @Test
+  void makeRequest_unauthorizedThenServerError_refreshedAndRetried() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryUnauthorizedResponse());
+    mockWebServer.enqueue(getSfAuthRefreshedSuccessResponse());
+    mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+    mockWebServer.enqueue(getSfQueryResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    assertEquals(QUERY_SUCCESSFUL, restTemplate.getForObject(SF_URL, String.class));
+
+    assertEquals(5, mockWebServer.getRequestCount() - prevReqCount);
+    validateAuthRequest();
+    validateSfRequest();
+    validateAuthRequest();
+    validateSfRequest("Bearer new bearerToken");
+    validateSfRequest("Bearer new bearerToken");
+  }
+}
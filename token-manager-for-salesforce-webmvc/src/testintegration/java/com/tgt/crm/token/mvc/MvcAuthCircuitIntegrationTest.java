@@ -0,0 +1,66 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthErrorResponse;
+import static com.tgt.crm.token.core.SalesforceConstants.AUTH_CIRCUIT_GAUGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.tgt.crm.token.core.AuthCircuitBreaker;
+import com.tgt.crm.token.core.AuthCircuitOpenException;
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      RestTemplateAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class MvcAuthCircuitIntegrationTest extends BaseIntegrationTest {
+
+  @Autowired
+  private @Qualifier("sfRestTemplate") RestTemplate restTemplate;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerCircuitProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.max-auth-token-retries", () -> "1");
+    registry.add("salesforce.auth-failure-threshold", () -> "1");
+    registry.add("salesforce.auth-circuit-open-duration", () -> "60000");
+  }
+
+  @Test
+  void authFails_circuitOpen_failsFastWithoutCalls() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthErrorResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    // the failed token request opens the circuit, no call is sent without a token
+    AuthCircuitOpenException opened =
+        assertThrows(
+            AuthCircuitOpenException.class, () -> restTemplate.getForObject(SF_URL, String.class));
+    assertEquals(
+        HttpClientErrorException.BadRequest.class, opened.getCause().getCause().getClass());
+    assertEquals(
+        AuthCircuitBreaker.State.OPEN.ordinal(),
+        meterRegistry.get(AUTH_CIRCUIT_GAUGE).gauge().value());
+
+    // neither Salesforce's OAuth endpoint nor the data endpoint is called while the circuit is open
+    assertThrows(
+        AuthCircuitOpenException.class, () -> restTemplate.getForObject(SF_URL, String.class));
+    assertEquals(1, mockWebServer.getRequestCount() - prevReqCount);
+    validateAuthRequest();
+  }
+}
@@ -0,0 +1,79 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      RestTemplateAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class MvcCompositeBatchIntegrationTest extends BaseIntegrationTest {
+
+  private static final String ACCOUNT_URL = "/services/data/v52.0/sobjects/Account/";
+
+  @Autowired
+  private @Qualifier("sfRestTemplate") RestTemplate restTemplate;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerBatchProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.composite-batch.enabled", () -> "true");
+    registry.add("salesforce.composite-batch.window", () -> "5000");
+    registry.add("salesforce.composite-batch.max-size", () -> "2");
+  }
+
+  @Test
+  @SuppressWarnings("PMD.DoNotUseThreads")
+  void concurrentRequests_sentAsOneAuthorizedBatch() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(
+        new MockResponse()
+            .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .setBody(
+                "{\"compositeResponse\":["
+                    + "{\"body\":{\"Id\":\"001\"},\"httpStatusCode\":200,\"referenceId\":\"ref0\"},"
+                    + "{\"body\":{\"Id\":\"002\"},\"httpStatusCode\":200,\"referenceId\":\"ref1\"}]}"));
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    CompletableFuture<String> first =
+        CompletableFuture.supplyAsync(
+            () -> restTemplate.getForObject(ACCOUNT_URL + "001", String.class));
+    CompletableFuture<String> second =
+        CompletableFuture.supplyAsync(
+            () -> restTemplate.getForObject(ACCOUNT_URL + "002", String.class));
+
+    // which call leads the batch is up to the scheduler, the mapping is covered by the unit tests
+    assertEquals(
+        Set.of("{\"Id\":\"001\"}", "{\"Id\":\"002\"}"), Set.of(first.join(), second.join()));
+    assertEquals(2, mockWebServer.getRequestCount() - prevReqCount);
+    validateAuthRequest();
+    RecordedRequest batchReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(batchReq);
+    assertEquals(HttpMethod.POST.name(), batchReq.getMethod());
+    assertEquals("/services/data/v52.0/composite", batchReq.getPath());
+    assertEquals("Bearer bearerToken", batchReq.getHeader(HttpHeaders.AUTHORIZATION));
+  }
+}
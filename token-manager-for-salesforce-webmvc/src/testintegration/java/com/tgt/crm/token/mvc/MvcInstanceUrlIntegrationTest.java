@@ -0,0 +1,73 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      RestTemplateAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class MvcInstanceUrlIntegrationTest extends BaseIntegrationTest {
+
+  private static MockWebServer instanceWebServer;
+
+  @Autowired
+  private @Qualifier("sfRestTemplate") RestTemplate restTemplate;
+
+  @BeforeAll
+  static void setupInstance() throws IOException {
+    instanceWebServer = new MockWebServer();
+    instanceWebServer.start();
+  }
+
+  @AfterAll
+  static void shutdownInstance() throws IOException {
+    instanceWebServer.shutdown();
+  }
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerInstanceProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.use-instance-url", () -> "true");
+  }
+
+  @Test
+  void makeRequest_sentToInstanceUrl() throws InterruptedException {
+    mockWebServer.enqueue(
+        getSfAuthSuccessResponse("http://localhost:" + instanceWebServer.getPort()));
+    instanceWebServer.enqueue(getSfQueryResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    assertEquals(QUERY_SUCCESSFUL, restTemplate.getForObject(SF_URL, String.class));
+
+    validateAuthRequest();
+    assertEquals(1, mockWebServer.getRequestCount() - prevReqCount);
+    RecordedRequest queryReq = instanceWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(queryReq);
+    assertEquals(SF_URL, queryReq.getPath());
+    assertEquals("Bearer bearerToken", queryReq.getHeader(HttpHeaders.AUTHORIZATION));
+  }
+}
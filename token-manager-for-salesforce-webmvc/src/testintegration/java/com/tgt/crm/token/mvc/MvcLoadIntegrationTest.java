@@ -0,0 +1,81 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.SalesforceConstants.OUTCOME_TAG;
+import static com.tgt.crm.token.core.SalesforceConstants.TOKEN_REFRESH_TIMER;
+import static com.tgt.crm.token.core.SalesforceConstants.UNAUTHORIZED_RETRY_COUNTER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import com.tgt.crm.token.core.LatencyDistribution;
+import com.tgt.crm.token.core.LoadDriver;
+import com.tgt.crm.token.core.LoadReport;
+import com.tgt.crm.token.core.SalesforceSimulator;
+import com.tgt.crm.token.core.SimulatorConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.client.RestTemplate;
+
+@Slf4j
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      RestTemplateAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class MvcLoadIntegrationTest extends BaseIntegrationTest {
+
+  @Autowired
+  private @Qualifier("sfRestTemplate") RestTemplate restTemplate;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Test
+  @SuppressWarnings("PMD.DoNotUseThreads")
+  void expiringTokens_oneRefreshPerRejectedToken() throws InterruptedException {
+    SimulatorConfig config = new SimulatorConfig();
+    config.setLatency(LatencyDistribution.uniform(5, 20));
+    config.setTokenMaxCalls(50);
+    config.setUnauthorizedRate(0.01);
+    config.setQueryRecords(10);
+    SalesforceSimulator simulator = new SalesforceSimulator(config);
+    mockWebServer.setDispatcher(simulator);
+
+    // a servlet container's request threads, each blocks on its Salesforce call
+    ExecutorService requestThreads = Executors.newFixedThreadPool(50);
+    LoadReport report;
+    try {
+      report =
+          LoadDriver.run(
+              () ->
+                  CompletableFuture.supplyAsync(
+                      () ->
+                          restTemplate.getForObject(
+                              SalesforceSimulator.QUERY_PATH + "?q=SELECT+Id+FROM+Account",
+                              String.class),
+                      requestThreads));
+    } finally {
+      requestThreads.shutdownNow();
+    }
+
+    log.info("mvc load: {}, {} token requests", report, simulator.getAuthCalls());
+    assertTrue(simulator.getAuthCalls() <= simulator.getRejectedTokens() + 1);
+    // only a retry that is rejected again fails
+    assertTrue(report.getFailures() <= simulator.getUnauthorizedResponses());
+    assertEquals(
+        simulator.getAuthCalls(),
+        meterRegistry.get(TOKEN_REFRESH_TIMER).tag(OUTCOME_TAG, "success").timer().count());
+    double retries = meterRegistry.get(UNAUTHORIZED_RETRY_COUNTER).counter().count();
+    assertTrue(retries >= simulator.getRejectedTokens());
+    assertTrue(retries <= simulator.getUnauthorizedResponses());
+  }
+}
@@ -0,0 +1,123 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthRefreshedSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static com.tgt.crm.token.core.SalesforceConstants.ORG_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      RestTemplateAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class MvcMultiOrgIntegrationTest extends BaseIntegrationTest {
+
+  private static final String ORG = "secondary";
+
+  private static MockWebServer orgWebServer;
+
+  @Autowired
+  private @Qualifier("sfRestTemplate") RestTemplate restTemplate;
+
+  @BeforeAll
+  static void setupOrg() throws IOException {
+    orgWebServer = new MockWebServer();
+    orgWebServer.start();
+  }
+
+  @AfterAll
+  static void shutdownOrg() throws IOException {
+    orgWebServer.shutdown();
+  }
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerOrgProperties(final DynamicPropertyRegistry registry) {
+    String prefix = "salesforce.orgs." + ORG + ".";
+    registry.add(prefix + "host", () -> "http://localhost:" + orgWebServer.getPort());
+    registry.add(prefix + "username", () -> "orgUsername");
+    registry.add(prefix + "password", () -> "orgPassword");
+    registry.add(prefix + "client-id", () -> "orgClientId");
+    registry.add(prefix + "client-secret", () -> "orgClientSecret");
+    registry.add(prefix + "retry-backoff-delay", () -> "50");
+  }
+
+  @AfterEach
+  public void tearDownEach() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void makeRequests_eachOrgUsesOwnHostAndToken() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+    orgWebServer.enqueue(getSfAuthRefreshedSuccessResponse());
+    orgWebServer.enqueue(getSfQueryResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    assertEquals(QUERY_SUCCESSFUL, restTemplate.getForObject(SF_URL, String.class));
+    selectOrg(ORG);
+    assertEquals(QUERY_SUCCESSFUL, restTemplate.getForObject(SF_URL, String.class));
+
+    validateAuthRequest();
+    validateSfRequest();
+    assertEquals(2, mockWebServer.getRequestCount() - prevReqCount);
+
+    RecordedRequest orgAuthReq = orgWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(orgAuthReq);
+    assertEquals("/services/oauth2/token", orgAuthReq.getPath());
+    assertEquals(
+        "grant_type=password&username=orgUsername&password=orgPassword&client_id=orgClientId&client_secret=orgClientSecret",
+        orgAuthReq.getBody().readUtf8());
+    RecordedRequest orgQueryReq = orgWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(orgQueryReq);
+    assertEquals(SF_URL, orgQueryReq.getPath());
+    assertEquals("Bearer new bearerToken", orgQueryReq.getHeader(HttpHeaders.AUTHORIZATION));
+  }
+
+  @Test
+  void makeRequest_unknownOrg_reqFail() {
+    int prevReqCount = mockWebServer.getRequestCount();
+    int prevOrgReqCount = orgWebServer.getRequestCount();
+
+    selectOrg("unknown");
+    assertThrows(
+        IllegalArgumentException.class, () -> restTemplate.getForObject(SF_URL, String.class));
+
+    assertEquals(0, mockWebServer.getRequestCount() - prevReqCount);
+    assertEquals(0, orgWebServer.getRequestCount() - prevOrgReqCount);
+  }
+
+  private static void selectOrg(final String org) {
+    MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+    servletRequest.setAttribute(ORG_KEY, org);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+  }
+}
@@ -0,0 +1,67 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthRefreshedSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static com.tgt.crm.token.core.MockResponseUtil.getSfQueryResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      RestTemplateAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class MvcMultiUserIntegrationTest extends BaseIntegrationTest {
+
+  @Autowired
+  private @Qualifier("sfRestTemplate") RestTemplate restTemplate;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerUserProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.users[0].username", () -> "secondUsername");
+    registry.add("salesforce.users[0].password", () -> "secondPassword");
+    registry.add("salesforce.user-selection", () -> "round-robin");
+  }
+
+  @Test
+  void makeRequests_spreadAcrossUsers() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+    mockWebServer.enqueue(getSfAuthRefreshedSuccessResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+    mockWebServer.enqueue(getSfQueryResponse());
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    assertEquals(QUERY_SUCCESSFUL, restTemplate.getForObject(SF_URL, String.class));
+    assertEquals(QUERY_SUCCESSFUL, restTemplate.getForObject(SF_URL, String.class));
+    assertEquals(QUERY_SUCCESSFUL, restTemplate.getForObject(SF_URL, String.class));
+
+    validateAuthRequest();
+    validateSfRequest();
+    RecordedRequest secondAuthReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+    assertNotNull(secondAuthReq);
+    assertEquals(
+        "grant_type=password&username=secondUsername&password=secondPassword&client_id=clientId&client_secret=clientSecret",
+        secondAuthReq.getBody().readUtf8());
+    validateSfRequest("Bearer new bearerToken");
+    // back to the first user and its cached token
+    validateSfRequest();
+    assertEquals(5, mockWebServer.getRequestCount() - prevReqCount);
+  }
+}
@@ -0,0 +1,77 @@
+package com.tgt.crm.token.mvc;
+
+import static com.tgt.crm.token.core.MockResponseUtil.getSfAuthSuccessResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.tgt.crm.token.core.BaseIntegrationTest;
+import com.tgt.crm.token.core.SaveResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@SpringBootTest(
+    classes = {
+      SalesforceLibraryAutoConfiguration.class,
+      RestTemplateAutoConfiguration.class,
+      SimpleMeterRegistry.class
+    })
+public class MvcSObjectWriterIntegrationTest extends BaseIntegrationTest {
+
+  private static final String COLLECTIONS_URL = "/services/data/v52.0/composite/sobjects";
+  private static final String NAME = "Name";
+
+  @Autowired private SalesforceSObjectWriter writer;
+
+  @DynamicPropertySource
+  @SuppressWarnings("PMD.DefaultPackage")
+  static void registerCollectionsProperties(final DynamicPropertyRegistry registry) {
+    registry.add("salesforce.sobject-collections.batch-size", () -> "2");
+    registry.add("salesforce.sobject-collections.concurrency", () -> "1");
+  }
+
+  @Test
+  void records_insertedInAuthorizedBatches() throws InterruptedException {
+    mockWebServer.enqueue(getSfAuthSuccessResponse());
+    mockWebServer.enqueue(
+        saveResults("[{\"id\":\"001\",\"success\":true},{\"id\":\"002\",\"success\":true}]"));
+    mockWebServer.enqueue(saveResults("[{\"id\":\"003\",\"success\":true}]"));
+
+    int prevReqCount = mockWebServer.getRequestCount();
+
+    List<SaveResult<Map<String, String>>> results =
+        writer.insert("Account", List.of(Map.of(NAME, "a"), Map.of(NAME, "b"), Map.of(NAME, "c")));
+
+    assertEquals(
+        List.of("001", "002", "003"),
+        results.stream().map(SaveResult::getId).collect(Collectors.toList()));
+    assertEquals(3, mockWebServer.getRequestCount() - prevReqCount);
+    validateAuthRequest();
+    for (int i = 0; i < 2; i++) {
+      RecordedRequest collectionsReq = mockWebServer.takeRequest(TIMEOUT, TimeUnit.SECONDS);
+      assertNotNull(collectionsReq);
+      assertEquals(HttpMethod.POST.name(), collectionsReq.getMethod());
+      assertEquals(COLLECTIONS_URL, collectionsReq.getPath());
+      assertEquals("Bearer bearerToken", collectionsReq.getHeader(HttpHeaders.AUTHORIZATION));
+    }
+  }
+
+  private static MockResponse saveResults(final String body) {
+    return new MockResponse()
+        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .setBody(body);
+  }
+}